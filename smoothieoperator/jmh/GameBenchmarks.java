@@ -0,0 +1,63 @@
+package smoothieoperator.jmh;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import smoothieoperator.src.benchmarks.Benchmarks;
+import smoothieoperator.src.benchmarks.MicroBenchmark;
+
+/**
+ * Runs the operations of Benchmarks.createBenchmarks() under JMH, one per value of the name
+ * parameter, so JMH's and the JDK-only runner's results are for exactly the same code.
+ *
+ * <p>Each trial builds the operations in a forked JVM, without a display, and measures the
+ * named one; the value it returns goes to JMH's Blackhole so its work can't be discarded.
+ * RunBenchmarks supplies every name unless "-p name=..." picks some.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Djava.awt.headless=true")
+public class GameBenchmarks {
+
+    @Param({})
+    public String name;
+
+    private MicroBenchmark.Operation operation;
+
+    /**
+     * Builds the benchmarks and picks out the named one.
+     *
+     * @throws IOException if an image can't be read.
+     * @throws IllegalArgumentException if no benchmark has the name.
+     */
+    @Setup
+    public void setUp() throws IOException {
+        for (MicroBenchmark benchmark : Benchmarks.createBenchmarks()) {
+            if (benchmark.getName().equals(name)) {
+                operation = benchmark.getOperation();
+                return;
+            }
+        }
+        throw new IllegalArgumentException("no benchmark named " + name);
+    }
+
+    @Benchmark
+    public int run() {
+        return operation.run();
+    }
+}
@@ -0,0 +1,55 @@
+package smoothieoperator.jmh;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import smoothieoperator.src.benchmarks.Benchmarks;
+import smoothieoperator.src.benchmarks.MicroBenchmark;
+
+/**
+ * Runs GameBenchmarks under JMH with its GC profiler, which reports bytes allocated per
+ * operation (gc.alloc.rate.norm) alongside each score. The main class of the benchmarks.jar
+ * that "mvn -P jmh package" builds.
+ *
+ * <p>Usage (from the folder containing smoothieoperator/): java -jar target/benchmarks.jar
+ * [JMH options]
+ *
+ * <p>Takes JMH's usual options, such as "-f 1 -wi 3 -i 3" for a quicker run or "-rf csv -rff
+ * results.csv" to save the results. Every benchmark runs unless "-p name=a,b" names some, for
+ * instance "-p name=swarm.grid.10000,entityWorld.pairs.grid.10000".
+ */
+public class RunBenchmarks {
+
+    /**
+     * Runs the benchmarks and prints JMH's results.
+     *
+     * @param args JMH command line options; see the class comment.
+     * @throws CommandLineOptionException if an option isn't one JMH knows.
+     * @throws IOException if an image can't be read.
+     * @throws RunnerException if JMH fails to run the benchmarks.
+     */
+    public static void main(String[] args)
+            throws CommandLineOptionException, IOException, RunnerException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .parent(commandLine)
+                .include(GameBenchmarks.class.getName())
+                .addProfiler(GCProfiler.class);
+        if (!commandLine.getParameter("name").hasValue()) {
+            ArrayList<String> names = new ArrayList<String>();
+            for (MicroBenchmark benchmark : Benchmarks.createBenchmarks()) {
+                names.add(benchmark.getName());
+            }
+            options.param("name", names.toArray(new String[0]));
+        }
+        new Runner(options.build()).run();
+    }
+}
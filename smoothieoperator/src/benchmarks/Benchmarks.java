@@ -0,0 +1,560 @@
+package smoothieoperator.src.benchmarks;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+import smoothieoperator.src.gameSprites.*;
+import smoothieoperator.src.main.GamePanel;
+import smoothieoperator.src.main.KeyHandler;
+import smoothieoperator.src.simulation.ProjectileBatch;
+import smoothieoperator.src.simulation.ProjectileState;
+import smoothieoperator.src.simulation.RoundInput;
+import smoothieoperator.src.simulation.RoundSettings;
+import smoothieoperator.src.simulation.RoundSimulation;
+import smoothieoperator.src.spriteEssentials.EntityWorld;
+import smoothieoperator.src.spriteEssentials.HitBox;
+import smoothieoperator.src.spriteEssentials.ImageAtlas;
+import smoothieoperator.src.spriteEssentials.LayerCache;
+import smoothieoperator.src.spriteEssentials.Sprite;
+import smoothieoperator.src.spriteEssentials.SpriteList;
+
+/**
+ * Measures the game's hot paths with MicroBenchmark, using sprites built from the real images
+ * in the media folder: collision checks, projectile physics, cannon barrel rotation, drawing a
+ * full frame of sprites, and stepping the RoundSimulation. Frames are drawn three ways: from
+ * the images as ImageIO decodes them, from images converted with ImageAtlas.toCompatible() as
+ * the game loads them, and from those with the Background and Wall cached in VolatileImages.
+ * The layered frame draws the Background, Wall, PowerBar and Lives from one LayerCache, as
+ * GamePanel does.
+ * The swarm benchmarks move 10, 1,000 and 10,000 small sprites and find every colliding
+ * pair, with and without the spatial index, as Sprites in a SpriteList and as entities in an
+ * EntityWorld. The projectile engine benchmarks move 4,096 projectiles a tick, as
+ * ProjectileState objects and as one ProjectileBatch. The particle system benchmarks update
+ * and draw 20,000 particles of juice. The update benchmarks move the swarms' sprites as
+ * Sprites in a SpriteList and as entities in an EntityWorld.
+ *
+ * <p>Usage (from the folder containing smoothieoperator/, so the media folder is on the
+ * classpath): java -Djava.awt.headless=true smoothieoperator.src.benchmarks.Benchmarks
+ * [--csv results.csv] [name-filter]
+ *
+ * <p>Only benchmarks whose names contain the filter are run. Results are printed as operations
+ * per second and bytes allocated per operation; --csv also writes them to a file so runs from
+ * different builds can be compared.
+ *
+ * <p>This runner needs nothing but the JDK, for a quick look. It runs everything in one JVM
+ * and its error is half the spread of its iterations, so for numbers to compare or publish,
+ * run the same benchmarks under JMH, which forks, uses confidence intervals and profiles
+ * allocation; see smoothieoperator.jmh.RunBenchmarks.
+ */
+public class Benchmarks {
+
+    private static final String IMAGES = "/smoothieoperator/src/media/images/";
+    private static final String SOUNDS = "/smoothieoperator/src/media/sounds/";
+    private static final int CROWD_SIZE = 256; // projectiles in the broadphase benchmarks
+    private static final int[] SWARM_SIZES = {10, 1000, 10000};
+    private static final int BRUTE_FORCE_LIMIT = 1000; // checking every pair of more is too slow
+    private static final int VOLLEY_SIZE = 4096; // projectiles in the projectile engine benchmarks
+    private static final int VOLLEY_TICKS = 200; // ticks each volley flies before the next
+    private static final int SPRAY_SIZE = 20000; // particles in the particle system benchmarks
+    private static final int SPRAY_TICKS = 30; // ticks each spray flies before the next
+
+    /**
+     * A small solid Sprite that drifts across the screen, bouncing off its edges.
+     */
+    private static class Drifter extends Sprite {
+        private int dx;
+        private int dy;
+
+        private Drifter(int x, int y, int dx, int dy, BufferedImage image) {
+            super(x, y, image);
+            this.dx = dx;
+            this.dy = dy;
+            this.solid = true;
+        }
+
+        @Override
+        public void update() {
+            if (x + dx < 0 || x + dx + getWidth() > GamePanel.SCREEN_WIDTH) {
+                dx = -dx;
+            }
+            if (y + dy < 0 || y + dy + getHeight() > GamePanel.SCREEN_HEIGHT) {
+                dy = -dy;
+            }
+            x += dx;
+            y += dy;
+        }
+    }
+
+    private Benchmarks() {}
+
+    /**
+     * Builds the sprites, runs the matching benchmarks and prints (and optionally saves)
+     * their results.
+     *
+     * @param args command line options; see the class comment.
+     * @throws IOException if an image can't be read or the CSV file can't be written.
+     */
+    public static void main(String[] args) throws IOException {
+        String filter = "";
+        String csvFile = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--csv") && i + 1 < args.length) {
+                csvFile = args[++i];
+            } else {
+                filter = args[i];
+            }
+        }
+
+        ArrayList<MicroBenchmark> benchmarks = new ArrayList<MicroBenchmark>();
+        for (MicroBenchmark benchmark : createBenchmarks()) {
+            if (benchmark.getName().contains(filter)) {
+                benchmarks.add(benchmark);
+            }
+        }
+
+        System.out.printf("%-32s %16s    %-14s %10s%n", "Benchmark", "ops/s", "error", "B/op");
+        for (MicroBenchmark benchmark : benchmarks) {
+            benchmark.run();
+            System.out.println(benchmark);
+        }
+
+        if (csvFile != null) {
+            PrintWriter writer = new PrintWriter(new FileWriter(csvFile));
+            try {
+                writer.println("benchmark,ops_per_s,error,bytes_per_op");
+                for (MicroBenchmark benchmark : benchmarks) {
+                    writer.printf("%s,%.1f,%.1f,%.1f%n", benchmark.getName(),
+                            benchmark.getOpsPerSecond(), benchmark.getError(),
+                            benchmark.getBytesPerOp());
+                }
+            } finally {
+                writer.close();
+            }
+        }
+    }
+
+    /**
+     * Builds sprites from the media folder and returns a benchmark for each hot path. The JMH
+     * benchmarks in smoothieoperator/jmh run these same operations.
+     *
+     * @return the benchmarks, in the order they should run.
+     * @throws IOException if an image can't be read.
+     */
+    public static ArrayList<MicroBenchmark> createBenchmarks() throws IOException {
+        KeyHandler keyH = new KeyHandler(); // no keys pressed
+
+        ArrayList<BufferedImage> flying =
+                loadImages("projectiles/banana/flying/banana-%d.png", 1, 4);
+        ArrayList<BufferedImage> splattered =
+                loadImages("projectiles/banana/splattered/banana-splat-%d.png", 1, 1);
+        final Target target = new Target(loadImages("blender/blender-%d.png", 1, 4),
+                SOUNDS + "splash.wav", "splash");
+        final Wall wall = new Wall(loadImage("wall/wall.png"));
+        final Background background = new Background(loadImage("background/background.png"),
+                SOUNDS + "slowsong.wav", "GameSong");
+        ArrayList<BufferedImage> powerBarImages = loadImages("powerbar/powerbar-%d.png", 0, 20);
+        final PowerBar powerBar = new PowerBar(GamePanel.TILE_SIZE / 2, GamePanel.SCREEN_HEIGHT
+                - (GamePanel.TILE_SIZE / 2 + powerBarImages.get(0).getHeight()), powerBarImages,
+                keyH);
+        final Lives lives = new Lives(GamePanel.TILE_SIZE / 2, GamePanel.TILE_SIZE / 2,
+                loadImages("lives/lives-%d.png", 0, 6), keyH, SOUNDS + "splat.wav", "loseLife");
+        BufferedImage barrel = loadImage("cannon/main-cannon.png");
+        final Cannon cannon = new Cannon(GamePanel.TILE_SIZE / 2 + powerBar.getWidth(),
+                GamePanel.SCREEN_HEIGHT - (GamePanel.TILE_SIZE + barrel.getHeight()), barrel,
+                loadImage("cannon/wheel-size-2.png"), keyH, SOUNDS + "boom.wav", "boom");
+
+        // a projectile overlapping the target, so collision checks run to completion
+        target.setPosition(GamePanel.SCREEN_WIDTH * 3 / 4, GamePanel.SCREEN_HEIGHT / 3);
+        final Projectile hitting = new Projectile(target.getX() + target.getWidth() / 4,
+                target.getY(), 45, 10, flying, splattered, 5);
+        final Projectile flyer = new Projectile(cannon.getLaunchX(), cannon.getLaunchY(),
+                cannon.getAngle(), 10, flying, splattered, 5);
+
+        // many projectiles scattered over the screen, for the broadphase queries
+        final SpriteList crowd = new SpriteList();
+        Random random = new Random(1);
+        for (int i = 0; i < CROWD_SIZE; i++) {
+            crowd.add(new Projectile(random.nextInt(GamePanel.SCREEN_WIDTH),
+                    random.nextInt(GamePanel.SCREEN_HEIGHT), 45, 10, flying, splattered, 5));
+        }
+        final SpriteList crowdResults = new SpriteList();
+        final HitBox screenHalf =
+                new HitBox(0, GamePanel.SCREEN_WIDTH / 2, 0, GamePanel.SCREEN_HEIGHT);
+
+        final SpriteList frame = new SpriteList();
+        frame.add(background);
+        frame.add(wall);
+        frame.add(powerBar);
+        frame.add(lives);
+        frame.add(target);
+        frame.add(flyer);
+        frame.add(cannon);
+        background.setCached(false);
+        wall.setCached(false);
+        final SpriteList compatibleFrame = createFrame(false, keyH);
+        final SpriteList cachedFrame = createFrame(true, keyH);
+        final SpriteList layeredFrame = createFrame(false, keyH);
+        SpriteList staticSprites = new SpriteList();
+        for (int i = 0; i < 4; i++) { // Background, Wall, PowerBar and Lives come first
+            staticSprites.add(layeredFrame.remove(0));
+        }
+        final LayerCache staticLayer = new LayerCache(staticSprites, GamePanel.SCREEN_WIDTH,
+                GamePanel.SCREEN_HEIGHT, Color.BLACK);
+        final BufferedImage screen = new BufferedImage(GamePanel.SCREEN_WIDTH,
+                GamePanel.SCREEN_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        final Graphics2D g2 = screen.createGraphics();
+
+        final RoundSimulation simulation = new RoundSimulation(RoundSettings.defaults(), 1);
+        final RoundInput shoot = RoundInput.of(RoundInput.SHOOT | RoundInput.POWER_UP);
+
+        ArrayList<MicroBenchmark> benchmarks = new ArrayList<MicroBenchmark>();
+        benchmarks.add(new MicroBenchmark("sprite.collidesWith", new MicroBenchmark.Operation() {
+            public int run() {
+                return hitting.collidesWith(target) ? 1 : 0;
+            }
+        }));
+        benchmarks.add(new MicroBenchmark("spriteList.findCollisions",
+                new MicroBenchmark.Operation() {
+            public int run() {
+                return crowd.findCollisions(target, crowdResults);
+            }
+        }));
+        benchmarks.add(new MicroBenchmark("spriteList.findIntersecting",
+                new MicroBenchmark.Operation() {
+            public int run() {
+                return crowd.findIntersecting(screenHalf, crowdResults);
+            }
+        }));
+        benchmarks.add(new MicroBenchmark("projectile.update", new MicroBenchmark.Operation() {
+            public int run() {
+                flyer.update();
+                return flyer.getX();
+            }
+        }));
+        benchmarks.add(new MicroBenchmark("cannon.update", new MicroBenchmark.Operation() {
+            public int run() {
+                cannon.update(); // no keys pressed, so the angle doesn't change
+                return cannon.getLaunchX();
+            }
+        }));
+        benchmarks.add(new MicroBenchmark("cannon.sweep", new MicroBenchmark.Operation() {
+            private int angle;
+
+            public int run() {
+                angle = (angle + 1) % 91; // every angle, like holding an arrow key
+                cannon.setAngle(angle);
+                return cannon.getLaunchX();
+            }
+        }));
+        benchmarks.add(new MicroBenchmark("spriteList.draw", new MicroBenchmark.Operation() {
+            public int run() {
+                frame.draw(g2);
+                return screen.getRGB(0, 0);
+            }
+        }));
+        benchmarks.add(new MicroBenchmark("spriteList.draw.compatible",
+                new MicroBenchmark.Operation() {
+            public int run() {
+                compatibleFrame.draw(g2);
+                return screen.getRGB(0, 0);
+            }
+        }));
+        benchmarks.add(new MicroBenchmark("spriteList.draw.compatible.cached",
+                new MicroBenchmark.Operation() {
+            public int run() {
+                cachedFrame.draw(g2);
+                return screen.getRGB(0, 0);
+            }
+        }));
+        benchmarks.add(new MicroBenchmark("spriteList.draw.layered",
+                new MicroBenchmark.Operation() {
+            public int run() {
+                staticLayer.draw(g2, 0); // nothing static changes between frames
+                layeredFrame.draw(g2);
+                return screen.getRGB(0, 0);
+            }
+        }));
+        benchmarks.add(new MicroBenchmark("roundSimulation.step", new MicroBenchmark.Operation() {
+            public int run() {
+                if (simulation.isRoundOver()) {
+                    simulation.reset();
+                }
+                return simulation.step(shoot);
+            }
+        }));
+        benchmarks.add(new MicroBenchmark("projectileStates.advance." + VOLLEY_SIZE,
+                new MicroBenchmark.Operation() {
+            private final ProjectileState[] volley = new ProjectileState[VOLLEY_SIZE];
+            private int ticks;
+
+            public int run() {
+                if (ticks++ % VOLLEY_TICKS == 0) { // fire again before they fly off forever
+                    for (int i = 0; i < VOLLEY_SIZE; i++) {
+                        volley[i] = new ProjectileState(0, 0, i % 91, i % 21, 0);
+                    }
+                }
+                for (ProjectileState projectile : volley) {
+                    projectile.advance();
+                }
+                return volley[VOLLEY_SIZE - 1].getX();
+            }
+        }));
+        benchmarks.add(new MicroBenchmark("projectileBatch.advance." + VOLLEY_SIZE,
+                new MicroBenchmark.Operation() {
+            private final ProjectileBatch volley = new ProjectileBatch(VOLLEY_SIZE, 0, 0);
+            private int ticks;
+
+            public int run() {
+                if (ticks++ % VOLLEY_TICKS == 0) {
+                    volley.clear();
+                    for (int i = 0; i < VOLLEY_SIZE; i++) {
+                        volley.launch(0, 0, i % 91, i % 21, 0);
+                    }
+                }
+                volley.advance();
+                return volley.getX(VOLLEY_SIZE - 1);
+            }
+        }));
+        final ParticleSystem juice = new ParticleSystem(SPRAY_SIZE, 1);
+        benchmarks.add(new MicroBenchmark("particleSystem.update." + SPRAY_SIZE,
+                new MicroBenchmark.Operation() {
+            private int ticks;
+
+            public int run() {
+                if (ticks++ % SPRAY_TICKS == 0) { // spray again before the last spray fades
+                    spray(juice);
+                }
+                juice.update();
+                return juice.getCapacity();
+            }
+        }));
+        benchmarks.add(new MicroBenchmark("particleSystem.draw." + SPRAY_SIZE,
+                new MicroBenchmark.Operation() {
+            private int ticks;
+
+            public int run() {
+                if (ticks++ % SPRAY_TICKS == 0) {
+                    spray(juice);
+                }
+                juice.update(); // or there's nothing new to draw
+                juice.draw(g2);
+                return juice.getCapacity();
+            }
+        }));
+        for (int size : SWARM_SIZES) {
+            benchmarks.add(swarmBenchmark("swarm.grid." + size, size, true));
+            if (size <= BRUTE_FORCE_LIMIT) {
+                benchmarks.add(swarmBenchmark("swarm.bruteForce." + size, size, false));
+            }
+            benchmarks.add(entitySwarmBenchmark("entityWorld.pairs.grid." + size, size, true));
+            if (size <= BRUTE_FORCE_LIMIT) {
+                benchmarks.add(entitySwarmBenchmark("entityWorld.pairs.bruteForce." + size, size,
+                        false));
+            }
+            benchmarks.add(moveBenchmark("spriteList.update." + size, size, false));
+            benchmarks.add(moveBenchmark("entityWorld.update." + size, size, true));
+        }
+        return benchmarks;
+    }
+
+    /**
+     * Replaces every particle with a spray of SPRAY_SIZE from the middle of the screen, in
+     * every direction, lasting longer than SPRAY_TICKS.
+     */
+    private static void spray(ParticleSystem particles) {
+        particles.clear();
+        particles.emit(GamePanel.SCREEN_WIDTH / 2, GamePanel.SCREEN_HEIGHT / 2, SPRAY_SIZE, 90,
+                360, 6, 2 * SPRAY_TICKS, 0xffc000);
+    }
+
+    /**
+     * Builds a frame of the sprites GamePanel draws, from images converted with
+     * ImageAtlas.toCompatible(), with the Background and Wall cached in VolatileImages if
+     * cached is true.
+     */
+    private static SpriteList createFrame(boolean cached, KeyHandler keyH) throws IOException {
+        Background background = new Background(
+                ImageAtlas.toCompatible(loadImage("background/background.png")),
+                SOUNDS + "slowsong.wav", "GameSong");
+        background.setCached(cached);
+        Wall wall = new Wall(ImageAtlas.toCompatible(loadImage("wall/wall.png")));
+        wall.setCached(cached);
+        ArrayList<BufferedImage> powerBarImages =
+                toCompatible(loadImages("powerbar/powerbar-%d.png", 0, 20));
+        PowerBar powerBar = new PowerBar(GamePanel.TILE_SIZE / 2, GamePanel.SCREEN_HEIGHT
+                - (GamePanel.TILE_SIZE / 2 + powerBarImages.get(0).getHeight()), powerBarImages,
+                keyH);
+        Lives lives = new Lives(GamePanel.TILE_SIZE / 2, GamePanel.TILE_SIZE / 2,
+                toCompatible(loadImages("lives/lives-%d.png", 0, 6)), keyH,
+                SOUNDS + "splat.wav", "loseLife");
+        Target target = new Target(toCompatible(loadImages("blender/blender-%d.png", 1, 4)),
+                SOUNDS + "splash.wav", "splash");
+        target.setPosition(GamePanel.SCREEN_WIDTH * 3 / 4, GamePanel.SCREEN_HEIGHT / 3);
+        BufferedImage barrel = ImageAtlas.toCompatible(loadImage("cannon/main-cannon.png"));
+        Cannon cannon = new Cannon(GamePanel.TILE_SIZE / 2 + powerBar.getWidth(),
+                GamePanel.SCREEN_HEIGHT - (GamePanel.TILE_SIZE + barrel.getHeight()), barrel,
+                ImageAtlas.toCompatible(loadImage("cannon/wheel-size-2.png")), keyH,
+                SOUNDS + "boom.wav", "boom");
+        Projectile flyer = new Projectile(cannon.getLaunchX(), cannon.getLaunchY(),
+                cannon.getAngle(), 10,
+                toCompatible(loadImages("projectiles/banana/flying/banana-%d.png", 1, 4)),
+                toCompatible(loadImages("projectiles/banana/splattered/banana-splat-%d.png", 1, 1)),
+                5);
+
+        SpriteList frame = new SpriteList();
+        frame.add(background);
+        frame.add(wall);
+        frame.add(powerBar);
+        frame.add(lives);
+        frame.add(target);
+        frame.add(flyer);
+        frame.add(cannon);
+        return frame;
+    }
+
+    /**
+     * Returns a benchmark that moves size Drifters one tick and finds every colliding pair,
+     * using a spatial index if indexed is true.
+     */
+    private static MicroBenchmark swarmBenchmark(String name, int size, boolean indexed) {
+        BufferedImage image = new BufferedImage(GamePanel.TILE_SIZE / 2, GamePanel.TILE_SIZE / 2,
+                BufferedImage.TYPE_INT_ARGB);
+        final SpriteList swarm = new SpriteList();
+        Random random = new Random(size);
+        for (int i = 0; i < size; i++) {
+            swarm.add(new Drifter(random.nextInt(GamePanel.SCREEN_WIDTH - image.getWidth()),
+                    random.nextInt(GamePanel.SCREEN_HEIGHT - image.getHeight()),
+                    random.nextInt(7) - 3, random.nextInt(7) - 3, image));
+        }
+        if (indexed) {
+            swarm.enableSpatialIndex();
+        }
+        final SpriteList pairs = new SpriteList();
+        return new MicroBenchmark(name, new MicroBenchmark.Operation() {
+            public int run() {
+                swarm.update();
+                return swarm.findCollidingPairs(pairs);
+            }
+        });
+    }
+
+    /**
+     * Returns a benchmark that moves size entities one tick and finds every colliding pair,
+     * like swarmBenchmark() with an EntityWorld, using its spatial index if indexed is true.
+     */
+    private static MicroBenchmark entitySwarmBenchmark(String name, int size, boolean indexed) {
+        final EntityWorld world = new EntityWorld();
+        world.setBounds(GamePanel.SCREEN_WIDTH, GamePanel.SCREEN_HEIGHT);
+        addDrifters(world, size);
+        if (indexed) {
+            world.enableSpatialIndex();
+        }
+        final int[] pairs = new int[16 * size]; // the count is exact even if more collide
+        return new MicroBenchmark(name, new MicroBenchmark.Operation() {
+            public int run() {
+                world.update();
+                return world.findCollidingPairs(pairs);
+            }
+        });
+    }
+
+    /**
+     * Adds size entities with a POSITION, VELOCITY and HIT_BOX to the world, placed and moving
+     * like the Drifters of a swarm of the same size.
+     */
+    private static void addDrifters(EntityWorld world, int size) {
+        int width = GamePanel.TILE_SIZE / 2;
+        int height = GamePanel.TILE_SIZE / 2;
+        Random random = new Random(size); // the same swarm as the Sprites'
+        for (int i = 0; i < size; i++) {
+            int x = random.nextInt(GamePanel.SCREEN_WIDTH - width);
+            int y = random.nextInt(GamePanel.SCREEN_HEIGHT - height);
+            int entity = world.create();
+            world.setPosition(entity, x, y);
+            world.setVelocity(entity, random.nextInt(7) - 3, random.nextInt(7) - 3);
+            world.setHitBox(entity, 0, 0, width, height);
+        }
+    }
+
+    /**
+     * Creates a benchmark that moves the given number of small solid objects around the
+     * screen, bouncing off its edges, as Drifters in a SpriteList or as entities with a
+     * POSITION, VELOCITY and HIT_BOX in an EntityWorld.
+     */
+    private static MicroBenchmark moveBenchmark(String name, int size, boolean entities) {
+        BufferedImage image = new BufferedImage(GamePanel.TILE_SIZE / 2, GamePanel.TILE_SIZE / 2,
+                BufferedImage.TYPE_INT_ARGB);
+        final SpriteList swarm = new SpriteList();
+        final EntityWorld world = new EntityWorld();
+        world.setBounds(GamePanel.SCREEN_WIDTH, GamePanel.SCREEN_HEIGHT);
+        if (entities) {
+            addDrifters(world, size);
+        } else {
+            Random random = new Random(size); // the same swarm either way
+            for (int i = 0; i < size; i++) {
+                int x = random.nextInt(GamePanel.SCREEN_WIDTH - image.getWidth());
+                int y = random.nextInt(GamePanel.SCREEN_HEIGHT - image.getHeight());
+                int dx = random.nextInt(7) - 3;
+                int dy = random.nextInt(7) - 3;
+                swarm.add(new Drifter(x, y, dx, dy, image));
+            }
+        }
+        return new MicroBenchmark(name, new MicroBenchmark.Operation() {
+            public int run() {
+                if (entities) {
+                    world.update();
+                    return world.size();
+                }
+                swarm.update();
+                return swarm.size();
+            }
+        });
+    }
+
+    /**
+     * Reads one image from the media/images folder.
+     */
+    private static BufferedImage loadImage(String path) throws IOException {
+        InputStream inputStream = Benchmarks.class.getResourceAsStream(IMAGES + path);
+        if (inputStream == null) {
+            throw new IOException("Couldn't find image file: " + IMAGES + path);
+        }
+        try {
+            return ImageIO.read(inputStream);
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    /**
+     * Converts each image with ImageAtlas.toCompatible().
+     */
+    private static ArrayList<BufferedImage> toCompatible(ArrayList<BufferedImage> images) {
+        ArrayList<BufferedImage> compatible = new ArrayList<BufferedImage>();
+        for (BufferedImage image : images) {
+            compatible.add(ImageAtlas.toCompatible(image));
+        }
+        return compatible;
+    }
+
+    /**
+     * Reads numbered images from the media/images folder; pathFormat takes the number.
+     */
+    private static ArrayList<BufferedImage> loadImages(String pathFormat, int first, int last)
+            throws IOException {
+        ArrayList<BufferedImage> images = new ArrayList<BufferedImage>();
+        for (int i = first; i <= last; i++) {
+            images.add(loadImage(String.format(pathFormat, i)));
+        }
+        return images;
+    }
+}
@@ -0,0 +1,154 @@
+package smoothieoperator.src.benchmarks;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * A small benchmark harness: warms an operation up, then times it over several measurement
+ * iterations and reports its throughput and how many bytes it allocates per call. Operations
+ * return an int that is folded into a field so the JIT can't discard their work.
+ */
+public class MicroBenchmark {
+
+    /**
+     * One call of the code being measured.
+     */
+    public interface Operation {
+
+        /**
+         * Runs the code being measured once.
+         *
+         * @return any value computed, so the work can't be optimized away.
+         */
+        int run();
+    }
+
+    public static final int WARMUP_ITERATIONS = 5;
+    public static final int MEASUREMENT_ITERATIONS = 5;
+    public static final long WARMUP_NANOS = 200000000L;
+    public static final long MEASUREMENT_NANOS = 500000000L;
+    private static final int BATCH_SIZE = 64; // calls between clock reads
+
+    private final String name;
+    private final Operation operation;
+    private double opsPerSecond;
+    private double error; // half-width of the range of iteration scores
+    private double bytesPerOp;
+    private int sink;
+
+    /**
+     * Creates a new MicroBenchmark for the given operation.
+     *
+     * @param name name to report the results under.
+     * @param operation the code to measure.
+     * @throws IllegalArgumentException if either parameter is null.
+     */
+    public MicroBenchmark(String name, Operation operation) {
+        if (name == null) {
+            throw new IllegalArgumentException("name cannot be null.");
+        }
+        if (operation == null) {
+            throw new IllegalArgumentException("operation cannot be null.");
+        }
+        this.name = name;
+        this.operation = operation;
+        this.bytesPerOp = Double.NaN;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public Operation getOperation() {
+        return this.operation;
+    }
+
+    public double getOpsPerSecond() {
+        return this.opsPerSecond;
+    }
+
+    public double getError() {
+        return this.error;
+    }
+
+    /**
+     * Returns the average number of bytes allocated per call, or NaN if this JVM can't
+     * measure per-thread allocation.
+     *
+     * @return bytes allocated per operation.
+     */
+    public double getBytesPerOp() {
+        return this.bytesPerOp;
+    }
+
+    /**
+     * Warms up and then measures the operation, storing the results in this MicroBenchmark.
+     */
+    public void run() {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            iteration(WARMUP_NANOS);
+        }
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        com.sun.management.ThreadMXBean allocations = null;
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            allocations = (com.sun.management.ThreadMXBean) threads;
+            if (!allocations.isThreadAllocatedMemorySupported()) {
+                allocations = null;
+            }
+        }
+        long threadId = Thread.currentThread().getId();
+
+        double min = Double.MAX_VALUE;
+        double max = 0;
+        double total = 0;
+        long totalOps = 0;
+        long allocatedBefore = allocations == null ? 0
+                : allocations.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASUREMENT_ITERATIONS; i++) {
+            long start = System.nanoTime();
+            long ops = iteration(MEASUREMENT_NANOS);
+            double score = ops / ((System.nanoTime() - start) / 1e9);
+            min = Math.min(min, score);
+            max = Math.max(max, score);
+            total += score;
+            totalOps += ops;
+        }
+        if (allocations != null) {
+            long allocated = allocations.getThreadAllocatedBytes(threadId) - allocatedBefore;
+            this.bytesPerOp = (double) allocated / totalOps;
+        }
+        this.opsPerSecond = total / MEASUREMENT_ITERATIONS;
+        this.error = (max - min) / 2;
+    }
+
+    /**
+     * Calls the operation in batches until the given time has passed.
+     *
+     * @return the number of calls made.
+     */
+    private long iteration(long nanos) {
+        long deadline = System.nanoTime() + nanos;
+        long ops = 0;
+        int result = 0;
+        do {
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                result += operation.run();
+            }
+            ops += BATCH_SIZE;
+        } while (System.nanoTime() < deadline);
+        sink += result;
+        return ops;
+    }
+
+    /**
+     * Returns this benchmark's results as one line of a table.
+     *
+     * @return the formatted results.
+     */
+    @Override
+    public String toString() {
+        return String.format("%-32s %16.1f +- %-14.1f %10.1f", name, opsPerSecond, error,
+                bytesPerOp);
+    }
+}
@@ -0,0 +1,182 @@
+package smoothieoperator.src.gameSprites;
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+
+import smoothieoperator.src.main.GamePanel;
+import smoothieoperator.src.simulation.TrajectoryTable;
+import smoothieoperator.src.spriteEssentials.*;
+
+/**
+ * Represents a dotted arc showing where a shot at the cannon's current angle and power will
+ * fly and land, looked up in a TrajectoryTable.
+ *
+ * <p>The arc is drawn into an image only when the angle or power changes, not every frame.
+ * Two screen-sized images take turns, so a changed arc is always a different image and
+ * dirty-rectangle rendering notices it without either image being allocated again.
+ */
+public class AimPreview extends Sprite {
+
+    public static final int DOT_SPACING = 3; // points of the path between dots
+    private static final int DOT_SIZE = 6;
+    private static final int LANDING_SIZE = 14;
+    private static final Color DOT_COLOR = new Color(255, 255, 255, 200);
+    private static final Color OUTLINE_COLOR = new Color(0, 0, 0, 120);
+    private static final Rectangle SCREEN =
+            new Rectangle(0, 0, GamePanel.SCREEN_WIDTH, GamePanel.SCREEN_HEIGHT);
+
+    private final TrajectoryTable trajectories;
+    private final BufferedImage[] arcs; // take turns; the one not showing is drawn into next
+    private final Rectangle[] arcBounds; // the part of each image the arc is drawn in
+    private int current;
+    private double angle;
+    private int power;
+    private boolean showing;
+
+    /**
+     * Creates a hidden AimPreview showing flights from the given TrajectoryTable.
+     *
+     * @param trajectories the flights to show.
+     * @throws IllegalArgumentException if trajectories is null.
+     */
+    public AimPreview(TrajectoryTable trajectories) {
+        if (trajectories == null) {
+            throw new IllegalArgumentException("trajectories parameter cannot be null.");
+        }
+        this.trajectories = trajectories;
+        this.arcs = new BufferedImage[2];
+        this.arcBounds = new Rectangle[2];
+        for (int i = 0; i < arcs.length; i++) {
+            arcs[i] = new BufferedImage(GamePanel.SCREEN_WIDTH, GamePanel.SCREEN_HEIGHT,
+                    BufferedImage.TYPE_INT_ARGB);
+            arcBounds[i] = new Rectangle();
+        }
+        this.angle = Double.NaN; // so the first aim() draws
+        this.power = -1;
+        this.showing = false;
+        this.solid = false;
+    }
+
+    /**
+     * Points the arc at the flight for the given angle and power, drawing it again only if
+     * either changed.
+     *
+     * @param angle the cannon's angle.
+     * @param power the power setting.
+     * @throws IllegalArgumentException if angle or power is not a setting the cannon can have.
+     */
+    public void aim(double angle, int power) {
+        if (angle == this.angle && power == this.power) {
+            return;
+        }
+        int next = 1 - current;
+        drawArc(arcs[next], arcBounds[next], angle, power);
+        this.current = next;
+        this.angle = angle;
+        this.power = power;
+    }
+
+    /**
+     * Sets whether the arc is drawn.
+     *
+     * @param showing true to draw the arc.
+     */
+    public void setShowing(boolean showing) {
+        this.showing = showing;
+    }
+
+    public boolean isShowing() {
+        return this.showing;
+    }
+
+    /**
+     * Fills in the part of the screen the arc covers, if it's showing.
+     */
+    @Override
+    public boolean fillDrawBounds(Rectangle bounds) {
+        if (!showing || arcBounds[current].isEmpty()) {
+            return false;
+        }
+        bounds.setBounds(arcBounds[current]);
+        return true;
+    }
+
+    /**
+     * Returns the image holding the current arc, or null while hidden.
+     */
+    @Override
+    public BufferedImage getCurrentImage() {
+        return showing ? arcs[current] : null;
+    }
+
+    /**
+     * Draws the arc only if it's showing.
+     */
+    @Override
+    public void draw(Graphics2D g2) {
+        if (showing) {
+            Rectangle b = arcBounds[current];
+            g2.drawImage(arcs[current], b.x, b.y, b.x + b.width, b.y + b.height,
+                    b.x, b.y, b.x + b.width, b.y + b.height, null);
+        }
+    }
+
+    /**
+     * Erases the arc last drawn into the given image and draws the flight for the given angle
+     * and power in its place: a dot every DOT_SPACING points and a ring where it lands, each
+     * centered on the projectile.
+     */
+    private void drawArc(BufferedImage arc, Rectangle bounds, double angle, int power) {
+        int length = trajectories.getPathLength(angle, power); // checks angle and power
+        int centerX = trajectories.getSettings().getProjectileWidth() / 2;
+        int centerY = trajectories.getSettings().getProjectileHeight() / 2;
+        Graphics2D g2 = arc.createGraphics();
+        try {
+            g2.setComposite(AlphaComposite.Clear);
+            g2.fillRect(bounds.x, bounds.y, bounds.width, bounds.height);
+            g2.setComposite(AlphaComposite.SrcOver);
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                    RenderingHints.VALUE_ANTIALIAS_ON);
+            bounds.setBounds(0, 0, 0, 0);
+            for (int point = 0; point < length - 1; point += DOT_SPACING) {
+                int x = trajectories.getPathX(angle, power, point) + centerX - DOT_SIZE / 2;
+                int y = trajectories.getPathY(angle, power, point) + centerY - DOT_SIZE / 2;
+                g2.setColor(DOT_COLOR);
+                g2.fillOval(x, y, DOT_SIZE, DOT_SIZE);
+                g2.setColor(OUTLINE_COLOR);
+                g2.drawOval(x, y, DOT_SIZE, DOT_SIZE);
+                include(bounds, x, y, DOT_SIZE + 1);
+            }
+            int x = trajectories.getLandingX(angle, power) + centerX - LANDING_SIZE / 2;
+            int y = trajectories.getLandingY(angle, power) + centerY - LANDING_SIZE / 2;
+            g2.setColor(OUTLINE_COLOR);
+            g2.drawOval(x - 1, y - 1, LANDING_SIZE + 2, LANDING_SIZE + 2);
+            g2.setColor(DOT_COLOR);
+            g2.drawOval(x, y, LANDING_SIZE, LANDING_SIZE);
+            include(bounds, x - 1, y - 1, LANDING_SIZE + 4);
+        } finally {
+            g2.dispose();
+        }
+        Rectangle.intersect(bounds, SCREEN, bounds);
+        if (bounds.isEmpty()) { // landed off screen and nothing to show
+            bounds.setBounds(0, 0, 0, 0);
+        }
+    }
+
+    /**
+     * Grows bounds to cover the square of the given size at (x, y), or sets it to the square
+     * if bounds is empty.
+     */
+    private static void include(Rectangle bounds, int x, int y, int size) {
+        if (bounds.isEmpty()) {
+            bounds.setBounds(x, y, size, size);
+        } else {
+            bounds.add(x, y);
+            bounds.add(x + size, y + size);
+        }
+    }
+}
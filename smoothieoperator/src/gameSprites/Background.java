@@ -17,11 +17,13 @@ import smoothieoperator.src.spriteEssentials.*;
  */
 public class Background extends Sprite {
 
+    private VolatileLayer layer;
+
     /**
     * Creates the game's background from a single image. Coordinates (0, 0) 
     * are top left of the game screen. The background is stationary and is 
     * set to solid by default.
-    * Creates a Sound object associated with a Background.
+    * Creates a streamed Sound object associated with a Background.
     *
     * @param image the background image, which should have same proportions 
     *        and pixel height/width as the game screen
@@ -51,9 +53,10 @@ public class Background extends Sprite {
         this.images = new ArrayList<BufferedImage>();
         this.images.add(image);
         this.solid = true;
+        this.layer = new VolatileLayer(image); // never changes, so keep it in video memory
         
         try {
-            this.sounds.put(songName, new Sound(musicFile));
+            this.sounds.put(songName, Sound.stream(musicFile));
         } catch (NullPointerException e) {
             e.printStackTrace();
         }
@@ -64,21 +67,31 @@ public class Background extends Sprite {
      * images can collide with it.
      */
     @Override
-    public HitBox getHitBox() {
+    public boolean fillHitBox(HitBox box) {
         if (!isSolid()) {
-            return null;
+            return false;
         } else {
-            // extend beyond the bottom of the screen to catch fast objects
-            return new HitBox(0, GamePanel.SCREEN_WIDTH, 
-                    GamePanel.SCREEN_HEIGHT - GamePanel.TILE_SIZE, 10 * GamePanel.SCREEN_HEIGHT);
+            // projectiles are swept between positions, so fast ones can't skip past the ground
+            box.set(0, GamePanel.SCREEN_WIDTH, 
+                    GamePanel.SCREEN_HEIGHT - GamePanel.TILE_SIZE, GamePanel.SCREEN_HEIGHT);
+            return true;
         }        
     }
 
     /**
-     * Draw this Background's single image to the screen.
+     * Sets whether to draw this Background from a copy cached in video memory.
+     * 
+     * @param cached true to cache the image; the default.
+     */
+    public void setCached(boolean cached) {
+        this.layer.setEnabled(cached);
+    }
+
+    /**
+     * Draws this Background's single image to the screen, from the cached copy if there is one.
      */
     @Override
     public void draw(Graphics2D g2) {
-        g2.drawImage(images.get(0), null, this.getX(), this.getY());
+        layer.draw(g2, this.getX(), this.getY());
     }    
 }
@@ -3,11 +3,14 @@ package smoothieoperator.src.gameSprites;
 import java.awt.image.BufferedImage;
 
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.Transparency;
 import java.awt.geom.AffineTransform;
 import java.awt.image.AffineTransformOp;
 
 import smoothieoperator.src.spriteEssentials.*;
 import smoothieoperator.src.main.*;
+import smoothieoperator.src.simulation.Ballistics;
 
 /**
  * Represents a cannon in the game. A cannon consists of a barrel and a wheel.
@@ -17,8 +20,8 @@ import smoothieoperator.src.main.*;
 public class Cannon extends Sprite {
 
     // Angle in degrees
-    public static final double MAX_CARTESIAN_ANGLE = 90;
-    public static final double MIN_CARTESIAN_ANGLE = 0;
+    public static final double MAX_CARTESIAN_ANGLE = Ballistics.MAX_ANGLE;
+    public static final double MIN_CARTESIAN_ANGLE = Ballistics.MIN_ANGLE;
     // Image starts facing North, so the angle to rotate the image = cartesianAngle - ANGLE_OFFSET
     public static final double ANGLE_OFFSET = 90;
     private double cartesianAngle; // East is 0, North is 90
@@ -26,6 +29,9 @@ public class Cannon extends Sprite {
     private BufferedImage wheel;
     private BufferedImage barrel; // Original barrel image
     private BufferedImage barrelAnimationFrame; // Rotated image for current animation frame
+    // Rotated barrels for each whole-degree angle, filled in as the cannon first points there
+    private BufferedImage[] barrelFrames;
+    private double frameAngle; // Angle of barrelAnimationFrame; NaN until the first rotation
 
     // Pivot points relative to upper left corner of the image
     private int barrelPivotX;
@@ -95,9 +101,9 @@ public class Cannon extends Sprite {
 
         this.barrel = barrel;
         this.wheel = wheel;
-        int maxDim = Math.max(this.barrel.getWidth(), this.barrel.getHeight());
-        // Make large enough to not cut off any of the rotated image
-        this.barrelAnimationFrame = new BufferedImage(maxDim, maxDim, this.barrel.getType());
+        this.barrelFrames =
+                new BufferedImage[(int) (MAX_CARTESIAN_ANGLE - MIN_CARTESIAN_ANGLE) + 1];
+        this.frameAngle = Double.NaN;
   
         // calculate wheel offset and pivot points for wheel and barrel
         wheelOffsetY = this.barrel.getHeight() - this.wheel.getHeight();
@@ -116,14 +122,7 @@ public class Cannon extends Sprite {
      * @return an x-coordinate near the tip of the barrel's spout.
     */
     public int getLaunchX() {
-        int bellyX = x + barrelPivotX;
-        int spoutX = (int) ((barrelPivotY - GamePanel.TILE_SIZE) * Math.cos(
-                Math.toRadians(cartesianAngle)));
-        // Since (x, y) coords for projectile are in the upper left, 
-        // shift this left a bit when facing North.
-        int offsetX = (int) (((GamePanel.TILE_SIZE / 2) * GamePanel.SCALE)
-                * Math.sin(Math.toRadians(cartesianAngle)));
-        return bellyX + spoutX - offsetX;
+        return Ballistics.launchX(x, barrelPivotX, barrelPivotY, cartesianAngle);
     }
 
     /**
@@ -133,13 +132,27 @@ public class Cannon extends Sprite {
      * @return a y-coordinate near the tip of the barrel's spout.
     */
     public int getLaunchY() {
-        int bellyY = y + barrelPivotY;
-        int spoutY = (int) ((barrelPivotY) * Math.sin(Math.toRadians(cartesianAngle)));
-        // Since (x, y) coords for projectile are in the upper left, 
-        // shift this up a bit when facing East.
-        int offsetY = (int) (((GamePanel.TILE_SIZE / 2) * GamePanel.SCALE)
-                * Math.cos(Math.toRadians(cartesianAngle)));
-        return bellyY - spoutY - offsetY;
+        return Ballistics.launchY(y, barrelPivotY, cartesianAngle);
+    }
+
+    /**
+     * Returns the x-coordinate of the barrel's pivot point, relative to the left of the
+     * barrel image.
+     * 
+     * @return the barrel's pivot x.
+     */
+    public int getBarrelPivotX() {
+        return barrelPivotX;
+    }
+
+    /**
+     * Returns the y-coordinate of the barrel's pivot point, relative to the top of the
+     * barrel image.
+     * 
+     * @return the barrel's pivot y.
+     */
+    public int getBarrelPivotY() {
+        return barrelPivotY;
     }
 
     /**
@@ -152,6 +165,19 @@ public class Cannon extends Sprite {
         return cartesianAngle;
     }
 
+    /**
+     * Sets the angle of the barrel, kept between MIN_CARTESIAN_ANGLE and MAX_CARTESIAN_ANGLE,
+     * and rotates the barrelAnimationFrame to match. Used when something other than this
+     * Cannon's KeyHandler (such as a RoundSimulation) decides where the cannon points.
+     * 
+     * @param cartesianAngle the angle in degrees; East is 0 and North is 90.
+     */
+    public void setAngle(double cartesianAngle) {
+        this.cartesianAngle = Math.max(MIN_CARTESIAN_ANGLE,
+                Math.min(cartesianAngle, MAX_CARTESIAN_ANGLE));
+        matchBarrelFrameToAngle();
+    }
+
     /**
      * Updates the rotation of the barrel and the corresponding barrelAnimationFrame.
      * Resets the Sound so it can be played back again.
@@ -180,15 +206,68 @@ public class Cannon extends Sprite {
     }
 
     /**
-     * Copies a rotated version of the barrel into barrelAnimationFrame to match current angle.
+     * Points barrelAnimationFrame at a rotated version of the barrel that matches the current
+     * angle. Does nothing if the angle hasn't changed since the last call. Rotated frames for
+     * whole-degree angles are cached, so each is only rotated the first time it's needed.
     */
     private void matchBarrelFrameToAngle() {
+        if (cartesianAngle == frameAngle) {
+            return;
+        }
+        frameAngle = cartesianAngle;
+
+        int index = (int) (cartesianAngle - MIN_CARTESIAN_ANGLE);
+        if (index == cartesianAngle - MIN_CARTESIAN_ANGLE) {
+            if (barrelFrames[index] == null) {
+                barrelFrames[index] = rotateBarrel(cartesianAngle);
+            }
+            barrelAnimationFrame = barrelFrames[index];
+        } else {
+            barrelAnimationFrame = rotateBarrel(cartesianAngle); // between degrees; don't cache
+        }
+    }
+
+    /**
+     * Returns a copy of the barrel rotated about its pivot point to the given angle.
+     * 
+     * @param angle the angle in degrees; East is 0 and North is 90.
+     * @return a new image of the rotated barrel, with the same (x, y) as the barrel.
+     */
+    private BufferedImage rotateBarrel(double angle) {
+        int maxDim = Math.max(this.barrel.getWidth(), this.barrel.getHeight());
+        // Make large enough to not cut off any of the rotated image; the corners the rotation
+        // uncovers are transparent
+        BufferedImage frame = ImageAtlas.createCompatible(maxDim, maxDim, Transparency.TRANSLUCENT);
         // AffineTransform rotates clockwise
         AffineTransform rotation = AffineTransform.getRotateInstance(
-                Math.toRadians(-(cartesianAngle - ANGLE_OFFSET)), barrelPivotX, barrelPivotY);
+                Math.toRadians(-(angle - ANGLE_OFFSET)), barrelPivotX, barrelPivotY);
         AffineTransformOp rotationOp =
                 new AffineTransformOp(rotation, AffineTransformOp.TYPE_BILINEAR);
-        rotationOp.filter(barrel, barrelAnimationFrame);
+        rotationOp.filter(barrel, frame);
+        return frame;
+    }
+
+    /**
+     * Sets bounds to the area covered by the barrel's current frame and the wheel.
+     */
+    @Override
+    public boolean fillDrawBounds(Rectangle bounds) {
+        int left = Math.min(x, x + wheelOffsetX);
+        int top = Math.min(y, y + wheelOffsetY);
+        int right = Math.max(x + barrelAnimationFrame.getWidth(),
+                x + wheelOffsetX + wheel.getWidth());
+        int bottom = Math.max(y + barrelAnimationFrame.getHeight(),
+                y + wheelOffsetY + wheel.getHeight());
+        bounds.setBounds(left, top, right - left, bottom - top);
+        return true;
+    }
+
+    /**
+     * Returns the barrel's current frame; the wheel never changes.
+     */
+    @Override
+    public BufferedImage getCurrentImage() {
+        return barrelAnimationFrame;
     }
 
     /**
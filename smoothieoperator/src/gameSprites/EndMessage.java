@@ -5,6 +5,7 @@ import java.awt.image.BufferedImage;
 
 import java.util.ArrayList;
 
+import smoothieoperator.src.main.Sound;
 import smoothieoperator.src.spriteEssentials.*;
 
 /**
@@ -43,12 +44,14 @@ public class EndMessage extends Sprite {
         this.displayMessage = false;
         this.solid = false;
         try {
-            this.addSound("/smoothieoperator/src/media/sounds/winning.wav", "winningSong");
+            this.sounds.put("winningSong",
+                    Sound.stream("/smoothieoperator/src/media/sounds/winning.wav"));
         } catch (NullPointerException e) {
             e.printStackTrace();
         }
         try {
-            this.addSound("/smoothieoperator/src/media/sounds/losing.wav", "losingSong");
+            this.sounds.put("losingSong",
+                    Sound.stream("/smoothieoperator/src/media/sounds/losing.wav"));
         } catch (NullPointerException e) {
             e.printStackTrace();
         }
@@ -76,6 +79,17 @@ public class EndMessage extends Sprite {
         }
     }
 
+    /**
+     * Returns the winning or losing image, or null while the end message is hidden.
+     */
+    @Override
+    public BufferedImage getCurrentImage() {
+        if (!displayMessage) {
+            return null;
+        }
+        return hasWon ? images.get(0) : images.get(1);
+    }
+
     /**
      * Draws the end message only if displayMessage is true.
      */
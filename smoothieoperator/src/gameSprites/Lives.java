@@ -1,6 +1,6 @@
 package smoothieoperator.src.gameSprites;
 
-import java.util.ArrayList;
+import java.util.List;
 
 import java.awt.image.BufferedImage;
 import java.awt.Graphics2D;
@@ -11,14 +11,14 @@ import smoothieoperator.src.spriteEssentials.*;
 
 /**
  * Represents the amount of lives in the game. Life indicator itself does not move but
- * animates through ArrayList of images after losing a life in the game or resetting. 
+ * animates through List of images after losing a life in the game or resetting. 
  * TOTAL_LIVES indicates how many lives a round has, and imagesIndex represents which 
- * image in the ArrayList that the object is at during the round. The isDead() 
+ * image in the List that the object is at during the round. The isDead() 
  * method indicates when a player is out of lives.
  */
 public class Lives extends Sprite {
 
-    static final int TOTAL_LIVES = 6;
+    public static final int TOTAL_LIVES = 6;
 
     private int imagesIndex;
 
@@ -30,16 +30,16 @@ public class Lives extends Sprite {
     * 
     * @param x the x-coordinate of the life indicator object
     * @param y the y-coordinate of the life indicator object
-    * @param images the ArrayList of life images - image index should correspond to
+    * @param images the List of life images - image index should correspond to
     *        the number of lives the image represents, i.e. 2 lives should be at index 2
     * @param keyH the keyHandler, which sets to null
     * @param soundFile the filepath used to retrieve the audio file
     * @param soundName the name given to the key associated with the Sound
-    * @throws IllegalArgumentException if the amount of images in the ArrayList is less
+    * @throws IllegalArgumentException if the amount of images in the List is less
     *         than TOTAL_LIVES + 1 (to account for image with 0 lives), or if the soundName
     *         or the soundFile is null.
     */
-    public Lives(int x, int y, ArrayList<BufferedImage> images,
+    public Lives(int x, int y, List<BufferedImage> images,
             KeyHandler keyH, String soundFile, String soundName) {
         super(x, y, images, keyH);
         if (this.images.size() < TOTAL_LIVES + 1) {
@@ -78,6 +78,15 @@ public class Lives extends Sprite {
         }
     }
 
+    /**
+     * Sets the number of lives left (value of imagesIndex), kept between 0 and TOTAL_LIVES.
+     * 
+     * @param lives the number of lives left.
+     */
+    public void setLives(int lives) {
+        this.imagesIndex = Math.max(0, Math.min(lives, TOTAL_LIVES));
+    }
+
     /**
      * Returns true if there are zero or fewer lives left, meaning the player "is dead".
      * 
@@ -99,7 +108,15 @@ public class Lives extends Sprite {
     }
 
     /**
-     * Draws the image from the images ArrayList that corresponds to the current number of lives.
+     * Returns the image that corresponds to the current number of lives.
+     */
+    @Override
+    public BufferedImage getCurrentImage() {
+        return images.get(this.imagesIndex);
+    }
+
+    /**
+     * Draws the image from the images List that corresponds to the current number of lives.
      */
     @Override
     public void draw(Graphics2D g2) {
@@ -0,0 +1,338 @@
+package smoothieoperator.src.gameSprites;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.Random;
+
+import smoothieoperator.src.main.GamePanel;
+
+/**
+ * Represents drops of juice sprayed where fruit splats: small squares that fly out, fall
+ * under gravity and fade away.
+ *
+ * <p>Particles are kept in parallel arrays of primitives, allocated once with a fixed
+ * capacity and used as a ring: each new particle takes the slot after the newest, and once
+ * the ring is full it replaces the oldest. Emitting, updating and drawing allocate nothing,
+ * so sprays of tens of thousands of particles don't make garbage.
+ *
+ * <p>Particles are drawn into one screen-sized image by writing its pixels directly, then the
+ * part of the image they cover is drawn in a single call, rather than filling a shape for each
+ * particle. The image is only redrawn after update() or emit() has changed something.
+ *
+ * <p>Any thread may call its methods. With passive rendering, draw() runs on the event
+ * dispatch thread while the game thread emits and updates, so each method holds the
+ * ParticleSystem's lock and draw() never sees the particles or the image half changed.
+ */
+public class ParticleSystem {
+
+    public static final int DEFAULT_CAPACITY = 32768;
+    public static final double GRAVITY = .25; // pixels per tick, per tick, downward
+
+    private final int capacity;
+    private final Random random;
+    private int oldest; // slot of the oldest particle
+    private int count; // particles in the ring, including any that have faded in between
+
+    // per particle, indexed by slot
+    private final float[] x;
+    private final float[] y;
+    private final float[] velocityX; // pixels per tick, East
+    private final float[] velocityY; // pixels per tick, South
+    private final int[] age; // ticks since it was emitted
+    private final int[] lifetime; // ticks it lasts
+    private final int[] color; // RGB
+    private final byte[] size; // width and height, in pixels
+
+    // where live particles are, updated as they move
+    private final Rectangle bounds;
+    private final BufferedImage image;
+    private final int[] pixels; // the image's
+    private final Rectangle drawnBounds; // the part of the image the last drawing covered
+    private boolean stale; // particles changed since the image was drawn
+
+    /**
+     * Creates an empty ParticleSystem with room for DEFAULT_CAPACITY particles.
+     */
+    public ParticleSystem() {
+        this(DEFAULT_CAPACITY, 0);
+    }
+
+    /**
+     * Creates an empty ParticleSystem with room for the given number of particles, which
+     * sprays them in directions and at speeds picked by a Random with the given seed.
+     *
+     * @param capacity the most particles shown at once.
+     * @param seed the seed for the particles' randomness.
+     * @throws IllegalArgumentException if capacity is not positive.
+     */
+    public ParticleSystem(int capacity, long seed) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive.");
+        }
+        this.capacity = capacity;
+        this.random = new Random(seed);
+        this.x = new float[capacity];
+        this.y = new float[capacity];
+        this.velocityX = new float[capacity];
+        this.velocityY = new float[capacity];
+        this.age = new int[capacity];
+        this.lifetime = new int[capacity];
+        this.color = new int[capacity];
+        this.size = new byte[capacity];
+        this.bounds = new Rectangle();
+        this.image = new BufferedImage(GamePanel.SCREEN_WIDTH, GamePanel.SCREEN_HEIGHT,
+                BufferedImage.TYPE_INT_ARGB);
+        this.pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        this.drawnBounds = new Rectangle();
+    }
+
+    /**
+     * Sprays particles from (x, y) in a fan of directions around the given one.
+     *
+     * @param x x-coordinate the particles start at.
+     * @param y y-coordinate the particles start at.
+     * @param count how many particles to emit; the oldest are replaced if there isn't room.
+     * @param direction the fan's middle direction in degrees; East is 0 and North is 90.
+     * @param spread the fan's width in degrees.
+     * @param speed the fastest a particle starts out, in pixels per tick.
+     * @param lifetime the most ticks a particle lasts; each lasts between half this and this.
+     * @param rgb the particles' color, as 0xRRGGBB.
+     * @throws IllegalArgumentException if count is negative or lifetime isn't positive.
+     */
+    public synchronized void emit(int x, int y, int count, double direction, double spread,
+            double speed, int lifetime, int rgb) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count cannot be negative.");
+        }
+        if (lifetime <= 0) {
+            throw new IllegalArgumentException("lifetime must be positive.");
+        }
+        for (int i = 0; i < count; i++) {
+            if (this.count == capacity) { // full, so the newest replaces the oldest
+                oldest = next(oldest);
+                this.count--;
+            }
+            int slot = slot(this.count++);
+            double angle = Math.toRadians(direction + (random.nextDouble() - .5) * spread);
+            double v = speed * (.3 + .7 * random.nextDouble());
+            this.x[slot] = x;
+            this.y[slot] = y;
+            this.velocityX[slot] = (float) (v * Math.cos(angle));
+            // the screen's y-axis points South
+            this.velocityY[slot] = (float) (-v * Math.sin(angle));
+            this.age[slot] = 0;
+            this.lifetime[slot] = lifetime / 2 + random.nextInt(lifetime - lifetime / 2) + 1;
+            this.color[slot] = rgb & 0xffffff;
+            this.size[slot] = (byte) (2 + random.nextInt(3));
+            include(x, y, this.size[slot]);
+        }
+        if (count > 0) {
+            stale = true;
+        }
+    }
+
+    /**
+     * Moves every particle one tick along its path, pulled down by GRAVITY, and ages it.
+     * Particles that have outlived their lifetimes or fallen off the screen fade away.
+     */
+    public synchronized void update() {
+        if (count == 0) {
+            return;
+        }
+        int xMin = Integer.MAX_VALUE;
+        int yMin = Integer.MAX_VALUE;
+        int xMax = Integer.MIN_VALUE;
+        int yMax = Integer.MIN_VALUE;
+        int slot = oldest;
+        for (int i = 0; i < count; i++) {
+            if (age[slot] < lifetime[slot]) {
+                velocityY[slot] += GRAVITY;
+                x[slot] += velocityX[slot];
+                y[slot] += velocityY[slot];
+                age[slot]++;
+                if (y[slot] >= GamePanel.SCREEN_HEIGHT) {
+                    age[slot] = lifetime[slot];
+                } else if (age[slot] < lifetime[slot]) {
+                    int px = (int) x[slot];
+                    int py = (int) y[slot];
+                    xMin = Math.min(xMin, px);
+                    yMin = Math.min(yMin, py);
+                    xMax = Math.max(xMax, px + size[slot]);
+                    yMax = Math.max(yMax, py + size[slot]);
+                }
+            }
+            slot = next(slot);
+        }
+        // lifetimes are close, so faded particles are mostly at the old end of the ring
+        while (count > 0 && age[oldest] >= lifetime[oldest]) {
+            oldest = next(oldest);
+            count--;
+        }
+        if (xMin > xMax) {
+            bounds.setBounds(0, 0, 0, 0);
+        } else {
+            bounds.setBounds(xMin, yMin, xMax - xMin, yMax - yMin);
+        }
+        stale = true;
+    }
+
+    /**
+     * Removes every particle.
+     */
+    public synchronized void clear() {
+        count = 0;
+        oldest = 0;
+        bounds.setBounds(0, 0, 0, 0);
+        stale = true;
+    }
+
+    /**
+     * Returns the number of particles showing.
+     *
+     * @return particles that haven't faded away yet.
+     */
+    public synchronized int size() {
+        int live = 0;
+        int slot = oldest;
+        for (int i = 0; i < count; i++) {
+            if (age[slot] < lifetime[slot]) {
+                live++;
+            }
+            slot = next(slot);
+        }
+        return live;
+    }
+
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Sets the given rectangle to cover every particle showing, clipped to the screen, or to
+     * empty if there are none.
+     *
+     * @param bounds the rectangle to set.
+     */
+    public synchronized void fillDrawBounds(Rectangle bounds) {
+        Rectangle.intersect(this.bounds, image.getRaster().getBounds(), bounds);
+        if (bounds.isEmpty()) {
+            bounds.setBounds(0, 0, 0, 0);
+        }
+    }
+
+    /**
+     * Draws every particle showing, each fading out over its lifetime.
+     *
+     * @param g2 the graphics to draw with.
+     */
+    public synchronized void draw(Graphics2D g2) {
+        if (stale) {
+            drawParticles();
+        }
+        Rectangle b = drawnBounds;
+        if (!b.isEmpty()) {
+            g2.drawImage(image, b.x, b.y, b.x + b.width, b.y + b.height,
+                    b.x, b.y, b.x + b.width, b.y + b.height, null);
+        }
+    }
+
+    /**
+     * Erases the particles last drawn into the image and writes the pixels of those showing
+     * now in their place.
+     */
+    private void drawParticles() {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        Rectangle b = drawnBounds;
+        for (int row = b.y; row < b.y + b.height; row++) {
+            Arrays.fill(pixels, row * width + b.x, row * width + b.x + b.width, 0);
+        }
+        fillDrawBounds(b);
+
+        int slot = oldest;
+        for (int i = 0; i < count; i++) {
+            if (age[slot] < lifetime[slot]) {
+                int alpha = 255 - 255 * age[slot] / lifetime[slot];
+                int argb = (alpha << 24) | color[slot];
+                int xMin = Math.max((int) x[slot], 0);
+                int yMin = Math.max((int) y[slot], 0);
+                int xMax = Math.min((int) x[slot] + size[slot], width);
+                int yMax = Math.min((int) y[slot] + size[slot], height);
+                for (int py = yMin; py < yMax; py++) {
+                    int row = py * width;
+                    for (int px = xMin; px < xMax; px++) {
+                        pixels[row + px] = argb;
+                    }
+                }
+            }
+            slot = next(slot);
+        }
+        stale = false;
+    }
+
+    /**
+     * Returns the average color of an image's opaque, bright pixels, for juice that matches a
+     * splattered fruit. Dark pixels are left out, so outlines and shading don't muddy it.
+     *
+     * @param image the image to average.
+     * @return the average color as 0xRRGGBB; white if no pixel is opaque and bright.
+     * @throws IllegalArgumentException if image is null.
+     */
+    public static int averageColor(BufferedImage image) {
+        if (image == null) {
+            throw new IllegalArgumentException("image parameter cannot be null.");
+        }
+        long red = 0;
+        long green = 0;
+        long blue = 0;
+        long counted = 0;
+        for (int py = 0; py < image.getHeight(); py++) {
+            for (int px = 0; px < image.getWidth(); px++) {
+                int argb = image.getRGB(px, py);
+                int brightest = Math.max((argb >> 16) & 0xff,
+                        Math.max((argb >> 8) & 0xff, argb & 0xff));
+                if ((argb >>> 24) >= 128 && brightest >= 160) {
+                    red += (argb >> 16) & 0xff;
+                    green += (argb >> 8) & 0xff;
+                    blue += argb & 0xff;
+                    counted++;
+                }
+            }
+        }
+        if (counted == 0) {
+            return 0xffffff;
+        }
+        return (int) (red / counted) << 16 | (int) (green / counted) << 8
+                | (int) (blue / counted);
+    }
+
+    /**
+     * Grows the particles' bounds to cover a new particle of the given size at (x, y).
+     */
+    private void include(int x, int y, int size) {
+        if (bounds.isEmpty()) {
+            bounds.setBounds(x, y, size, size);
+        } else {
+            bounds.add(x, y);
+            bounds.add(x + size, y + size);
+        }
+    }
+
+    /**
+     * Returns the slot of the particle the given number of places after the oldest.
+     */
+    private int slot(int place) {
+        int slot = oldest + place;
+        return slot < capacity ? slot : slot - capacity;
+    }
+
+    /**
+     * Returns the slot after the given one, wrapping around the ring.
+     */
+    private int next(int slot) {
+        return slot + 1 < capacity ? slot + 1 : 0;
+    }
+}
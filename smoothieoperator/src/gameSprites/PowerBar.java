@@ -2,7 +2,7 @@ package smoothieoperator.src.gameSprites;
 
 import java.awt.image.BufferedImage;
 import java.awt.Graphics2D;
-import java.util.ArrayList;
+import java.util.List;
 
 import smoothieoperator.src.main.KeyHandler;
 import smoothieoperator.src.spriteEssentials.*;
@@ -27,7 +27,7 @@ public class PowerBar extends Sprite {
      * @param keyH the game's KeyHandler so this object can respond to keyboard input.
      * @throws IllegalArgumentException if the KeyHandler parameter is null.
      */
-    public PowerBar(int x, int y, ArrayList<BufferedImage> images, KeyHandler keyH) {
+    public PowerBar(int x, int y, List<BufferedImage> images, KeyHandler keyH) {
         super(x, y, images, keyH);
         this.maxPower = images.size() - 1;
         if (keyH == null) {
@@ -72,6 +72,15 @@ public class PowerBar extends Sprite {
         }
     }
 
+    /**
+     * Sets the current power (imageIndex), kept between minPower and maxPower.
+     * 
+     * @param power the new power setting.
+     */
+    public void setPower(int power) {
+        this.imagesIndex = Math.max(minPower, Math.min(power, maxPower));
+    }
+
     /**
      * Updates this object's current power (imageIndex) based on keyHandler variables.
      */
@@ -1,17 +1,13 @@
 package smoothieoperator.src.gameSprites;
 
-import java.util.ArrayList;
-
-import javax.sound.sampled.LineUnavailableException;
-import javax.sound.sampled.UnsupportedAudioFileException;
+import java.util.List;
 
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
-import java.io.IOException;
-import java.awt.image.AffineTransformOp;
-import java.awt.geom.AffineTransform;
 
+import smoothieoperator.src.main.Sound;
 import smoothieoperator.src.spriteEssentials.*;
+import smoothieoperator.src.simulation.Ballistics;
 
 /**
  * Represents a projectile onscreen and in the game logic.
@@ -23,7 +19,9 @@ public class Projectile extends Sprite {
 
     // instance variables
     public static final int FPS = 30;
-    public static final double GRAVITY = 9.8;
+    public static final double GRAVITY = Ballistics.GRAVITY;
+    public static final String SPLAT_SOUND = "/smoothieoperator/src/media/sounds/splat.wav";
+    public static final String WHOOSH_SOUND = "/smoothieoperator/src/media/sounds/whooshFast.wav";
 
     // for projectile motion
     private int x0; // initial x and y
@@ -31,10 +29,12 @@ public class Projectile extends Sprite {
     private double time;
     private double angle;
     private int velocity;
+    private double velocityX; // parts of velocity, so updatePosition() needn't redo the trig
+    private double velocityY;
 
     private boolean splattered;
-    private ArrayList<BufferedImage> splatteredImages;
-    private ArrayList<BufferedImage> flyingImages;
+    private ImageAtlas.Frames splatteredImages; // shared with every Projectile of this fruit
+    private ImageAtlas.Frames flyingImages;
     private int updatesSinceFrameChange;
     private int updatesPerFrame;
 
@@ -43,7 +43,7 @@ public class Projectile extends Sprite {
      * flying images, and splattered images.
      * Uses given updates per second to calculate number of updates per frame. Updates per
      * second must be at least one.
-     * Sets flyingImages as the default set of images placed into the images ArrayList.
+     * Sets flyingImages as the default set of images placed into the images List.
      * Adds the two sounds associated with a Projectile - a "whoosh" and a "splat".
      * 
      * @param x Projectile's x-coordinate
@@ -53,76 +53,117 @@ public class Projectile extends Sprite {
      * @param flyingImages Projectile's list of images in its flying state
      * @param splatteredImages Projectile's list of images in its splattered state
      * @param updatesPerSec Projectile's number of updates per second. Must be positive.
-     * @throws IllegalArgumentException if either ArrayList is null, contains null elements,
+     * @throws IllegalArgumentException if either List is null, contains null elements,
      *         or is empty.
-     * @throws LineUnavailableException
-     * @throws UnsupportedAudioFileException
-     * @throws IOException
      */
     public Projectile(int x, int y, double angle, int velocity,
-            ArrayList<BufferedImage> flyingImages, ArrayList<BufferedImage> splatteredImages,
+            List<BufferedImage> flyingImages, List<BufferedImage> splatteredImages,
             int updatesPerSec) {
-        if (flyingImages == null) {
-            throw new IllegalArgumentException("Cannot instantiate with null flyingImages.");
-        }
-        if (flyingImages.size() < 1) {
-            throw new IllegalArgumentException(
-                    "Cannot instantiate with an empty flyingImages ArrayList");
-        }
-        for (BufferedImage elem : flyingImages) {
-            if (elem == null) {
-                throw new IllegalArgumentException(
-                        "Cannot have a null element in the flyingImages ArrayList");
-            }
-        }
-        if (splatteredImages == null) {
-            throw new IllegalArgumentException("Cannot instantiate with null splatteredImage.");
-        }
-        if (splatteredImages.size() < 1) {
-            throw new IllegalArgumentException(
-                    "Cannot instantiate with an empty splatteredImages ArrayList");
+        this(x, y, angle, velocity, flyingImages, splatteredImages, updatesPerSec, null, null);
+        try {
+            this.addSound(SPLAT_SOUND, "splat");
+        } catch (NullPointerException e) {
+            e.printStackTrace();
         }
-        for (BufferedImage elem : splatteredImages) {
-            if (elem == null) {
-                throw new IllegalArgumentException(
-                        "Cannot have a null element in the splatteredImages ArrayList");
-            }
+        try {
+            this.addSound(WHOOSH_SOUND, "whoosh");
+        } catch (NullPointerException e) {
+            e.printStackTrace();
         }
+    }
 
+    /**
+     * Creates a new projectile object like the constructor above, but plays the given Sounds
+     * instead of opening its own. Projectiles that never sound at the same time, such as
+     * those from a ProjectilePool, can share one "whoosh" and one "splat" this way.
+     * 
+     * @param x Projectile's x-coordinate
+     * @param y Projectile's y-coordinate
+     * @param angle Projectile's angle
+     * @param velocity Projectile's velocity
+     * @param flyingImages Projectile's list of images in its flying state
+     * @param splatteredImages Projectile's list of images in its splattered state
+     * @param updatesPerSec Projectile's number of updates per second. Must be positive.
+     * @param whoosh Sound to play while flying; may be null for silence.
+     * @param splat Sound to play on splatting; may be null for silence.
+     * @throws IllegalArgumentException if either List is null, contains null elements,
+     *         or is empty.
+     */
+    public Projectile(int x, int y, double angle, int velocity,
+            List<BufferedImage> flyingImages, List<BufferedImage> splatteredImages,
+            int updatesPerSec, Sound whoosh, Sound splat) {
         if (updatesPerSec <= 0) {
             updatesPerSec = 1;
         }
+        this.solid = true;
+        this.keyHandler = null;
+        this.speed = 1;
+        this.updatesPerFrame = FPS / updatesPerSec;
+        if (whoosh != null) {
+            this.sounds.put("whoosh", whoosh);
+        }
+        if (splat != null) {
+            this.sounds.put("splat", splat);
+        }
+        launch(x, y, angle, velocity, flyingImages, splatteredImages);
+    }
 
-        this.flyingImages = Sprite.copyBufferedImages(flyingImages);
-        this.splatteredImages = Sprite.copyBufferedImages(splatteredImages);
+    /**
+     * Puts this projectile back into flight from coordinates x and y, with the given angle,
+     * velocity, flying images and splattered images, as if it had just been created. Lets a
+     * ProjectilePool reuse splattered or removed projectiles instead of creating new ones.
+     * 
+     * @param x Projectile's x-coordinate
+     * @param y Projectile's y-coordinate
+     * @param angle Projectile's angle
+     * @param velocity Projectile's velocity
+     * @param flyingImages Projectile's list of images in its flying state
+     * @param splatteredImages Projectile's list of images in its splattered state
+     * @throws IllegalArgumentException if either List is null, contains null elements,
+     *         or is empty.
+     */
+    public void launch(int x, int y, double angle, int velocity,
+            List<BufferedImage> flyingImages, List<BufferedImage> splatteredImages) {
+        checkImages(flyingImages, "flyingImages");
+        checkImages(splatteredImages, "splatteredImages");
+
+        this.flyingImages = ImageAtlas.Frames.of(flyingImages);
+        this.splatteredImages = ImageAtlas.Frames.of(splatteredImages);
         this.splattered = false;
         this.images = this.flyingImages;
         this.x = x;
         this.y = y;
         this.angle = angle;
         // give projectiles more power, especially relative to low velocities
-        this.velocity = (velocity + 2) * 5;
+        this.velocity = Ballistics.launchVelocity(velocity);
+        this.velocityX = Ballistics.velocityX(this.velocity, angle);
+        this.velocityY = Ballistics.velocityY(this.velocity, angle);
 
         this.x0 = x;
         this.y0 = y;
         this.time = 0;
 
-        this.solid = true;
-        this.keyHandler = null;
-        this.speed = 1;
         this.imagesIndex = 0;
         this.updatesSinceFrameChange = 0;
-        this.updatesPerFrame = FPS / updatesPerSec;
+    }
 
-        try {
-            this.addSound("/smoothieoperator/src/media/sounds/splat.wav", "splat");
-        } catch (NullPointerException e) {
-            e.printStackTrace();
+    /**
+     * Throws IllegalArgumentException if the list of images is null, empty, or has a null
+     * element.
+     */
+    private static void checkImages(List<BufferedImage> images, String name) {
+        if (images == null) {
+            throw new IllegalArgumentException("Cannot instantiate with null " + name + ".");
         }
-        try {
-            this.addSound("/smoothieoperator/src/media/sounds/whooshFast.wav", "whoosh");
-        } catch (NullPointerException e) {
-            e.printStackTrace();
+        if (images.size() < 1) {
+            throw new IllegalArgumentException(
+                    "Cannot instantiate with an empty " + name + " List");
+        }
+        for (BufferedImage elem : images) {
+            if (elem == null) {
+                throw new IllegalArgumentException(
+                        "Cannot have a null element in the " + name + " List");
+            }
         }
     }
 
@@ -132,7 +173,7 @@ public class Projectile extends Sprite {
 
     /**
      * Rotates each of the splattered images to match the parameter rotation angle in degrees.
-     * Sets splattered to true and changes the images ArrayList and corresponding imagesIndex
+     * Sets splattered to true and changes the images List and corresponding imagesIndex
      * to use this proejctile's splattered images instead of flying images.
      * Stops the Projectile's "whoosh" sound and plays its "splat" sound.
      * 
@@ -140,23 +181,8 @@ public class Projectile extends Sprite {
      */
     public void splat(int rotation) {
         if (rotation != 0) {
-            // Rotate all splattered images
-            ArrayList<BufferedImage> tempArrayList =
-                    new ArrayList<BufferedImage>(splatteredImages.size());
-
-            for (BufferedImage src : splatteredImages) {
-                int maxDim = Math.max(src.getWidth(), src.getHeight());
-                BufferedImage tempImage = new BufferedImage(maxDim, maxDim, src.getType());
-                int pivotX = src.getWidth() / 2;
-                int pivotY = src.getHeight() / 2;
-                AffineTransform transform = AffineTransform.getRotateInstance(
-                        Math.toRadians(-rotation), pivotX, pivotY);
-                AffineTransformOp rotateOp =
-                        new AffineTransformOp(transform, AffineTransformOp.TYPE_BILINEAR);
-                rotateOp.filter(src, tempImage);
-                tempArrayList.add(tempImage);
-            }
-            splatteredImages = tempArrayList;
+            // rotated splats are made once per angle and shared by every Projectile
+            splatteredImages = splatteredImages.rotated(rotation);
             this.x += splatteredImages.get(0).getWidth() / 2; // splat onto (not in front)
         }
         this.splattered = true;
@@ -170,6 +196,19 @@ public class Projectile extends Sprite {
         }
     }
 
+    /**
+     * Moves the projectile to the given position without changing its flight, for when
+     * something other than this Projectile (such as a RoundSimulation) works out where it
+     * collided.
+     * 
+     * @param x the projectile's new x-coordinate.
+     * @param y the projectile's new y-coordinate.
+     */
+    public void setPosition(int x, int y) {
+        this.x = x;
+        this.y = y;
+    }
+
     /**
      * Returns the value of this splattered variable.
      * 
@@ -222,26 +261,10 @@ public class Projectile extends Sprite {
      * projectile motion.
      */
     private void updatePosition() {
-        /*
-         * On a Cartesian plane,
-         * x = x0 + V0x * t + (1/2ax t^2); acceleration is 0, so x = x0 + V0x * t.
-         * y = y0 + V0y * t + (1/2ay t^2); acceleration is gravity (-9.8),
-         * so y = y0 + V0y * t + (-4.9 t^2).
-         * 
-         * Since the window's y-axis is the opposite of the Cartesian system,
-         * we reflect the _shape_ of the parabola across the x-axis (-f(x)), without changing the
-         * value of y0: y = y0 - (V0y * t) + (4.9 t^2).
-         * 
-         * V0x = cos(theta) and V0y = sin(theta).
-         * 
-         * Finally,
-         * x = x0 + (V * cos(ang) * t)
-         * y = y0 - (V * sin(ang) * t) + ((gravity / 2) t^2))
-         */
-        this.x = (int) (this.x0 + (velocity * Math.cos(Math.toRadians(this.angle)) * this.time));
-        this.y = (int) (this.y0 - (velocity * Math.sin(Math.toRadians(this.angle)) * this.time)
-                + ((GRAVITY / 2) * this.time * this.time));
-        this.time += .1; // this method is called so quickly that we slow motion here.
+        // See Ballistics for the projectile motion equations, shared with RoundSimulation.
+        this.x = Ballistics.xAt(this.x0, velocityX, this.time);
+        this.y = Ballistics.yAt(this.y0, velocityY, this.time);
+        this.time += Ballistics.TIME_STEP;
     }
 
     /**
@@ -272,7 +295,7 @@ public class Projectile extends Sprite {
     }
 
     /**
-     * Draws the image at the current imagesIndex in the images ArrayList at the current (x, y)
+     * Draws the image at the current imagesIndex in the images List at the current (x, y)
      * location onscreen.
      */
     @Override
@@ -281,17 +304,18 @@ public class Projectile extends Sprite {
     }
 
     /**
-     * Returns a hitbox 1/2 of the width of the current image and 1/2 of the
+     * Fills in a hitbox 1/2 of the width of the current image and 1/2 of the
      * height of the current image.
      */
     @Override
-    public HitBox getHitBox() {
+    public boolean fillHitBox(HitBox box) {
         if (!isSolid()) {
-            return null;
+            return false;
         }
         int width = images.get(imagesIndex).getWidth();
         int height = images.get(imagesIndex).getHeight();
-        return new HitBox(this.x + (int) (width * .25), this.x + (int) (width * .75),
+        box.set(this.x + (int) (width * .25), this.x + (int) (width * .75),
                 y + (int) (height * .25), y + (int) (height * .75));
+        return true;
     }
 }
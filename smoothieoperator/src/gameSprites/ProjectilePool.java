@@ -0,0 +1,108 @@
+package smoothieoperator.src.gameSprites;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+import smoothieoperator.src.main.Sound;
+
+/**
+ * Keeps Projectiles that are no longer on screen so they can be launched again, instead of
+ * creating a new Projectile (and opening new sound lines) for every shot.
+ *
+ * <p>Every Projectile from a pool shares the pool's "whoosh" and "splat" Sounds, so the
+ * pool opens two audio lines no matter how many Projectiles it makes. This suits games where
+ * only one Projectile flies at a time. Projectiles handed back with release() are relaunched
+ * by the next acquire().
+ */
+public class ProjectilePool {
+
+    private final ArrayList<Projectile> free;
+    private final int updatesPerSec;
+    private Sound whoosh;
+    private Sound splat;
+    private int created;
+
+    /**
+     * Creates an empty ProjectilePool whose Projectiles animate at the given rate, and opens
+     * the Sounds they share.
+     *
+     * @param updatesPerSec number of animation updates per second for each Projectile.
+     */
+    public ProjectilePool(int updatesPerSec) {
+        this.free = new ArrayList<Projectile>();
+        this.updatesPerSec = updatesPerSec;
+        try {
+            this.whoosh = new Sound(Projectile.WHOOSH_SOUND);
+        } catch (NullPointerException e) {
+            e.printStackTrace();
+        }
+        try {
+            this.splat = new Sound(Projectile.SPLAT_SOUND);
+        } catch (NullPointerException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Returns a Projectile flying from coordinates x and y with the given angle, velocity and
+     * images: a released one if there is one, or a new one otherwise.
+     *
+     * @param x Projectile's x-coordinate
+     * @param y Projectile's y-coordinate
+     * @param angle Projectile's angle
+     * @param velocity Projectile's velocity
+     * @param flyingImages Projectile's list of images in its flying state
+     * @param splatteredImages Projectile's list of images in its splattered state
+     * @return a Projectile in flight.
+     * @throws IllegalArgumentException if either List is null, contains null elements,
+     *         or is empty.
+     */
+    public Projectile acquire(int x, int y, double angle, int velocity,
+            List<BufferedImage> flyingImages, List<BufferedImage> splatteredImages) {
+        if (free.isEmpty()) {
+            Projectile projectile = new Projectile(x, y, angle, velocity, flyingImages,
+                    splatteredImages, updatesPerSec, whoosh, splat);
+            created++;
+            return projectile;
+        }
+        Projectile projectile = free.get(free.size() - 1);
+        projectile.launch(x, y, angle, velocity, flyingImages, splatteredImages);
+        free.remove(free.size() - 1); // only once launch() has accepted the images
+        return projectile;
+    }
+
+    /**
+     * Takes back a Projectile that is no longer shown, so a later acquire() can reuse it.
+     * Releasing a Projectile that's already been released has no effect.
+     *
+     * @param projectile a Projectile from this pool.
+     * @throws IllegalArgumentException if projectile is null.
+     */
+    public void release(Projectile projectile) {
+        if (projectile == null) {
+            throw new IllegalArgumentException("projectile cannot be null.");
+        }
+        if (!free.contains(projectile)) {
+            free.add(projectile);
+        }
+    }
+
+    /**
+     * Returns the number of released Projectiles waiting to be reused.
+     *
+     * @return the number of free Projectiles.
+     */
+    public int getFreeCount() {
+        return this.free.size();
+    }
+
+    /**
+     * Returns the number of Projectiles this pool has created.
+     *
+     * @return the number of Projectiles created.
+     */
+    public int getCreatedCount() {
+        return this.created;
+    }
+}
@@ -1,6 +1,6 @@
 package smoothieoperator.src.gameSprites;
 
-import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 
 import java.awt.Graphics2D;
@@ -19,7 +19,7 @@ public class Target extends Sprite {
     public static final int MAX_HITS = 3;
 
     /**
-     * Creates a new Target with the given ArrayList of images.
+     * Creates a new Target with the given List of images.
      * Chooses random x and y coordinates (constrained to the right side of the screen).
      * Sets speed to zero and keyHandler to null.
      * imagesIndex tracks how many times target is hit, initially 0. Images are drawn accordingly.
@@ -29,10 +29,10 @@ public class Target extends Sprite {
      * @param soundFile the filepath used to retrieve the audio file
      * @param soundName the name given to the key associated with the Sound
      * @throws IllegalArgumentException if any of the parameters are null, if there are fewer than
-     *         MAX_HITS images in the images ArrayList, or if any element in the images ArrayList
+     *         MAX_HITS images in the images List, or if any element in the images List
      *         is null.
      */
-    public Target(ArrayList<BufferedImage> images, String soundFile, String soundName) {
+    public Target(List<BufferedImage> images, String soundFile, String soundName) {
         if (images == null) {
             throw new IllegalArgumentException("Cannot instantiate a target with null images.");
         }
@@ -43,7 +43,7 @@ public class Target extends Sprite {
         for (BufferedImage elem : images) {
             if (elem == null) {
                 throw new IllegalArgumentException(
-                        "Cannot have a null element in the images ArrayList");
+                        "Cannot have a null element in the images List");
             }
         }
         if (soundFile == null) {
@@ -58,7 +58,7 @@ public class Target extends Sprite {
         this.keyHandler = null;
         this.solid = true;
         this.imagesIndex = 0;
-        this.images = Sprite.copyBufferedImages(images);
+        this.images = ImageAtlas.Frames.of(images);
         try {
             this.sounds.put(soundName, new Sound(soundFile));
         } catch (NullPointerException e) {
@@ -89,6 +89,15 @@ public class Target extends Sprite {
         return true;
     }
 
+    /**
+     * Sets the number of hits, as tracked by imagesIndex, kept between 0 and MAX_HITS.
+     * 
+     * @param hits the number of times the target has been hit.
+     */
+    public void setNumberOfHits(int hits) {
+        this.imagesIndex = Math.max(0, Math.min(hits, MAX_HITS));
+    }
+
     /**
      * Returns whether the maximum number of hits has been registered.
      * 
@@ -127,7 +136,7 @@ public class Target extends Sprite {
     }
 
     /**
-     * Draws the image from the images ArrayList that corresponds to the current number of hits.
+     * Draws the image from the images List that corresponds to the current number of hits.
      */
     @Override
     public void draw(Graphics2D g2) {
@@ -142,6 +151,18 @@ public class Target extends Sprite {
         this.y = getRandomYCoordinate();
     }
 
+    /**
+     * Moves the target to the given position, for when something other than this Target
+     * (such as a RoundSimulation) chooses where it appears.
+     * 
+     * @param x the target's new x-coordinate.
+     * @param y the target's new y-coordinate.
+     */
+    public void setPosition(int x, int y) {
+        this.x = x;
+        this.y = y;
+    }
+
     /**
      * Resets the number of hits to 0.
      */
@@ -158,15 +179,16 @@ public class Target extends Sprite {
     }
 
     /**
-    * Returns the hit box for the Target's current location.
+    * Fills in the hit box for the Target's current location.
     * 
     * <p>The length and width of the Target's hitbox are half of the
     * image's size, horizontally centered and flush with the top edge.
     * 
-    * @return this Target's hit box.
+    * @param box the HitBox to fill in.
+    * @return true, since a Target always has a hit box.
      */
     @Override
-    public HitBox getHitBox() {
+    public boolean fillHitBox(HitBox box) {
         int leftX;
         int rightX;
         int topY;
@@ -175,6 +197,7 @@ public class Target extends Sprite {
         rightX = leftX + this.images.get(imagesIndex).getWidth() / 2;
         topY = this.y;
         bottomY = this.y + this.images.get(imagesIndex).getHeight() / 2;
-        return new HitBox(leftX, rightX, topY, bottomY);
+        box.set(leftX, rightX, topY, bottomY);
+        return true;
       }
 }
@@ -11,6 +11,8 @@ import smoothieoperator.src.spriteEssentials.*;
  * may collide with other Sprites.
  */
 public class Wall extends Sprite {
+
+    private VolatileLayer layer;
     
     /**
      * Creates a new Wall object along the righthand edge of the screen with the given image.
@@ -23,25 +25,36 @@ public class Wall extends Sprite {
         // Adjust based on image width after super constructor so guaranteed an image at index 0
         this.x -= this.images.get(0).getWidth();
         this.solid = true;
+        this.layer = new VolatileLayer(this.images.get(0)); // never changes
     }
 
     /**
-     * Returns the HitBox with one corner at this Sprite's (x, y) point, and another corner
+     * Fills in the HitBox with one corner at this Sprite's (x, y) point, and another corner
      * at the screen's lower righthand corner.
      */
     @Override
-    public HitBox getHitBox() {
+    public boolean fillHitBox(HitBox box) {
         if (!isSolid()) {
-            return null;
+            return false;
         }
-        return new HitBox(this.x, GamePanel.SCREEN_WIDTH, this.y, GamePanel.SCREEN_HEIGHT);
+        box.set(this.x, GamePanel.SCREEN_WIDTH, this.y, GamePanel.SCREEN_HEIGHT);
+        return true;
+    }
+
+    /**
+     * Sets whether to draw this Wall from a copy cached in video memory.
+     * 
+     * @param cached true to cache the image; the default.
+     */
+    public void setCached(boolean cached) {
+        this.layer.setEnabled(cached);
     }
 
     /**
-     * Draws this Sprite's single image to the screen.
+     * Draws this Wall's single image to the screen, from the cached copy if there is one.
      */
     @Override
     public void draw(Graphics2D g2) {
-        g2.drawImage(images.get(0), null, this.getX(), this.getY()); // Only one image
+        layer.draw(g2, this.getX(), this.getY());
     }
 }
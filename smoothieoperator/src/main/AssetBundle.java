@@ -0,0 +1,253 @@
+package smoothieoperator.src.main;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A single file holding the game's images and sound effects already decoded, so they can be
+ * loaded without reading PNG or WAV files. AssetPacker writes bundles; open() reads them.
+ *
+ * <p>Images are stored scaled by GamePanel.SCALE as packed ARGB pixels, and sounds as 16-bit
+ * stereo samples at the AudioEngine's sample rate, each under the resource path it was packed
+ * from, such as "/smoothieoperator/src/media/images/wall/wall.png". The file is memory-mapped
+ * when opened, so an asset's data is only read from disk when it's asked for.
+ *
+ * <p>The file starts with a header (magic number, version, scale, entry count and index
+ * length), followed by an index of entries (path, type, width, height, data offset and data
+ * length), then the data, all big-endian.
+ */
+public class AssetBundle {
+
+    public static final String DEFAULT_FILE = "smoothieoperator-assets.bundle";
+    private static final int MAGIC = 0x534F4142; // "SOAB"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 5 * 4;
+    private static final int INDEX_ENTRY_BYTES = 2 + 1 + 4 * 4; // plus the path's bytes
+    private static final byte IMAGE = 1;
+    private static final byte SOUND = 2;
+    private static final DirectColorModel ARGB = new DirectColorModel(32,
+            0x00ff0000, 0x0000ff00, 0x000000ff, 0xff000000);
+
+    /**
+     * Where an asset's data is in the file, and how to read it.
+     */
+    private static final class Entry {
+        private final byte type;
+        private final int width; // images only
+        private final int height; // images only
+        private final int offset; // bytes from the start of the file
+        private final int length; // ints for images, shorts for sounds
+
+        private Entry(byte type, int width, int height, int offset, int length) {
+            this.type = type;
+            this.width = width;
+            this.height = height;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    private final ByteBuffer data;
+    private final HashMap<String, Entry> entries;
+
+    private AssetBundle(ByteBuffer data, HashMap<String, Entry> entries) {
+        this.data = data;
+        this.entries = entries;
+    }
+
+    /**
+     * Opens and memory-maps the bundle at the given path and reads its index.
+     *
+     * @param file the bundle file.
+     * @return the opened bundle.
+     * @throws IOException if the file can't be read, isn't a bundle, or was packed for a
+     *         different version or GamePanel.SCALE.
+     */
+    public static AssetBundle open(Path file) throws IOException {
+        MappedByteBuffer data;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            if (data.getInt() != MAGIC) {
+                throw new IOException(file + " isn't an asset bundle.");
+            }
+            int version = data.getInt();
+            if (version != VERSION) {
+                throw new IOException(file + " is version " + version + "; expected " + VERSION);
+            }
+            int scale = data.getInt();
+            if (scale != GamePanel.SCALE) {
+                throw new IOException(file + " was packed at scale " + scale + "; repack it.");
+            }
+            int count = data.getInt();
+            data.getInt(); // index length, for skipping to the data
+            HashMap<String, Entry> entries = new HashMap<String, Entry>();
+            for (int i = 0; i < count; i++) {
+                byte[] path = new byte[Short.toUnsignedInt(data.getShort())];
+                data.get(path);
+                Entry entry = new Entry(data.get(), data.getInt(), data.getInt(),
+                        data.getInt(), data.getInt());
+                long bytes = entry.length * (entry.type == IMAGE ? 4L : 2L);
+                if (entry.offset < 0 || entry.length < 0
+                        || entry.offset + bytes > data.capacity()) {
+                    throw new IOException(file + " is truncated or corrupt.");
+                }
+                entries.put(new String(path, StandardCharsets.UTF_8), entry);
+            }
+            return new AssetBundle(data, entries);
+        } catch (BufferUnderflowException e) {
+            throw new IOException(file + " is truncated.", e);
+        }
+    }
+
+    public boolean contains(String path) {
+        return entries.containsKey(path);
+    }
+
+    /**
+     * Returns the number of assets in this bundle.
+     *
+     * @return the number of images and sounds.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns a new image with the pixels packed under the given path.
+     *
+     * @param path the resource path the image was packed from.
+     * @return an ARGB image; null if this bundle has no image under path.
+     */
+    public BufferedImage getImage(String path) {
+        Entry entry = entries.get(path);
+        if (entry == null || entry.type != IMAGE) {
+            return null;
+        }
+        int[] pixels = new int[entry.length];
+        region(entry, 4).asIntBuffer().get(pixels);
+        DataBufferInt buffer = new DataBufferInt(pixels, pixels.length);
+        WritableRaster raster = Raster.createPackedRaster(buffer, entry.width, entry.height,
+                entry.width, ARGB.getMasks(), null);
+        return new BufferedImage(ARGB, raster, false, null);
+    }
+
+    /**
+     * Returns a copy of the samples packed under the given path.
+     *
+     * @param path the resource path the sound was packed from.
+     * @return interleaved 16-bit stereo samples; null if this bundle has no sound under path.
+     */
+    public short[] getSamples(String path) {
+        Entry entry = entries.get(path);
+        if (entry == null || entry.type != SOUND) {
+            return null;
+        }
+        short[] samples = new short[entry.length];
+        region(entry, 2).asShortBuffer().get(samples);
+        return samples;
+    }
+
+    /**
+     * Returns a view of an entry's data, independent of other threads' views.
+     */
+    private ByteBuffer region(Entry entry, int bytesPerElement) {
+        ByteBuffer view = data.duplicate();
+        view.position(entry.offset);
+        view.limit(entry.offset + entry.length * bytesPerElement);
+        return view.slice();
+    }
+
+    /**
+     * Writes a bundle holding the given images and sounds to the given path, replacing any
+     * file there.
+     *
+     * @param file where to write the bundle.
+     * @param images images by resource path, already scaled by GamePanel.SCALE.
+     * @param sounds 16-bit stereo samples at the AudioEngine's sample rate, by resource path.
+     * @throws IOException if the file can't be written.
+     */
+    public static void write(Path file, Map<String, BufferedImage> images,
+            Map<String, short[]> sounds) throws IOException {
+        // the index comes first, so measure it to know where the data starts
+        int indexBytes = 0;
+        for (String path : images.keySet()) {
+            indexBytes += INDEX_ENTRY_BYTES + path.getBytes(StandardCharsets.UTF_8).length;
+        }
+        for (String path : sounds.keySet()) {
+            indexBytes += INDEX_ENTRY_BYTES + path.getBytes(StandardCharsets.UTF_8).length;
+        }
+        int padding = (4 - indexBytes % 4) % 4; // keep the data 4-byte aligned
+
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(GamePanel.SCALE);
+            out.writeInt(images.size() + sounds.size());
+            out.writeInt(indexBytes + padding);
+
+            int offset = HEADER_BYTES + indexBytes + padding;
+            for (Map.Entry<String, BufferedImage> image : images.entrySet()) {
+                BufferedImage img = image.getValue();
+                int length = img.getWidth() * img.getHeight();
+                writeIndexEntry(out, image.getKey(), IMAGE, img.getWidth(), img.getHeight(),
+                        offset, length);
+                offset += length * 4;
+            }
+            for (Map.Entry<String, short[]> sound : sounds.entrySet()) {
+                int length = sound.getValue().length;
+                writeIndexEntry(out, sound.getKey(), SOUND, 0, 0, offset, length);
+                offset += (length + length % 2) * 2; // padded to keep the next entry aligned
+            }
+            for (int i = 0; i < padding; i++) {
+                out.writeByte(0);
+            }
+
+            for (BufferedImage image : images.values()) {
+                int[] pixels = image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0,
+                        image.getWidth());
+                for (int pixel : pixels) {
+                    out.writeInt(pixel);
+                }
+            }
+            for (short[] samples : sounds.values()) {
+                for (short sample : samples) {
+                    out.writeShort(sample);
+                }
+                if (samples.length % 2 != 0) {
+                    out.writeShort(0);
+                }
+            }
+        }
+    }
+
+    private static void writeIndexEntry(DataOutputStream out, String path, byte type,
+            int width, int height, int offset, int length) throws IOException {
+        byte[] pathBytes = path.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(pathBytes.length);
+        out.write(pathBytes);
+        out.writeByte(type);
+        out.writeInt(width);
+        out.writeInt(height);
+        out.writeInt(offset);
+        out.writeInt(length);
+    }
+}
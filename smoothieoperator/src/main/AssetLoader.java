@@ -0,0 +1,299 @@
+package smoothieoperator.src.main;
+
+import java.awt.geom.AffineTransform;
+import java.awt.image.AffineTransformOp;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Loads the game's images and sound effects in the background, several at a time, so the
+ * title screen can show while the game's assets are still loading.
+ *
+ * <p>Each asset is loaded once, the first time it's requested, on a fixed number of worker
+ * threads; requesting it again returns the same result. Callers request everything they'll
+ * need up front, then wait for each asset with getImage() when they need it. The time each
+ * asset took to load is recorded and can be printed with printTimings().
+ *
+ * <p>If an AssetBundle has been opened with openBundle(), assets packed into it are copied
+ * out of it instead of being decoded, which is much faster.
+ */
+public class AssetLoader {
+
+    public static final int MAX_THREADS = 4;
+
+    private final ExecutorService executor;
+    private final ConcurrentHashMap<String, Future<BufferedImage>> images;
+    private final ConcurrentHashMap<String, Future<?>> sounds;
+    private final ConcurrentHashMap<String, Long> loadNanos;
+    private volatile AssetBundle bundle; // null to read every asset from its own file
+
+    /**
+     * Creates an AssetLoader that loads on up to MAX_THREADS threads, or fewer on machines with
+     * fewer processors.
+     */
+    public AssetLoader() {
+        this(Math.max(1, Math.min(MAX_THREADS, Runtime.getRuntime().availableProcessors())));
+    }
+
+    /**
+     * Creates an AssetLoader that loads on the given number of threads.
+     *
+     * @param threads number of assets to load at once.
+     * @throws IllegalArgumentException if threads is less than 1.
+     */
+    public AssetLoader(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1.");
+        }
+        final AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "Asset loader " + threadCount.incrementAndGet());
+            thread.setDaemon(true); // never keeps the game from exiting
+            return thread;
+        });
+        this.images = new ConcurrentHashMap<String, Future<BufferedImage>>();
+        this.sounds = new ConcurrentHashMap<String, Future<?>>();
+        this.loadNanos = new ConcurrentHashMap<String, Long>();
+    }
+
+    /**
+     * Opens the AssetBundle at the given path, if there is one, so that assets packed into it
+     * are taken from it instead of being decoded from their own files. Assets requested
+     * before this are unaffected. Prints an error and keeps reading assets from their own
+     * files if the bundle can't be opened.
+     *
+     * @param file the bundle file.
+     * @return true if the bundle was opened.
+     * @throws IllegalArgumentException if file is null.
+     */
+    public boolean openBundle(Path file) {
+        if (file == null) {
+            throw new IllegalArgumentException("file cannot be null.");
+        }
+        if (!Files.isRegularFile(file)) {
+            return false;
+        }
+        try {
+            this.bundle = AssetBundle.open(file);
+            return true;
+        } catch (IOException e) {
+            System.out.println("Couldn't open asset bundle: " + file);
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Starts loading the image at the given filepath, scaled by GamePanel.SCALE, unless it's
+     * already been requested.
+     *
+     * @param filepath the name of the image file.
+     * @throws IllegalArgumentException if filepath is null.
+     */
+    public void requestImage(String filepath) {
+        if (filepath == null) {
+            throw new IllegalArgumentException("filepath cannot be null.");
+        }
+        images.computeIfAbsent(filepath, key -> executor.submit(() -> readImage(key)));
+    }
+
+    /**
+     * Starts decoding the sound effect at the given filepath into the AudioEngine's cache,
+     * unless it's already been requested, so creating a Sound for it later doesn't have to.
+     * Songs shouldn't be requested; they're streamed as they play.
+     *
+     * @param filepath the name of the audio file.
+     * @throws IllegalArgumentException if filepath is null.
+     */
+    public void requestSound(String filepath) {
+        if (filepath == null) {
+            throw new IllegalArgumentException("filepath cannot be null.");
+        }
+        sounds.computeIfAbsent(filepath, key -> executor.submit(() -> readSound(key)));
+    }
+
+    /**
+     * Returns the image at the given filepath, scaled by GamePanel.SCALE, requesting it if it
+     * hasn't been already and waiting for it to finish loading.
+     *
+     * @param filepath the name of the image file.
+     * @return the scaled image; null if there is no file at filepath.
+     * @throws IOException if the file can't be read.
+     * @throws IllegalArgumentException if filepath is null.
+     */
+    public BufferedImage getImage(String filepath) throws IOException {
+        requestImage(filepath);
+        try {
+            return images.get(filepath).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while loading " + filepath, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("couldn't load " + filepath, cause);
+        }
+    }
+
+    /**
+     * Waits for every requested sound effect to finish decoding.
+     */
+    public void awaitSounds() {
+        for (Future<?> sound : sounds.values()) {
+            try {
+                sound.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Returns how long each asset that has finished loading took, in milliseconds, slowest
+     * first.
+     *
+     * @return a map from filepath to load time in milliseconds.
+     */
+    public Map<String, Double> getLoadTimes() {
+        List<Map.Entry<String, Long>> entries =
+                new ArrayList<Map.Entry<String, Long>>(loadNanos.entrySet());
+        Collections.sort(entries, (a, b) -> Long.compare(b.getValue(), a.getValue()));
+        LinkedHashMap<String, Double> times = new LinkedHashMap<String, Double>();
+        for (Map.Entry<String, Long> entry : entries) {
+            times.put(entry.getKey(), entry.getValue() / 1e6);
+        }
+        return times;
+    }
+
+    /**
+     * Prints how long each asset that has finished loading took, slowest first.
+     */
+    public void printTimings() {
+        for (Map.Entry<String, Double> entry : getLoadTimes().entrySet()) {
+            System.out.printf("%8.2f ms  %s%n", entry.getValue(), entry.getKey());
+        }
+    }
+
+    /**
+     * Stops the loading threads once everything requested has loaded. Requests made after
+     * this are rejected.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Reads and scales the image at the given filepath, recording how long it took.
+     *
+     * @return the scaled image; null if there is no file at filepath.
+     */
+    private BufferedImage readImage(String filepath) throws IOException {
+        long start = System.nanoTime();
+        GameEvents.AssetLoad event = new GameEvents.AssetLoad();
+        event.begin();
+        AssetBundle packed = this.bundle;
+        if (packed != null && packed.contains(filepath)) {
+            BufferedImage image = packed.getImage(filepath);
+            finishLoad(filepath, start, event, "image", true, imageBytes(image));
+            return image;
+        }
+        InputStream inputStream = getClass().getResourceAsStream(filepath);
+        if (inputStream == null) {
+            return null;
+        }
+        BufferedImage image = null;
+        try {
+            image = ImageIO.read(inputStream);
+            if (image == null) {
+                throw new IOException("unreadable image file: " + filepath);
+            }
+            image = scale(image);
+            return image;
+        } finally {
+            inputStream.close();
+            finishLoad(filepath, start, event, "image", false, imageBytes(image));
+        }
+    }
+
+    /**
+     * Decodes the sound effect at the given filepath into the AudioEngine's cache, recording
+     * how long it took. The engine prints any errors.
+     */
+    private void readSound(String filepath) {
+        long start = System.nanoTime();
+        GameEvents.AssetLoad event = new GameEvents.AssetLoad();
+        event.begin();
+        URL url = getClass().getResource(filepath);
+        AssetBundle packed = this.bundle;
+        boolean fromBundle = packed != null && packed.contains(filepath);
+        if (fromBundle) {
+            AudioEngine.getInstance().putSamples(url, packed.getSamples(filepath));
+        }
+        short[] samples = AudioEngine.getInstance().getSamples(url);
+        finishLoad(filepath, start, event, "sound", fromBundle,
+                samples == null ? 0 : 2L * samples.length);
+    }
+
+    /**
+     * Records how long an asset took to load, and commits its GameEvents.AssetLoad if a
+     * Flight Recorder recording has it enabled.
+     */
+    private void finishLoad(String filepath, long start, GameEvents.AssetLoad event,
+            String kind, boolean fromBundle, long bytes) {
+        loadNanos.put(filepath, System.nanoTime() - start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = filepath;
+            event.kind = kind;
+            event.fromBundle = fromBundle;
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+
+    /**
+     * Returns roughly how much memory an image's pixels take, assuming 4 bytes a pixel.
+     */
+    private static long imageBytes(BufferedImage image) {
+        return image == null ? 0 : 4L * image.getWidth() * image.getHeight();
+    }
+
+    /**
+     * Scales an image by GamePanel.SCALE, as every image in the game is.
+     *
+     * @param image the image as read from its file.
+     * @return a new, scaled image.
+     */
+    static BufferedImage scale(BufferedImage image) {
+        AffineTransform imageScale =
+                AffineTransform.getScaleInstance(GamePanel.SCALE, GamePanel.SCALE);
+        AffineTransformOp scaleOp =
+                new AffineTransformOp(imageScale, AffineTransformOp.TYPE_NEAREST_NEIGHBOR);
+        return scaleOp.filter(image, null);
+    }
+}
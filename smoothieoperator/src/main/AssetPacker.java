@@ -0,0 +1,93 @@
+package smoothieoperator.src.main;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.imageio.ImageIO;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * Build tool that packs the game's images and sound effects into an AssetBundle, so the game
+ * can load them without decoding PNG and WAV files. Run it from the folder containing
+ * smoothieoperator/ whenever the media change:
+ *
+ * <p><i>java smoothieoperator/src/main/AssetPacker [media folder] [bundle file]</i>
+ *
+ * <p>The media folder defaults to smoothieoperator/src/media and the bundle file to
+ * AssetBundle.DEFAULT_FILE, which is where the game looks for it. Sounds longer than
+ * MAX_SOUND_SECONDS are songs, which are streamed from their own files and left out.
+ */
+public class AssetPacker {
+
+    public static final double MAX_SOUND_SECONDS = 5;
+    private static final String RESOURCE_ROOT = "/smoothieoperator/src/media/";
+
+    /**
+     * Packs every PNG and short WAV file under the media folder into a bundle.
+     *
+     * @param args optional media folder, then optional bundle file.
+     */
+    public static void main(String[] args) {
+        Path media = Paths.get(args.length > 0 ? args[0] : "smoothieoperator/src/media");
+        Path bundle = Paths.get(args.length > 1 ? args[1] : AssetBundle.DEFAULT_FILE);
+        try {
+            pack(media, bundle);
+        } catch (IOException | UnsupportedAudioFileException e) {
+            System.out.println("Couldn't pack " + media + " into " + bundle);
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Packs every PNG and short WAV file under the media folder into a bundle, naming each by
+     * its resource path.
+     *
+     * @param media the folder holding the game's images/ and sounds/ folders.
+     * @param bundle where to write the bundle.
+     * @throws IOException if a file can't be read or the bundle can't be written.
+     * @throws UnsupportedAudioFileException if a WAV file can't be decoded.
+     */
+    public static void pack(Path media, Path bundle)
+            throws IOException, UnsupportedAudioFileException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(media)) {
+            files = walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+        TreeMap<String, BufferedImage> images = new TreeMap<String, BufferedImage>();
+        TreeMap<String, short[]> sounds = new TreeMap<String, short[]>();
+        long unpackedBytes = 0;
+        for (Path file : files) {
+            String name = file.getFileName().toString().toLowerCase();
+            String resource = RESOURCE_ROOT + media.relativize(file).toString().replace('\\', '/');
+            if (name.endsWith(".png")) {
+                BufferedImage image = ImageIO.read(file.toFile());
+                if (image == null) {
+                    throw new IOException("unreadable image file: " + file);
+                }
+                images.put(resource, AssetLoader.scale(image));
+                unpackedBytes += Files.size(file);
+            } else if (name.endsWith(".wav")) {
+                URL url = file.toUri().toURL();
+                short[] samples = AudioEngine.decode(url);
+                double seconds = samples.length / AudioEngine.CHANNELS / AudioEngine.SAMPLE_RATE;
+                if (seconds <= MAX_SOUND_SECONDS) {
+                    sounds.put(resource, samples);
+                    unpackedBytes += Files.size(file);
+                }
+            }
+        }
+        AssetBundle.write(bundle, images, sounds);
+        System.out.printf("Packed %d images and %d sounds (%d KB of files) into %s (%d KB)%n",
+                images.size(), sounds.size(), unpackedBytes / 1024, bundle,
+                Files.size(bundle) / 1024);
+    }
+}
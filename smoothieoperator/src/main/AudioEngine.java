@@ -0,0 +1,440 @@
+package smoothieoperator.src.main;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * Plays every Sound in the game through one output line, mixing them in software on a
+ * dedicated audio thread.
+ *
+ * <p>Each sound file is decoded once into 16-bit stereo PCM at the engine's sample rate and
+ * shared by every Sound that plays it. Sounds play through Voices: a position in the decoded
+ * samples, a gain and a priority. At most MAX_VOICES Voices play at once; starting another
+ * replaces the lowest-priority Voice playing, if its priority is no higher than the new one's,
+ * or is ignored otherwise.
+ *
+ * <p>Long sounds such as songs are streamed instead: a MusicStream reads its file a little at
+ * a time on the engine's streaming thread and is mixed in after the Voices. Streams aren't
+ * limited by MAX_VOICES.
+ *
+ * <p>If no output line can be opened (for example, on a machine without audio), Voices still
+ * keep their state but nothing is heard.
+ */
+public class AudioEngine implements Runnable {
+
+    public static final float SAMPLE_RATE = 44100;
+    public static final int CHANNELS = 2;
+    public static final int MAX_VOICES = 16;
+    private static final int CHUNK_FRAMES = 512; // frames mixed at a time, about 12 ms
+    private static final int LINE_BUFFER_FRAMES = 2048; // about 46 ms of latency
+    private static final long STREAM_PERIOD_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+
+    private static AudioEngine instance;
+
+    /**
+     * A sound playing (or ready to play) through the engine. Only the engine changes a
+     * Voice's state, while holding its lock.
+     */
+    static final class Voice {
+        private short[] samples; // interleaved stereo; null if the file couldn't be decoded
+        private int frame; // next frame to play
+        private boolean playing;
+        private boolean looping;
+        private float gain;
+        private int priority;
+        private long startOrder; // when it last started, to replace the oldest first
+
+        Voice() {
+            this.gain = 1;
+        }
+    }
+
+    private final ConcurrentHashMap<URL, short[]> decoded;
+    private final AudioFormat format;
+    private final Voice[] voices; // playing Voices, in no particular order
+    private int voiceCount;
+    private long starts;
+    private final ArrayList<MusicStream> streams; // every stream created, playing or not
+    private final int[] mixBuffer;
+    private final byte[] outputBuffer;
+    private SourceDataLine line;
+
+    /**
+     * Returns the game's AudioEngine, creating it and starting its audio thread the first
+     * time it's needed.
+     *
+     * @return the shared AudioEngine.
+     */
+    public static synchronized AudioEngine getInstance() {
+        if (instance == null) {
+            instance = new AudioEngine();
+            Thread thread = new Thread(instance, "Audio mixer");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MAX_PRIORITY);
+            thread.start();
+            Thread streamer = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    instance.stream();
+                }
+            }, "Music streamer");
+            streamer.setDaemon(true);
+            streamer.start();
+        }
+        return instance;
+    }
+
+    private AudioEngine() {
+        this.decoded = new ConcurrentHashMap<URL, short[]>();
+        this.format = new AudioFormat(SAMPLE_RATE, 16, CHANNELS, true, false);
+        this.voices = new Voice[MAX_VOICES];
+        this.streams = new ArrayList<MusicStream>();
+        this.mixBuffer = new int[CHUNK_FRAMES * CHANNELS];
+        this.outputBuffer = new byte[CHUNK_FRAMES * CHANNELS * 2];
+    }
+
+    /**
+     * Returns the decoded samples of the given sound file, decoding it the first time it's
+     * asked for. Prints the error and returns null if the file can't be read.
+     *
+     * @param url location of a WAV file.
+     * @return interleaved 16-bit stereo samples at SAMPLE_RATE; null if unreadable.
+     */
+    short[] getSamples(URL url) {
+        if (url == null) {
+            System.out.println("Error retrieving sound file");
+            new NullPointerException("sound file not found").printStackTrace();
+            return null;
+        }
+        short[] samples = decoded.get(url);
+        if (samples == null) {
+            try {
+                samples = decode(url);
+            } catch (IOException | UnsupportedAudioFileException | IllegalArgumentException e) {
+                System.out.println("Error retrieving sound file");
+                e.printStackTrace();
+                return null;
+            }
+            short[] raced = decoded.putIfAbsent(url, samples);
+            if (raced != null) {
+                samples = raced;
+            }
+        }
+        return samples;
+    }
+
+    /**
+     * Caches already-decoded samples for the given sound file, such as ones read from an
+     * AssetBundle, so getSamples() doesn't decode the file. Has no effect if the file has
+     * been decoded already.
+     *
+     * @param url location of the WAV file the samples came from.
+     * @param samples interleaved 16-bit stereo samples at SAMPLE_RATE.
+     */
+    void putSamples(URL url, short[] samples) {
+        if (url != null && samples != null) {
+            decoded.putIfAbsent(url, samples);
+        }
+    }
+
+    /**
+     * Creates a stopped MusicStream for the given sound file, which the engine keeps filled
+     * and mixes while it plays. Prints an error and returns a silent stream if url is null.
+     *
+     * @param url location of a WAV file.
+     * @return a new MusicStream.
+     */
+    synchronized MusicStream createStream(URL url) {
+        if (url == null) {
+            System.out.println("Error retrieving sound file");
+            new NullPointerException("sound file not found").printStackTrace();
+        }
+        MusicStream stream = new MusicStream(url, format);
+        streams.add(stream);
+        return stream;
+    }
+
+    /**
+     * Reads a sound file into 16-bit stereo samples at SAMPLE_RATE, converting its channels
+     * and resampling it as needed.
+     */
+    static short[] decode(URL url) throws IOException, UnsupportedAudioFileException {
+        AudioInputStream source = AudioSystem.getAudioInputStream(url);
+        try {
+            AudioFormat sourceFormat = source.getFormat();
+            AudioFormat pcmFormat = new AudioFormat(sourceFormat.getSampleRate(), 16,
+                    sourceFormat.getChannels(), true, false);
+            AudioInputStream pcm = AudioSystem.getAudioInputStream(pcmFormat, source);
+            byte[] bytes = readAll(pcm);
+            int channels = pcmFormat.getChannels();
+            int sourceFrames = bytes.length / (2 * channels);
+
+            // to stereo, at the source rate
+            short[] stereo = new short[sourceFrames * CHANNELS];
+            for (int i = 0; i < sourceFrames; i++) {
+                int offset = i * channels * 2;
+                short left = (short) ((bytes[offset] & 0xff) | (bytes[offset + 1] << 8));
+                short right = left;
+                if (channels > 1) {
+                    right = (short) ((bytes[offset + 2] & 0xff) | (bytes[offset + 3] << 8));
+                }
+                stereo[i * CHANNELS] = left;
+                stereo[i * CHANNELS + 1] = right;
+            }
+            return resample(stereo, pcmFormat.getSampleRate());
+        } finally {
+            source.close();
+        }
+    }
+
+    /**
+     * Linearly resamples stereo samples from the given rate to SAMPLE_RATE.
+     */
+    private static short[] resample(short[] stereo, float sourceRate) {
+        int sourceFrames = stereo.length / CHANNELS;
+        if (sourceRate == SAMPLE_RATE || sourceFrames < 2) {
+            return stereo;
+        }
+        double step = sourceRate / SAMPLE_RATE; // source frames per output frame
+        int frames = (int) ((sourceFrames - 1) / step) + 1;
+        short[] resampled = new short[frames * CHANNELS];
+        for (int i = 0; i < frames; i++) {
+            double position = i * step;
+            int index = (int) position;
+            double fraction = position - index;
+            int next = Math.min(index + 1, sourceFrames - 1);
+            for (int c = 0; c < CHANNELS; c++) {
+                double a = stereo[index * CHANNELS + c];
+                double b = stereo[next * CHANNELS + c];
+                resampled[i * CHANNELS + c] = (short) Math.round(a + (b - a) * fraction);
+            }
+        }
+        return resampled;
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[16384];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Starts the Voice from its current position, or keeps it playing if it already is.
+     * Looping Voices start over when they reach the end; others stop there.
+     *
+     * @param voice the Voice to play.
+     * @param loop whether to loop continuously.
+     */
+    synchronized void play(Voice voice, boolean loop) {
+        voice.looping = loop;
+        if (voice.playing || voice.samples == null || voice.samples.length == 0) {
+            return;
+        }
+        if (!loop && voice.frame >= voice.samples.length / CHANNELS) {
+            return; // at the end already, like a Clip; rewind() first to replay
+        }
+        if (voiceCount == MAX_VOICES) {
+            int victim = 0;
+            for (int i = 1; i < voiceCount; i++) {
+                if (voices[i].priority < voices[victim].priority
+                        || (voices[i].priority == voices[victim].priority
+                        && voices[i].startOrder < voices[victim].startOrder)) {
+                    victim = i;
+                }
+            }
+            if (voices[victim].priority > voice.priority) {
+                return; // everything playing matters more
+            }
+            voices[victim].playing = false;
+            removeVoice(victim);
+        }
+        voice.playing = true;
+        voice.startOrder = starts++;
+        voices[voiceCount++] = voice;
+    }
+
+    /**
+     * Stops the Voice and moves it back to the start.
+     *
+     * @param voice the Voice to stop.
+     */
+    synchronized void stop(Voice voice) {
+        voice.frame = 0;
+        voice.looping = false;
+        if (voice.playing) {
+            voice.playing = false;
+            for (int i = 0; i < voiceCount; i++) {
+                if (voices[i] == voice) {
+                    removeVoice(i);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves the Voice back to the start without changing whether it's playing.
+     *
+     * @param voice the Voice to rewind.
+     */
+    synchronized void rewind(Voice voice) {
+        voice.frame = 0;
+    }
+
+    synchronized void setSamples(Voice voice, short[] samples) {
+        stop(voice);
+        voice.samples = samples;
+    }
+
+    synchronized void setGain(Voice voice, float gain) {
+        voice.gain = gain;
+    }
+
+    synchronized float getGain(Voice voice) {
+        return voice.gain;
+    }
+
+    synchronized void setPriority(Voice voice, int priority) {
+        voice.priority = priority;
+    }
+
+    synchronized int getPriority(Voice voice) {
+        return voice.priority;
+    }
+
+    synchronized boolean isPlaying(Voice voice) {
+        return voice.playing;
+    }
+
+    /**
+     * Returns the number of Voices playing.
+     *
+     * @return the number of Voices being mixed.
+     */
+    public synchronized int getVoiceCount() {
+        return this.voiceCount;
+    }
+
+    /**
+     * Returns whether the engine has an output line, so Sounds can be heard.
+     *
+     * @return true if sound is being output.
+     */
+    public synchronized boolean isOutputOpen() {
+        return this.line != null;
+    }
+
+    /**
+     * Removes the Voice at index i from the playing Voices by moving the last one into its
+     * place.
+     */
+    private void removeVoice(int i) {
+        voices[i] = voices[voiceCount - 1];
+        voices[voiceCount - 1] = null;
+        voiceCount--;
+    }
+
+    /**
+     * Audio thread. Opens the output line, then mixes the playing Voices into it one chunk
+     * at a time for as long as the program runs. Writing blocks while the line's buffer is
+     * full, which paces the mixing.
+     */
+    @Override
+    public void run() {
+        SourceDataLine output;
+        try {
+            output = AudioSystem.getSourceDataLine(format);
+            output.open(format, LINE_BUFFER_FRAMES * CHANNELS * 2);
+            output.start();
+        } catch (LineUnavailableException | IllegalArgumentException | SecurityException e) {
+            System.out.println("Couldn't open an audio output line; sounds are disabled.");
+            e.printStackTrace();
+            return;
+        }
+        synchronized (this) {
+            this.line = output;
+        }
+
+        while (true) {
+            mix();
+            output.write(outputBuffer, 0, outputBuffer.length);
+        }
+    }
+
+    /**
+     * Streaming thread. Tops up every MusicStream's read-ahead, then sleeps for a fraction of
+     * the time a full read-ahead lasts, for as long as the program runs.
+     */
+    private void stream() {
+        ArrayList<MusicStream> snapshot = new ArrayList<MusicStream>();
+        while (true) {
+            synchronized (this) {
+                if (snapshot.size() != streams.size()) {
+                    snapshot.clear();
+                    snapshot.addAll(streams); // streams are only ever added
+                }
+            }
+            for (int i = 0; i < snapshot.size(); i++) {
+                snapshot.get(i).fill();
+            }
+            LockSupport.parkNanos(STREAM_PERIOD_NANOS);
+        }
+    }
+
+    /**
+     * Mixes the next chunk of every playing Voice and MusicStream into outputBuffer,
+     * advancing them and stopping those that reach their ends.
+     */
+    private synchronized void mix() {
+        Arrays.fill(mixBuffer, 0);
+        for (int v = voiceCount - 1; v >= 0; v--) { // backwards, so ended Voices can be removed
+            Voice voice = voices[v];
+            short[] samples = voice.samples;
+            int totalFrames = samples.length / CHANNELS;
+            int gain = Math.round(voice.gain * 256); // fixed point, 8 fractional bits
+            int frame = voice.frame;
+            for (int i = 0; i < CHUNK_FRAMES; i++) {
+                if (frame >= totalFrames) {
+                    if (!voice.looping) {
+                        break;
+                    }
+                    frame = 0;
+                }
+                mixBuffer[i * CHANNELS] += (samples[frame * CHANNELS] * gain) >> 8;
+                mixBuffer[i * CHANNELS + 1] += (samples[frame * CHANNELS + 1] * gain) >> 8;
+                frame++;
+            }
+            voice.frame = frame;
+            if (frame >= totalFrames && !voice.looping) {
+                voice.playing = false;
+                removeVoice(v);
+            }
+        }
+        for (int i = 0; i < streams.size(); i++) {
+            streams.get(i).mixInto(mixBuffer, CHUNK_FRAMES);
+        }
+        for (int i = 0; i < mixBuffer.length; i++) {
+            int sample = Math.max(Short.MIN_VALUE, Math.min(mixBuffer[i], Short.MAX_VALUE));
+            outputBuffer[i * 2] = (byte) sample;
+            outputBuffer[i * 2 + 1] = (byte) (sample >> 8);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package smoothieoperator.src.main;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder events for the game's work, so a recording shows what each tick and
+ * frame spent its time on. They appear under "Smoothie Operator" in JDK Mission Control, and
+ * can be enabled by name, for example smoothieoperator.Tick.
+ *
+ * <p>Callers create an event, begin() it, do the work, end() it, and only fill in its fields
+ * and commit() it if shouldCommit() returns true. When no recording has the event enabled,
+ * shouldCommit() is false and the JIT removes the event altogether, so this costs next to
+ * nothing.
+ */
+public final class GameEvents {
+
+    private static final String CATEGORY = "Smoothie Operator";
+
+    private GameEvents() {}
+
+    /**
+     * One tick of game logic.
+     */
+    @Name("smoothieoperator.Tick")
+    @Label("Tick")
+    @Category({CATEGORY, "Game Loop"})
+    @Description("One update of the game's logic")
+    public static class Tick extends Event {
+
+        @Label("Projectiles")
+        @Description("Projectile sprites on screen after the tick")
+        int projectiles;
+
+        @Label("Collision Checks")
+        @Description("Hit box tests the simulation made")
+        long collisionChecks;
+
+        @Label("Simulation Events")
+        @Description("Bitwise OR of RoundSimulation's EVENT_ constants")
+        int events;
+    }
+
+    /**
+     * One frame drawn, actively or by Swing.
+     */
+    @Name("smoothieoperator.Render")
+    @Label("Render")
+    @Category({CATEGORY, "Game Loop"})
+    @Description("One frame drawn and presented")
+    public static class Render extends Event {
+
+        @Label("Render Mode")
+        String renderMode;
+
+        @Label("Dirty Rendering")
+        @Description("Whether only the changed parts of the screen were drawn")
+        boolean dirty;
+
+        @Label("Pixels Painted")
+        long pixelsPainted;
+    }
+
+    /**
+     * One image or sound effect read by an AssetLoader.
+     */
+    @Name("smoothieoperator.AssetLoad")
+    @Label("Asset Load")
+    @Category({CATEGORY, "Assets"})
+    @Description("One image or sound effect read and decoded")
+    public static class AssetLoad extends Event {
+
+        @Label("Path")
+        String path;
+
+        @Label("Kind")
+        @Description("\"image\" or \"sound\"")
+        String kind;
+
+        @Label("From Bundle")
+        @Description("Whether the asset was copied out of an AssetBundle instead of decoded")
+        boolean fromBundle;
+
+        @Label("Decoded Size")
+        @DataAmount
+        long bytes;
+    }
+
+    /**
+     * One of GamePanel's sprites built from its loaded assets.
+     */
+    @Name("smoothieoperator.SpriteLoad")
+    @Label("Sprite Load")
+    @Category({CATEGORY, "Assets"})
+    @Description("One of the game's sprites loaded, waiting for its assets if need be")
+    public static class SpriteLoad extends Event {
+
+        @Label("Sprite")
+        String sprite;
+
+        @Label("Succeeded")
+        boolean succeeded;
+    }
+
+    /**
+     * A Sound being played, looped, stopped or rewound.
+     */
+    @Name("smoothieoperator.SoundCommand")
+    @Label("Sound Command")
+    @Category({CATEGORY, "Audio"})
+    @Description("A Sound played, looped, stopped or rewound")
+    public static class SoundCommand extends Event {
+
+        @Label("Sound")
+        String sound;
+
+        @Label("Command")
+        String command;
+
+        @Label("Streamed")
+        boolean streamed;
+    }
+}
@@ -0,0 +1,130 @@
+package smoothieoperator.src.main;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs a fixed-timestep game loop on the calling thread. Game logic is updated a fixed number
+ * of times per second; elapsed time is collected in an accumulator and spent one tick at a time.
+ * Between ticks the thread parks instead of spinning, so an idle screen costs almost no CPU.
+ *
+ * <p>If the loop falls far behind (for example after the machine stalls), at most
+ * MAX_UPDATES_PER_FRAME ticks are run before rendering again and the rest of the backlog is
+ * dropped, so the loop can't get stuck in an ever-growing backlog of updates.
+ */
+public class GameLoop {
+
+    /**
+     * The game logic and drawing that a GameLoop drives.
+     */
+    public interface Callbacks {
+
+        /**
+         * Returns whether the loop should keep running. Checked before every tick.
+         *
+         * @return true to keep looping; false to return from run().
+         */
+        boolean isRunning();
+
+        /**
+         * Advances game logic by one fixed tick.
+         */
+        void update();
+
+        /**
+         * Draws the current state of the game.
+         *
+         * @param alpha how far (from 0 up to, but not including, 1) the loop is between the last
+         *        tick and the next one, for callers that want to interpolate positions.
+         */
+        void render(double alpha);
+    }
+
+    public static final int MAX_UPDATES_PER_FRAME = 5;
+
+    private final Callbacks callbacks;
+    private final long tickNanos;
+    private long droppedTicks;
+
+    /**
+     * Creates a new GameLoop that calls the given callbacks ticksPerSecond times per second.
+     *
+     * @param ticksPerSecond number of updates per second. Must be positive.
+     * @param callbacks the game logic and drawing to run.
+     * @throws IllegalArgumentException if ticksPerSecond is not positive or callbacks is null.
+     */
+    public GameLoop(int ticksPerSecond, Callbacks callbacks) {
+        if (ticksPerSecond <= 0) {
+            throw new IllegalArgumentException("ticksPerSecond must be positive.");
+        }
+        if (callbacks == null) {
+            throw new IllegalArgumentException("callbacks cannot be null.");
+        }
+        this.callbacks = callbacks;
+        this.tickNanos = 1000000000L / ticksPerSecond;
+        this.droppedTicks = 0;
+    }
+
+    public long getTickNanos() {
+        return this.tickNanos;
+    }
+
+    /**
+     * Returns the number of ticks skipped so far because the loop fell too far behind.
+     *
+     * @return the number of dropped ticks.
+     */
+    public long getDroppedTicks() {
+        return this.droppedTicks;
+    }
+
+    /**
+     * Runs the loop until the callbacks report that they are no longer running or the
+     * calling thread is interrupted.
+     *
+     * <p>Each pass adds the elapsed time to the accumulator, runs one update per whole tick
+     * in the accumulator (up to MAX_UPDATES_PER_FRAME), renders if anything was updated, and
+     * then parks until the next tick is due.
+     */
+    public void run() {
+        long accumulator = 0;
+        long previousTime = System.nanoTime();
+
+        while (callbacks.isRunning() && !Thread.currentThread().isInterrupted()) {
+            long currentTime = System.nanoTime();
+            accumulator += currentTime - previousTime;
+            previousTime = currentTime;
+
+            int updates = 0;
+            while (accumulator >= tickNanos && updates < MAX_UPDATES_PER_FRAME) {
+                callbacks.update();
+                accumulator -= tickNanos;
+                updates++;
+            }
+            // too far behind to catch up; drop the backlog instead of spiralling
+            if (accumulator >= tickNanos) {
+                droppedTicks += accumulator / tickNanos;
+                accumulator %= tickNanos;
+            }
+
+            if (updates > 0) {
+                callbacks.render((double) accumulator / tickNanos);
+            }
+
+            parkUntil(currentTime + tickNanos - accumulator);
+        }
+    }
+
+    /**
+     * Parks the current thread until System.nanoTime() reaches the given deadline. Returns early
+     * if the thread is interrupted.
+     *
+     * @param deadline the System.nanoTime() value to wait for.
+     */
+    private static void parkUntil(long deadline) {
+        long remaining = deadline - System.nanoTime();
+        while (remaining > 0 && !Thread.currentThread().isInterrupted()) {
+            LockSupport.parkNanos(remaining);
+            remaining = deadline - System.nanoTime();
+        }
+    }
+}
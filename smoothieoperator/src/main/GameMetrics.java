@@ -0,0 +1,343 @@
+package smoothieoperator.src.main;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+
+/**
+ * Timings of the game loop, for diagnosing hitches: how long each update and render takes,
+ * the interval between frames, and how long garbage collection pauses the game, each kept in a
+ * LatencyHistogram. Also counts ticks the loop dropped, and ticks it ran back to back to catch
+ * up, which show the loop falling behind.
+ *
+ * <p>Recording is cheap and lock-free, so it can stay on all the time. The timings can be
+ * shown over the game with drawOverlay() and written to a file every so often with
+ * startDumping().
+ */
+public class GameMetrics {
+
+    public static final String[] NAMES = {"update", "render", "frameInterval", "gcPause"};
+    // overlay layout
+    private static final int LINE_HEIGHT = 16;
+    private static final Font OVERLAY_FONT = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+    private static final Color OVERLAY_BACKDROP = new Color(0, 0, 0, 160);
+
+    private final LatencyHistogram update;
+    private final LatencyHistogram render;
+    private final LatencyHistogram frameInterval;
+    private final LatencyHistogram gcPause;
+    private final AtomicLong droppedTicks;
+    private final AtomicLong catchUpTicks;
+    private final long startNanos;
+    private long lastFrameNanos; // only touched by the thread that presents frames
+    private ScheduledExecutorService dumper;
+
+    /**
+     * Creates a GameMetrics with no timings yet, and starts recording garbage collection
+     * pauses.
+     */
+    public GameMetrics() {
+        this.update = new LatencyHistogram();
+        this.render = new LatencyHistogram();
+        this.frameInterval = new LatencyHistogram();
+        this.gcPause = new LatencyHistogram();
+        this.droppedTicks = new AtomicLong();
+        this.catchUpTicks = new AtomicLong();
+        this.startNanos = System.nanoTime();
+        listenForGarbageCollection();
+    }
+
+    public LatencyHistogram getUpdateTimes() {
+        return this.update;
+    }
+
+    public LatencyHistogram getRenderTimes() {
+        return this.render;
+    }
+
+    public LatencyHistogram getFrameIntervals() {
+        return this.frameInterval;
+    }
+
+    public LatencyHistogram getGcPauses() {
+        return this.gcPause;
+    }
+
+    public long getDroppedTicks() {
+        return this.droppedTicks.get();
+    }
+
+    public long getCatchUpTicks() {
+        return this.catchUpTicks.get();
+    }
+
+    /**
+     * Records how long one update took.
+     *
+     * @param nanos the update's duration in nanoseconds.
+     */
+    public void recordUpdate(long nanos) {
+        update.record(nanos);
+    }
+
+    /**
+     * Records how long drawing one frame took, and the interval since the last frame started
+     * drawing. Call from the thread that draws frames.
+     *
+     * @param startNanos the System.nanoTime() when the frame started drawing.
+     * @param nanos the frame's duration in nanoseconds.
+     */
+    public void recordRender(long startNanos, long nanos) {
+        if (lastFrameNanos != 0) {
+            frameInterval.record(startNanos - lastFrameNanos);
+        }
+        lastFrameNanos = startNanos;
+        render.record(nanos);
+    }
+
+    /**
+     * Records how many updates ran since the last frame, counting all but the first as ticks
+     * run to catch up.
+     *
+     * @param updates the number of updates.
+     */
+    public void recordUpdatesPerFrame(int updates) {
+        if (updates > 1) {
+            catchUpTicks.addAndGet(updates - 1);
+        }
+    }
+
+    /**
+     * Sets the total number of ticks the game loop has dropped.
+     *
+     * @param dropped the number of dropped ticks.
+     */
+    public void setDroppedTicks(long dropped) {
+        droppedTicks.set(dropped);
+    }
+
+    /**
+     * Forgets every timing and count recorded so far.
+     */
+    public void reset() {
+        update.reset();
+        render.reset();
+        frameInterval.reset();
+        gcPause.reset();
+        catchUpTicks.set(0);
+    }
+
+    /**
+     * Returns the area drawOverlay() draws over when its top left is at (x, y).
+     *
+     * @param x x-coordinate of the overlay's left edge.
+     * @param y y-coordinate of the overlay's top edge.
+     * @return the overlay's bounds.
+     */
+    public static Rectangle getOverlayBounds(int x, int y) {
+        return new Rectangle(x, y, 380, (NAMES.length + 2) * LINE_HEIGHT + 4);
+    }
+
+    /**
+     * Draws the timings' 50th, 99th percentiles and maximums in milliseconds, with the dropped
+     * and catch-up tick counts, over a translucent box whose top left is at (x, y).
+     *
+     * @param g2 the graphics to draw with.
+     * @param x x-coordinate of the overlay's left edge.
+     * @param y y-coordinate of the overlay's top edge.
+     */
+    public void drawOverlay(Graphics2D g2, int x, int y) {
+        Rectangle bounds = getOverlayBounds(x, y);
+        g2.setColor(OVERLAY_BACKDROP);
+        g2.fillRect(bounds.x, bounds.y, bounds.width, bounds.height);
+        g2.setColor(Color.WHITE);
+        g2.setFont(OVERLAY_FONT);
+        int line = y + LINE_HEIGHT;
+        g2.drawString(String.format("%-14s%8s%8s%8s%8s", "ms", "p50", "p99", "max", "count"),
+                x + 4, line);
+        LatencyHistogram[] histograms = histograms();
+        for (int i = 0; i < histograms.length; i++) {
+            line += LINE_HEIGHT;
+            LatencyHistogram h = histograms[i];
+            g2.drawString(String.format(Locale.ROOT, "%-14s%8.2f%8.2f%8.2f%8d", NAMES[i],
+                    millis(h.getPercentileNanos(50)), millis(h.getPercentileNanos(99)),
+                    millis(h.getMaxNanos()), h.getCount()), x + 4, line);
+        }
+        line += LINE_HEIGHT;
+        g2.drawString(String.format("dropped ticks %d, catch-up ticks %d", getDroppedTicks(),
+                getCatchUpTicks()), x + 4, line);
+    }
+
+    /**
+     * Starts appending the timings to the given file every periodSeconds seconds on a
+     * background thread, and once more when the program exits. Files ending in ".csv" get a
+     * CSV row per dump, under a header row written when the file is new; any other file gets
+     * a line of JSON per dump. Does nothing if already dumping.
+     *
+     * @param file the file to append to.
+     * @param periodSeconds how often to dump.
+     * @throws IllegalArgumentException if file is null or periodSeconds is not positive.
+     */
+    public synchronized void startDumping(Path file, long periodSeconds) {
+        if (file == null) {
+            throw new IllegalArgumentException("file cannot be null.");
+        }
+        if (periodSeconds <= 0) {
+            throw new IllegalArgumentException("periodSeconds must be positive.");
+        }
+        if (dumper != null) {
+            return;
+        }
+        dumper = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "Metrics dumper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumper.scheduleAtFixedRate(() -> dump(file), periodSeconds, periodSeconds,
+                TimeUnit.SECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> dump(file)));
+    }
+
+    /**
+     * Appends the timings to the given file, as a CSV row if its name ends in ".csv" or a line
+     * of JSON otherwise. Prints an error if the file can't be written.
+     *
+     * @param file the file to append to.
+     * @return true if the timings were written.
+     */
+    public synchronized boolean dump(Path file) {
+        boolean csv = file.getFileName().toString().toLowerCase().endsWith(".csv");
+        boolean newFile = !Files.exists(file);
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file,
+                StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
+            if (csv) {
+                if (newFile) {
+                    out.println(csvHeader());
+                }
+                out.println(toCsv());
+            } else {
+                out.println(toJson());
+            }
+        } catch (IOException e) {
+            System.out.println("Couldn't write metrics to " + file);
+            e.printStackTrace();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the timings as one line of JSON, in milliseconds.
+     *
+     * @return the JSON object.
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder();
+        json.append(String.format(Locale.ROOT, "{\"time\":\"%s\",\"uptimeSeconds\":%.1f",
+                Instant.now(), (System.nanoTime() - startNanos) / 1e9));
+        LatencyHistogram[] histograms = histograms();
+        for (int i = 0; i < histograms.length; i++) {
+            LatencyHistogram h = histograms[i];
+            json.append(String.format(Locale.ROOT,
+                    ",\"%s\":{\"count\":%d,\"meanMs\":%.3f,\"p50Ms\":%.3f,\"p90Ms\":%.3f,"
+                    + "\"p99Ms\":%.3f,\"maxMs\":%.3f}", NAMES[i], h.getCount(),
+                    millis(h.getMeanNanos()), millis(h.getPercentileNanos(50)),
+                    millis(h.getPercentileNanos(90)), millis(h.getPercentileNanos(99)),
+                    millis(h.getMaxNanos())));
+        }
+        json.append(String.format(",\"droppedTicks\":%d,\"catchUpTicks\":%d}",
+                getDroppedTicks(), getCatchUpTicks()));
+        return json.toString();
+    }
+
+    /**
+     * Returns the column names of toCsv()'s rows.
+     *
+     * @return the CSV header row.
+     */
+    public static String csvHeader() {
+        StringBuilder header = new StringBuilder("time,uptimeSeconds");
+        for (String name : NAMES) {
+            header.append(String.format(",%1$sCount,%1$sMeanMs,%1$sP50Ms,%1$sP90Ms,%1$sP99Ms,"
+                    + "%1$sMaxMs", name));
+        }
+        return header.append(",droppedTicks,catchUpTicks").toString();
+    }
+
+    /**
+     * Returns the timings as a CSV row, in milliseconds, with columns named by csvHeader().
+     *
+     * @return the CSV row.
+     */
+    public String toCsv() {
+        StringBuilder row = new StringBuilder();
+        row.append(String.format(Locale.ROOT, "%s,%.1f", Instant.now(),
+                (System.nanoTime() - startNanos) / 1e9));
+        for (LatencyHistogram h : histograms()) {
+            row.append(String.format(Locale.ROOT, ",%d,%.3f,%.3f,%.3f,%.3f,%.3f", h.getCount(),
+                    millis(h.getMeanNanos()), millis(h.getPercentileNanos(50)),
+                    millis(h.getPercentileNanos(90)), millis(h.getPercentileNanos(99)),
+                    millis(h.getMaxNanos())));
+        }
+        row.append(String.format(",%d,%d", getDroppedTicks(), getCatchUpTicks()));
+        return row.toString();
+    }
+
+    /**
+     * Returns the histograms in the same order as NAMES.
+     */
+    private LatencyHistogram[] histograms() {
+        return new LatencyHistogram[] {update, render, frameInterval, gcPause};
+    }
+
+    private static double millis(double nanos) {
+        return nanos / 1e6;
+    }
+
+    /**
+     * Records the duration of every stop-the-world garbage collection from the collectors'
+     * notifications. Collections that run alongside the game, such as G1's concurrent cycles,
+     * don't pause it, so they're skipped.
+     */
+    private void listenForGarbageCollection() {
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (!(collector instanceof NotificationEmitter)) {
+                continue;
+            }
+            ((NotificationEmitter) collector).addNotificationListener(
+                    (Notification notification, Object handback) -> {
+                        if (!"com.sun.management.gc.notification"
+                                .equals(notification.getType())) {
+                            return;
+                        }
+                        CompositeData info = (CompositeData) notification.getUserData();
+                        String action = String.valueOf(info.get("gcAction"));
+                        if (action.contains("concurrent")) {
+                            return;
+                        }
+                        CompositeData gcInfo = (CompositeData) info.get("gcInfo");
+                        long durationMillis = (Long) gcInfo.get("duration");
+                        gcPause.record(TimeUnit.MILLISECONDS.toNanos(durationMillis));
+                    }, null, null);
+        }
+    }
+}
@@ -1,40 +1,103 @@
 package smoothieoperator.src.main;
 
-import javax.imageio.ImageIO;
 import javax.swing.JPanel;
+import java.awt.AWTException;
+import java.awt.BorderLayout;
+import java.awt.BufferCapabilities;
+import java.awt.Canvas;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Font;
 import java.awt.Color;
-import java.util.HashMap;
+import java.awt.ImageCapabilities;
+import java.awt.Rectangle;
+import java.awt.Toolkit;
+import java.awt.image.BufferStrategy;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
-import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.awt.geom.AffineTransform;
-import java.awt.image.AffineTransformOp;
 import java.util.Random;
+import java.util.function.BooleanSupplier;
 
+import smoothieoperator.src.spriteEssentials.DirtyRegions;
+import smoothieoperator.src.spriteEssentials.ImageAtlas;
+import smoothieoperator.src.spriteEssentials.LayerCache;
 import smoothieoperator.src.spriteEssentials.SpriteList;
 import smoothieoperator.src.gameSprites.*;
+import smoothieoperator.src.simulation.Ballistics;
+import smoothieoperator.src.simulation.InputRecording;
+import smoothieoperator.src.simulation.ProjectileBatch;
+import smoothieoperator.src.simulation.ProjectileState;
+import smoothieoperator.src.simulation.RoundInput;
+import smoothieoperator.src.simulation.RoundSettings;
+import smoothieoperator.src.simulation.RoundSimulation;
+import smoothieoperator.src.simulation.Screen;
+import smoothieoperator.src.simulation.TrajectoryTable;
 
 /**
  * Holds game components and runs game logic for the Smoothie Operator game.
  * Instantiates game sprites and runs the game loop that updates and draws sprites,
  * takes player input, and determines points won, lives lost, and the end of a round.
  */
-public class GamePanel extends JPanel {
+public class GamePanel extends JPanel implements GameLoop.Callbacks {
 
     // settings
-    public static final int TILE_SIZE = 48;
-    public static final int SCALE = 1; // can change window size while maintaining aspect ratio
-    public static final int SCREEN_WIDTH = TILE_SIZE * SCALE * 16;
-    public static final int SCREEN_HEIGHT = TILE_SIZE * SCALE * 12;
+    public static final int TILE_SIZE = Screen.TILE_SIZE;
+    public static final int SCALE = Screen.SCALE;
+    public static final int SCREEN_WIDTH = Screen.WIDTH;
+    public static final int SCREEN_HEIGHT = Screen.HEIGHT;
     public static final int FPS = 60;
+    private static final int MAX_SPLATS = 16; // splattered projectiles left on screen
+    // where the dirty region overlay shows the fill rate
+    private static final Rectangle FILL_RATE_BOUNDS =
+            new Rectangle(SCREEN_WIDTH - 4 * TILE_SIZE, 0, 4 * TILE_SIZE, TILE_SIZE / 2);
+    // where the metrics overlay is drawn, top right below the fill rate
+    private static final Rectangle METRICS_BOUNDS = GameMetrics.getOverlayBounds(
+            SCREEN_WIDTH - TILE_SIZE / 2 - GameMetrics.getOverlayBounds(0, 0).width, TILE_SIZE);
+
+    // asset files; numbered files are formatted with their numbers (and fruit names)
+    private static final String IMAGES = "/smoothieoperator/src/media/images/";
+    private static final String SOUNDS = "/smoothieoperator/src/media/sounds/";
+    private static final String LIVES_IMAGES = IMAGES + "lives/lives-%d.png";
+    private static final int LIVES_FRAMES = 7; // numbered from 0
+    private static final String POWERBAR_IMAGES = IMAGES + "powerbar/powerbar-%d.png";
+    private static final int POWERBAR_FRAMES = 21; // numbered from 0
+    private static final String CANNON_IMAGE = IMAGES + "cannon/main-cannon.png";
+    private static final String WHEEL_IMAGE = IMAGES + "cannon/wheel-size-2.png";
+    private static final String TARGET_IMAGES = IMAGES + "blender/blender-%d.png";
+    private static final int TARGET_FRAMES = 4; // numbered from 1
+    private static final String BACKGROUND_IMAGE = IMAGES + "background/background.png";
+    private static final String LOSING_IMAGE = IMAGES + "endmessage/losing.png";
+    private static final String WINNING_IMAGE = IMAGES + "endmessage/winning.png";
+    private static final String WALL_IMAGE = IMAGES + "wall/wall.png";
+    private static final String FLYING_IMAGES = IMAGES + "projectiles/%s/flying/%s-%d.png";
+    private static final int FLYING_FRAMES = 4; // numbered from 1
+    private static final String SPLATTERED_IMAGES =
+            IMAGES + "projectiles/%s/splattered/%s-splat-%d.png";
+    private static final int SPLATTERED_FRAMES = 1; // numbered from 1
+    private static final String SPLAT_SOUND = SOUNDS + "splat.wav";
+    private static final String BOOM_SOUND = SOUNDS + "boom.wav";
+    private static final String SPLASH_SOUND = SOUNDS + "splash.wav";
+    private static final String[] FRUITS = {"banana", "strawberry", "orange"};
+    private static final int RAPID_FIRE_SOUND_TICKS = 6; // least ticks between sounds
+    private static final int PROJECTILE_ANIMATION_RATE = 5; // frames a second
+    // ticks each of a batched projectile's frames shows for, as for a Projectile
+    private static final int BATCH_TICKS_PER_FRAME = Projectile.FPS / PROJECTILE_ANIMATION_RATE;
+    // juice sprayed by each splat: particles, fastest speed in pixels per tick, and lifetime
+    private static final int SPLASH_PARTICLES = 80;
+    private static final int RAPID_FIRE_SPLASH_PARTICLES = 12; // per fruit, as many splat
+    private static final double SPLASH_SPEED = 6;
+    private static final int SPLASH_TICKS = 40;
 
     // instance variables
     private boolean isRunning;
+    private GameLoop gameLoop;
+    private RenderMode renderMode;
+    private Canvas canvas; // only used for RenderMode.ACTIVE
+    private BufferStrategy bufferStrategy;
     private KeyHandler keyH;
     private Background background;
     private Wall wall;
@@ -42,10 +105,45 @@ public class GamePanel extends JPanel {
     private Target target;
     private PowerBar powerBar;
     private Lives lives;
-    private SpriteList projectiles;
-    private HashMap<String, HashMap<String, ArrayList<BufferedImage>>> projectileImages;
+    private SpriteList projectiles; // in the order they were shot; only the last can fly
+    private ProjectilePool projectilePool;
+    private ImageAtlas atlas; // every image the sprites show, loaded once and shared
+    private AssetLoader assets;
+    // each fruit's images, in the same order as fruitNames
+    private ArrayList<ImageAtlas.Frames> flyingImages;
+    private ArrayList<ImageAtlas.Frames> splatteredImages;
+    private int[] juiceColors; // each fruit's, the average of its splattered image
     private EndMessage endMessage;
-    private boolean launchedProjectile;
+    private LayerCache staticLayer; // background, wall and HUD, composited together
+    private RoundSimulation simulation; // game state and rules; sprites mirror it
+    private long seed; // the simulation's, for recordings
+    private InputRecording.Writer recorder; // null unless recording the input
+    private InputRecording replay; // null unless replaying a recording in place of the input
+    private int replayTick; // the next tick of replay to play
+    private TrajectoryTable trajectories; // every shot's flight, worked out at startup
+    private AimPreview aimPreview;
+    private boolean showAimPreview;
+    private ProjectileBatch batch; // flies rapid-fire shots; null unless rapid fire is on
+    private Rectangle batchBounds; // where the batch was drawn last frame, while it's on
+    private Rectangle lastBatchBounds;
+    private int batchImageSize; // the widest or tallest of the flying images
+    private long lastRapidFireSound; // the tick a rapid-fire sound last started
+    private ParticleSystem particles; // juice sprayed where fruit splats
+    private Rectangle particleBounds; // where the particles were drawn last frame
+    private Rectangle lastParticleBounds;
+    private int flyingFruit; // the fruit of the single projectile in flight
+    private DirtyRegions dirtyRegions; // null unless only what changed is redrawn
+    private boolean redrawAll; // the screen's last frame can't be drawn over
+    private boolean showDirtyRegions;
+    private volatile Rectangle[] outlinedRegions; // what changed this frame, for the overlay
+    // share of the screen painted per frame, averaged over the last FPS frames
+    private double fillRate;
+    private long filledPixels;
+    private int filledFrames;
+    private GameMetrics metrics; // timings of updates and frames
+    private volatile boolean showMetrics;
+    private boolean metricsShown; // whether the last frame showed the metrics overlay
+    private int updatesSinceRender;
     // ArrayList so it can be adjusted if a particular fruit can't be read in
     private ArrayList<String> fruitNames;
 
@@ -53,26 +151,257 @@ public class GamePanel extends JPanel {
     private String errorMessage;
 
     /**
-     * Creates a new GamePanel object for the Smoothie Operator game.
+     * Creates a new GamePanel object for the Smoothie Operator game that renders passively
+     * through Swing's repaint mechanism.
      */
     public GamePanel() {
+        this(RenderMode.PASSIVE);
+    }
+
+    /**
+     * Creates a new GamePanel object for the Smoothie Operator game with the given RenderMode.
+     * 
+     * <p>Falls back to RenderMode.PASSIVE if the sprites fail to load, so the error screen can
+     * still be painted without a running game loop.
+     * 
+     * @param renderMode how to present frames; null is treated as RenderMode.PASSIVE.
+     */
+    public GamePanel(RenderMode renderMode) {
+        this(renderMode, null);
+    }
+
+    /**
+     * Creates a new GamePanel object for the Smoothie Operator game with the given RenderMode,
+     * taking its images and sounds from the given AssetLoader. Anything not yet requested from
+     * the AssetLoader is requested, then this waits for it all to finish loading.
+     * 
+     * <p>Falls back to RenderMode.PASSIVE if the sprites fail to load, so the error screen can
+     * still be painted without a running game loop.
+     * 
+     * @param renderMode how to present frames; null is treated as RenderMode.PASSIVE.
+     * @param assets the AssetLoader to load from; null to load everything here on a new one.
+     */
+    public GamePanel(RenderMode renderMode, AssetLoader assets) {
         this.setPreferredSize(new Dimension(SCREEN_WIDTH, SCREEN_HEIGHT));
         this.keyH = new KeyHandler();
         this.addKeyListener(keyH);
         this.setDoubleBuffered(true);
         this.setFocusable(true);
         this.isRunning = false;
-        this.launchedProjectile = false;
+        this.gameLoop = new GameLoop(FPS, this);
         this.projectiles = new SpriteList();
-        this.projectileImages = new HashMap<String, HashMap<String, ArrayList<BufferedImage>>>();
+        this.projectilePool = new ProjectilePool(PROJECTILE_ANIMATION_RATE);
+        this.particles = new ParticleSystem();
+        this.particleBounds = new Rectangle();
+        this.lastParticleBounds = new Rectangle();
+        this.atlas = new ImageAtlas();
+        this.assets = assets;
+        if (this.assets == null) {
+            this.assets = new AssetLoader();
+            this.assets.openBundle(Paths.get(AssetBundle.DEFAULT_FILE)); // if it's been packed
+        }
+        this.flyingImages = new ArrayList<ImageAtlas.Frames>();
+        this.splatteredImages = new ArrayList<ImageAtlas.Frames>();
         this.fruitNames = new ArrayList<String>();
-        this.fruitNames.add("banana");
-        this.fruitNames.add("strawberry");
-        this.fruitNames.add("orange");
+        for (String fruit : FRUITS) {
+            this.fruitNames.add(fruit);
+        }
 
         this.fatalError = false;
         this.errorMessage = "";
+        this.outlinedRegions = new Rectangle[0];
+        this.metrics = new GameMetrics();
+        requestAssets(this.assets);
+        this.assets.awaitSounds(); // so the sprites' Sounds don't decode them again
         this.loadSprites();
+        if (assets == null) { // this panel made the loader, so nothing else will use it
+            this.assets.shutdown();
+        }
+        if (!this.fatalError) {
+            this.loadSimulation();
+        }
+        if (!this.fatalError) {
+            this.loadStaticLayer();
+        }
+
+        this.renderMode = renderMode;
+        if (this.renderMode == null || this.fatalError) {
+            this.renderMode = RenderMode.PASSIVE;
+        }
+        if (this.renderMode == RenderMode.ACTIVE) {
+            setUpCanvas();
+        }
+    }
+
+    /**
+     * Fills this panel with a Canvas for active rendering. The Canvas takes keyboard focus
+     * and input in place of this panel, and ignores repaint requests from the system.
+     */
+    private void setUpCanvas() {
+        this.canvas = new Canvas();
+        this.canvas.setPreferredSize(new Dimension(SCREEN_WIDTH, SCREEN_HEIGHT));
+        this.canvas.setIgnoreRepaint(true);
+        this.canvas.setFocusable(true);
+        this.canvas.addKeyListener(keyH);
+        this.setLayout(new BorderLayout());
+        this.add(canvas, BorderLayout.CENTER);
+    }
+
+    /**
+     * Starts loading every image and sound effect the game needs on the given AssetLoader, so
+     * they can load in the background, for instance while the title screen shows.
+     * 
+     * @param assets the AssetLoader to load with.
+     * @throws IllegalArgumentException if assets is null.
+     */
+    public static void requestAssets(AssetLoader assets) {
+        if (assets == null) {
+            throw new IllegalArgumentException("assets cannot be null.");
+        }
+        // largest first, so the longest loads start soonest
+        assets.requestSound(BOOM_SOUND);
+        assets.requestImage(BACKGROUND_IMAGE);
+        assets.requestSound(SPLASH_SOUND);
+        assets.requestSound(SPLAT_SOUND);
+        assets.requestSound(Projectile.WHOOSH_SOUND);
+        for (int i = 0; i < LIVES_FRAMES; i++) {
+            assets.requestImage(String.format(LIVES_IMAGES, i));
+        }
+        for (int i = 0; i < POWERBAR_FRAMES; i++) {
+            assets.requestImage(String.format(POWERBAR_IMAGES, i));
+        }
+        assets.requestImage(CANNON_IMAGE);
+        assets.requestImage(WHEEL_IMAGE);
+        for (int i = 1; i <= TARGET_FRAMES; i++) {
+            assets.requestImage(String.format(TARGET_IMAGES, i));
+        }
+        assets.requestImage(WALL_IMAGE);
+        for (String fruit : FRUITS) {
+            for (int i = 1; i <= FLYING_FRAMES; i++) {
+                assets.requestImage(String.format(FLYING_IMAGES, fruit, fruit, i));
+            }
+            for (int i = 1; i <= SPLATTERED_FRAMES; i++) {
+                assets.requestImage(String.format(SPLATTERED_IMAGES, fruit, fruit, i));
+            }
+        }
+        assets.requestImage(LOSING_IMAGE);
+        assets.requestImage(WINNING_IMAGE);
+    }
+
+    public RenderMode getRenderMode() {
+        return this.renderMode;
+    }
+
+    public GameMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    /**
+     * Sets whether to show the metrics overlay, which the player can also toggle with F3.
+     * 
+     * @param show true to show the overlay.
+     */
+    public void setShowMetrics(boolean show) {
+        this.showMetrics = show;
+    }
+
+    /**
+     * Returns the flight of a shot at every angle and power, for working out where a shot
+     * will land without playing it.
+     * 
+     * @return the TrajectoryTable; null if a fatal error stopped the game from loading.
+     */
+    public TrajectoryTable getTrajectories() {
+        return this.trajectories;
+    }
+
+    /**
+     * Sets whether to show the AimPreview, a dotted arc from the cannon to where a shot at
+     * the current angle and power will land, while the player is aiming.
+     * 
+     * @param show true to show the arc.
+     */
+    public void setShowAimPreview(boolean show) {
+        this.showAimPreview = show;
+    }
+
+    /**
+     * Sets whether to play in rapid fire, where holding shoot fires a stream of fruit that
+     * all fly at once, thousands at a time, in a ProjectileBatch. See
+     * RoundSimulation.setRapidFire(). Has no effect after a fatal error. Call before
+     * startGame().
+     * 
+     * @param enabled true for rapid fire; false for one shot at a time.
+     */
+    public void setRapidFire(boolean enabled) {
+        if (fatalError) {
+            return;
+        }
+        if (enabled) {
+            this.batch = new ProjectileBatch();
+            this.batchBounds = new Rectangle();
+            this.lastBatchBounds = new Rectangle();
+            this.batchImageSize = 0;
+            for (ImageAtlas.Frames frames : flyingImages) {
+                for (int i = 0; i < frames.size(); i++) {
+                    batchImageSize = Math.max(batchImageSize,
+                            Math.max(frames.get(i).getWidth(), frames.get(i).getHeight()));
+                }
+            }
+        } else {
+            this.batch = null;
+        }
+        simulation.setRapidFire(batch);
+    }
+
+    public boolean isDirtyRendering() {
+        return this.dirtyRegions != null;
+    }
+
+    /**
+     * Sets whether each frame redraws only the parts of the screen that changed since the last
+     * one, rather than the whole screen. Has no effect after a fatal error. Call before
+     * startGame().
+     * 
+     * <p>In RenderMode.PASSIVE the changed regions are passed to repaint(), so Swing paints
+     * and copies to the screen only their union. In RenderMode.ACTIVE the frame is drawn
+     * clipped to each region over the last frame, which stays in the back buffer, but the
+     * whole buffer is still shown.
+     * 
+     * @param enabled true to redraw only what changed.
+     */
+    public void setDirtyRendering(boolean enabled) {
+        if (enabled && !fatalError) {
+            this.dirtyRegions = new DirtyRegions(SCREEN_WIDTH, SCREEN_HEIGHT);
+            this.redrawAll = true;
+        } else {
+            this.dirtyRegions = null;
+        }
+    }
+
+    /**
+     * Sets whether to outline the regions that changed each frame and show the fill rate, the
+     * share of the screen painted per frame. Only shown while rendering dirty regions.
+     * 
+     * @param show true to show the overlay.
+     */
+    public void setShowDirtyRegions(boolean show) {
+        this.showDirtyRegions = show;
+        this.redrawAll = true;
+    }
+
+    /**
+     * Requests keyboard focus for the component that receives this game's input: the Canvas
+     * when rendering actively, otherwise this panel.
+     * 
+     * @return false if the request is guaranteed to fail; true if it is likely to succeed.
+     */
+    @Override
+    public boolean requestFocusInWindow() {
+        if (canvas != null) {
+            return canvas.requestFocusInWindow();
+        }
+        return super.requestFocusInWindow();
     }
 
     /**
@@ -86,40 +415,61 @@ public class GamePanel extends JPanel {
      */
     public void loadSprites() {
 
-        if (!loadLives()) {
+        if (!load("Lives", this::loadLives)) {
             this.fatalError = true;
             this.errorMessage += "loading Lives, ";
         }
-        if (!loadPowerBar()) {
+        if (!load("PowerBar", this::loadPowerBar)) {
             this.fatalError = true;
             this.errorMessage += "loading PowerBar, ";
         }
-        if (!loadCannon()) {
+        if (!load("Cannon", this::loadCannon)) {
             this.fatalError = true;
             this.errorMessage += "loading Cannon, ";
         }
-        if (!loadTarget()) {
+        if (!load("Target", this::loadTarget)) {
             this.fatalError = true;
             this.errorMessage += "loading Target, ";
         }
-        if (!loadBackground()) {
+        if (!load("Background", this::loadBackground)) {
             this.fatalError = true;
             this.errorMessage += "loading Background, ";
         }
-        if (!loadWall()) {
+        if (!load("Wall", this::loadWall)) {
             this.fatalError = true;
             this.errorMessage += "loading Wall, ";
         }
-        if (!loadProjectileImages()) {
+        if (!load("Projectile Images", this::loadProjectileImages)) {
             this.fatalError = true;
             this.errorMessage += "loading Projectile Images, ";
         } 
-        if (!loadEndMessage()) {
+        if (!load("End Message", this::loadEndMessage)) {
             this.fatalError = true;
             this.errorMessage += "loading End Message, ";
         }
     }
 
+    /**
+     * Runs one of the load methods, recording it as a GameEvents.SpriteLoad if a Flight
+     * Recorder recording has it enabled.
+     * 
+     * @param sprite what's being loaded, as named in errorMessage.
+     * @param loader the load method.
+     * @return the load method's result.
+     */
+    private boolean load(String sprite, BooleanSupplier loader) {
+        GameEvents.SpriteLoad event = new GameEvents.SpriteLoad();
+        event.begin();
+        boolean loaded = loader.getAsBoolean();
+        event.end();
+        if (event.shouldCommit()) {
+            event.sprite = sprite;
+            event.succeeded = loaded;
+            event.commit();
+        }
+        return loaded;
+    }
+
     /**
      * Loads the images for the Lives object and instantiates the Lives object. Returns
      * true if the object is successfully instantiated. Returns false if any errors occur.
@@ -127,45 +477,29 @@ public class GamePanel extends JPanel {
      * @return true if lives is instantiated; false if exceptions occur.
      */
     private boolean loadLives() {
-        // scale images as they're read in
-        AffineTransform imageScale = AffineTransform.getScaleInstance(SCALE, SCALE);
-        AffineTransformOp scaleOp =
-                new AffineTransformOp(imageScale, AffineTransformOp.TYPE_NEAREST_NEIGHBOR);
         ArrayList<BufferedImage> tempImages = new ArrayList<>();
 
         String filepath = "";
-        InputStream inputStream = null;
 
         // create lives
         try {
-            for (int i = 0; i < 7; i++) {
-                filepath =
-                        String.format("/smoothieoperator/src/media/images/lives/lives-%d.png", i);
-                inputStream = getClass().getResourceAsStream(filepath);
-                if (inputStream != null) { // or risk IllegalArgumentException
-                    BufferedImage temp = ImageIO.read(inputStream);
-                    tempImages.add(scaleOp.filter(temp, null));
-                    inputStream.close();
+            for (int i = 0; i < LIVES_FRAMES; i++) {
+                filepath = String.format(LIVES_IMAGES, i);
+                BufferedImage temp = assets.getImage(filepath);
+                if (temp != null) { // or risk IllegalArgumentException
+                    tempImages.add(temp);
                 }
             }
         } catch (IOException e) {
             System.out.println("Couldn't find lives image file: " + filepath);
             e.printStackTrace();
             return false;
-        } finally {
-            if (inputStream != null){
-                try {
-                    inputStream.close();
-                } catch (IOException e) {
-                    e.printStackTrace();
-                } 
-            }
         }
 
         try {
             this.lives =
-                new Lives((TILE_SIZE * SCALE / 2), (TILE_SIZE * SCALE / 2), tempImages, 
-                this.keyH, "/smoothieoperator/src/media/sounds/splat.wav", "loseLife");
+                new Lives((TILE_SIZE * SCALE / 2), (TILE_SIZE * SCALE / 2),
+                atlas.put("lives", tempImages), this.keyH, SPLAT_SOUND, "loseLife");
         } catch (IllegalArgumentException e) {
             System.out.println("Couldn't instantiate Lives object.");
             e.printStackTrace();
@@ -182,46 +516,30 @@ public class GamePanel extends JPanel {
      * @return true if PowerBar is instantiated; false if exceptions occur.
      */
     private boolean loadPowerBar() {
-        // scale images as they're read in
-        AffineTransform imageScale = AffineTransform.getScaleInstance(SCALE, SCALE);
-        AffineTransformOp scaleOp =
-                new AffineTransformOp(imageScale, AffineTransformOp.TYPE_NEAREST_NEIGHBOR);
         ArrayList<BufferedImage> tempImages = new ArrayList<>();
 
         String filepath = "";
-        InputStream inputStream = null;
 
         // create powerBar
         try {
-            for (int i = 0; i < 21; i++) {
-                filepath = String.format(
-                    "/smoothieoperator/src/media/images/powerbar/powerbar-%d.png", i);
-                inputStream = getClass().getResourceAsStream(filepath);
-                if (inputStream != null) {
-                    BufferedImage temp = ImageIO.read(inputStream);
-                    tempImages.add(scaleOp.filter(temp, null));
-                    inputStream.close();
+            for (int i = 0; i < POWERBAR_FRAMES; i++) {
+                filepath = String.format(POWERBAR_IMAGES, i);
+                BufferedImage temp = assets.getImage(filepath);
+                if (temp != null) {
+                    tempImages.add(temp);
                 }
             }
         } catch (IOException e) {
             System.out.println("Couldn't find power bar image file:" + filepath);
             e.printStackTrace();
             return false;
-        } finally {
-            if (inputStream != null){
-                try {
-                    inputStream.close();
-                } catch (IOException e) {
-                    e.printStackTrace();
-                } 
-            }
         }
 
         // index into tempImages safely to get correct location based on image size
         try {
             this.powerBar = new PowerBar((TILE_SIZE * SCALE / 2),
                     SCREEN_HEIGHT - (TILE_SIZE * SCALE / 2 + tempImages.get(0).getHeight()),
-                    tempImages, this.keyH);
+                    atlas.put("powerbar", tempImages), this.keyH);
         } catch (IndexOutOfBoundsException e) {
             System.out.println("Couldn't find power bar image file: " + filepath);
             e.printStackTrace();
@@ -243,39 +561,24 @@ public class GamePanel extends JPanel {
      * @return true if Cannon is instantiated; false if exceptions occur.
      */
     private boolean loadCannon() {
-        // scale images as they're read in
-        AffineTransform imageScale = AffineTransform.getScaleInstance(SCALE, SCALE);
-        AffineTransformOp scaleOp =
-                new AffineTransformOp(imageScale, AffineTransformOp.TYPE_NEAREST_NEIGHBOR);
-
         String filepath = "";
-        InputStream inputStream = null;
 
         // create cannon
         try {
-            BufferedImage tempCannon = null;
-            BufferedImage tempWheel = null;
-
-            filepath = String.format("/smoothieoperator/src/media/images/cannon/main-cannon.png");
-            inputStream = getClass().getResourceAsStream(filepath);
-            if (inputStream != null) {
-                tempCannon = ImageIO.read(inputStream);
-                tempCannon = scaleOp.filter(tempCannon, null);
-                inputStream.close();
+            filepath = CANNON_IMAGE;
+            BufferedImage tempCannon = assets.getImage(filepath);
+            if (tempCannon != null) {
+                tempCannon = atlas.put("cannon/barrel", tempCannon).get(0);
             }
-
-            filepath = String.format("/smoothieoperator/src/media/images/cannon/wheel-size-2.png");
-            inputStream = getClass().getResourceAsStream(filepath);
-            if (inputStream != null) {
-                tempWheel = ImageIO.read(inputStream);
-                tempWheel = scaleOp.filter(tempWheel, null);
-                inputStream.close();
+            filepath = WHEEL_IMAGE;
+            BufferedImage tempWheel = assets.getImage(filepath);
+            if (tempWheel != null) {
+                tempWheel = atlas.put("cannon/wheel", tempWheel).get(0);
             }
-            
+
             this.cannon = new Cannon((TILE_SIZE * SCALE / 2 + this.powerBar.getWidth()),
                     SCREEN_HEIGHT - (TILE_SIZE * SCALE + tempCannon.getHeight()), tempCannon,
-                    tempWheel, this.keyH, "/smoothieoperator/src/media/sounds/boom.wav",
-                    "boom");
+                    tempWheel, this.keyH, BOOM_SOUND, "boom");
         } catch (IOException e) {
             System.out.println("Couldn't find cannon or wheel image files: " + filepath);
             e.printStackTrace();
@@ -288,14 +591,6 @@ public class GamePanel extends JPanel {
             System.out.println("Couldn't instantiate Cannon object.");
             e.printStackTrace();
             return false;
-        } finally {
-            if (inputStream != null){
-                try {
-                    inputStream.close();
-                } catch (IOException e) {
-                    e.printStackTrace();
-                } 
-            }
         }
 
         return true;
@@ -308,44 +603,27 @@ public class GamePanel extends JPanel {
      * @return true if Target is instantiated; false if exceptions occur.
      */
     private boolean loadTarget() {
-        // scale images as they're read in
-        AffineTransform imageScale = AffineTransform.getScaleInstance(SCALE, SCALE);
-        AffineTransformOp scaleOp =
-                new AffineTransformOp(imageScale, AffineTransformOp.TYPE_NEAREST_NEIGHBOR);
         ArrayList<BufferedImage> tempImages = new ArrayList<>();
 
         String filepath = "";
-        InputStream inputStream = null;
 
         // create target
         try {
-            for (int i = 1; i < 5; i++) {
-                filepath = String.format(
-                        "/smoothieoperator/src/media/images/blender/blender-%d.png", i);
-                inputStream = getClass().getResourceAsStream(filepath);
-                if (inputStream != null) {
-                    BufferedImage temp = ImageIO.read(inputStream);
-                    tempImages.add(scaleOp.filter(temp, null));
-                    inputStream.close();
+            for (int i = 1; i <= TARGET_FRAMES; i++) {
+                filepath = String.format(TARGET_IMAGES, i);
+                BufferedImage temp = assets.getImage(filepath);
+                if (temp != null) {
+                    tempImages.add(temp);
                 }
             }
         } catch (IOException e) {
             System.out.println("Couldn't find target image files: " + filepath);
             e.printStackTrace();
             return false;
-        } finally {
-            if (inputStream != null){
-                try {
-                    inputStream.close();
-                } catch (IOException e) {
-                    e.printStackTrace();
-                } 
-            }
         }
 
         try {
-            this.target = new Target(tempImages,
-                "/smoothieoperator/src/media/sounds/splash.wav", "splash");
+            this.target = new Target(atlas.put("blender", tempImages), SPLASH_SOUND, "splash");
         } catch (IllegalArgumentException e) {
             System.out.println("Couldn't instantiate Target object.");
             e.printStackTrace();
@@ -362,26 +640,15 @@ public class GamePanel extends JPanel {
      * @return true if Background is instantiated; false if exceptions occur.
      */
     private boolean loadBackground() {
-        // scale images as they're read in
-        AffineTransform imageScale = AffineTransform.getScaleInstance(SCALE, SCALE);
-        AffineTransformOp scaleOp =
-                new AffineTransformOp(imageScale, AffineTransformOp.TYPE_NEAREST_NEIGHBOR);
-
-        String filepath = "";
-        InputStream inputStream = null;
+        String filepath = BACKGROUND_IMAGE;
 
         // create background
-        BufferedImage tempBackground = null;
         try {
-            filepath = String.
-                    format("/smoothieoperator/src/media/images/background/background.png");
-            inputStream = getClass().getResourceAsStream(filepath);
-            if (inputStream != null) {
-                tempBackground = ImageIO.read(inputStream);
-                inputStream.close();
-                tempBackground = scaleOp.filter(tempBackground, null);
+            BufferedImage tempBackground = assets.getImage(filepath);
+            // try to instantiate regardless of a missing file -- constructor will throw error
+            if (tempBackground != null) {
+                tempBackground = atlas.put("background", tempBackground).get(0);
             }
-            // try to instantiate regardless of null inputStream -- constructor will throw error
             this.background = new Background(tempBackground, 
                         "/smoothieoperator/src/media/sounds/slowsong.wav", "GameSong");
         } catch (IOException e) {
@@ -392,14 +659,6 @@ public class GamePanel extends JPanel {
             System.out.println("Couldn't instantiate Background object.");
             e.printStackTrace();
             return false;
-        } finally {            
-            if (inputStream != null){
-                try {
-                    inputStream.close();
-                } catch (IOException e) {
-                    e.printStackTrace();
-                } 
-            }
         }
 
         return true;
@@ -412,34 +671,20 @@ public class GamePanel extends JPanel {
      * @return true if EndMessage is instantiated; false if exceptions occur.
      */
     private boolean loadEndMessage() {
-        // scale images as they're read in
-        AffineTransform imageScale = AffineTransform.getScaleInstance(SCALE, SCALE);
-        AffineTransformOp scaleOp =
-                new AffineTransformOp(imageScale, AffineTransformOp.TYPE_NEAREST_NEIGHBOR);
-
         String filepath = "";
-        InputStream inputStream = null;
 
         try {
-            BufferedImage tempLosing = null;
-            BufferedImage tempWinning = null;
-
-            filepath = String.format("/smoothieoperator/src/media/images/endmessage/losing.png");
-            inputStream = getClass().getResourceAsStream(filepath);
-            if (inputStream != null) {
-                tempLosing = ImageIO.read(inputStream);
-                tempLosing = scaleOp.filter(tempLosing, null);
-                inputStream.close();
+            filepath = LOSING_IMAGE;
+            BufferedImage tempLosing = assets.getImage(filepath);
+            if (tempLosing != null) {
+                tempLosing = atlas.put("endmessage/losing", tempLosing).get(0);
             }
-
-            filepath = String.format("/smoothieoperator/src/media/images/endmessage/winning.png");
-            inputStream = getClass().getResourceAsStream(filepath);
-            if (inputStream != null) {
-                tempWinning = ImageIO.read(inputStream);
-                tempWinning = scaleOp.filter(tempWinning, null);
-                inputStream.close();
+            filepath = WINNING_IMAGE;
+            BufferedImage tempWinning = assets.getImage(filepath);
+            if (tempWinning != null) {
+                tempWinning = atlas.put("endmessage/winning", tempWinning).get(0);
             }
-            
+
             this.endMessage = new EndMessage((SCREEN_WIDTH * SCALE / 2) - (tempLosing.getWidth() / 2),
                     (SCREEN_HEIGHT * SCALE / 2) - (tempLosing.getHeight() / 2), tempLosing,
                     tempWinning);
@@ -455,14 +700,6 @@ public class GamePanel extends JPanel {
             System.out.println("Couldn't instantiate EndMessage object.");
             e.printStackTrace();
             return false;
-        } finally {
-            if (inputStream != null){
-                try {
-                    inputStream.close();
-                } catch (IOException e) {
-                    e.printStackTrace();
-                } 
-            }
         }
 
         return true;
@@ -475,23 +712,14 @@ public class GamePanel extends JPanel {
      * @return true if Wall is instantiated; false if exceptions occur.
      */
     private boolean loadWall() {
-        // scale images as they're read in
-        AffineTransform imageScale = AffineTransform.getScaleInstance(SCALE, SCALE);
-        AffineTransformOp scaleOp =
-                new AffineTransformOp(imageScale, AffineTransformOp.TYPE_NEAREST_NEIGHBOR);
-
-        String filepath = "";
-        InputStream inputStream = null;
+        String filepath = WALL_IMAGE;
 
         // create wall
         BufferedImage tempWall = null;
         try {
-            filepath = String.format("/smoothieoperator/src/media/images/wall/wall.png");
-            inputStream = getClass().getResourceAsStream(filepath);
-            if (inputStream != null) {
-                tempWall = ImageIO.read(inputStream);
-                inputStream.close();
-                tempWall = scaleOp.filter(tempWall, null);
+            tempWall = assets.getImage(filepath);
+            if (tempWall != null) {
+                tempWall = atlas.put("wall", tempWall).get(0);
             }
         } catch (IOException e) {
             System.out.println("Couldn't find wall image file: " + filepath);
@@ -503,13 +731,6 @@ public class GamePanel extends JPanel {
             return false;
         } finally {
             this.wall = new Wall(tempWall); // constructor doesn't throw error
-            if (inputStream != null) {
-                try {
-                    inputStream.close();
-                } catch (IOException e) {
-                    e.printStackTrace();
-                } 
-            }
         }
 
         return true;
@@ -522,14 +743,6 @@ public class GamePanel extends JPanel {
      * @return false if any errors occur; true otherwise.
      */
     private boolean loadProjectileImages() {
-        // scale images as they're read in
-        AffineTransform imageScale = AffineTransform.getScaleInstance(SCALE, SCALE);
-        AffineTransformOp scaleOp =
-                new AffineTransformOp(imageScale, AffineTransformOp.TYPE_NEAREST_NEIGHBOR);
-
-        String filepath = "";
-        InputStream inputStream = null;
-
         // to track any fruits that whose images can't be loaded
         ArrayList<String> missingFruit = new ArrayList<String>();
 
@@ -539,32 +752,23 @@ public class GamePanel extends JPanel {
             ArrayList<BufferedImage> tempSplattered = new ArrayList<BufferedImage>();
 
             try {
-                for (int i = 1; i < 5; i++) {
-                    filepath = String.format(
-                            "/smoothieoperator/src/media/images/projectiles/%s/flying/%s-%d.png",
-                            fruit, fruit, i);
-                    inputStream = getClass().getResourceAsStream(filepath);
-                    if (inputStream != null) {
-                        BufferedImage temp = ImageIO.read(inputStream);
-                        tempFlying.add(scaleOp.filter(temp, null));
-                        inputStream.close();
+                for (int i = 1; i <= FLYING_FRAMES; i++) {
+                    BufferedImage temp =
+                            assets.getImage(String.format(FLYING_IMAGES, fruit, fruit, i));
+                    if (temp != null) {
+                        tempFlying.add(temp);
                     }
                 }
-                for (int i = 1; i < 2; i++) {
-                    filepath = String.format(
-                            "/smoothieoperator/src/media/images/projectiles/"
-                            + "%s/splattered/%s-splat-%d.png", fruit, fruit, i);
-                    inputStream = getClass().getResourceAsStream(filepath);
-                    if (inputStream != null) {
-                        BufferedImage temp = ImageIO.read(inputStream);
-                        tempSplattered.add(scaleOp.filter(temp, null));
-                        inputStream.close();
+                for (int i = 1; i <= SPLATTERED_FRAMES; i++) {
+                    BufferedImage temp =
+                            assets.getImage(String.format(SPLATTERED_IMAGES, fruit, fruit, i));
+                    if (temp != null) {
+                        tempSplattered.add(temp);
                     }
                 }
                 if (!tempFlying.isEmpty() && !tempSplattered.isEmpty()) {
-                    projectileImages.put(fruit, new HashMap<String, ArrayList<BufferedImage>>());
-                    projectileImages.get(fruit).put("flying", tempFlying);
-                    projectileImages.get(fruit).put("splattered", tempSplattered);
+                    atlas.put(projectileImagesName(fruit, "flying"), tempFlying);
+                    atlas.put(projectileImagesName(fruit, "splattered"), tempSplattered);
                 }
             } catch (IOException e) {
                 // If one type of fruit can't be loaded, just procede to the next.
@@ -574,13 +778,6 @@ public class GamePanel extends JPanel {
                 if (tempFlying.isEmpty() || tempSplattered.isEmpty()) {
                     missingFruit.add(fruit); // track missing fruit
                 }
-                if (inputStream != null){
-                    try {
-                        inputStream.close();
-                    } catch (IOException e) {
-                        e.printStackTrace();
-                    } 
-                }
             }
         }
 
@@ -588,9 +785,186 @@ public class GamePanel extends JPanel {
         for (String missing : missingFruit) {
             fruitNames.remove(missing);
         }
+        for (String fruit : fruitNames) {
+            flyingImages.add(atlas.get(projectileImagesName(fruit, "flying")));
+            splatteredImages.add(atlas.get(projectileImagesName(fruit, "splattered")));
+        }
+        this.juiceColors = new int[fruitNames.size()];
+        for (int i = 0; i < juiceColors.length; i++) {
+            juiceColors[i] = ParticleSystem.averageColor(splatteredImages.get(i).get(0));
+        }
         
         // Return true if there's a least one type of fruit images
-        return projectileImages.size() > 0;
+        return !fruitNames.isEmpty();
+    }
+
+    /**
+     * Composites the sprites that only change with input or a lost life (the Background,
+     * Wall, PowerBar and Lives) into a LayerCache, so most frames draw them with one copy.
+     */
+    private void loadStaticLayer() {
+        SpriteList staticSprites = new SpriteList();
+        staticSprites.add(background);
+        staticSprites.add(wall);
+        staticSprites.add(powerBar);
+        staticSprites.add(lives);
+        // they're only drawn into the LayerCache, so caching them separately is wasted
+        background.setCached(false);
+        wall.setCached(false);
+        this.staticLayer =
+                new LayerCache(staticSprites, SCREEN_WIDTH, SCREEN_HEIGHT, getBackground());
+    }
+
+    /**
+     * Returns a number that changes whenever the static layer's sprites would look different.
+     */
+    private long staticLayerState() {
+        return ((long) powerBar.getPower() << 32) | lives.getLives();
+    }
+
+    /**
+     * Returns the name a fruit's flying or splattered images are registered under in the atlas.
+     */
+    private static String projectileImagesName(String fruit, String state) {
+        return "projectiles/" + fruit + "/" + state;
+    }
+
+    /**
+     * Instantiates the RoundSimulation that runs this game's logic, measuring its settings
+     * from the loaded sprites, and works out the TrajectoryTable for those settings for the
+     * AimPreview. Sets fatalError to true and appends to errorMessage if the sprites'
+     * measurements are unusable.
+     */
+    private void loadSimulation() {
+        try {
+            BufferedImage projectileImage = flyingImages.get(0).get(0);
+            RoundSettings settings = new RoundSettings(cannon.getX(), cannon.getY(),
+                    cannon.getBarrelPivotX(), cannon.getBarrelPivotY(), powerBar.getMaxPower(),
+                    wall.getX(), target.getWidth(), target.getHeight(),
+                    projectileImage.getWidth(), projectileImage.getHeight(), fruitNames.size(),
+                    Lives.TOTAL_LIVES, Target.MAX_HITS);
+            this.seed = new Random().nextLong();
+            this.simulation = new RoundSimulation(settings, seed);
+            this.trajectories = TrajectoryTable.compute(settings);
+            this.aimPreview = new AimPreview(trajectories);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Couldn't instantiate RoundSimulation object.");
+            e.printStackTrace();
+            this.fatalError = true;
+            this.errorMessage += "setting up the game, ";
+        }
+    }
+
+    /**
+     * Records the seed, whether rapid fire is on and every tick's input to the given file, so
+     * the game can be replayed exactly with startReplay(). The recording is finished when
+     * stopRecording() is called or the program exits. Call after setRapidFire() and before
+     * startGame(), so the recording starts with the round.
+     * 
+     * @param file the file to record to; replaced if it exists.
+     * @return true if recording started; false if a fatal error has occurred or the file
+     *         can't be written.
+     * @throws IllegalArgumentException if file is null.
+     */
+    public boolean recordTo(Path file) {
+        if (file == null) {
+            throw new IllegalArgumentException("file cannot be null.");
+        }
+        if (fatalError) {
+            return false;
+        }
+        try {
+            this.recorder = new InputRecording.Writer(file, seed, batch != null);
+        } catch (IOException e) {
+            System.out.println("Couldn't start recording input to: " + file);
+            e.printStackTrace();
+            return false;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(this::stopRecording));
+        return true;
+    }
+
+    /**
+     * Finishes and closes the recording started by recordTo(), if there is one.
+     */
+    public void stopRecording() {
+        InputRecording.Writer writer = this.recorder;
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            System.out.println("Couldn't finish recording input.");
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Replays the given recording in place of the keyboard: the game restarts with the
+     * recording's seed, and each tick takes its input from the recording instead of the
+     * KeyHandler. Once the recording runs out, the game stops and reports whether it ended up
+     * in the same state as when it was recorded. Rapid fire is switched on or off to match the
+     * recording, whatever setRapidFire() was given. Call before startGame() or gameSetup(),
+     * which start the round. Does nothing if a fatal error has occurred.
+     * 
+     * @param recording the recording to replay.
+     * @throws IllegalArgumentException if recording is null.
+     */
+    public void startReplay(InputRecording recording) {
+        if (recording == null) {
+            throw new IllegalArgumentException("recording cannot be null.");
+        }
+        if (fatalError) {
+            return;
+        }
+        this.seed = recording.getSeed();
+        this.simulation = new RoundSimulation(simulation.getSettings(), seed);
+        if (recording.isRapidFire() != (batch != null)) {
+            setRapidFire(recording.isRapidFire()); // which gives the new simulation the batch
+        } else {
+            this.simulation.setRapidFire(batch);
+        }
+        this.replay = recording;
+        this.replayTick = 0;
+    }
+
+    /**
+     * Returns whether a recording is being replayed and has ticks left.
+     * 
+     * @return true until the replay's last tick has been played.
+     */
+    public boolean isReplaying() {
+        return replay != null && replayTick < replay.getTickCount() && !fatalError;
+    }
+
+    /**
+     * Returns whether the replay ended up in the same state as its recording did: whether the
+     * simulation's checksum after the last tick matches the recording's.
+     * 
+     * @return true if the replay has finished and matched; false otherwise, including if the
+     *         recording was cut short and has no checksum.
+     */
+    public boolean replayMatched() {
+        return replay != null && replayTick == replay.getTickCount() && replay.isComplete()
+                && simulation.checksum() == replay.getChecksum();
+    }
+
+    /**
+     * Stops the game once the replay's last tick has been played, and reports the result.
+     */
+    private void finishReplay() {
+        this.isRunning = false;
+        String result;
+        if (!replay.isComplete()) {
+            result = "the recording was cut short, so can't be checked";
+        } else if (replayMatched()) {
+            result = "matches the recording";
+        } else {
+            result = "DOESN'T match the recording";
+        }
+        System.out.printf("Replayed %d ticks: checksum %016x %s%n", replayTick,
+                simulation.checksum(), result);
     }
 
     /**
@@ -610,14 +984,23 @@ public class GamePanel extends JPanel {
     /**
      * Resets components of the game if no fatal error has occurred.
      * 
-     * <p>Clears endMessage and projectiles SpriteList.
-     * Resets number of lives and the position of the target.
+     * <p>Resets the simulation's number of lives, target hits and position of the target.
+     * Clears endMessage and projectiles SpriteList.
      * Stops the ending music and plays the in-game music.
      */
     public void gameSetup() {
         if (fatalError) {
             return;
         }
+        simulation.reset();
+        resetSprites();
+    }
+
+    /**
+     * Stops the ending music, plays the in-game music, hides the endMessage, returns the
+     * projectiles to the pool and matches the other sprites to the simulation.
+     */
+    private void resetSprites() {
         if (endMessage.getSound("losingSong") != null) {
             endMessage.getSound("losingSong").stopSound();
         }
@@ -629,159 +1012,625 @@ public class GamePanel extends JPanel {
             gameSong.loopSound();
         }
         endMessage.displayEndMessage(false);
+        for (int i = 0; i < projectiles.size(); i++) {
+            projectilePool.release((Projectile) projectiles.get(i));
+        }
         projectiles.clear();
-        target.reset();
-        lives.livesReset();
+        particles.clear();
+        syncSprites();
     }
 
     /**
      * Game loop.
-     * Calls update() and paintComponent() FPS times per second while the game is running
-     * and no fatal error has occurred.
+     * Runs this GamePanel's fixed-timestep GameLoop, which calls update() and render() FPS
+     * times per second while the game is running and no fatal error has occurred.
      */
     public void run() {
-        double drawInterval = 1000000000 / FPS; // get 1/60 of a second in nanoseconds
-        double delta = 0;
-        long lastTime = System.nanoTime();
-        long currentTime;
-
-        while (isRunning && !fatalError) {
-            // track time since last update 
-            currentTime = System.nanoTime();
-            delta += (currentTime - lastTime) / drawInterval;
-            lastTime = currentTime;
-
-            // update fps times per second
-            if (delta >= 1) {
-                update();
-                repaint();
-                delta--;
+        gameLoop.run();
+    }
+
+    /**
+     * Returns whether the game loop should keep running.
+     * 
+     * @return true if the game is running and no fatal error has occurred.
+     */
+    @Override
+    public boolean isRunning() {
+        return isRunning && !fatalError;
+    }
+
+    /**
+     * Presents the current frame. In RenderMode.ACTIVE, draws and shows the frame immediately
+     * on the calling thread; otherwise schedules this panel to be repainted. Sprites are drawn
+     * at their positions as of the last tick, so the interpolation alpha is not used.
+     * 
+     * @param alpha fraction of a tick elapsed since the last update.
+     */
+    @Override
+    public void render(double alpha) {
+        metrics.recordUpdatesPerFrame(updatesSinceRender);
+        metrics.setDroppedTicks(gameLoop.getDroppedTicks());
+        updatesSinceRender = 0;
+        if (dirtyRegions != null) {
+            findDirtyRegions();
+        }
+        if (renderMode == RenderMode.ACTIVE) {
+            renderActive();
+        } else if (dirtyRegions == null) {
+            repaint();
+        } else {
+            // Swing's RepaintManager merges these and paints their union
+            for (int i = 0; i < dirtyRegions.getRegionCount(); i++) {
+                repaint(dirtyRegions.getRegion(i));
             }
         }
     }
 
     /**
-     * Main game logic.
+     * Works out which parts of the screen changed since the last frame from the sprites that
+     * can move or change image. The Background and Wall never change, so aren't tracked.
+     * 
+     * <p>With the overlay showing, also marks where the last frame's outlines and fill rate
+     * were drawn, so they're erased.
+     */
+    private void findDirtyRegions() {
+        dirtyRegions.startFrame();
+        if (redrawAll) {
+            dirtyRegions.markAllDirty();
+            redrawAll = false;
+        }
+        dirtyRegions.track(target);
+        dirtyRegions.track(projectiles);
+        dirtyRegions.track(cannon);
+        dirtyRegions.track(powerBar);
+        dirtyRegions.track(lives);
+        dirtyRegions.track(endMessage);
+        dirtyRegions.track(aimPreview);
+        dirtyRegions.endFrame();
+        if (showMetrics || metricsShown) { // redraw it, or erase it once it's been hidden
+            dirtyRegions.add(METRICS_BOUNDS);
+        }
+        if (batch != null) { // too many to track one by one, so redraw around them all
+            findBatchBounds(batchBounds);
+            if (!batchBounds.isEmpty()) {
+                dirtyRegions.add(batchBounds);
+            }
+            if (!lastBatchBounds.isEmpty()) {
+                dirtyRegions.add(lastBatchBounds);
+            }
+            lastBatchBounds.setBounds(batchBounds);
+        }
+        // particles move every tick, so likewise
+        particles.fillDrawBounds(particleBounds);
+        if (!particleBounds.isEmpty()) {
+            dirtyRegions.add(particleBounds);
+        }
+        if (!lastParticleBounds.isEmpty()) {
+            dirtyRegions.add(lastParticleBounds);
+        }
+        lastParticleBounds.setBounds(particleBounds);
+        metricsShown = showMetrics;
+
+        if (showDirtyRegions) {
+            Rectangle[] changed = new Rectangle[dirtyRegions.getRegionCount()];
+            for (int i = 0; i < changed.length; i++) {
+                changed[i] = new Rectangle(dirtyRegions.getRegion(i));
+            }
+            for (Rectangle outlined : outlinedRegions) {
+                dirtyRegions.add(outlined);
+            }
+            dirtyRegions.add(FILL_RATE_BOUNDS);
+            outlinedRegions = changed;
+        }
+    }
+
+    /**
+     * Draws the frame into the Canvas's back buffer and shows it, redrawing if the buffer's
+     * contents are restored or lost in the meantime. Creates the double-buffered BufferStrategy
+     * the first time the Canvas is displayable.
+     */
+    private void renderActive() {
+        if (!canvas.isDisplayable()) {
+            return;
+        }
+        if (bufferStrategy == null) {
+            createBufferStrategy();
+        }
+
+        long start = System.nanoTime();
+        GameEvents.Render event = new GameEvents.Render();
+        event.begin();
+        long painted = 0;
+        boolean wholeFrame = dirtyRegions == null;
+        boolean restored;
+        do {
+            do {
+                Graphics2D g2D = (Graphics2D) bufferStrategy.getDrawGraphics();
+                try {
+                    painted += drawBackBuffer(g2D, wholeFrame);
+                } finally {
+                    g2D.dispose();
+                }
+                restored = bufferStrategy.contentsRestored();
+                wholeFrame = wholeFrame || restored; // the last frame is gone from the buffer
+            } while (restored);
+            bufferStrategy.show();
+            wholeFrame = true; // in case the buffer was lost and it's drawn again
+        } while (bufferStrategy.contentsLost());
+
+        // flush the window system's queue so the frame appears now (matters on Linux)
+        Toolkit.getDefaultToolkit().sync();
+        event.end();
+        metrics.recordRender(start, System.nanoTime() - start);
+        commitRender(event, painted);
+    }
+
+    /**
+     * Fills in and commits a frame's GameEvents.Render if a Flight Recorder recording has it
+     * enabled.
      * 
-     * <p>Resets the game as needed, in response to keyboard input.
+     * @param event the frame's event, which has ended.
+     * @param painted how many pixels the frame painted.
+     */
+    private void commitRender(GameEvents.Render event, long painted) {
+        if (event.shouldCommit()) {
+            event.renderMode = renderMode.name();
+            event.dirty = dirtyRegions != null;
+            event.pixelsPainted = painted;
+            event.commit();
+        }
+    }
+
+    /**
+     * Creates the Canvas's double-buffered BufferStrategy: page flipping where supported,
+     * except when rendering dirty regions. They're drawn over the last frame, which page
+     * flipping would swap for an older one, so the back buffer is copied to the screen instead.
+     * Falls back to redrawing whole frames if that isn't possible.
+     */
+    private void createBufferStrategy() {
+        if (dirtyRegions != null) {
+            try {
+                canvas.createBufferStrategy(2, new BufferCapabilities(new ImageCapabilities(false),
+                        new ImageCapabilities(false), null));
+            } catch (AWTException e) {
+                System.out.println("Couldn't create a copying BufferStrategy; "
+                        + "redrawing whole frames.");
+                e.printStackTrace();
+                this.dirtyRegions = null;
+                canvas.createBufferStrategy(2);
+            }
+        } else {
+            canvas.createBufferStrategy(2);
+        }
+        bufferStrategy = canvas.getBufferStrategy();
+    }
+
+    /**
+     * Draws the whole frame, or just its dirty regions over the last frame, into the back
+     * buffer, followed by the dirty region overlay if it's showing.
      * 
-     * <p>Ends the game (either winning or losing) based on whether the target is full
-     * or the player is dead.
+     * @param g2D the back buffer's graphics.
+     * @param wholeFrame true to draw the whole frame.
+     * @return how many pixels were painted.
+     */
+    private long drawBackBuffer(Graphics2D g2D, boolean wholeFrame) {
+        long painted;
+        g2D.setColor(getBackground());
+        if (wholeFrame) {
+            g2D.fillRect(0, 0, SCREEN_WIDTH, SCREEN_HEIGHT);
+            drawFrame(g2D);
+            painted = (long) SCREEN_WIDTH * SCREEN_HEIGHT;
+        } else {
+            for (int i = 0; i < dirtyRegions.getRegionCount(); i++) {
+                Rectangle region = dirtyRegions.getRegion(i);
+                g2D.setClip(region);
+                g2D.setColor(getBackground());
+                g2D.fillRect(region.x, region.y, region.width, region.height);
+                drawFrame(g2D);
+            }
+            g2D.setClip(null);
+            painted = dirtyRegions.getDirtyArea();
+        }
+        countFill(painted);
+        if (dirtyRegions != null && showDirtyRegions) {
+            drawDirtyOverlay(g2D);
+        }
+        return painted;
+    }
+
+    /**
+     * Runs one tick of game logic, timing it for the metrics and recording it as a
+     * GameEvents.Tick if a Flight Recorder recording has it enabled. Takes this tick's
+     * keyboard input first, and toggles the metrics overlay when F3 is pressed. When the
+     * last tick of a replay has been played, stops the game.
+     */
+    @Override
+    public void update() {
+        long start = System.nanoTime();
+        GameEvents.Tick event = new GameEvents.Tick();
+        event.begin();
+        long collisionChecks = simulation.getCollisionChecks();
+        if (keyH.snapshot().wasPressed(KeyHandler.METRICS_OVERLAY)) {
+            showMetrics = !showMetrics;
+        }
+        int events = updateGame();
+        event.end();
+        metrics.recordUpdate(System.nanoTime() - start);
+        updatesSinceRender++;
+        if (event.shouldCommit()) {
+            event.projectiles = projectiles.size() + (batch == null ? 0 : batch.size());
+            event.collisionChecks = simulation.getCollisionChecks() - collisionChecks;
+            event.events = events;
+            event.commit();
+        }
+        if (replay != null && replayTick == replay.getTickCount() && isRunning) {
+            finishReplay();
+        }
+    }
+
+    /**
+     * Main game logic.
      * 
-     * <p>Registers and reacts to collisions between projectiles and other solid objects.
+     * <p>Steps the RoundSimulation with the current keyboard input, which resets the game,
+     * ends the round, launches projectiles, detects collisions, and turns the cannon and
+     * changes the power as needed.
      * 
-     * <p>Launches projectiles in response to keyboard input.
+     * <p>Reacts to what happened in the simulation with sounds, Projectile sprites, sprays of
+     * juice and the end message, then matches the other sprites to the simulation. Updates
+     * projectiles with each call until the round is over, and the juice even after.
      * 
-     * <p>Updates all sprites with their update methods, if no projectile is flying. Updates
-     * projectiles with each call.
+     * @return the simulation's events this tick.
      */
-    public void update() {
-        // Checking for restart of the game
-        if (keyH.getResetTyped()) {
-            startGame();
+    private int updateGame() {
+        RoundInput input = readInput();
+        int events = simulation.step(input);
+        if (recorder != null) {
+            recordInput(input);
+        }
+        particles.update();
+        sprayJuice(events);
+
+        // Checking for restart of the game (the loop is already running, so just set up again)
+        if ((events & RoundSimulation.EVENT_RESET) != 0) {
+            resetSprites();
         }
 
         // Checking for the end of game
-        if (lives.isDead()) {
-            endMessage.displayEndMessage(true);
-            if (this.background.getSound("GameSong") != null) {
-                this.background.getSound("GameSong").stopSound();
-            }
-            if (endMessage.getSound("losingSong") != null) {
-                endMessage.getSound("losingSong").loopSound();
+        if ((events & RoundSimulation.EVENT_ROUND_LOST) != 0) {
+            endRound(false);
+        }
+        if ((events & RoundSimulation.EVENT_ROUND_WON) != 0) {
+            endRound(true);
+        }
+        if (simulation.isRoundOver()) {
+            return events;
+        }
+
+        if (batch != null) {
+            playRapidFireSounds(events);
+            syncSprites();
+            return events;
+        }
+
+        // react to the flying projectile's collisions, splatting it where it hit
+        if ((events & RoundSimulation.EVENT_TARGET_HIT) != 0) {
+            projectilePool.release((Projectile) projectiles.remove(projectiles.size() - 1));
+            if (target.getSound("splash") != null) {
+                target.getSound("splash").playSound();
             }
-            endMessage.playerWon(false);
-            return;
+        } else if ((events & RoundSimulation.EVENT_HIT_WALL) != 0) {
+            Projectile hit = (Projectile) projectiles.get(projectiles.size() - 1);
+            hit.setPosition(simulation.getImpactX(), simulation.getImpactY());
+            hit.splat(90);
+            recycleSplats();
+        } else if ((events & RoundSimulation.EVENT_HIT_GROUND) != 0) {
+            Projectile hit = (Projectile) projectiles.get(projectiles.size() - 1);
+            hit.setPosition(simulation.getImpactX(), simulation.getImpactY());
+            hit.splat();
+            recycleSplats();
+        } else if ((events & RoundSimulation.EVENT_LEFT_SCREEN) != 0) {
+            projectilePool.release((Projectile) projectiles.remove(projectiles.size() - 1));
         }
-        if (target.isFull()) {
-            endMessage.displayEndMessage(true);
-            if (this.background.getSound("GameSong") != null) {
-                this.background.getSound("GameSong").stopSound();
+
+        // launch the projectile the simulation just shot
+        if ((events & RoundSimulation.EVENT_SHOT) != 0) {
+            if (this.cannon.getSound("boom") != null) {
+                this.cannon.getSound("boom").reset();
+                this.cannon.getSound("boom").playSound();
             }
-            if (endMessage.getSound("winningSong") != null) {
-                endMessage.getSound("winningSong").loopSound();
+            ProjectileState shot = simulation.getProjectile();
+            flyingFruit = shot.getFruit();
+            try {
+                projectiles.add(projectilePool.acquire(shot.getInitialX(), shot.getInitialY(),
+                        shot.getAngle(), shot.getPower(), flyingImages.get(shot.getFruit()),
+                        splatteredImages.get(shot.getFruit())));
+            } catch (IllegalArgumentException e) {
+                System.out.println("Projectile could not be instantiated: "
+                        + fruitNames.get(shot.getFruit()));
+                e.printStackTrace();
+                fatalError = true;
+                errorMessage += "instantiating Projectile, ";
+                return events;
+            }
+            if (target.getSound("splash") != null) {
+                target.getSound("splash").stopSound();
             }
-            endMessage.playerWon(true);
-            return;
         }
 
-        // if flying projectile, check for collisions
-        if (projectiles.size() > 0 && launchedProjectile) {
-            if (projectiles.get(projectiles.size() - 1).collidesWith(target)) {
-                projectiles.remove(projectiles.size() - 1);
-                if (target.getSound("splash") != null) {
-                    target.getSound("splash").playSound();
-                }
-                target.incrementNumberOfHits();
-                target.resetPosition();
-                launchedProjectile = false;
-            } else if (projectiles.get(projectiles.size() - 1).collidesWith(wall)) {
-                ((Projectile) projectiles.get(projectiles.size() - 1)).splat(90);
-                lives.loseLife();
-                target.resetPosition();
-                launchedProjectile = false;
-            } else if (projectiles.get(projectiles.size() - 1).collidesWith(background)) {
-                ((Projectile) projectiles.get(projectiles.size() - 1)).splat();
-                lives.loseLife();
-                target.resetPosition();
-                launchedProjectile = false;
-            } else if (projectiles.get(projectiles.size() - 1).getX() >= SCREEN_WIDTH
-                    || projectiles.get(projectiles.size() - 1).getY() > SCREEN_HEIGHT) {
-                projectiles.remove(projectiles.size() - 1);
-                lives.loseLife();
-                target.resetPosition();
-                launchedProjectile = false;
+        syncSprites();
+        projectiles.update();
+        return events;
+    }
+
+    /**
+     * Sprays juice from wherever fruit splatted this tick: up out of the target, back off the
+     * wall and up off the ground. Fruit that left the screen don't spray.
+     * 
+     * @param events the simulation's events this tick.
+     */
+    private void sprayJuice(int events) {
+        if (batch != null) {
+            for (int i = 0; i < batch.getImpactCount(); i++) {
+                spray(batch.getImpactEvent(i), batch.getImpactX(i), batch.getImpactY(i),
+                        batch.getImpactFruit(i), RAPID_FIRE_SPLASH_PARTICLES);
             }
+            return;
+        }
+        int impact = events & (RoundSimulation.EVENT_TARGET_HIT | RoundSimulation.EVENT_HIT_WALL
+                | RoundSimulation.EVENT_HIT_GROUND);
+        if (impact != 0) {
+            spray(impact, simulation.getImpactX(), simulation.getImpactY(), flyingFruit,
+                    SPLASH_PARTICLES);
+        }
+    }
 
-        // if not a flying projectile, we check to see if player wants to shoot
+    /**
+     * Sprays the given number of particles of the fruit's juice from the middle of a
+     * projectile that splatted with its top left corner at (x, y).
+     * 
+     * @param event the impact's event, such as RoundSimulation.EVENT_HIT_WALL.
+     */
+    private void spray(int event, int x, int y, int fruit, int count) {
+        double direction;
+        double spread;
+        if (event == RoundSimulation.EVENT_TARGET_HIT) {
+            direction = 90;
+            spread = 100;
+        } else if (event == RoundSimulation.EVENT_HIT_WALL) {
+            direction = 150;
+            spread = 80;
+        } else if (event == RoundSimulation.EVENT_HIT_GROUND) {
+            direction = 90;
+            spread = 140;
         } else {
-            if (keyH.getShootButtonPressed()) {
-                if (this.cannon.getSound("boom") != null) {
-                    this.cannon.getSound("boom").playSound();
-                }
-                Random randomizer = new Random();
-                int i = randomizer.nextInt(fruitNames.size());
-                String fruit = fruitNames.get(i);
-                try {
-                    projectiles.add(
-                            new Projectile(cannon.getLaunchX(), cannon.getLaunchY(), cannon.getAngle(),
-                                    powerBar.getPower(), projectileImages.get(fruit).get("flying"),
-                                    projectileImages.get(fruit).get("splattered"), 5));
-                    launchedProjectile = true;
-                } catch (IllegalArgumentException e) {
-                    System.out.println("Projectile could not be instantiated: " + fruit);
-                    e.printStackTrace();
-                    fatalError = true;
-                    errorMessage += "instantiating Projectile, ";
-                    return;
-                }
-                if (target.getSound("splash") != null) {
-                    target.getSound("splash").stopSound();
-                }
+            return;
+        }
+        BufferedImage image = flyingImages.get(fruit).get(0);
+        particles.emit(x + image.getWidth() / 2, y + image.getHeight() / 2, count, direction,
+                spread, SPLASH_SPEED, SPLASH_TICKS, juiceColors[fruit]);
+    }
+
+    /**
+     * Plays the cannon's boom when rapid fire shoots and the target's splash when it's hit,
+     * each at most once every RAPID_FIRE_SOUND_TICKS ticks rather than for every fruit.
+     * 
+     * @param events the simulation's events this tick.
+     */
+    private void playRapidFireSounds(int events) {
+        if (simulation.getTicks() - lastRapidFireSound < RAPID_FIRE_SOUND_TICKS) {
+            return;
+        }
+        Sound sound = null;
+        if ((events & RoundSimulation.EVENT_TARGET_HIT) != 0) {
+            sound = target.getSound("splash");
+        } else if ((events & RoundSimulation.EVENT_SHOT) != 0) {
+            sound = cannon.getSound("boom");
+        }
+        if (sound != null) {
+            sound.reset();
+            sound.playSound();
+            lastRapidFireSound = simulation.getTicks();
+        }
+    }
+
+    /**
+     * Returns the oldest splattered projectiles to the pool while there are more than
+     * MAX_SPLATS on screen, so long games don't pile up projectiles.
+     */
+    private void recycleSplats() {
+        // only the newest projectile can be flying, and it has just splattered
+        while (projectiles.size() > MAX_SPLATS) {
+            projectilePool.release((Projectile) projectiles.remove(0));
+        }
+    }
+
+    /**
+     * Returns the keyboard input for this tick, from the KeyHandler's latest snapshot. Controls
+     * count if they were down at any point during the tick, so quick taps aren't lost; reset
+     * only counts in the tick R was pressed.
+     * 
+     * <p>While replaying, returns the recording's input for this tick instead, or no input
+     * once the recording has run out.
+     * 
+     * @return a RoundInput matching this tick's keys.
+     */
+    private RoundInput readInput() {
+        if (replay != null) {
+            if (replayTick < replay.getTickCount()) {
+                return replay.getInput(replayTick++);
             }
-            cannon.update();
-            powerBar.update();
-            target.update();
-            lives.update();
+            return RoundInput.NONE;
         }
+        InputSnapshot input = keyH.getSnapshot();
+        int held = input.getActive() & RoundInput.ALL_CONTROLS & ~RoundInput.RESET;
+        return RoundInput.of(held | (input.getPressed() & RoundInput.RESET));
+    }
 
-        projectiles.update();
+    /**
+     * Adds this tick's input and the simulation's resulting state to the recording. Stops
+     * recording if the file can't be written.
+     * 
+     * @param input the input this tick was played with.
+     */
+    private void recordInput(RoundInput input) {
+        try {
+            recorder.record(input, simulation.checksum());
+        } catch (IOException e) {
+            System.out.println("Couldn't record input; recording stopped.");
+            e.printStackTrace();
+            stopRecording();
+            this.recorder = null;
+        }
     }
 
     /**
-     * Draws the screen and each component from farthest to nearest.
+     * Shows the winning or losing end message, and swaps the in-game music for the matching
+     * ending music.
+     * 
+     * @param playerWon whether the player won the round.
+     */
+    private void endRound(boolean playerWon) {
+        endMessage.displayEndMessage(true);
+        aimPreview.setShowing(false);
+        if (this.background.getSound("GameSong") != null) {
+            this.background.getSound("GameSong").stopSound();
+        }
+        String song = playerWon ? "winningSong" : "losingSong";
+        if (endMessage.getSound(song) != null) {
+            endMessage.getSound(song).loopSound();
+        }
+        endMessage.playerWon(playerWon);
+    }
+
+    /**
+     * Matches the Cannon, PowerBar, Target, Lives and AimPreview sprites to the simulation's
+     * state. The AimPreview shows while aiming, between shots.
+     */
+    private void syncSprites() {
+        cannon.setAngle(simulation.getAngle());
+        powerBar.setPower(simulation.getPower());
+        target.setPosition(simulation.getTargetX(), simulation.getTargetY());
+        target.setNumberOfHits(simulation.getTargetHits());
+        lives.setLives(simulation.getLives());
+        aimPreview.setShowing(showAimPreview && simulation.getProjectile() == null
+                && !simulation.isRoundOver());
+        if (aimPreview.isShowing()) {
+            aimPreview.aim(simulation.getAngle(), simulation.getPower());
+        }
+    }
+
+    /**
+     * Paints this panel. In RenderMode.ACTIVE the Canvas covers this panel and the game loop
+     * draws the frames, so only the panel's background is painted here.
      */
     @Override
     public void paintComponent(Graphics g) {
+        long start = System.nanoTime();
+        GameEvents.Render event = new GameEvents.Render();
+        event.begin();
         super.paintComponent(g);
-        Graphics2D g2D = (Graphics2D) g;
+        if (renderMode != RenderMode.ACTIVE) {
+            drawFrame((Graphics2D) g);
+            Rectangle clip = g.getClipBounds(); // with dirty rendering, the regions' union
+            long painted = clip == null ? (long) SCREEN_WIDTH * SCREEN_HEIGHT
+                    : (long) clip.width * clip.height;
+            if (dirtyRegions != null) {
+                countFill(painted);
+                if (showDirtyRegions) {
+                    drawDirtyOverlay((Graphics2D) g);
+                }
+            }
+            event.end();
+            metrics.recordRender(start, System.nanoTime() - start);
+            commitRender(event, painted);
+        }
+    }
+
+    /**
+     * Draws every projectile in the rapid-fire batch with its fruit's flying images, animated
+     * at the same rate as a Projectile's.
+     * 
+     * @param g2D the graphics to draw with.
+     */
+    private void drawBatch(Graphics2D g2D) {
+        for (int i = 0; i < batch.size(); i++) {
+            ImageAtlas.Frames frames = flyingImages.get(batch.getFruit(i));
+            int ticks = (int) Math.round(batch.getTime(i) / Ballistics.TIME_STEP);
+            int frame = ticks / BATCH_TICKS_PER_FRAME % frames.size();
+            g2D.drawImage(frames.get(frame), batch.getX(i), batch.getY(i), null);
+        }
+    }
 
+    /**
+     * Sets bounds to cover every projectile in the rapid-fire batch, or to empty if there are
+     * none.
+     * 
+     * @param bounds the rectangle to set.
+     */
+    private void findBatchBounds(Rectangle bounds) {
+        if (batch.size() == 0) {
+            bounds.setBounds(0, 0, 0, 0);
+            return;
+        }
+        int xMin = Integer.MAX_VALUE;
+        int yMin = Integer.MAX_VALUE;
+        int xMax = Integer.MIN_VALUE;
+        int yMax = Integer.MIN_VALUE;
+        for (int i = 0; i < batch.size(); i++) {
+            xMin = Math.min(xMin, batch.getX(i));
+            yMin = Math.min(yMin, batch.getY(i));
+            xMax = Math.max(xMax, batch.getX(i));
+            yMax = Math.max(yMax, batch.getY(i));
+        }
+        bounds.setBounds(xMin, yMin, xMax - xMin + batchImageSize,
+                yMax - yMin + batchImageSize);
+    }
+
+    /**
+     * Adds a frame's painted pixels to the fill rate, which is recalculated every FPS frames.
+     * 
+     * @param pixels how many pixels the frame painted.
+     */
+    private void countFill(long pixels) {
+        filledPixels += pixels;
+        filledFrames++;
+        if (filledFrames >= FPS) {
+            fillRate = (double) filledPixels / ((long) filledFrames * SCREEN_WIDTH * SCREEN_HEIGHT);
+            filledPixels = 0;
+            filledFrames = 0;
+        }
+    }
+
+    /**
+     * Outlines the regions that changed this frame and shows the fill rate in the top right
+     * corner.
+     * 
+     * @param g2D the graphics to draw the overlay with.
+     */
+    private void drawDirtyOverlay(Graphics2D g2D) {
+        Rectangle[] outlined = outlinedRegions;
+        g2D.setColor(Color.RED);
+        for (Rectangle region : outlined) {
+            g2D.drawRect(region.x, region.y, region.width - 1, region.height - 1);
+        }
+        g2D.setColor(Color.BLACK);
+        g2D.fillRect(FILL_RATE_BOUNDS.x, FILL_RATE_BOUNDS.y, FILL_RATE_BOUNDS.width,
+                FILL_RATE_BOUNDS.height);
+        g2D.setColor(Color.WHITE);
+        g2D.setFont(new Font(Font.DIALOG, Font.PLAIN, 12));
+        g2D.drawString(String.format("fill rate %.1f%%, %d regions", 100 * fillRate,
+                outlined.length), FILL_RATE_BOUNDS.x + 4, FILL_RATE_BOUNDS.y + 16);
+    }
+
+    /**
+     * Draws the screen and each component from farthest to nearest.
+     * 
+     * @param g2D the graphics to draw the frame with.
+     */
+    void drawFrame(Graphics2D g2D) {
         if (!fatalError) {
-            // draw components back to front
-            background.draw(g2D);
-            wall.draw(g2D);
-            powerBar.draw(g2D);
-            lives.draw(g2D);
+            // draw components back to front, starting with the cached static layer
+            staticLayer.draw(g2D, staticLayerState());
             // draw target on top of splattered projectiles on the ground (looks less weird)
             if (target.getHeight() + target.getY() >= background.getHitBox().getYMin()) {
                 projectiles.draw(g2D);
@@ -791,8 +1640,16 @@ public class GamePanel extends JPanel {
                 target.draw(g2D);
                 projectiles.draw(g2D);
             }
+            if (batch != null) {
+                drawBatch(g2D);
+            }
+            particles.draw(g2D);
+            aimPreview.draw(g2D);
             cannon.draw(g2D);
             endMessage.draw(g2D);
+            if (showMetrics) {
+                metrics.drawOverlay(g2D, METRICS_BOUNDS.x, METRICS_BOUNDS.y);
+            }
 
         } else {
             // Draw error screen
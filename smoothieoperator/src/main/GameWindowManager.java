@@ -1,9 +1,14 @@
 package smoothieoperator.src.main;
 
 import java.awt.CardLayout;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import javax.swing.JFrame;
 import javax.swing.JPanel;
 
+import smoothieoperator.src.simulation.InputRecording;
+
 /**
  * Represents a game window with multiple screens. Contains a title screen and
  * a gameplay screen. Switches from the title screen to the gameplay screen.
@@ -14,13 +19,127 @@ public class GameWindowManager {
     private JPanel deck;
     private TitlePanel titlePanel;
     private GamePanel gamePanel;
-    
+    private RenderMode renderMode;
+    private boolean printAssetTimings;
+    private boolean dirtyRendering;
+    private boolean showDirtyRegions;
+    private boolean showMetrics;
+    private boolean showAimPreview;
+    private boolean rapidFire;
+    private Path metricsFile; // null unless the metrics are dumped
+    private long metricsPeriod;
+    private Path recordFile; // null unless the input is recorded
+    private Path replayFile; // null unless a recording is replayed
+
+    /**
+     * Creates a new GameWindowManager whose GamePanel renders passively through Swing.
+     */
+    public GameWindowManager() {
+        this(RenderMode.PASSIVE);
+    }
+
+    /**
+     * Creates a new GameWindowManager whose GamePanel uses the given RenderMode.
+     * 
+     * @param renderMode how the GamePanel presents frames; null is treated as
+     *        RenderMode.PASSIVE.
+     */
+    public GameWindowManager(RenderMode renderMode) {
+        this.renderMode = renderMode;
+    }
+
+    /**
+     * Sets whether to print how long each of the game's assets took to load once they have.
+     * 
+     * @param printAssetTimings true to print the load times.
+     */
+    public void setPrintAssetTimings(boolean printAssetTimings) {
+        this.printAssetTimings = printAssetTimings;
+    }
+
+    /**
+     * Sets whether the GamePanel redraws only the parts of the screen that change each frame,
+     * and whether it outlines them.
+     * 
+     * @param dirtyRendering true to redraw only what changes.
+     * @param showDirtyRegions true to outline what changes and show the fill rate.
+     */
+    public void setDirtyRendering(boolean dirtyRendering, boolean showDirtyRegions) {
+        this.dirtyRendering = dirtyRendering;
+        this.showDirtyRegions = showDirtyRegions;
+    }
+
+    /**
+     * Sets whether the GamePanel starts with its metrics overlay showing.
+     * 
+     * @param showMetrics true to show the overlay.
+     */
+    public void setShowMetrics(boolean showMetrics) {
+        this.showMetrics = showMetrics;
+    }
+
+    /**
+     * Sets whether the GamePanel shows where each shot will land while the player aims.
+     * 
+     * @param showAimPreview true to show the aim preview.
+     */
+    public void setShowAimPreview(boolean showAimPreview) {
+        this.showAimPreview = showAimPreview;
+    }
+
+    /**
+     * Sets whether the GamePanel plays in rapid fire, firing a stream of fruit while shoot is
+     * held. A replayed recording plays the way it was recorded instead.
+     * 
+     * @param rapidFire true for rapid fire.
+     */
+    public void setRapidFire(boolean rapidFire) {
+        this.rapidFire = rapidFire;
+    }
+
+    /**
+     * Has the GamePanel append its metrics to the given file every periodSeconds seconds once
+     * the game starts.
+     * 
+     * @param file the file to append to; a ".csv" file gets CSV, any other JSON lines.
+     * @param periodSeconds how often to dump.
+     * @throws IllegalArgumentException if file is null or periodSeconds is not positive.
+     */
+    public void setMetricsDump(Path file, long periodSeconds) {
+        if (file == null) {
+            throw new IllegalArgumentException("file cannot be null.");
+        }
+        if (periodSeconds <= 0) {
+            throw new IllegalArgumentException("periodSeconds must be positive.");
+        }
+        this.metricsFile = file;
+        this.metricsPeriod = periodSeconds;
+    }
+
+    /**
+     * Has the GamePanel record the game's seed and input to the given file.
+     * 
+     * @param file the file to record to; null not to record.
+     */
+    public void setRecordFile(Path file) {
+        this.recordFile = file;
+    }
+
+    /**
+     * Has the GamePanel replay the recording in the given file instead of taking input.
+     * 
+     * @param file the recording to replay; null to play normally.
+     */
+    public void setReplayFile(Path file) {
+        this.replayFile = file;
+    }
+
     /**
      * Sets up and runs the game window.
      * 
-     * <p>Sets up a new JFrame and loads the TitlePanel and GamePanel
-     * into it. Runs the titlePanel, then switches to the gamePanel and
-     * starts the game.
+     * <p>Sets up a new JFrame and loads the TitlePanel into it, then starts loading the
+     * game's assets in the background. Runs the titlePanel while they load, then creates the
+     * gamePanel from them, switches to it and starts the game.
      * 
      */
     public void openGameWindow() {
@@ -31,14 +150,15 @@ public class GameWindowManager {
         window.setTitle("Smoothie Operator");
         window.setResizable(false);
 
+        AssetLoader assets = new AssetLoader();
+        assets.openBundle(Paths.get(AssetBundle.DEFAULT_FILE)); // if it's been packed
+        GamePanel.requestAssets(assets);
         titlePanel = new TitlePanel();
-        gamePanel = new GamePanel();
 
         // Set up the layout
         layout = new CardLayout();
         deck = new JPanel(layout);
         deck.add(titlePanel, "Smoothie Operator Title Screen");
-        deck.add(gamePanel, "Smoothie Operator Gameplay Screen");
 
         // Finish setting up window layout
         window.add(deck);
@@ -49,6 +169,32 @@ public class GameWindowManager {
 
         // Run the title screen and then the game
         titlePanel.run();
+        gamePanel = new GamePanel(renderMode, assets); // waits for anything still loading
+        gamePanel.setDirtyRendering(dirtyRendering);
+        gamePanel.setShowDirtyRegions(showDirtyRegions);
+        gamePanel.setShowMetrics(showMetrics);
+        gamePanel.setShowAimPreview(showAimPreview);
+        gamePanel.setRapidFire(rapidFire);
+        if (metricsFile != null) {
+            gamePanel.getMetrics().startDumping(metricsFile, metricsPeriod);
+        }
+        if (replayFile != null) {
+            try {
+                gamePanel.startReplay(InputRecording.read(replayFile));
+            } catch (IOException e) {
+                System.out.println("Couldn't read recording: " + replayFile);
+                e.printStackTrace();
+            }
+        }
+        if (recordFile != null) {
+            gamePanel.recordTo(recordFile);
+        }
+        assets.shutdown();
+        if (printAssetTimings) {
+            assets.printTimings();
+        }
+        deck.add(gamePanel, "Smoothie Operator Gameplay Screen");
+        window.validate();
         layout.next(deck);
         gamePanel.requestFocusInWindow();
         if (titlePanel.getSound() != null) {
@@ -0,0 +1,183 @@
+package smoothieoperator.src.main;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Carries control presses and releases from input listeners on the event dispatch thread (or
+ * any other threads) to the game loop, without locking and without losing any.
+ *
+ * <p>Listeners call press() and release(), which add the event to a bounded ring buffer that
+ * any number of threads can add to at once. Once per tick, the game loop calls snapshot(),
+ * which takes every event out of the buffer and works out which controls are held and which
+ * were pressed or released since the last snapshot. Only one thread may take snapshots.
+ *
+ * <p>If the game loop stalls long enough for the buffer to fill, further events are dropped,
+ * but the controls' latest state is kept separately, so the next snapshot still ends up with
+ * the right controls held.
+ */
+public class InputQueue {
+
+    public static final int DEFAULT_CAPACITY = 256;
+    private static final int EMPTY = -1;
+
+    private final int mask;
+    private final int[] events; // control << 1, plus 1 for a press
+    // per slot: the index of the next event it can hold while it's free, plus one while it
+    // holds that event
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail; // next event index to add
+    private long head; // next event index to take; only touched by the snapshotting thread
+    private final AtomicInteger latestHeld;
+    private volatile boolean overflowed;
+    private volatile InputSnapshot current;
+
+    /**
+     * Creates an InputQueue that holds up to DEFAULT_CAPACITY events between snapshots.
+     */
+    public InputQueue() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an InputQueue that holds up to the given number of events between snapshots.
+     *
+     * @param capacity how many events to hold; a power of two.
+     * @throws IllegalArgumentException if capacity is not a positive power of two.
+     */
+    public InputQueue(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a positive power of two.");
+        }
+        this.mask = capacity - 1;
+        this.events = new int[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        this.tail = new AtomicLong();
+        this.head = 0;
+        this.latestHeld = new AtomicInteger();
+        this.current = InputSnapshot.NONE;
+    }
+
+    /**
+     * Records that the given controls went down.
+     *
+     * @param controls a bitmask of controls, each below 1 << 30.
+     * @throws IllegalArgumentException if controls is not a positive bitmask below 1 << 30.
+     */
+    public void press(int controls) {
+        checkControls(controls);
+        latestHeld.getAndUpdate(held -> held | controls);
+        offer(controls << 1 | 1);
+    }
+
+    /**
+     * Records that the given controls came up.
+     *
+     * @param controls a bitmask of controls, each below 1 << 30.
+     * @throws IllegalArgumentException if controls is not a positive bitmask below 1 << 30.
+     */
+    public void release(int controls) {
+        checkControls(controls);
+        latestHeld.getAndUpdate(held -> held & ~controls);
+        offer(controls << 1);
+    }
+
+    /**
+     * Takes every event recorded since the last snapshot and returns the controls' state for
+     * this tick. Call from one thread only, usually once per tick of the game loop.
+     *
+     * @return the controls held at the moment, and those pressed or released since the last
+     *         snapshot.
+     */
+    public InputSnapshot snapshot() {
+        InputSnapshot last = this.current;
+        int held = last.getHeld();
+        int pressed = 0;
+        int released = 0;
+        for (int event = poll(); event != EMPTY; event = poll()) {
+            int controls = event >>> 1;
+            if ((event & 1) != 0) {
+                pressed |= controls & ~held;
+                held |= controls;
+            } else {
+                released |= controls & held;
+                held &= ~controls;
+            }
+        }
+        if (overflowed) {
+            // some events were dropped, so catch up with the latest state
+            overflowed = false;
+            int latest = latestHeld.get();
+            pressed |= latest & ~held;
+            released |= held & ~latest;
+            held = latest;
+        }
+        if (pressed == 0 && released == 0 && last.getPressed() == 0
+                && last.getReleased() == 0) {
+            return last; // nothing changed, so the last snapshot will do
+        }
+        this.current = new InputSnapshot(held, pressed, released);
+        return this.current;
+    }
+
+    /**
+     * Returns the snapshot last taken by snapshot(). Any thread may call this.
+     *
+     * @return the last snapshot; InputSnapshot.NONE before the first.
+     */
+    public InputSnapshot getSnapshot() {
+        return this.current;
+    }
+
+    /**
+     * Adds an event to the buffer, or marks the buffer overflowed if it's full.
+     */
+    private void offer(int event) {
+        while (true) {
+            long index = tail.get();
+            int slot = (int) index & mask;
+            long sequence = sequences.get(slot);
+            if (sequence == index) {
+                if (tail.compareAndSet(index, index + 1)) {
+                    events[slot] = event;
+                    sequences.set(slot, index + 1); // publishes the event to poll()
+                    return;
+                }
+            } else if (sequence < index) { // still holds an event from a lap ago
+                overflowed = true;
+                return;
+            }
+            // otherwise another thread took this slot first; try the next one
+        }
+    }
+
+    /**
+     * Takes the oldest event out of the buffer.
+     *
+     * @return the event; EMPTY if there are none.
+     */
+    private int poll() {
+        int slot = (int) head & mask;
+        if (sequences.get(slot) != head + 1) {
+            return EMPTY;
+        }
+        int event = events[slot];
+        sequences.set(slot, head + mask + 1); // free for the event a lap from now
+        head++;
+        return event;
+    }
+
+    /**
+     * Throws an IllegalArgumentException unless controls fits in an event.
+     */
+    private static void checkControls(int controls) {
+        if (controls <= 0 || controls >= 1 << 30) {
+            throw new IllegalArgumentException(
+                    "controls must be a positive bitmask below 1 << 30.");
+        }
+    }
+}
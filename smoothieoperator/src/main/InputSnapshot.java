@@ -0,0 +1,93 @@
+package smoothieoperator.src.main;
+
+/**
+ * An immutable record of the controls during one tick: which were held at the end of it, and
+ * which were pressed or released during it. Each control is one bit of a bitmask, such as
+ * KeyHandler's control constants.
+ *
+ * <p>A control tapped so quickly that it was pressed and released between two ticks is
+ * reported as pressed and released but not held, so it isn't missed; getActive() includes it.
+ */
+public class InputSnapshot {
+
+    public static final InputSnapshot NONE = new InputSnapshot(0, 0, 0);
+
+    private final int held;
+    private final int pressed;
+    private final int released;
+
+    /**
+     * Creates an InputSnapshot from bitmasks of controls.
+     *
+     * @param held the controls held at the end of the tick.
+     * @param pressed the controls pressed during the tick.
+     * @param released the controls released during the tick.
+     */
+    public InputSnapshot(int held, int pressed, int released) {
+        this.held = held;
+        this.pressed = pressed;
+        this.released = released;
+    }
+
+    public int getHeld() {
+        return this.held;
+    }
+
+    public int getPressed() {
+        return this.pressed;
+    }
+
+    public int getReleased() {
+        return this.released;
+    }
+
+    /**
+     * Returns the controls that were down at any point during the tick: those held at its end
+     * and those pressed during it.
+     *
+     * @return a bitmask of the active controls.
+     */
+    public int getActive() {
+        return this.held | this.pressed;
+    }
+
+    /**
+     * Returns whether any of the given controls were held at the end of the tick.
+     *
+     * @param controls a bitmask of controls.
+     * @return true if any were held.
+     */
+    public boolean isHeld(int controls) {
+        return (held & controls) != 0;
+    }
+
+    /**
+     * Returns whether any of the given controls were pressed during the tick.
+     *
+     * @param controls a bitmask of controls.
+     * @return true if any went down this tick.
+     */
+    public boolean wasPressed(int controls) {
+        return (pressed & controls) != 0;
+    }
+
+    /**
+     * Returns whether any of the given controls were released during the tick.
+     *
+     * @param controls a bitmask of controls.
+     * @return true if any came up this tick.
+     */
+    public boolean wasReleased(int controls) {
+        return (released & controls) != 0;
+    }
+
+    /**
+     * Returns whether any of the given controls were down at any point during the tick.
+     *
+     * @param controls a bitmask of controls.
+     * @return true if any were held or pressed.
+     */
+    public boolean isActive(int controls) {
+        return (getActive() & controls) != 0;
+    }
+}
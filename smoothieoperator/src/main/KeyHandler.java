@@ -3,106 +3,153 @@ package smoothieoperator.src.main;
 import java.awt.event.KeyListener;
 import java.awt.event.KeyEvent;
 
+import smoothieoperator.src.simulation.RoundInput;
+
 /**
- * Processes keyboard input into boolean instance variables for use by JComponents.
+ * Processes keyboard input into controls for use by JComponents.
  * The keyboard inputs will control the angle and power of the cannon, shooting
  * the cannon, and resetting the game.
+ *
+ * <p>Key events arrive on the event dispatch thread and are passed to the game loop through an
+ * InputQueue, so none are lost, however briefly a key is tapped. The game loop calls
+ * snapshot() once per tick, and the getters report that snapshot: a control counts as pressed
+ * if it was down at any point during the tick.
  */
 public class KeyHandler implements KeyListener {
 
-    private boolean angleCounterClockwisePressed; // left arrow key, or A key
-    private boolean angleClockwisePressed; // right arrow key, or D key
-    private boolean powerUpPressed; // up arrow key, or W key
-    private boolean powerDownPressed; // down arrow key, or S key
-    private boolean shootButtonPressed; // spacebar, or enter key
-    private boolean resetTyped; // R key
+    // controls; the game's controls share RoundInput's bits
+    public static final int ANGLE_COUNTER_CLOCKWISE = RoundInput.ANGLE_COUNTER_CLOCKWISE;
+    public static final int ANGLE_CLOCKWISE = RoundInput.ANGLE_CLOCKWISE;
+    public static final int POWER_UP = RoundInput.POWER_UP;
+    public static final int POWER_DOWN = RoundInput.POWER_DOWN;
+    public static final int SHOOT = RoundInput.SHOOT;
+    public static final int RESET = RoundInput.RESET;
+    public static final int METRICS_OVERLAY = RoundInput.ALL_CONTROLS + 1;
+
+    private final InputQueue queue;
+
+    /**
+     * Creates a KeyHandler with no keys held.
+     */
+    public KeyHandler() {
+        this.queue = new InputQueue();
+    }
+
+    /**
+     * Takes every key event since the last snapshot and returns the controls' state for this
+     * tick. Call once per tick, from the game loop's thread only.
+     *
+     * @return the controls held, pressed and released this tick.
+     */
+    public InputSnapshot snapshot() {
+        return queue.snapshot();
+    }
+
+    /**
+     * Returns the snapshot last taken by snapshot().
+     *
+     * @return the last snapshot; InputSnapshot.NONE before the first.
+     */
+    public InputSnapshot getSnapshot() {
+        return queue.getSnapshot();
+    }
 
-  
     public boolean getAngleCounterClockwisePressed() {
-        return this.angleCounterClockwisePressed;
+        return getSnapshot().isActive(ANGLE_COUNTER_CLOCKWISE);
     }
 
     public boolean getAngleClockwisePressed() {
-        return this.angleClockwisePressed;
+        return getSnapshot().isActive(ANGLE_CLOCKWISE);
     }
 
     public boolean getPowerUpPressed() {
-        return this.powerUpPressed;
+        return getSnapshot().isActive(POWER_UP);
     }
 
     public boolean getPowerDownPressed() {
-        return this.powerDownPressed;
+        return getSnapshot().isActive(POWER_DOWN);
     }
 
     public boolean getShootButtonPressed() {
-        return this.shootButtonPressed;
+        return getSnapshot().isActive(SHOOT);
     }
 
+    /**
+     * Returns whether R went down during the last snapshot's tick. Holding R doesn't count
+     * again in later ticks.
+     *
+     * @return true if R was pressed this tick.
+     */
     public boolean getResetTyped() {
-        return this.resetTyped;
+        return getSnapshot().wasPressed(RESET);
     }
 
     /**
-     * Invoked when a key is typed.
-     * Processes keyboard input to update resetTyped variable.
+     * Returns whether F3 went down during the last snapshot's tick.
+     *
+     * @return true if F3 was pressed this tick.
      */
-    @Override
-    public void keyTyped(KeyEvent e) {
-        char keyChar = e.getKeyChar();
-        if (keyChar == 'r' || keyChar == 'R') {
-            resetTyped = true;
-        }
+    public boolean getMetricsOverlayPressed() {
+        return getSnapshot().wasPressed(METRICS_OVERLAY);
     }
 
     /**
-     * Invoked when a key is pressed. Processes keyboard input to set relevant
-     * variables (angleCounterClockwisePressed, angleClockwisePressed, powerUpPressed,
-     * powerDownPressed, or shootButtonPressed) to true.
+     * Invoked when a key is typed. Presses and releases are handled instead, so does nothing.
+     */
+    @Override
+    public void keyTyped(KeyEvent e) {}
+
+    /**
+     * Invoked when a key is pressed. Queues a press of the key's control, if it has one: the
+     * A or left arrow, D or right arrow, W or up arrow, S or down arrow, spacebar or enter, R,
+     * or F3 key.
      */
     @Override
     public void keyPressed(KeyEvent e) {
-        int code = e.getKeyCode();
-        if (code == KeyEvent.VK_A || code == KeyEvent.VK_LEFT) {
-            angleCounterClockwisePressed = true;
-        }
-        if (code == KeyEvent.VK_D || code == KeyEvent.VK_RIGHT) {
-            angleClockwisePressed = true;
-        }
-        if (code == KeyEvent.VK_W || code == KeyEvent.VK_UP) {
-            powerUpPressed = true;
-        }
-        if (code == KeyEvent.VK_S || code == KeyEvent.VK_DOWN) {
-            powerDownPressed = true;
-        }
-        if (code == KeyEvent.VK_ENTER || code == KeyEvent.VK_SPACE) {
-            shootButtonPressed = true;
+        int control = controlFor(e.getKeyCode());
+        if (control != 0) {
+            queue.press(control);
         }
     }
 
     /**
-     * Invoked when a key is released. Sets instance variables corresponding
-     * to the released key to false.
+     * Invoked when a key is released. Queues a release of the key's control, if it has one.
      */
     @Override
     public void keyReleased(KeyEvent e) {
-        int code = e.getKeyCode();
+        int control = controlFor(e.getKeyCode());
+        if (control != 0) {
+            queue.release(control);
+        }
+    }
+
+    /**
+     * Returns the control the given key code operates.
+     *
+     * @return the control's bit; 0 if the key isn't a control.
+     */
+    private static int controlFor(int code) {
         if (code == KeyEvent.VK_A || code == KeyEvent.VK_LEFT) {
-            angleCounterClockwisePressed = false;
+            return ANGLE_COUNTER_CLOCKWISE;
         }
         if (code == KeyEvent.VK_D || code == KeyEvent.VK_RIGHT) {
-            angleClockwisePressed = false;
+            return ANGLE_CLOCKWISE;
         }
         if (code == KeyEvent.VK_W || code == KeyEvent.VK_UP) {
-            powerUpPressed = false;
+            return POWER_UP;
         }
         if (code == KeyEvent.VK_S || code == KeyEvent.VK_DOWN) {
-            powerDownPressed = false;
+            return POWER_DOWN;
         }
         if (code == KeyEvent.VK_ENTER || code == KeyEvent.VK_SPACE) {
-            shootButtonPressed = false;
+            return SHOOT;
         }
         if (code == KeyEvent.VK_R) {
-            resetTyped = false;
+            return RESET;
+        }
+        if (code == KeyEvent.VK_F3) {
+            return METRICS_OVERLAY;
         }
+        return 0;
     }
 }
@@ -0,0 +1,128 @@
+package smoothieoperator.src.main;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts how often durations of each length occur, so their percentiles can be read without
+ * keeping every sample. Any thread can record into it without locking, while other threads
+ * read it.
+ *
+ * <p>Durations are bucketed the way HdrHistogram does: exactly below 2 * SUB_BUCKETS
+ * nanoseconds, then in SUB_BUCKETS equal steps per power of two, so every bucket is within
+ * about 3% of the durations it holds. Durations over MAX_NANOS are counted as MAX_NANOS.
+ */
+public class LatencyHistogram {
+
+    public static final long MAX_NANOS = 1L << 40; // about 18 minutes
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final AtomicLongArray counts;
+    private final AtomicLong count;
+    private final AtomicLong total;
+    private final AtomicLong max;
+
+    /**
+     * Creates an empty LatencyHistogram.
+     */
+    public LatencyHistogram() {
+        this.counts = new AtomicLongArray(bucketOf(MAX_NANOS) + 1);
+        this.count = new AtomicLong();
+        this.total = new AtomicLong();
+        this.max = new AtomicLong();
+    }
+
+    /**
+     * Counts one duration.
+     *
+     * @param nanos the duration in nanoseconds; negative durations are counted as 0.
+     */
+    public void record(long nanos) {
+        nanos = Math.max(0, Math.min(nanos, MAX_NANOS));
+        counts.incrementAndGet(bucketOf(nanos));
+        count.incrementAndGet();
+        total.addAndGet(nanos);
+        max.accumulateAndGet(nanos, Math::max);
+    }
+
+    public long getCount() {
+        return this.count.get();
+    }
+
+    public long getMaxNanos() {
+        return this.max.get();
+    }
+
+    /**
+     * Returns the mean of the recorded durations.
+     *
+     * @return the mean in nanoseconds; 0 if nothing has been recorded.
+     */
+    public double getMeanNanos() {
+        long n = count.get();
+        return n == 0 ? 0 : (double) total.get() / n;
+    }
+
+    /**
+     * Returns the duration that the given percentage of recorded durations are no longer than,
+     * to within a bucket's precision.
+     *
+     * @param percentile the percentage, from 0 to 100.
+     * @return the duration in nanoseconds; 0 if nothing has been recorded.
+     * @throws IllegalArgumentException if percentile is outside 0 to 100.
+     */
+    public long getPercentileNanos(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile must be from 0 to 100.");
+        }
+        // sum the buckets rather than trust count, which records may not have reached yet
+        long n = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            n += counts.get(i);
+        }
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * n));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestIn(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Forgets every recorded duration. Durations recorded at the same time may be partly
+     * forgotten, which only matters for the counts of the moment.
+     */
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        count.set(0);
+        total.set(0);
+        max.set(0);
+    }
+
+    /**
+     * Returns the bucket that holds the given duration.
+     */
+    private static int bucketOf(long nanos) {
+        int highestBit = 63 - Long.numberOfLeadingZeros(nanos | 1);
+        int shift = Math.max(0, highestBit - SUB_BUCKET_BITS);
+        return shift * SUB_BUCKETS + (int) (nanos >>> shift);
+    }
+
+    /**
+     * Returns the longest duration the given bucket holds.
+     */
+    private static long highestIn(int bucket) {
+        int shift = Math.max(0, bucket / SUB_BUCKETS - 1);
+        long top = bucket - (long) shift * SUB_BUCKETS;
+        return ((top + 1) << shift) - 1;
+    }
+}
@@ -1,13 +1,85 @@
 package smoothieoperator.src.main;
 
+import java.nio.file.Paths;
+
 public class Main {
 
     /**
-     * Opens a GameWindowManager to run the game.
+     * Opens a GameWindowManager to run the game. Pass "--active-rendering" to have the game
+     * loop draw frames directly instead of going through Swing's repaint mechanism,
+     * "--asset-timings" to print how long each asset took to load, "--dirty-rendering" to
+     * redraw only the parts of the screen that change each frame, and "--show-dirty-regions"
+     * to outline those parts and show how much of the screen is painted.
+     * 
+     * <p>Pass "--show-metrics" to start with the timings overlay showing (F3 toggles it), and
+     * "--metrics-file=FILE" to append the timings to FILE every "--metrics-period=SECONDS"
+     * seconds (10 by default), as CSV if FILE ends in ".csv" and JSON otherwise.
+     * 
+     * <p>Pass "--record=FILE" to record the game's seed and input to FILE, and
+     * "--replay=FILE" to play such a recording back in the window instead of taking input;
+     * ReplayRunner replays one without a window. Pass "--aim-preview" to show where each
+     * shot will land while aiming, and "--rapid-fire" to fire a stream of fruit while shoot
+     * is held.
      */
     public static void main(String[] args) {
 
-        GameWindowManager gameWindow = new GameWindowManager();
+        RenderMode renderMode = RenderMode.PASSIVE;
+        boolean printAssetTimings = false;
+        boolean dirtyRendering = false;
+        boolean showDirtyRegions = false;
+        boolean showMetrics = false;
+        String metricsFile = null;
+        long metricsPeriod = 10;
+        String recordFile = null;
+        String replayFile = null;
+        boolean aimPreview = false;
+        boolean rapidFire = false;
+        for (String arg : args) {
+            if (arg.equals("--active-rendering")) {
+                renderMode = RenderMode.ACTIVE;
+            } else if (arg.equals("--asset-timings")) {
+                printAssetTimings = true;
+            } else if (arg.equals("--dirty-rendering")) {
+                dirtyRendering = true;
+            } else if (arg.equals("--show-dirty-regions")) {
+                dirtyRendering = true;
+                showDirtyRegions = true;
+            } else if (arg.equals("--show-metrics")) {
+                showMetrics = true;
+            } else if (arg.startsWith("--metrics-file=")) {
+                metricsFile = arg.substring("--metrics-file=".length());
+            } else if (arg.equals("--aim-preview")) {
+                aimPreview = true;
+            } else if (arg.equals("--rapid-fire")) {
+                rapidFire = true;
+            } else if (arg.startsWith("--record=")) {
+                recordFile = arg.substring("--record=".length());
+            } else if (arg.startsWith("--replay=")) {
+                replayFile = arg.substring("--replay=".length());
+            } else if (arg.startsWith("--metrics-period=")) {
+                try {
+                    metricsPeriod = Long.parseLong(arg.substring("--metrics-period=".length()));
+                } catch (NumberFormatException e) {
+                    System.out.println("Ignoring metrics period that isn't a whole number: "
+                            + arg);
+                }
+            }
+        }
+        GameWindowManager gameWindow = new GameWindowManager(renderMode);
+        gameWindow.setPrintAssetTimings(printAssetTimings);
+        gameWindow.setDirtyRendering(dirtyRendering, showDirtyRegions);
+        gameWindow.setShowMetrics(showMetrics);
+        gameWindow.setShowAimPreview(aimPreview);
+        gameWindow.setRapidFire(rapidFire);
+        if (metricsFile != null && metricsPeriod > 0) {
+            gameWindow.setMetricsDump(Paths.get(metricsFile), metricsPeriod);
+        }
+        if (recordFile != null) {
+            gameWindow.setRecordFile(Paths.get(recordFile));
+        }
+        if (replayFile != null) {
+            gameWindow.setReplayFile(Paths.get(replayFile));
+        }
         gameWindow.openGameWindow();
     }
 }
@@ -5,25 +5,55 @@ import java.awt.event.MouseEvent;
 
 /**
  * Processes mouse clicks for use by JComponents.
+ *
+ * <p>Clicks arrive on the event dispatch thread and are passed to the game loop through an
+ * InputQueue, which the game loop reads once per tick with snapshot().
  */
 public class MouseHandler extends MouseAdapter {
-    private boolean buttonPressed;
+
+    public static final int BUTTON = 1; // the control a click taps
+
+    private final InputQueue queue;
+    private volatile boolean buttonPressed;
 
     /**
      * Creates a new MouseHandler with the buttonPressed variable set to false.
      */
     public MouseHandler() {
+        this.queue = new InputQueue();
         this.buttonPressed = false;
     }
 
     /**
-     * Sets buttonPressed to true when the mouse is clicked.
+     * Queues a tap of BUTTON when the mouse is clicked.
      */
     @Override
     public void mouseClicked(MouseEvent e) {
-        this.buttonPressed = true;
+        queue.press(BUTTON);
+        queue.release(BUTTON);
+    }
+
+    /**
+     * Takes every click since the last snapshot and returns the button's state for this tick,
+     * setting buttonPressed once it has been clicked. Call once per tick, from the game loop's
+     * thread only.
+     *
+     * @return whether BUTTON was pressed this tick.
+     */
+    public InputSnapshot snapshot() {
+        InputSnapshot input = queue.snapshot();
+        if (input.wasPressed(BUTTON)) {
+            this.buttonPressed = true;
+        }
+        return input;
     }
 
+    /**
+     * Returns whether the mouse has been clicked, as of the last snapshot. Any thread may call
+     * this.
+     *
+     * @return true once a snapshot has seen a click.
+     */
     public boolean getButtonPressed() {
         return buttonPressed;
     }
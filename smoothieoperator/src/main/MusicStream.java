@@ -0,0 +1,271 @@
+package smoothieoperator.src.main;
+
+import java.io.IOException;
+import java.net.URL;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * A long sound, such as a song, that is read from its file a little at a time while it plays
+ * instead of being decoded up front.
+ *
+ * <p>The AudioEngine's streaming thread calls fill() to read ahead into a small ring buffer,
+ * reopening the file when a looping stream reaches its end so the loop has no gap. The
+ * engine's mixing thread calls mixInto() to play from the ring buffer. Streams fade in when
+ * started and fade out when stopped, so stopping one song while starting another crossfades
+ * between them. The ring buffer only exists while the stream plays.
+ */
+class MusicStream {
+
+    static final int RING_FRAMES = 16384; // read-ahead, about 0.37 s
+    static final int FADE_MILLIS = 750;
+    private static final int READ_FRAMES = 2048;
+    private static final int BYTES_PER_FRAME = 2 * AudioEngine.CHANNELS;
+
+    private final URL url;
+    private final AudioFormat format; // the engine's output format
+
+    // shared between threads; guarded by this
+    private short[] ring; // interleaved stereo; null while stopped
+    private long written; // frames written into ring since (re)starting
+    private long read; // frames mixed out of ring since (re)starting
+    private boolean playing;
+    private boolean looping;
+    private boolean ended; // reached the end of the file without looping
+    private float gain;
+    private float fade; // current fade multiplier, from 0 to 1
+    private float fadeTarget;
+    private int generation; // changes whenever playback must restart from the beginning
+
+    // only used by the streaming thread
+    private AudioInputStream input;
+    private int inputGeneration;
+    private final byte[] bytes;
+
+    /**
+     * Creates a stopped MusicStream for the sound file at the given URL.
+     *
+     * @param url location of the sound file; null makes a silent stream.
+     * @param format the format to convert the file to, which must be 16-bit signed
+     *        little-endian stereo.
+     */
+    MusicStream(URL url, AudioFormat format) {
+        this.url = url;
+        this.format = format;
+        this.gain = 1;
+        this.bytes = new byte[READ_FRAMES * BYTES_PER_FRAME];
+    }
+
+    /**
+     * Starts the stream from the beginning, fading it in. A stream still fading out after
+     * stop() starts again from the beginning too, like a song that was stopped; one already
+     * playing carries on.
+     *
+     * @param loop whether to loop continuously.
+     */
+    synchronized void start(boolean loop) {
+        if (url == null) {
+            return;
+        }
+        looping = loop;
+        if (!playing) {
+            playing = true;
+            ring = new short[RING_FRAMES * AudioEngine.CHANNELS];
+        } else if (fadeTarget != 0) {
+            return; // already playing
+        }
+        written = 0;
+        read = 0;
+        ended = false;
+        fade = 0;
+        fadeTarget = 1;
+        generation++;
+    }
+
+    /**
+     * Fades the stream out, then stops it and moves it back to the beginning.
+     */
+    synchronized void stop() {
+        fadeTarget = 0;
+    }
+
+    /**
+     * Moves the stream back to the beginning without changing whether it's playing.
+     */
+    synchronized void rewind() {
+        if (playing) {
+            written = 0;
+            read = 0;
+            ended = false;
+            generation++;
+        }
+    }
+
+    synchronized boolean isPlaying() {
+        return this.playing;
+    }
+
+    synchronized float getGain() {
+        return this.gain;
+    }
+
+    synchronized void setGain(float gain) {
+        this.gain = gain;
+    }
+
+    /**
+     * Reads from the file into the ring buffer until it's nearly full. Opens, reopens and
+     * closes the file as needed. Called only by the streaming thread; doesn't hold this
+     * stream's lock while reading, so the mixing thread never waits on the file.
+     */
+    void fill() {
+        int fillGeneration;
+        int space;
+        boolean loop;
+        synchronized (this) {
+            if (!playing || ended) {
+                fillGeneration = -1;
+                space = 0;
+                loop = false;
+            } else {
+                fillGeneration = generation;
+                space = RING_FRAMES - (int) (written - read);
+                loop = looping;
+            }
+        }
+        if (fillGeneration == -1) {
+            closeInput(); // stopped, so let go of the file
+            return;
+        }
+        if (input == null || inputGeneration != fillGeneration) {
+            if (!openInput(fillGeneration)) {
+                return;
+            }
+        }
+
+        boolean reopened = false; // guards against looping an empty file forever
+        while (space >= READ_FRAMES) {
+            int count;
+            try {
+                count = input.read(bytes, 0, bytes.length);
+            } catch (IOException e) {
+                System.out.println("Error reading sound file");
+                e.printStackTrace();
+                markEnded(fillGeneration);
+                return;
+            }
+            if (count == -1) {
+                if (!loop || reopened) {
+                    markEnded(fillGeneration);
+                    return;
+                }
+                if (!openInput(fillGeneration)) {
+                    return;
+                }
+                reopened = true;
+                continue;
+            }
+            reopened = false;
+            int frames = count / BYTES_PER_FRAME;
+            synchronized (this) {
+                if (generation != fillGeneration) {
+                    return; // restarted while reading; this data is stale
+                }
+                for (int i = 0; i < frames; i++) {
+                    int index = (int) ((written + i) % RING_FRAMES) * AudioEngine.CHANNELS;
+                    int offset = i * BYTES_PER_FRAME;
+                    ring[index] = (short) ((bytes[offset] & 0xff) | (bytes[offset + 1] << 8));
+                    ring[index + 1] =
+                            (short) ((bytes[offset + 2] & 0xff) | (bytes[offset + 3] << 8));
+                }
+                written += frames;
+            }
+            space -= frames;
+        }
+    }
+
+    /**
+     * Adds the next frames of the stream to the mix, fading as needed. Plays silence for any
+     * frames that haven't been read yet. Stops the stream when it has faded out or played to
+     * its end. Called only by the mixing thread.
+     *
+     * @param mix interleaved stereo samples to add to.
+     * @param frames number of frames to add.
+     */
+    synchronized void mixInto(int[] mix, int frames) {
+        if (!playing) {
+            return;
+        }
+        float fadeStep = 1000f / (FADE_MILLIS * AudioEngine.SAMPLE_RATE);
+        int count = (int) Math.min(frames, written - read);
+        for (int i = 0; i < count; i++) {
+            if (fade < fadeTarget) {
+                fade = Math.min(fade + fadeStep, fadeTarget);
+            } else if (fade > fadeTarget) {
+                fade = Math.max(fade - fadeStep, fadeTarget);
+            }
+            float level = fade * gain;
+            int index = (int) ((read + i) % RING_FRAMES) * AudioEngine.CHANNELS;
+            mix[i * AudioEngine.CHANNELS] += (int) (ring[index] * level);
+            mix[i * AudioEngine.CHANNELS + 1] += (int) (ring[index + 1] * level);
+        }
+        read += count;
+
+        boolean fadedOut = fadeTarget == 0 && (fade == 0 || count < frames);
+        if (fadedOut || (ended && read == written)) {
+            playing = false;
+            ring = null;
+            fade = 0;
+            generation++;
+        }
+    }
+
+    /**
+     * Opens the file from the beginning, converted to the engine's format, closing any
+     * previous input. Marks the stream ended if the file can't be opened.
+     *
+     * @return true if the file was opened.
+     */
+    private boolean openInput(int fillGeneration) {
+        closeInput();
+        try {
+            AudioInputStream source = AudioSystem.getAudioInputStream(url);
+            AudioFormat sourceFormat = source.getFormat();
+            // decode to 16-bit PCM first, then convert channels and sample rate
+            AudioFormat pcm = new AudioFormat(sourceFormat.getSampleRate(), 16,
+                    sourceFormat.getChannels(), true, false);
+            AudioInputStream decoded = AudioSystem.getAudioInputStream(pcm, source);
+            input = pcm.matches(format) ? decoded : AudioSystem.getAudioInputStream(format, decoded);
+            inputGeneration = fillGeneration;
+            return true;
+        } catch (IOException | UnsupportedAudioFileException | IllegalArgumentException e) {
+            System.out.println("Error retrieving sound file");
+            e.printStackTrace();
+            markEnded(fillGeneration);
+            return false;
+        }
+    }
+
+    private void closeInput() {
+        if (input != null) {
+            try {
+                input.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            input = null;
+        }
+    }
+
+    /**
+     * Marks the stream as having no more to read, unless it has restarted since.
+     */
+    private synchronized void markEnded(int fillGeneration) {
+        if (generation == fillGeneration) {
+            ended = true;
+        }
+    }
+}
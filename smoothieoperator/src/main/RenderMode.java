@@ -0,0 +1,19 @@
+package smoothieoperator.src.main;
+
+/**
+ * How the GamePanel presents frames to the screen.
+ */
+public enum RenderMode {
+
+    /**
+     * The game loop calls repaint() and Swing's RepaintManager paints the panel on the event
+     * dispatch thread, double-buffered by Swing. Frames may be coalesced.
+     */
+    PASSIVE,
+
+    /**
+     * The game loop draws each frame itself into a Canvas's BufferStrategy and shows it
+     * immediately, so every tick is presented exactly once.
+     */
+    ACTIVE
+}
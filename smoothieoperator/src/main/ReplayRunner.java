@@ -0,0 +1,124 @@
+package smoothieoperator.src.main;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import smoothieoperator.src.simulation.InputRecording;
+
+/**
+ * Replays a recording made with "--record=FILE" through a GamePanel as fast as it will go,
+ * without a window, to measure the game's performance on exactly the same session every run.
+ * Reports the ticks per second and the update (and render) times, then checks that the replay
+ * ended up in the same state as the recording did.
+ *
+ * <p>Usage: java smoothieoperator.src.main.ReplayRunner [--render] [--repeat N] recording-file
+ *
+ * <p>Only the game logic runs unless "--render" is given, which also draws a frame after every
+ * tick to an offscreen image. "--repeat N" replays the recording N times, reporting each.
+ * Exits with status 1 if any replay doesn't match the recording.
+ */
+public class ReplayRunner {
+
+    /**
+     * Replays the recording and prints the results.
+     *
+     * @param args command line options and the recording's file; see the class comment.
+     */
+    public static void main(String[] args) {
+        boolean render = false;
+        int repeats = 1;
+        String file = null;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--render")) {
+                    render = true;
+                } else if (args[i].equals("--repeat")) {
+                    repeats = Integer.parseInt(args[++i]);
+                } else {
+                    file = args[i];
+                }
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            file = null;
+        }
+        if (file == null || repeats <= 0) {
+            System.out.println("Usage: ReplayRunner [--render] [--repeat N] recording-file");
+            return;
+        }
+
+        InputRecording recording;
+        try {
+            recording = InputRecording.read(Paths.get(file));
+        } catch (IOException e) {
+            System.out.println("Couldn't read recording: " + file);
+            e.printStackTrace();
+            return;
+        }
+
+        GamePanel panel = new GamePanel(); // startReplay() sets rapid fire from the recording
+        BufferedImage frame = null;
+        Graphics2D g2D = null;
+        if (render) {
+            frame = new BufferedImage(GamePanel.SCREEN_WIDTH, GamePanel.SCREEN_HEIGHT,
+                    BufferedImage.TYPE_INT_RGB);
+            g2D = frame.createGraphics();
+        }
+
+        boolean allMatched = true;
+        GameMetrics metrics = panel.getMetrics();
+        for (int run = 1; run <= repeats; run++) {
+            panel.startReplay(recording);
+            panel.gameSetup();
+            metrics.reset();
+            long ticks = 0;
+            long start = System.nanoTime();
+            while (panel.isReplaying()) {
+                panel.update();
+                ticks++;
+                if (render) {
+                    long renderStart = System.nanoTime();
+                    panel.drawFrame(g2D);
+                    metrics.recordRender(renderStart, System.nanoTime() - renderStart);
+                }
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            if (ticks < recording.getTickCount()) {
+                System.out.println("Replay stopped after a fatal error; see above.");
+                System.exit(1);
+            }
+
+            String result;
+            if (!recording.isComplete()) {
+                result = "unchecked, recording cut short";
+            } else if (panel.replayMatched()) {
+                result = "matches";
+            } else {
+                result = "MISMATCH";
+                allMatched = false;
+            }
+            System.out.printf("run %d: %d ticks in %.3f s (%.0f ticks/s), checksum %s%n",
+                    run, ticks, seconds, ticks / Math.max(seconds, 1e-9), result);
+            printTimes("update", metrics.getUpdateTimes());
+            if (render) {
+                printTimes("render", metrics.getRenderTimes());
+            }
+        }
+        if (g2D != null) {
+            g2D.dispose();
+        }
+        // sounds may have started threads that would keep the program running
+        System.exit(allMatched ? 0 : 1);
+    }
+
+    /**
+     * Prints a line of the percentiles of the given times, in microseconds.
+     */
+    private static void printTimes(String name, LatencyHistogram times) {
+        System.out.printf("  %s: mean %.1f us, p50 %.1f us, p99 %.1f us, max %.1f us%n", name,
+                times.getMeanNanos() / 1e3, times.getPercentileNanos(50) / 1e3,
+                times.getPercentileNanos(99) / 1e3, times.getMaxNanos() / 1e3);
+    }
+}
@@ -1,83 +1,90 @@
 package smoothieoperator.src.main;
 
-import javax.sound.sampled.AudioInputStream;
-import javax.sound.sampled.AudioSystem;
-import javax.sound.sampled.Clip;
-import javax.sound.sampled.LineUnavailableException;
-import javax.sound.sampled.UnsupportedAudioFileException;
-
-import java.io.IOException;
 import java.net.URL;
 
 /**
  * Provides methods for playing, stopping, and looping music and sound effects in the game.
  * Provides a reset method which brings the sound back to its starting position and allows it
  * to be played from the beginning again.
+ *
+ * <p>Sounds play through the shared AudioEngine, which decodes each sound file once and mixes
+ * every Sound into a single output line, so creating a Sound doesn't open an audio line. Each
+ * Sound has a gain and a priority; when too many Sounds play at once, the engine drops the
+ * ones with the lowest priority first.
+ *
+ * <p>Songs should be created with stream() instead, which reads the file a little at a time
+ * while it plays rather than keeping all of it in memory. Streamed Sounds fade in when played
+ * and fade out when stopped, so stopping one song as another starts crossfades between them.
  */
 public class Sound {
-    
-    private Clip clip;
+
+    public static final int EFFECT_PRIORITY = 0;
+    public static final int MUSIC_PRIORITY = 10; // music keeps playing when effects pile up
+
+    private final AudioEngine engine;
+    private final AudioEngine.Voice voice; // null if streamed
+    private final MusicStream stream; // null unless streamed
     private URL url;
 
     /**
      * Creates a new Sound object using the given filepath String.
-     * Creates a URL using the filepath, and uses the setFile() method to 
-     * create an AudioInputStream with the URL, which provides the sound input to the Clip.
-     * 
+     * Creates a URL using the filepath, and uses the setFile() method to load the
+     * decoded audio from the AudioEngine.
+     *
      * @param filepath the name of the audio file.
      * @throws NullPointerException if the given filepath String is null.
      */
     public Sound(String filepath) {
+        this(filepath, false);
+    }
+
+    private Sound(String filepath, boolean streamed) {
         if (filepath == null) {
             throw new NullPointerException();
         }
         this.url = getClass().getResource(filepath);
-        setFile();
+        this.engine = AudioEngine.getInstance();
+        if (streamed) {
+            this.voice = null;
+            this.stream = engine.createStream(this.url);
+        } else {
+            this.voice = new AudioEngine.Voice();
+            this.stream = null;
+            setFile();
+        }
     }
 
     /**
-     * Creates an AudioInputStream which obtains the sound data from the Sound object's URL.
-     * Obtains a clip for the Sound object which is opened with the data in the AudioInputStream.
-     * Closes the stream to release any system resources it may have used. 
+     * Creates a new streamed Sound using the given filepath String. Only a small part of the
+     * file is held in memory at a time, so this suits long sounds such as songs.
+     *
+     * @param filepath the name of the audio file.
+     * @return a stopped, streamed Sound.
+     * @throws NullPointerException if the given filepath String is null.
+     */
+    public static Sound stream(String filepath) {
+        return new Sound(filepath, true);
+    }
+
+    /**
+     * Loads this Sound's audio from the AudioEngine, which decodes the file at this Sound's
+     * URL the first time any Sound uses it. Prints an error and leaves this Sound silent if
+     * the file can't be read. Streamed Sounds read their files as they play instead, so this
+     * has no effect on them.
      */
     public void setFile() {
-        AudioInputStream stream = null;
-        try {
-            stream = AudioSystem.getAudioInputStream(this.url);
-            this.clip = AudioSystem.getClip();
-            this.clip.open(stream);
-            stream.close();
-        } catch (IOException e){
-            System.out.println("Error retrieving sound file");
-            e.printStackTrace();
-        } catch (UnsupportedAudioFileException e) {
-            System.out.println("Error retrieving sound file");
-            e.printStackTrace();
-        } catch (LineUnavailableException e) {
-            System.out.println("Error retrieving sound file");
-            e.printStackTrace();
-        } catch (NullPointerException e) {
-            System.out.println("Error retrieving sound file");
-            e.printStackTrace();
-        } catch (SecurityException e) {
-            System.out.println("Error retrieving sound file");
-            e.printStackTrace();
-        } catch (IllegalArgumentException e) {
-            System.out.println("Error retrieving sound file");
-            e.printStackTrace();
-        } finally {
-            if (stream != null) {
-                try {
-                    stream.close();
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-            }
+        if (stream == null) {
+            engine.setSamples(voice, engine.getSamples(this.url));
         }
     }
 
-    public Clip getClip() {
-        return this.clip;
+    /**
+     * Returns whether this Sound is streamed from its file as it plays.
+     *
+     * @return true if this Sound was created with stream().
+     */
+    public boolean isStreamed() {
+        return this.stream != null;
     }
 
     public URL getURL() {
@@ -85,43 +92,114 @@ public class Sound {
     }
 
     /**
-     * Plays the sound clip associated with this Sound object.
+     * Plays this Sound from its current position.
      */
     public void playSound() {
-        if (this.clip != null) {
-            this.clip.start();
+        record("play");
+        if (stream != null) {
+            stream.start(false);
+        } else {
+            engine.play(voice, false);
         }
     }
 
     /**
-     * Stops the sound clip associated with this Sound object.
-     * Moves the position of the sound clip back to its starting media position in microseconds,
-     * allowing it to start from this position the next time it is played. The level of precision
-     * is not guaranteed.
+     * Stops this Sound and moves it back to its start, so it starts from the beginning the
+     * next time it is played. Streamed Sounds fade out first.
      */
     public void stopSound() {
-        if (this.clip != null) {
-            this.clip.stop();
-            this.clip.setMicrosecondPosition(0);
+        record("stop");
+        if (stream != null) {
+            stream.stop();
+        } else {
+            engine.stop(voice);
         }
     }
 
     /**
-     * Sets the media position of the sound clip back to its zeroeth sample frame,
-     * which allows it start from the beginning the next time it is played.
+     * Moves this Sound back to its start, which allows it to start from the beginning the
+     * next time it is played.
      */
     public void reset() {
-        if (this.clip != null) {
-            this.clip.setFramePosition(0);
+        record("rewind");
+        if (stream != null) {
+            stream.rewind();
+        } else {
+            engine.rewind(voice);
         }
     }
 
     /**
-     * Loops the sound clip associated with this Sound object continuously.
+     * Loops this Sound continuously.
      */
     public void loopSound() {
-        if (this.clip != null) {
-            this.clip.loop(Clip.LOOP_CONTINUOUSLY);
+        record("loop");
+        if (stream != null) {
+            stream.start(true);
+        } else {
+            engine.play(voice, true);
+        }
+    }
+
+    /**
+     * Returns whether this Sound is playing.
+     *
+     * @return true if this Sound is being mixed into the output.
+     */
+    public boolean isPlaying() {
+        return stream != null ? stream.isPlaying() : engine.isPlaying(voice);
+    }
+
+    public float getGain() {
+        return stream != null ? stream.getGain() : engine.getGain(voice);
+    }
+
+    /**
+     * Sets this Sound's volume as a multiple of its recorded volume.
+     *
+     * @param gain 1 for the recorded volume, 0 for silence.
+     * @throws IllegalArgumentException if gain is negative.
+     */
+    public void setGain(float gain) {
+        if (gain < 0) {
+            throw new IllegalArgumentException("gain cannot be negative.");
+        }
+        if (stream != null) {
+            stream.setGain(gain);
+        } else {
+            engine.setGain(voice, gain);
+        }
+    }
+
+    public int getPriority() {
+        return stream != null ? MUSIC_PRIORITY : engine.getPriority(voice);
+    }
+
+    /**
+     * Sets how important this Sound is: when the AudioEngine is playing as many Sounds as it
+     * can, starting this Sound replaces a Sound of lower or equal priority, and Sounds of
+     * higher priority can't be replaced by it. Streamed Sounds are never replaced, so this
+     * has no effect on them.
+     *
+     * @param priority this Sound's priority, such as EFFECT_PRIORITY or MUSIC_PRIORITY.
+     */
+    public void setPriority(int priority) {
+        if (stream == null) {
+            engine.setPriority(voice, priority);
+        }
+    }
+
+    /**
+     * Records the given command as a GameEvents.SoundCommand if a Flight Recorder recording
+     * has it enabled.
+     */
+    private void record(String command) {
+        GameEvents.SoundCommand event = new GameEvents.SoundCommand();
+        if (event.shouldCommit()) {
+            event.sound = String.valueOf(this.url);
+            event.command = command;
+            event.streamed = stream != null;
+            event.commit();
         }
     }
 }
@@ -19,11 +19,12 @@ import java.awt.Graphics2D;
  * Represents the game's title screen with a background and start button.
  * When run() is called, displays until the start button is clicked.
  */
-public class TitlePanel extends JPanel{
+public class TitlePanel extends JPanel implements GameLoop.Callbacks {
     private JButton startButton;
     private MouseHandler mouseHandler;
     private BufferedImage backgroundImage;
     private Sound sound;
+    private GameLoop gameLoop;
 
     /**
      * Creates a new TitlePanel with the dimensions of the GamePanel.
@@ -38,9 +39,10 @@ public class TitlePanel extends JPanel{
         loadButton();
 
         this.setDoubleBuffered(true);
+        this.gameLoop = new GameLoop(GamePanel.FPS, this);
 
         try {
-            this.sound = new Sound("/smoothieoperator/src/media/sounds/SmoothieTime.wav");
+            this.sound = Sound.stream("/smoothieoperator/src/media/sounds/SmoothieTime.wav");
         } catch (NullPointerException e) {
             e.printStackTrace();
         }
@@ -90,29 +92,41 @@ public class TitlePanel extends JPanel{
     }
 
     /**
-     * Draws this panel until the button is clicked.
+     * Loops the title music and draws this panel until the button is clicked.
      */
     public void run() {
-      double drawInterval = 1000000000 / GamePanel.FPS; // get 1/60 of a second in nanoseconds
-        double delta = 0;
-        long lastTime = System.nanoTime();
-        long currentTime;
-
-        while (!this.mouseHandler.getButtonPressed()) {
-            // track time since last update 
-            currentTime = System.nanoTime();
-            delta += (currentTime - lastTime) / drawInterval;
-            lastTime = currentTime;
-
-            // update fps times per second
-            if (delta >= 1) {
-                repaint();
-                delta--;
-            }
-            if (this.sound != null) {
-                this.sound.loopSound();
-            }
+        if (this.sound != null) {
+            this.sound.loopSound();
         }
+        gameLoop.run();
+    }
+
+    /**
+     * Returns whether the title screen should keep running.
+     * 
+     * @return true until the start button is clicked.
+     */
+    @Override
+    public boolean isRunning() {
+        return !this.mouseHandler.getButtonPressed();
+    }
+
+    /**
+     * The title screen has no game logic to update, so only takes in the tick's clicks.
+     */
+    @Override
+    public void update() {
+        this.mouseHandler.snapshot();
+    }
+
+    /**
+     * Schedules this panel to be repainted.
+     * 
+     * @param alpha fraction of a tick elapsed since the last update (unused).
+     */
+    @Override
+    public void render(double alpha) {
+        repaint();
     }
 
     /**
@@ -0,0 +1,145 @@
+package smoothieoperator.src.simulation;
+
+/**
+ * Pure projectile-motion and cannon-geometry math shared by the on-screen sprites and the
+ * RoundSimulation, so both always agree on where a shot starts and where it goes.
+ */
+public class Ballistics {
+
+    // Cannon angles in degrees; East is 0 and North is 90
+    public static final double MIN_ANGLE = 0;
+    public static final double MAX_ANGLE = 90;
+
+    public static final double GRAVITY = 9.8;
+    // update() is called so quickly that motion is slowed down by advancing time this much
+    public static final double TIME_STEP = .1;
+
+    private Ballistics() {}
+
+    /**
+     * Returns the launch velocity for the given power setting. Gives projectiles more power,
+     * especially relative to low power settings.
+     *
+     * @param power a PowerBar power setting.
+     * @return the initial velocity of a projectile launched with that power.
+     */
+    public static int launchVelocity(int power) {
+        return (power + 2) * 5;
+    }
+
+    /**
+     * Returns a projectile's x-coordinate at the given time: x = x0 + (V * cos(ang) * t).
+     *
+     * @param x0 initial x-coordinate.
+     * @param velocity initial velocity.
+     * @param angle launch angle in degrees; East is 0 and North is 90.
+     * @param time time since launch, in TIME_STEP increments.
+     * @return the x-coordinate at the given time.
+     */
+    public static int xAt(int x0, int velocity, double angle, double time) {
+        return xAt(x0, velocityX(velocity, angle), time);
+    }
+
+    /**
+     * Returns a projectile's y-coordinate at the given time. Since the window's y-axis is the
+     * opposite of the Cartesian system, the parabola is reflected without changing y0:
+     * y = y0 - (V * sin(ang) * t) + ((gravity / 2) t^2).
+     *
+     * @param y0 initial y-coordinate.
+     * @param velocity initial velocity.
+     * @param angle launch angle in degrees; East is 0 and North is 90.
+     * @param time time since launch, in TIME_STEP increments.
+     * @return the y-coordinate at the given time.
+     */
+    public static int yAt(int y0, int velocity, double angle, double time) {
+        return yAt(y0, velocityY(velocity, angle), time);
+    }
+
+    /**
+     * Returns the horizontal part of a launch velocity, V * cos(ang). A flight's is the same
+     * the whole way, so can be worked out once at launch rather than every tick.
+     *
+     * @param velocity initial velocity.
+     * @param angle launch angle in degrees; East is 0 and North is 90.
+     * @return the horizontal velocity; positive is East.
+     */
+    public static double velocityX(int velocity, double angle) {
+        return velocity * Math.cos(Math.toRadians(angle));
+    }
+
+    /**
+     * Returns the vertical part of a launch velocity, V * sin(ang).
+     *
+     * @param velocity initial velocity.
+     * @param angle launch angle in degrees; East is 0 and North is 90.
+     * @return the initial vertical velocity; positive is North.
+     */
+    public static double velocityY(int velocity, double angle) {
+        return velocity * Math.sin(Math.toRadians(angle));
+    }
+
+    /**
+     * Returns a projectile's x-coordinate at the given time from its horizontal velocity, as
+     * velocityX() returns it. Gives exactly the same result as the other xAt().
+     *
+     * @param x0 initial x-coordinate.
+     * @param velocityX horizontal velocity.
+     * @param time time since launch, in TIME_STEP increments.
+     * @return the x-coordinate at the given time.
+     */
+    public static int xAt(int x0, double velocityX, double time) {
+        return (int) (x0 + (velocityX * time));
+    }
+
+    /**
+     * Returns a projectile's y-coordinate at the given time from its initial vertical
+     * velocity, as velocityY() returns it. Gives exactly the same result as the other yAt().
+     *
+     * @param y0 initial y-coordinate.
+     * @param velocityY initial vertical velocity.
+     * @param time time since launch, in TIME_STEP increments.
+     * @return the y-coordinate at the given time.
+     */
+    public static int yAt(int y0, double velocityY, double time) {
+        return (int) (y0 - (velocityY * time) + ((GRAVITY / 2) * time * time));
+    }
+
+    /**
+     * Returns an x-coordinate near the tip of a cannon barrel's spout. The coordinate is
+     * offset a little to the left of center as the barrel faces Northward.
+     *
+     * @param cannonX x-coordinate of the cannon's barrel image.
+     * @param pivotX barrel pivot x, relative to the left of the barrel image.
+     * @param pivotY barrel pivot y, relative to the top of the barrel image.
+     * @param angle the barrel's angle in degrees; East is 0 and North is 90.
+     * @return an x-coordinate near the tip of the barrel's spout.
+     */
+    public static int launchX(int cannonX, int pivotX, int pivotY, double angle) {
+        int bellyX = cannonX + pivotX;
+        int spoutX = (int) ((pivotY - Screen.TILE_SIZE) * Math.cos(Math.toRadians(angle)));
+        // Since (x, y) coords for projectile are in the upper left,
+        // shift this left a bit when facing North.
+        int offsetX = (int) (((Screen.TILE_SIZE / 2) * Screen.SCALE)
+                * Math.sin(Math.toRadians(angle)));
+        return bellyX + spoutX - offsetX;
+    }
+
+    /**
+     * Returns a y-coordinate near the tip of a cannon barrel's spout. The coordinate is
+     * offset a bit North of center as the barrel faces Eastward.
+     *
+     * @param cannonY y-coordinate of the cannon's barrel image.
+     * @param pivotY barrel pivot y, relative to the top of the barrel image.
+     * @param angle the barrel's angle in degrees; East is 0 and North is 90.
+     * @return a y-coordinate near the tip of the barrel's spout.
+     */
+    public static int launchY(int cannonY, int pivotY, double angle) {
+        int bellyY = cannonY + pivotY;
+        int spoutY = (int) ((pivotY) * Math.sin(Math.toRadians(angle)));
+        // Since (x, y) coords for projectile are in the upper left,
+        // shift this up a bit when facing East.
+        int offsetY = (int) (((Screen.TILE_SIZE / 2) * Screen.SCALE)
+                * Math.cos(Math.toRadians(angle)));
+        return bellyY - spoutY - offsetY;
+    }
+}
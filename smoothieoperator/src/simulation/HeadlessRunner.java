@@ -0,0 +1,237 @@
+package smoothieoperator.src.simulation;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * Plays rounds of Smoothie Operator without a window, images or sounds by replaying a script
+ * of inputs into a RoundSimulation, then reports how each round ended and how fast it ran.
+ *
+ * <p>Usage: java smoothieoperator.src.simulation.HeadlessRunner [--rounds N] [--seed S]
+ * [--max-ticks T] [--quiet] [script-file]
+ *
+ * <p>A script has one step per line: a number of ticks followed by the controls to hold for
+ * those ticks, joined with '+' (left, right, up, down, shoot, reset or none). Blank lines and
+ * lines starting with '#' are ignored. For example, "10 left+up" turns the cannon
+ * counter-clockwise and raises the power for 10 ticks. The script repeats from the top until
+ * the round ends or reaches the tick limit; each round starts the script over. Without a
+ * script file, the runner fires whenever it can without aiming.
+ */
+public class HeadlessRunner {
+
+    private static final int DEFAULT_ROUNDS = 1;
+    private static final long DEFAULT_MAX_TICKS = 1000000;
+
+    private final RoundSimulation simulation;
+    private final RoundInput[] inputs; // one per script step
+    private final int[] durations; // ticks to hold each step's input
+
+    /**
+     * Creates a new HeadlessRunner that replays the given script into the given simulation.
+     *
+     * @param simulation the simulation to play.
+     * @param inputs the input for each step of the script.
+     * @param durations the number of ticks for each step of the script.
+     * @throws IllegalArgumentException if any argument is null, the arrays are empty or of
+     *         different lengths, or any duration is not positive.
+     */
+    public HeadlessRunner(RoundSimulation simulation, RoundInput[] inputs, int[] durations) {
+        if (simulation == null || inputs == null || durations == null) {
+            throw new IllegalArgumentException("arguments cannot be null.");
+        }
+        if (inputs.length == 0 || inputs.length != durations.length) {
+            throw new IllegalArgumentException(
+                    "script must have at least one step, with one duration per input.");
+        }
+        for (int duration : durations) {
+            if (duration <= 0) {
+                throw new IllegalArgumentException("durations must be positive.");
+            }
+        }
+        this.simulation = simulation;
+        this.inputs = inputs.clone();
+        this.durations = durations.clone();
+    }
+
+    /**
+     * Plays one round from the start of the script until it is won or lost, or until maxTicks
+     * ticks have passed.
+     *
+     * @param maxTicks the most ticks to play.
+     * @return the number of ticks played.
+     */
+    public long playRound(long maxTicks) {
+        simulation.reset();
+        long played = 0;
+        int step = 0;
+        int ticksLeftInStep = durations[0];
+        while (played < maxTicks && !simulation.isRoundOver()) {
+            simulation.step(inputs[step]);
+            played++;
+            ticksLeftInStep--;
+            if (ticksLeftInStep == 0) {
+                step = (step + 1) % inputs.length;
+                ticksLeftInStep = durations[step];
+            }
+        }
+        return played;
+    }
+
+    /**
+     * Parses one step's controls, such as "left+shoot" or "none".
+     *
+     * @param controls control names joined with '+'.
+     * @return the matching RoundInput.
+     * @throws IllegalArgumentException if a control name is unknown.
+     */
+    public static RoundInput parseControls(String controls) {
+        int bits = 0;
+        for (String control : controls.toLowerCase().split("\\+")) {
+            switch (control.trim()) {
+                case "none":
+                    break;
+                case "left":
+                    bits |= RoundInput.ANGLE_COUNTER_CLOCKWISE;
+                    break;
+                case "right":
+                    bits |= RoundInput.ANGLE_CLOCKWISE;
+                    break;
+                case "up":
+                    bits |= RoundInput.POWER_UP;
+                    break;
+                case "down":
+                    bits |= RoundInput.POWER_DOWN;
+                    break;
+                case "shoot":
+                    bits |= RoundInput.SHOOT;
+                    break;
+                case "reset":
+                    bits |= RoundInput.RESET;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown control: " + control);
+            }
+        }
+        return RoundInput.of(bits);
+    }
+
+    /**
+     * Plays the requested rounds and prints the outcome of each and a summary.
+     *
+     * @param args command line options and an optional script file; see the class comment.
+     */
+    public static void main(String[] args) {
+        int rounds = DEFAULT_ROUNDS;
+        long seed = System.nanoTime();
+        long maxTicks = DEFAULT_MAX_TICKS;
+        boolean quiet = false;
+        String scriptFile = null;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--rounds")) {
+                    rounds = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--seed")) {
+                    seed = Long.parseLong(args[++i]);
+                } else if (args[i].equals("--max-ticks")) {
+                    maxTicks = Long.parseLong(args[++i]);
+                } else if (args[i].equals("--quiet")) {
+                    quiet = true;
+                } else {
+                    scriptFile = args[i];
+                }
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            System.out.println("Usage: HeadlessRunner [--rounds N] [--seed S] [--max-ticks T]"
+                    + " [--quiet] [script-file]");
+            return;
+        }
+
+        ArrayList<RoundInput> inputs = new ArrayList<RoundInput>();
+        ArrayList<Integer> durations = new ArrayList<Integer>();
+        if (scriptFile == null) {
+            inputs.add(RoundInput.of(RoundInput.SHOOT));
+            durations.add(1);
+        } else {
+            try {
+                readScript(scriptFile, inputs, durations);
+            } catch (IOException e) {
+                System.out.println("Couldn't read script file: " + scriptFile);
+                e.printStackTrace();
+                return;
+            } catch (IllegalArgumentException e) {
+                System.out.println("Couldn't parse script file: " + e.getMessage());
+                return;
+            }
+        }
+
+        int[] durationArray = new int[durations.size()];
+        for (int i = 0; i < durationArray.length; i++) {
+            durationArray[i] = durations.get(i);
+        }
+        RoundSimulation simulation = new RoundSimulation(RoundSettings.defaults(), seed);
+        HeadlessRunner runner = new HeadlessRunner(simulation,
+                inputs.toArray(new RoundInput[0]), durationArray);
+
+        int won = 0;
+        int lost = 0;
+        long totalTicks = 0;
+        long start = System.nanoTime();
+        for (int round = 1; round <= rounds; round++) {
+            long ticks = runner.playRound(maxTicks);
+            totalTicks += ticks;
+            String outcome = "unfinished";
+            if (simulation.isRoundOver()) {
+                if (simulation.isWon()) {
+                    won++;
+                    outcome = "won";
+                } else {
+                    lost++;
+                    outcome = "lost";
+                }
+            }
+            if (!quiet) {
+                System.out.printf("round %d: %s after %d ticks, %d shots, %d hits, %d lives%n",
+                        round, outcome, ticks, simulation.getShots(),
+                        simulation.getTargetHits(), simulation.getLives());
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("seed %d: %d rounds, %d won, %d lost, %d unfinished%n",
+                seed, rounds, won, lost, rounds - won - lost);
+        System.out.printf("%d ticks in %.3f s (%.0f ticks/s)%n",
+                totalTicks, seconds, totalTicks / Math.max(seconds, 1e-9));
+    }
+
+    /**
+     * Reads a script file into parallel lists of inputs and durations.
+     */
+    private static void readScript(String filename, ArrayList<RoundInput> inputs,
+            ArrayList<Integer> durations) throws IOException {
+        BufferedReader reader = new BufferedReader(new FileReader(filename));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] parts = line.split("\\s+", 2);
+                try {
+                    durations.add(Integer.parseInt(parts[0]));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Bad tick count in line: " + line);
+                }
+                inputs.add(parseControls(parts.length > 1 ? parts[1] : "none"));
+            }
+        } finally {
+            reader.close();
+        }
+        if (inputs.isEmpty()) {
+            throw new IllegalArgumentException("script has no steps.");
+        }
+    }
+}
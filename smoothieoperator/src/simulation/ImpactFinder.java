@@ -0,0 +1,177 @@
+package smoothieoperator.src.simulation;
+
+/**
+ * The rules for what a flying projectile collides with, shared by RoundSimulation, for single
+ * shots and rapid fire, and by TrajectoryTable, so the game and the aim preview always agree.
+ *
+ * <p>A projectile's hitbox is the middle half of its image. The target's is half the size of
+ * the target's image, horizontally centered and flush with its top. The wall runs from its
+ * x-coordinate to the right edge of the screen, and the ground from its y-coordinate to the
+ * bottom. The projectile's hitbox is swept along the straight line of each move, so it can't
+ * pass through anything between two positions, however fast it moves. It collides with
+ * whatever it reaches first along that line; on a tie, the target comes before the wall, and
+ * the wall before the ground. A projectile that collides with nothing but ends its move past
+ * the right or bottom edge of the screen has left it.
+ *
+ * <p>find() keeps the time of the collision it found for getTime(), so an ImpactFinder that
+ * find() is called on belongs to one thread. timeToHitTarget() keeps nothing.
+ */
+final class ImpactFinder {
+
+    private final int xOffset; // the projectile hitbox's, from the image's top left
+    private final int xSize;
+    private final int yOffset;
+    private final int ySize;
+    private final int wallX;
+    private final int groundY;
+    private final int targetWidth;
+    private final int targetHeight;
+    private double time; // of the last collision find() found
+    private long checks; // sweeps find() has done
+
+    /**
+     * Creates an ImpactFinder for the given settings' projectile, target, wall and ground.
+     *
+     * @param settings the round's settings.
+     */
+    ImpactFinder(RoundSettings settings) {
+        int width = settings.getProjectileWidth();
+        int height = settings.getProjectileHeight();
+        this.xOffset = (int) (width * .25);
+        this.xSize = (int) (width * .75) - xOffset;
+        this.yOffset = (int) (height * .25);
+        this.ySize = (int) (height * .75) - yOffset;
+        this.wallX = settings.getWallX();
+        this.groundY = settings.getGroundY();
+        this.targetWidth = settings.getTargetWidth();
+        this.targetHeight = settings.getTargetHeight();
+        this.time = RoundSimulation.NO_IMPACT;
+    }
+
+    /**
+     * Finds what a projectile moving from (startX, startY) by (dx, dy) collides with first,
+     * with the target at (targetX, targetY). Keeps when for getTime().
+     *
+     * @param startX the projectile's x-coordinate before the move.
+     * @param startY the projectile's y-coordinate before the move.
+     * @param dx how far the projectile moves East.
+     * @param dy how far the projectile moves South.
+     * @param targetX the target's x-coordinate.
+     * @param targetY the target's y-coordinate.
+     * @return RoundSimulation.EVENT_TARGET_HIT, EVENT_HIT_WALL, EVENT_HIT_GROUND or
+     *         EVENT_LEFT_SCREEN; 0 if the projectile is still flying after the move.
+     */
+    int find(int startX, int startY, int dx, int dy, int targetX, int targetY) {
+        checks++;
+        return find(startX, startY, dx, dy,
+                timeToHitTarget(startX, startY, dx, dy, targetX, targetY));
+    }
+
+    /**
+     * Finds what a projectile moving from (startX, startY) by (dx, dy) collides with first,
+     * as if there were no target. Keeps when for getTime().
+     *
+     * @return RoundSimulation.EVENT_HIT_WALL, EVENT_HIT_GROUND or EVENT_LEFT_SCREEN; 0 if the
+     *         projectile is still flying after the move.
+     */
+    int findIgnoringTarget(int startX, int startY, int dx, int dy) {
+        return find(startX, startY, dx, dy, RoundSimulation.NO_IMPACT);
+    }
+
+    /**
+     * Returns when a projectile moving from (startX, startY) by (dx, dy) would hit the target
+     * at (targetX, targetY), ignoring everything else.
+     *
+     * @return the fraction of the move, from 0 to 1, at which it hits;
+     *         RoundSimulation.NO_IMPACT if it doesn't.
+     */
+    double timeToHitTarget(int startX, int startY, int dx, int dy, int targetX, int targetY) {
+        int targetXMin = targetX + targetWidth / 4;
+        int xMin = startX + xOffset;
+        int yMin = startY + yOffset;
+        return sweep(xMin, xMin + xSize, yMin, yMin + ySize, dx, dy,
+                targetXMin, targetXMin + targetWidth / 2, targetY, targetY + targetHeight / 2);
+    }
+
+    /**
+     * Returns when, as a fraction of the move, the collision the last find() found happened:
+     * 1 for leaving the screen.
+     *
+     * @return the time; RoundSimulation.NO_IMPACT if there was no collision.
+     */
+    double getTime() {
+        return this.time;
+    }
+
+    /**
+     * Returns how many sweeps of the projectile's hitbox find() and findIgnoringTarget() have
+     * done.
+     *
+     * @return the number of sweeps.
+     */
+    long getChecks() {
+        return this.checks;
+    }
+
+    /**
+     * Finds what the projectile collides with first, given when it would hit the target.
+     */
+    private int find(int startX, int startY, int dx, int dy, double targetTime) {
+        checks += 2;
+        int xMin = startX + xOffset;
+        int yMin = startY + yOffset;
+        double wallTime = sweep(xMin, xMin + xSize, yMin, yMin + ySize, dx, dy,
+                wallX, Screen.WIDTH, 0, Screen.HEIGHT);
+        double groundTime = sweep(xMin, xMin + xSize, yMin, yMin + ySize, dx, dy,
+                0, Screen.WIDTH, groundY, Screen.HEIGHT);
+
+        time = Math.min(targetTime, Math.min(wallTime, groundTime));
+        if (time == RoundSimulation.NO_IMPACT) {
+            if (startX + dx < Screen.WIDTH && startY + dy <= Screen.HEIGHT) {
+                return 0;
+            }
+            time = 1;
+            return RoundSimulation.EVENT_LEFT_SCREEN;
+        } else if (time == targetTime) {
+            return RoundSimulation.EVENT_TARGET_HIT;
+        } else if (time == wallTime) {
+            return RoundSimulation.EVENT_HIT_WALL;
+        }
+        return RoundSimulation.EVENT_HIT_GROUND;
+    }
+
+    /**
+     * Returns when box a, moving by (dx, dy), first overlaps box b. Boundaries are inclusive,
+     * like Sprite.collidesWith(), so boxes that only touch overlap.
+     *
+     * @return the fraction of the move, from 0 to 1, at which the boxes first overlap;
+     *         RoundSimulation.NO_IMPACT if they don't during the move.
+     */
+    static double sweep(int aXMin, int aXMax, int aYMin, int aYMax, int dx, int dy,
+            int bXMin, int bXMax, int bYMin, int bYMax) {
+        double enter = 0;
+        double exit = 1;
+        // along each axis, the part of the move during which the boxes' extents overlap
+        if (dx == 0) {
+            if (aXMin > bXMax || aXMax < bXMin) {
+                return RoundSimulation.NO_IMPACT;
+            }
+        } else {
+            double first = (double) (dx > 0 ? bXMin - aXMax : bXMax - aXMin) / dx;
+            double last = (double) (dx > 0 ? bXMax - aXMin : bXMin - aXMax) / dx;
+            enter = Math.max(enter, first);
+            exit = Math.min(exit, last);
+        }
+        if (dy == 0) {
+            if (aYMin > bYMax || aYMax < bYMin) {
+                return RoundSimulation.NO_IMPACT;
+            }
+        } else {
+            double first = (double) (dy > 0 ? bYMin - aYMax : bYMax - aYMin) / dy;
+            double last = (double) (dy > 0 ? bYMax - aYMin : bYMin - aYMax) / dy;
+            enter = Math.max(enter, first);
+            exit = Math.min(exit, last);
+        }
+        return enter <= exit ? enter : RoundSimulation.NO_IMPACT;
+    }
+}
@@ -0,0 +1,290 @@
+package smoothieoperator.src.simulation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * A recorded game session: the seed its RoundSimulation was created with, whether it was
+ * played in rapid fire and the RoundInput of every tick, so the session can be replayed
+ * exactly. Record one with a Writer and read it back with read().
+ *
+ * <p>The file starts with the magic number "SOIR", a format version, the seed and a byte that
+ * is 1 for rapid fire and 0 for one shot at a time, followed by runs of identical inputs,
+ * each an input's bits in one byte and the number of ticks it was held as a variable-length
+ * number. Most inputs are held for many ticks, so a session takes a few bytes a second. A
+ * complete recording ends with an END byte and the simulation's checksum() after the last
+ * tick, which a replay can compare with its own to confirm it played out the same. A
+ * recording cut short, say by the game crashing, lacks the checksum but its ticks can still
+ * be replayed.
+ *
+ * <p>Replaying also needs the same RoundSettings, which the game measures from its images, so
+ * a recording only replays exactly on builds whose images are the same size.
+ */
+public class InputRecording {
+
+    public static final int MAGIC = 0x534f4952; // "SOIR"
+    public static final int VERSION = 2;
+    private static final int END = 0xff; // never a RoundInput's bits
+
+    private final long seed;
+    private final boolean rapidFire;
+    private final byte[] inputs; // each tick's RoundInput bits
+    private final boolean complete;
+    private final long checksum;
+
+    private InputRecording(long seed, boolean rapidFire, byte[] inputs, boolean complete,
+            long checksum) {
+        this.seed = seed;
+        this.rapidFire = rapidFire;
+        this.inputs = inputs;
+        this.complete = complete;
+        this.checksum = checksum;
+    }
+
+    /**
+     * Reads a recording from the given file.
+     *
+     * @param file the recording's file.
+     * @return the recording.
+     * @throws IOException if the file can't be read or isn't a recording.
+     */
+    public static InputRecording read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("not an input recording: " + file);
+            }
+            int version = in.readUnsignedShort();
+            if (version != VERSION) {
+                throw new IOException("unsupported input recording version " + version);
+            }
+            long seed = in.readLong();
+            boolean rapidFire = in.readBoolean();
+            ByteArray ticks = new ByteArray();
+            while (true) {
+                int bits = in.read();
+                if (bits == -1) { // cut short; replay what there is
+                    return new InputRecording(seed, rapidFire, ticks.toArray(), false, 0);
+                }
+                if (bits == END) {
+                    long checksum;
+                    try {
+                        checksum = in.readLong();
+                    } catch (EOFException e) { // cut short within the checksum
+                        return new InputRecording(seed, rapidFire, ticks.toArray(), false, 0);
+                    }
+                    return new InputRecording(seed, rapidFire, ticks.toArray(), true, checksum);
+                }
+                if ((bits & ~RoundInput.ALL_CONTROLS) != 0) {
+                    throw new IOException("corrupt input recording: " + file);
+                }
+                long run;
+                try {
+                    run = readVarLong(in);
+                } catch (EOFException e) {
+                    return new InputRecording(seed, rapidFire, ticks.toArray(), false, 0);
+                }
+                ticks.add((byte) bits, run);
+            }
+        }
+    }
+
+    public long getSeed() {
+        return this.seed;
+    }
+
+    /**
+     * Returns whether the session was played in rapid fire, which it must be replayed in too.
+     *
+     * @return true for rapid fire; false for one shot at a time.
+     */
+    public boolean isRapidFire() {
+        return this.rapidFire;
+    }
+
+    public int getTickCount() {
+        return this.inputs.length;
+    }
+
+    /**
+     * Returns whether the recording was closed properly, so it has a checksum.
+     *
+     * @return true if getChecksum() can be compared.
+     */
+    public boolean isComplete() {
+        return this.complete;
+    }
+
+    /**
+     * Returns the RoundSimulation's checksum() after the recording's last tick.
+     *
+     * @return the checksum; 0 if the recording isn't complete.
+     */
+    public long getChecksum() {
+        return this.checksum;
+    }
+
+    /**
+     * Returns the input for the given tick.
+     *
+     * @param tick the tick, from 0 to getTickCount() - 1.
+     * @return the RoundInput the tick was played with.
+     * @throws IndexOutOfBoundsException if tick is out of range.
+     */
+    public RoundInput getInput(int tick) {
+        return RoundInput.of(inputs[tick]);
+    }
+
+    /**
+     * Writes a recording to a file as it's played: one call to record() per tick, then close()
+     * once the session is over. Any thread may call its methods.
+     */
+    public static class Writer {
+
+        private final DataOutputStream out;
+        private int runBits;
+        private long runLength; // 0 before the first tick
+        private long ticks;
+        private long checksum; // the simulation's after the last tick
+        private boolean closed;
+
+        /**
+         * Creates the given file, replacing any file already there, and writes the start of
+         * a recording to it.
+         *
+         * @param file the file to record to.
+         * @param seed the seed the session's RoundSimulation was created with.
+         * @param rapidFire whether the session is played in rapid fire.
+         * @throws IOException if the file can't be written.
+         */
+        public Writer(Path file, long seed, boolean rapidFire) throws IOException {
+            OutputStream stream = Files.newOutputStream(file);
+            this.out = new DataOutputStream(new BufferedOutputStream(stream));
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeLong(seed);
+            out.writeBoolean(rapidFire);
+        }
+
+        /**
+         * Records the input for the next tick, and the simulation's checksum() once the tick
+         * has been played, which close() finishes the recording with. Does nothing once closed.
+         *
+         * @param input the input the tick was played with.
+         * @param checksum the RoundSimulation's checksum() after the tick.
+         * @throws IOException if the file can't be written.
+         */
+        public synchronized void record(RoundInput input, long checksum) throws IOException {
+            if (closed) {
+                return;
+            }
+            ticks++;
+            this.checksum = checksum;
+            if (runLength > 0 && input.getBits() == runBits) {
+                runLength++;
+                return;
+            }
+            writeRun();
+            runBits = input.getBits();
+            runLength = 1;
+        }
+
+        public synchronized long getTicks() {
+            return this.ticks;
+        }
+
+        /**
+         * Finishes the recording with the checksum recorded with the last tick and closes the
+         * file. Does nothing if already closed. Safe to call while another thread is still
+         * recording, for instance from a shutdown hook; later ticks are ignored.
+         *
+         * @throws IOException if the file can't be written.
+         */
+        public synchronized void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                writeRun();
+                out.writeByte(END);
+                out.writeLong(checksum);
+            } finally {
+                out.close();
+            }
+        }
+
+        /**
+         * Writes the current run of identical inputs, if there is one.
+         */
+        private void writeRun() throws IOException {
+            if (runLength > 0) {
+                out.writeByte(runBits);
+                writeVarLong(out, runLength);
+            }
+        }
+    }
+
+    /**
+     * Writes a positive number in as few bytes as it needs, 7 bits a byte, low bits first;
+     * the top bit of each byte but the last is set.
+     */
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7fL) != 0) {
+            out.writeByte((int) (value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    /**
+     * Reads a number written by writeVarLong().
+     */
+    private static long readVarLong(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b == -1) {
+                throw new EOFException();
+            }
+            value |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("corrupt input recording: run too long");
+    }
+
+    /**
+     * A growable array of bytes, for expanding runs of inputs into one byte per tick.
+     */
+    private static class ByteArray {
+        private byte[] bytes = new byte[1024];
+        private int size;
+
+        void add(byte value, long count) throws IOException {
+            if (size + count > Integer.MAX_VALUE - 8) {
+                throw new IOException("input recording too long");
+            }
+            int end = size + (int) count;
+            if (end > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(end, 2 * bytes.length));
+            }
+            Arrays.fill(bytes, size, end, value);
+            size = end;
+        }
+
+        byte[] toArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+    }
+}
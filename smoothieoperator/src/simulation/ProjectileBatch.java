@@ -0,0 +1,281 @@
+package smoothieoperator.src.simulation;
+
+/**
+ * Many projectiles in flight at once, stored as parallel arrays of primitives rather than an
+ * object each, so advance() moves them all in one tight loop over contiguous memory with no
+ * trigonometry. Backs RoundSimulation's rapid-fire mode.
+ *
+ * <p>Projectiles are numbered from 0 to size() - 1. remove() moves the last projectile into
+ * the removed one's place, so numbers change as projectiles land; loop backwards to remove
+ * while looping.
+ *
+ * <p>Without drag or wind, each projectile follows exactly the same path a ProjectileState
+ * with the same launch would. With either, velocities are integrated tick by tick instead:
+ * drag slows a projectile in proportion to its speed, and wind pushes it East (or West, if
+ * negative).
+ *
+ * <p>The batch also collects the impacts its owner reports each tick, for the game to react
+ * to without keeping the projectiles that made them.
+ */
+public class ProjectileBatch {
+
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private final int capacity;
+    private final double drag; // per unit of time, times the velocity
+    private final double wind; // acceleration East
+    private int count;
+
+    // per projectile
+    private final int[] x0;
+    private final int[] y0;
+    private final int[] fruit;
+    private final double[] time;
+    private final double[] velocityX; // East; constant without drag or wind
+    private final double[] velocityY; // North; the launch velocity's without drag or wind
+    private final double[] exactX; // unrounded positions, only used with drag or wind
+    private final double[] exactY;
+    private final int[] x;
+    private final int[] y;
+    private final int[] previousX;
+    private final int[] previousY;
+
+    // impacts reported this tick
+    private int impactCount;
+    private final int[] impactEvent;
+    private final int[] impactX;
+    private final int[] impactY;
+    private final int[] impactFruit;
+
+    /**
+     * Creates an empty ProjectileBatch with room for DEFAULT_CAPACITY projectiles, without
+     * drag or wind.
+     */
+    public ProjectileBatch() {
+        this(DEFAULT_CAPACITY, 0, 0);
+    }
+
+    /**
+     * Creates an empty ProjectileBatch with room for the given number of projectiles.
+     *
+     * @param capacity the most projectiles in flight at once.
+     * @param drag how much of its velocity a projectile loses per unit of time; 0 for none.
+     * @param wind horizontal acceleration, positive East; 0 for none.
+     * @throws IllegalArgumentException if capacity is not positive or drag is negative.
+     */
+    public ProjectileBatch(int capacity, double drag, double wind) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive.");
+        }
+        if (drag < 0) {
+            throw new IllegalArgumentException("drag cannot be negative.");
+        }
+        this.capacity = capacity;
+        this.drag = drag;
+        this.wind = wind;
+        this.x0 = new int[capacity];
+        this.y0 = new int[capacity];
+        this.fruit = new int[capacity];
+        this.time = new double[capacity];
+        this.velocityX = new double[capacity];
+        this.velocityY = new double[capacity];
+        this.exactX = new double[capacity];
+        this.exactY = new double[capacity];
+        this.x = new int[capacity];
+        this.y = new int[capacity];
+        this.previousX = new int[capacity];
+        this.previousY = new int[capacity];
+        // every projectile can land in the same tick
+        this.impactEvent = new int[capacity];
+        this.impactX = new int[capacity];
+        this.impactY = new int[capacity];
+        this.impactFruit = new int[capacity];
+    }
+
+    /**
+     * Adds a projectile launched from (x0, y0) at the given angle and power, like a new
+     * ProjectileState. It doesn't move until the next advance().
+     *
+     * @param x0 initial x-coordinate.
+     * @param y0 initial y-coordinate.
+     * @param angle launch angle in degrees; East is 0 and North is 90.
+     * @param power the power setting it was launched with.
+     * @param fruit index of the kind of fruit launched.
+     * @return false if the batch is full, so the projectile wasn't added.
+     */
+    public boolean launch(int x0, int y0, double angle, int power, int fruit) {
+        if (count == capacity) {
+            return false;
+        }
+        int i = count++;
+        int velocity = Ballistics.launchVelocity(power);
+        this.x0[i] = x0;
+        this.y0[i] = y0;
+        this.fruit[i] = fruit;
+        this.time[i] = 0;
+        this.velocityX[i] = Ballistics.velocityX(velocity, angle);
+        this.velocityY[i] = Ballistics.velocityY(velocity, angle);
+        this.exactX[i] = x0;
+        this.exactY[i] = y0;
+        this.x[i] = x0;
+        this.y[i] = y0;
+        this.previousX[i] = x0;
+        this.previousY[i] = y0;
+        return true;
+    }
+
+    /**
+     * Moves every projectile to its position for its current time, then advances each one's
+     * time by Ballistics.TIME_STEP, like ProjectileState.advance().
+     */
+    public void advance() {
+        int n = count;
+        if (drag == 0 && wind == 0) {
+            for (int i = 0; i < n; i++) {
+                double t = time[i];
+                previousX[i] = x[i];
+                previousY[i] = y[i];
+                x[i] = Ballistics.xAt(x0[i], velocityX[i], t);
+                y[i] = Ballistics.yAt(y0[i], velocityY[i], t);
+                time[i] = t + Ballistics.TIME_STEP;
+            }
+            return;
+        }
+        double dt = Ballistics.TIME_STEP;
+        for (int i = 0; i < n; i++) {
+            previousX[i] = x[i];
+            previousY[i] = y[i];
+            x[i] = (int) exactX[i];
+            y[i] = (int) exactY[i];
+            double vx = velocityX[i] + (wind - drag * velocityX[i]) * dt;
+            double vy = velocityY[i] - (Ballistics.GRAVITY + drag * velocityY[i]) * dt;
+            exactX[i] += vx * dt;
+            exactY[i] -= vy * dt; // the screen's y-axis points South
+            velocityX[i] = vx;
+            velocityY[i] = vy;
+            time[i] += dt;
+        }
+    }
+
+    /**
+     * Removes the given projectile, moving the last one into its place.
+     *
+     * @param i the projectile's number, from 0 to size() - 1.
+     * @throws IndexOutOfBoundsException if i is out of range.
+     */
+    public void remove(int i) {
+        if (i < 0 || i >= count) {
+            throw new IndexOutOfBoundsException("no projectile " + i + " of " + count);
+        }
+        int last = --count;
+        x0[i] = x0[last];
+        y0[i] = y0[last];
+        fruit[i] = fruit[last];
+        time[i] = time[last];
+        velocityX[i] = velocityX[last];
+        velocityY[i] = velocityY[last];
+        exactX[i] = exactX[last];
+        exactY[i] = exactY[last];
+        x[i] = x[last];
+        y[i] = y[last];
+        previousX[i] = previousX[last];
+        previousY[i] = previousY[last];
+    }
+
+    /**
+     * Removes every projectile and impact.
+     */
+    public void clear() {
+        count = 0;
+        impactCount = 0;
+    }
+
+    public int size() {
+        return this.count;
+    }
+
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    public int getX(int i) {
+        return x[i];
+    }
+
+    public int getY(int i) {
+        return y[i];
+    }
+
+    public int getPreviousX(int i) {
+        return previousX[i];
+    }
+
+    public int getPreviousY(int i) {
+        return previousY[i];
+    }
+
+    public int getFruit(int i) {
+        return fruit[i];
+    }
+
+    public double getTime(int i) {
+        return time[i];
+    }
+
+    /**
+     * Forgets the impacts reported so far, at the start of a tick.
+     */
+    void clearImpacts() {
+        impactCount = 0;
+    }
+
+    /**
+     * Reports that a projectile collided with something or left the screen.
+     *
+     * @param event the RoundSimulation event for the impact, such as EVENT_HIT_WALL.
+     * @param x the projectile's x-coordinate when it collided.
+     * @param y the projectile's y-coordinate when it collided.
+     * @param fruit the kind of fruit it was.
+     */
+    void addImpact(int event, int x, int y, int fruit) {
+        if (impactCount < impactEvent.length) {
+            impactEvent[impactCount] = event;
+            impactX[impactCount] = x;
+            impactY[impactCount] = y;
+            impactFruit[impactCount] = fruit;
+            impactCount++;
+        }
+    }
+
+    /**
+     * Returns the number of impacts in the last tick.
+     *
+     * @return the number of impacts, numbered from 0.
+     */
+    public int getImpactCount() {
+        return this.impactCount;
+    }
+
+    /**
+     * Returns what the given impact of the last tick hit.
+     *
+     * @param i the impact's number, from 0 to getImpactCount() - 1.
+     * @return RoundSimulation.EVENT_TARGET_HIT, EVENT_HIT_WALL, EVENT_HIT_GROUND or
+     *         EVENT_LEFT_SCREEN.
+     */
+    public int getImpactEvent(int i) {
+        return impactEvent[i];
+    }
+
+    public int getImpactX(int i) {
+        return impactX[i];
+    }
+
+    public int getImpactY(int i) {
+        return impactY[i];
+    }
+
+    public int getImpactFruit(int i) {
+        return impactFruit[i];
+    }
+}
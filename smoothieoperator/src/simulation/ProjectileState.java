@@ -0,0 +1,115 @@
+package smoothieoperator.src.simulation;
+
+/**
+ * The flight of one projectile in a RoundSimulation: where and how it was launched, how long
+ * it has been flying, and where it is now.
+ */
+public class ProjectileState {
+
+    private final int x0;
+    private final int y0;
+    private final double angle;
+    private final int power;
+    private final int velocity;
+    private final double velocityX; // parts of velocity, so advance() needn't redo the trig
+    private final double velocityY;
+    private final int fruit;
+    private double time;
+    private int x;
+    private int y;
+    private int previousX; // position before the last advance()
+    private int previousY;
+
+    /**
+     * Creates a new ProjectileState launched from (x0, y0) at the given angle and power.
+     *
+     * @param x0 initial x-coordinate.
+     * @param y0 initial y-coordinate.
+     * @param angle launch angle in degrees; East is 0 and North is 90.
+     * @param power the power setting it was launched with.
+     * @param fruit index of the kind of fruit launched.
+     */
+    public ProjectileState(int x0, int y0, double angle, int power, int fruit) {
+        this.x0 = x0;
+        this.y0 = y0;
+        this.angle = angle;
+        this.power = power;
+        this.velocity = Ballistics.launchVelocity(power);
+        this.velocityX = Ballistics.velocityX(velocity, angle);
+        this.velocityY = Ballistics.velocityY(velocity, angle);
+        this.fruit = fruit;
+        this.time = 0;
+        this.x = x0;
+        this.y = y0;
+        this.previousX = x0;
+        this.previousY = y0;
+    }
+
+    public int getInitialX() {
+        return this.x0;
+    }
+
+    public int getInitialY() {
+        return this.y0;
+    }
+
+    public double getAngle() {
+        return this.angle;
+    }
+
+    public int getPower() {
+        return this.power;
+    }
+
+    public int getVelocity() {
+        return this.velocity;
+    }
+
+    public int getFruit() {
+        return this.fruit;
+    }
+
+    public double getTime() {
+        return this.time;
+    }
+
+    public int getX() {
+        return this.x;
+    }
+
+    public int getY() {
+        return this.y;
+    }
+
+    /**
+     * Returns the x-coordinate before the last advance(), where the projectile moved to the
+     * current position from.
+     *
+     * @return the previous x-coordinate; the initial one before the first advance().
+     */
+    public int getPreviousX() {
+        return this.previousX;
+    }
+
+    /**
+     * Returns the y-coordinate before the last advance(), where the projectile moved to the
+     * current position from.
+     *
+     * @return the previous y-coordinate; the initial one before the first advance().
+     */
+    public int getPreviousY() {
+        return this.previousY;
+    }
+
+    /**
+     * Moves to the position for the current time, then advances time by Ballistics.TIME_STEP.
+     * Matches Projectile.update(), so the on-screen sprite and this state stay in step.
+     */
+    public void advance() {
+        this.previousX = x;
+        this.previousY = y;
+        this.x = Ballistics.xAt(x0, velocityX, time);
+        this.y = Ballistics.yAt(y0, velocityY, time);
+        this.time += Ballistics.TIME_STEP;
+    }
+}
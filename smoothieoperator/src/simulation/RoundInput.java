@@ -0,0 +1,104 @@
+package smoothieoperator.src.simulation;
+
+/**
+ * An immutable snapshot of the player's controls for one tick of a RoundSimulation.
+ * Each control is one bit of a small bitmask, so every possible RoundInput is created once
+ * and shared; getting one with of() never allocates.
+ */
+public class RoundInput {
+
+    public static final int ANGLE_COUNTER_CLOCKWISE = 1;
+    public static final int ANGLE_CLOCKWISE = 1 << 1;
+    public static final int POWER_UP = 1 << 2;
+    public static final int POWER_DOWN = 1 << 3;
+    public static final int SHOOT = 1 << 4;
+    public static final int RESET = 1 << 5;
+    public static final int ALL_CONTROLS = (1 << 6) - 1;
+
+    private static final RoundInput[] INPUTS = new RoundInput[ALL_CONTROLS + 1];
+
+    static {
+        for (int i = 0; i < INPUTS.length; i++) {
+            INPUTS[i] = new RoundInput(i);
+        }
+    }
+
+    public static final RoundInput NONE = INPUTS[0];
+
+    private final int bits;
+
+    private RoundInput(int bits) {
+        this.bits = bits;
+    }
+
+    /**
+     * Returns the RoundInput with the given controls held.
+     *
+     * @param bits a bitwise OR of this class's control constants.
+     * @return the shared RoundInput for those controls.
+     * @throws IllegalArgumentException if bits contains anything other than control constants.
+     */
+    public static RoundInput of(int bits) {
+        if ((bits & ~ALL_CONTROLS) != 0) {
+            throw new IllegalArgumentException("Unknown control bits: " + bits);
+        }
+        return INPUTS[bits];
+    }
+
+    /**
+     * Returns the RoundInput with the given controls held.
+     *
+     * @return the shared RoundInput for those controls.
+     */
+    public static RoundInput of(boolean angleCounterClockwise, boolean angleClockwise,
+            boolean powerUp, boolean powerDown, boolean shoot, boolean reset) {
+        int bits = 0;
+        if (angleCounterClockwise) {
+            bits |= ANGLE_COUNTER_CLOCKWISE;
+        }
+        if (angleClockwise) {
+            bits |= ANGLE_CLOCKWISE;
+        }
+        if (powerUp) {
+            bits |= POWER_UP;
+        }
+        if (powerDown) {
+            bits |= POWER_DOWN;
+        }
+        if (shoot) {
+            bits |= SHOOT;
+        }
+        if (reset) {
+            bits |= RESET;
+        }
+        return INPUTS[bits];
+    }
+
+    public int getBits() {
+        return this.bits;
+    }
+
+    public boolean getAngleCounterClockwisePressed() {
+        return (bits & ANGLE_COUNTER_CLOCKWISE) != 0;
+    }
+
+    public boolean getAngleClockwisePressed() {
+        return (bits & ANGLE_CLOCKWISE) != 0;
+    }
+
+    public boolean getPowerUpPressed() {
+        return (bits & POWER_UP) != 0;
+    }
+
+    public boolean getPowerDownPressed() {
+        return (bits & POWER_DOWN) != 0;
+    }
+
+    public boolean getShootButtonPressed() {
+        return (bits & SHOOT) != 0;
+    }
+
+    public boolean getResetTyped() {
+        return (bits & RESET) != 0;
+    }
+}
@@ -0,0 +1,156 @@
+package smoothieoperator.src.simulation;
+
+/**
+ * The fixed numbers a RoundSimulation needs about the game world: where the cannon is, how big
+ * the target and projectiles are, where the wall and ground are, and the round's limits.
+ * GamePanel measures these from its loaded sprites; defaults() matches the shipped images so a
+ * simulation can run without loading any images at all.
+ */
+public class RoundSettings {
+
+    private final int cannonX;
+    private final int cannonY;
+    private final int barrelPivotX;
+    private final int barrelPivotY;
+    private final int maxPower;
+    private final int wallX;
+    private final int groundY;
+    private final int targetWidth;
+    private final int targetHeight;
+    private final int projectileWidth;
+    private final int projectileHeight;
+    private final int fruitCount;
+    private final int totalLives;
+    private final int maxHits;
+
+    /**
+     * Creates a new RoundSettings with the given measurements. The ground is the bottom
+     * Screen.TILE_SIZE of the screen.
+     *
+     * @param cannonX x-coordinate of the cannon's barrel image.
+     * @param cannonY y-coordinate of the cannon's barrel image.
+     * @param barrelPivotX barrel pivot x, relative to the left of the barrel image.
+     * @param barrelPivotY barrel pivot y, relative to the top of the barrel image.
+     * @param maxPower highest PowerBar power setting; the lowest is 0.
+     * @param wallX x-coordinate of the left edge of the wall.
+     * @param targetWidth width of the target's images.
+     * @param targetHeight height of the target's images.
+     * @param projectileWidth width of the projectiles' flying images.
+     * @param projectileHeight height of the projectiles' flying images.
+     * @param fruitCount number of kinds of fruit a shot can be.
+     * @param totalLives number of lives in a round.
+     * @param maxHits number of target hits that win a round.
+     * @throws IllegalArgumentException if any size or count is not positive, or if the target
+     *         doesn't fit on the right third of the screen.
+     */
+    public RoundSettings(int cannonX, int cannonY, int barrelPivotX, int barrelPivotY,
+            int maxPower, int wallX, int targetWidth, int targetHeight, int projectileWidth,
+            int projectileHeight, int fruitCount, int totalLives, int maxHits) {
+        if (maxPower < 0) {
+            throw new IllegalArgumentException("maxPower cannot be negative.");
+        }
+        if (targetWidth <= 0 || targetHeight <= 0) {
+            throw new IllegalArgumentException("target dimensions must be positive.");
+        }
+        if (targetWidth >= Screen.WIDTH / 3 || targetHeight >= Screen.HEIGHT) {
+            throw new IllegalArgumentException("target must fit on the right third of the screen.");
+        }
+        if (projectileWidth <= 0 || projectileHeight <= 0) {
+            throw new IllegalArgumentException("projectile dimensions must be positive.");
+        }
+        if (fruitCount <= 0) {
+            throw new IllegalArgumentException("fruitCount must be positive.");
+        }
+        if (totalLives <= 0 || maxHits <= 0) {
+            throw new IllegalArgumentException("totalLives and maxHits must be positive.");
+        }
+        this.cannonX = cannonX;
+        this.cannonY = cannonY;
+        this.barrelPivotX = barrelPivotX;
+        this.barrelPivotY = barrelPivotY;
+        this.maxPower = maxPower;
+        this.wallX = wallX;
+        this.groundY = Screen.HEIGHT - Screen.TILE_SIZE;
+        this.targetWidth = targetWidth;
+        this.targetHeight = targetHeight;
+        this.projectileWidth = projectileWidth;
+        this.projectileHeight = projectileHeight;
+        this.fruitCount = fruitCount;
+        this.totalLives = totalLives;
+        this.maxHits = maxHits;
+    }
+
+    /**
+     * Returns settings matching the images and rules shipped in the media folder: a 120x175
+     * barrel next to a 48-pixel-wide power bar with 21 settings, a 32-pixel wall, a 120x175
+     * blender, 48x48 fruit in three flavors, 6 lives and 3 hits to win.
+     *
+     * @return the default RoundSettings.
+     */
+    public static RoundSettings defaults() {
+        int tile = Screen.TILE_SIZE * Screen.SCALE;
+        int barrelWidth = 120 * Screen.SCALE;
+        int barrelHeight = 175 * Screen.SCALE;
+        return new RoundSettings(tile / 2 + 48 * Screen.SCALE,
+                Screen.HEIGHT - (tile + barrelHeight), barrelWidth / 2,
+                barrelHeight - (barrelWidth / 2) - 1, 20,
+                Screen.WIDTH - 32 * Screen.SCALE, 120 * Screen.SCALE,
+                175 * Screen.SCALE, 48 * Screen.SCALE, 48 * Screen.SCALE, 3, 6, 3);
+    }
+
+    public int getCannonX() {
+        return this.cannonX;
+    }
+
+    public int getCannonY() {
+        return this.cannonY;
+    }
+
+    public int getBarrelPivotX() {
+        return this.barrelPivotX;
+    }
+
+    public int getBarrelPivotY() {
+        return this.barrelPivotY;
+    }
+
+    public int getMaxPower() {
+        return this.maxPower;
+    }
+
+    public int getWallX() {
+        return this.wallX;
+    }
+
+    public int getGroundY() {
+        return this.groundY;
+    }
+
+    public int getTargetWidth() {
+        return this.targetWidth;
+    }
+
+    public int getTargetHeight() {
+        return this.targetHeight;
+    }
+
+    public int getProjectileWidth() {
+        return this.projectileWidth;
+    }
+
+    public int getProjectileHeight() {
+        return this.projectileHeight;
+    }
+
+    public int getFruitCount() {
+        return this.fruitCount;
+    }
+
+    public int getTotalLives() {
+        return this.totalLives;
+    }
+
+    public int getMaxHits() {
+        return this.maxHits;
+    }
+}
@@ -0,0 +1,490 @@
+package smoothieoperator.src.simulation;
+
+import java.util.Random;
+
+/**
+ * The rules and state of a round of Smoothie Operator, with no images, sounds, or windows.
+ * Tracks the cannon's angle, the power setting, the target's position and hits, the player's
+ * lives and the projectile in flight. Each call to step() advances the round by one tick in
+ * response to a RoundInput and reports what happened as a bitmask of EVENT_ constants.
+ *
+ * <p>GamePanel steps a RoundSimulation to play the game and mirrors its state onto the
+ * sprites; HeadlessRunner steps one directly to play scripted rounds as fast as possible.
+ * All randomness comes from a seeded Random, so the same seed and inputs always play out the
+ * same way.
+ */
+public class RoundSimulation {
+
+    // events reported by step()
+    public static final int EVENT_RESET = 1;
+    public static final int EVENT_SHOT = 1 << 1;
+    public static final int EVENT_TARGET_HIT = 1 << 2;
+    public static final int EVENT_HIT_WALL = 1 << 3;
+    public static final int EVENT_HIT_GROUND = 1 << 4;
+    public static final int EVENT_LEFT_SCREEN = 1 << 5;
+    public static final int EVENT_LIFE_LOST = 1 << 6;
+    public static final int EVENT_ROUND_WON = 1 << 7;
+    public static final int EVENT_ROUND_LOST = 1 << 8;
+
+    public static final double ANGLE_SPEED = 1; // number of degrees per tick
+    public static final double NO_IMPACT = Double.POSITIVE_INFINITY;
+    // rapid fire: shots per tick while shooting, and how far each strays from the cannon's angle
+    public static final int RAPID_FIRE_SHOTS = 16;
+    public static final double RAPID_FIRE_SPREAD = 6; // degrees either way
+
+    private final RoundSettings settings;
+    private final Random random;
+
+    private double angle;
+    private int power;
+    private int targetX;
+    private int targetY;
+    private int targetHits;
+    private int lives;
+    private ProjectileState projectile; // in flight; null if none
+    private ProjectileBatch batch; // every projectile in flight in rapid fire; null otherwise
+    private boolean roundOver;
+    private boolean won;
+    private long ticks;
+    private int shots;
+    private final ImpactFinder impacts;
+    // where and when in its last move the projectile that last collided did so
+    private int impactX;
+    private int impactY;
+    private double impactTime;
+
+    /**
+     * Creates a new RoundSimulation with the given settings, whose randomness comes from a
+     * Random with the given seed. The cannon starts facing North with the power at half,
+     * and the target starts in a random position.
+     *
+     * @param settings measurements and limits of the round.
+     * @param seed seed for the target positions and choice of fruit.
+     * @throws IllegalArgumentException if settings is null.
+     */
+    public RoundSimulation(RoundSettings settings, long seed) {
+        if (settings == null) {
+            throw new IllegalArgumentException("settings cannot be null.");
+        }
+        this.settings = settings;
+        this.random = new Random(seed);
+        this.impacts = new ImpactFinder(settings);
+        this.angle = Ballistics.MAX_ANGLE;
+        this.power = settings.getMaxPower() / 2;
+        this.ticks = 0;
+        reset();
+    }
+
+    /**
+     * Starts a new round: moves the target, clears its hits and any projectile in flight, and
+     * restores all lives. The cannon's angle and power are kept.
+     */
+    public void reset() {
+        resetTargetPosition();
+        this.targetHits = 0;
+        this.lives = settings.getTotalLives();
+        this.projectile = null;
+        if (batch != null) {
+            batch.clear();
+        }
+        this.roundOver = false;
+        this.won = false;
+        this.shots = 0;
+    }
+
+    /**
+     * Advances the round by one tick.
+     *
+     * <p>Resets the round if the input asks to. Ends the round (reporting EVENT_ROUND_LOST or
+     * EVENT_ROUND_WON once) when the player is out of lives or the target is full. While a
+     * projectile is flying, checks it for collisions with the target, the wall, the ground,
+     * and the edges of the screen. Otherwise, shoots if the input asks to and turns the
+     * cannon and changes the power. Finally, moves the projectile that is still flying.
+     * Rapid fire plays differently; see setRapidFire().
+     *
+     * @param input the controls held during this tick.
+     * @return a bitwise OR of the EVENT_ constants for everything that happened this tick.
+     */
+    public int step(RoundInput input) {
+        ticks++;
+        int events = 0;
+
+        if (input.getResetTyped()) {
+            reset();
+            events |= EVENT_RESET;
+        }
+
+        if (lives <= 0 || targetHits >= settings.getMaxHits()) {
+            if (!roundOver) {
+                roundOver = true;
+                won = lives > 0;
+                events |= won ? EVENT_ROUND_WON : EVENT_ROUND_LOST;
+            }
+            return events;
+        }
+
+        if (batch != null) {
+            return events | stepRapidFire(input);
+        }
+
+        if (projectile != null) {
+            events |= checkCollisions();
+        } else {
+            if (input.getShootButtonPressed()) {
+                launch();
+                events |= EVENT_SHOT;
+            }
+            updateAngle(input);
+            updatePower(input);
+        }
+
+        if (projectile != null) {
+            projectile.advance();
+        }
+        return events;
+    }
+
+    /**
+     * Checks the projectile in flight against the target, the wall and the ground, then the
+     * right and bottom edges of the screen. Anything but the target costs a life. Any
+     * collision ends the flight and moves the target.
+     *
+     * <p>The projectile is checked along the straight line from its previous position to its
+     * current one, by the rules in ImpactFinder. Where and when it collided is kept for
+     * getImpactX(), getImpactY() and getImpactTime().
+     *
+     * @return the events for the collision; 0 if there was none.
+     */
+    private int checkCollisions() {
+        int startX = projectile.getPreviousX();
+        int startY = projectile.getPreviousY();
+        int dx = projectile.getX() - startX;
+        int dy = projectile.getY() - startY;
+        int event = impacts.find(startX, startY, dx, dy, targetX, targetY);
+        if (event == 0) {
+            return 0;
+        }
+
+        int events = event;
+        if (event == EVENT_TARGET_HIT) {
+            if (targetHits < settings.getMaxHits()) {
+                targetHits++;
+            }
+        } else {
+            events |= loseLife();
+        }
+        impactTime = impacts.getTime();
+        impactX = startX + (int) Math.round(impactTime * dx);
+        impactY = startY + (int) Math.round(impactTime * dy);
+        projectile = null;
+        resetTargetPosition();
+        return events;
+    }
+
+    /**
+     * Advances a rapid-fire tick: checks every projectile in flight for collisions, shoots
+     * RAPID_FIRE_SHOTS more if the input asks to, turns the cannon and changes the power, then
+     * moves every projectile.
+     *
+     * @param input the controls held during this tick.
+     * @return a bitwise OR of the EVENT_ constants for everything that happened this tick.
+     */
+    private int stepRapidFire(RoundInput input) {
+        batch.clearImpacts();
+        int events = checkBatchCollisions();
+        if (input.getShootButtonPressed()) {
+            for (int i = 0; i < RAPID_FIRE_SHOTS; i++) {
+                if (!launchIntoBatch()) {
+                    break;
+                }
+                events |= EVENT_SHOT;
+            }
+        }
+        updateAngle(input);
+        updatePower(input);
+        batch.advance();
+        return events;
+    }
+
+    /**
+     * Checks every projectile in the batch against the target, the wall and the ground, then
+     * the right and bottom edges of the screen, as checkCollisions() does. Each collision is
+     * reported to the batch as an impact and removes the projectile. Hitting the target moves
+     * it; misses don't cost lives, or rapid fire would lose the round at once.
+     *
+     * @return the events for the collisions; 0 if there were none.
+     */
+    private int checkBatchCollisions() {
+        int events = 0;
+        for (int i = batch.size() - 1; i >= 0; i--) { // backwards, as remove() moves the last
+            int startX = batch.getPreviousX(i);
+            int startY = batch.getPreviousY(i);
+            int dx = batch.getX(i) - startX;
+            int dy = batch.getY(i) - startY;
+            // the target moves when hit, so each projectile is checked where it is now
+            int event = impacts.find(startX, startY, dx, dy, targetX, targetY);
+            if (event == 0) {
+                continue;
+            }
+            if (event == EVENT_TARGET_HIT) {
+                if (targetHits < settings.getMaxHits()) {
+                    targetHits++;
+                }
+                resetTargetPosition();
+            }
+            double time = impacts.getTime();
+            batch.addImpact(event, startX + (int) Math.round(time * dx),
+                    startY + (int) Math.round(time * dy), batch.getFruit(i));
+            batch.remove(i);
+            events |= event;
+        }
+        return events;
+    }
+
+    /**
+     * Launches a random fruit into the batch from the tip of the cannon at the current power
+     * and an angle up to RAPID_FIRE_SPREAD degrees either side of the cannon's.
+     *
+     * @return false if the batch is full, so nothing was launched.
+     */
+    private boolean launchIntoBatch() {
+        if (batch.size() == batch.getCapacity()) {
+            return false;
+        }
+        int fruit = random.nextInt(settings.getFruitCount());
+        double spread = (2 * random.nextDouble() - 1) * RAPID_FIRE_SPREAD;
+        double shotAngle = Math.max(Ballistics.MIN_ANGLE,
+                Math.min(Ballistics.MAX_ANGLE, angle + spread));
+        int x0 = Ballistics.launchX(settings.getCannonX(), settings.getBarrelPivotX(),
+                settings.getBarrelPivotY(), angle);
+        int y0 = Ballistics.launchY(settings.getCannonY(), settings.getBarrelPivotY(), angle);
+        batch.launch(x0, y0, shotAngle, power, fruit);
+        shots++;
+        return true;
+    }
+
+    /**
+     * Decrements the number of lives, if there is at least one left.
+     *
+     * @return EVENT_LIFE_LOST if a life was lost; 0 otherwise.
+     */
+    private int loseLife() {
+        if (lives >= 1) {
+            lives--;
+            return EVENT_LIFE_LOST;
+        }
+        return 0;
+    }
+
+    /**
+     * Launches a random fruit from the tip of the cannon at the current angle and power.
+     */
+    private void launch() {
+        int fruit = random.nextInt(settings.getFruitCount());
+        int x0 = Ballistics.launchX(settings.getCannonX(), settings.getBarrelPivotX(),
+                settings.getBarrelPivotY(), angle);
+        int y0 = Ballistics.launchY(settings.getCannonY(), settings.getBarrelPivotY(), angle);
+        projectile = new ProjectileState(x0, y0, angle, power, fruit);
+        shots++;
+    }
+
+    /**
+     * Turns the cannon, staying between Ballistics.MIN_ANGLE and Ballistics.MAX_ANGLE.
+     */
+    private void updateAngle(RoundInput input) {
+        if (input.getAngleClockwisePressed()) {
+            angle = Math.max(angle - ANGLE_SPEED, Ballistics.MIN_ANGLE);
+        }
+        if (input.getAngleCounterClockwisePressed()) {
+            angle = Math.min(angle + ANGLE_SPEED, Ballistics.MAX_ANGLE);
+        }
+    }
+
+    /**
+     * Changes the power setting, staying between 0 and the maximum power.
+     */
+    private void updatePower(RoundInput input) {
+        if (input.getPowerUpPressed() && power < settings.getMaxPower()) {
+            power++;
+        }
+        if (input.getPowerDownPressed() && power > 0) {
+            power--;
+        }
+    }
+
+    /**
+     * Moves the target to a random position on the right third of the screen.
+     */
+    private void resetTargetPosition() {
+        int oneThirdsScreen = Screen.WIDTH / 3;
+        targetX = random.nextInt(oneThirdsScreen - settings.getTargetWidth())
+                + 2 * oneThirdsScreen;
+        targetY = random.nextInt(Screen.HEIGHT - settings.getTargetHeight());
+    }
+
+    public RoundSettings getSettings() {
+        return this.settings;
+    }
+
+    public double getAngle() {
+        return this.angle;
+    }
+
+    public int getPower() {
+        return this.power;
+    }
+
+    public int getTargetX() {
+        return this.targetX;
+    }
+
+    public int getTargetY() {
+        return this.targetY;
+    }
+
+    public int getTargetHits() {
+        return this.targetHits;
+    }
+
+    public int getLives() {
+        return this.lives;
+    }
+
+    /**
+     * Returns the projectile in flight, or null if there isn't one.
+     *
+     * @return the projectile in flight; null if none.
+     */
+    public ProjectileState getProjectile() {
+        return this.projectile;
+    }
+
+    /**
+     * Switches rapid fire on or off. In rapid fire, holding shoot fires RAPID_FIRE_SHOTS
+     * fruits a tick, each a little off the cannon's angle, into the given ProjectileBatch,
+     * however many are already flying; the cannon can be aimed while they fly, and misses
+     * don't cost lives. Impacts are reported through the batch instead of getImpactX() and
+     * getImpactY(). Any projectile in flight is removed either way.
+     *
+     * @param batch the batch to fly projectiles in; null to go back to one shot at a time.
+     */
+    public void setRapidFire(ProjectileBatch batch) {
+        this.projectile = null;
+        this.batch = batch;
+        if (batch != null) {
+            batch.clear();
+        }
+    }
+
+    /**
+     * Returns the batch projectiles fly in during rapid fire.
+     *
+     * @return the ProjectileBatch; null unless rapid fire is on.
+     */
+    public ProjectileBatch getBatch() {
+        return this.batch;
+    }
+
+    public boolean isRoundOver() {
+        return this.roundOver;
+    }
+
+    /**
+     * Returns whether the round is over and the player filled the target.
+     *
+     * @return true if the player won the round.
+     */
+    public boolean isWon() {
+        return this.roundOver && this.won;
+    }
+
+    /**
+     * Returns the number of times step() has been called, across all rounds.
+     *
+     * @return the number of ticks simulated.
+     */
+    public long getTicks() {
+        return this.ticks;
+    }
+
+    /**
+     * Returns the number of shots fired since the round started.
+     *
+     * @return the number of shots this round.
+     */
+    public int getShots() {
+        return this.shots;
+    }
+
+    /**
+     * Returns the x-coordinate the projectile was at when it last collided with something or
+     * left the screen, which can be between the positions it was drawn at.
+     *
+     * @return the x-coordinate of the last collision; 0 before the first.
+     */
+    public int getImpactX() {
+        return this.impactX;
+    }
+
+    /**
+     * Returns the y-coordinate the projectile was at when it last collided with something or
+     * left the screen, which can be between the positions it was drawn at.
+     *
+     * @return the y-coordinate of the last collision; 0 before the first.
+     */
+    public int getImpactY() {
+        return this.impactY;
+    }
+
+    /**
+     * Returns how far through its last move the projectile was when it last collided with
+     * something: 0 if it collided where it started the move, 1 if where it ended it.
+     *
+     * @return the time of impact as a fraction of the tick; 0 before the first collision.
+     */
+    public double getImpactTime() {
+        return this.impactTime;
+    }
+
+    /**
+     * Returns a number summarizing the round's whole state, including any projectiles in
+     * flight and the number of ticks. Two simulations that were given the same seed, settings and
+     * inputs have the same checksum; one that diverged almost certainly doesn't.
+     *
+     * @return the state's checksum.
+     */
+    public long checksum() {
+        long hash = ticks;
+        hash = 31 * hash + Double.doubleToLongBits(angle);
+        hash = 31 * hash + power;
+        hash = 31 * hash + targetX;
+        hash = 31 * hash + targetY;
+        hash = 31 * hash + targetHits;
+        hash = 31 * hash + lives;
+        hash = 31 * hash + shots;
+        hash = 31 * hash + (roundOver ? (won ? 2 : 1) : 0);
+        if (projectile != null) {
+            hash = 31 * hash + projectile.getX();
+            hash = 31 * hash + projectile.getY();
+            hash = 31 * hash + projectile.getFruit();
+            hash = 31 * hash + Double.doubleToLongBits(projectile.getTime());
+        }
+        if (batch != null) {
+            hash = 31 * hash + batch.size();
+            for (int i = 0; i < batch.size(); i++) {
+                hash = 31 * hash + batch.getX(i);
+                hash = 31 * hash + batch.getY(i);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Returns the number of hit box tests made since this RoundSimulation was created.
+     *
+     * @return the number of collision checks.
+     */
+    public long getCollisionChecks() {
+        return impacts.getChecks();
+    }
+}
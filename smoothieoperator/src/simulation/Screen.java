@@ -0,0 +1,15 @@
+package smoothieoperator.src.simulation;
+
+/**
+ * The size of the game's world, which is also the size of its window. The simulation keeps
+ * these so it doesn't depend on the Swing code in main; GamePanel reads them from here.
+ */
+public final class Screen {
+
+    public static final int TILE_SIZE = 48;
+    public static final int SCALE = 1; // can change window size while maintaining aspect ratio
+    public static final int WIDTH = TILE_SIZE * SCALE * 16;
+    public static final int HEIGHT = TILE_SIZE * SCALE * 12;
+
+    private Screen() {}
+}
@@ -0,0 +1,300 @@
+package smoothieoperator.src.simulation;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * The flight of a shot for every cannon angle and power setting, worked out once so "where
+ * will this land" is a lookup rather than a simulation.
+ *
+ * <p>A shot's flight depends only on the angle, in whole steps of RoundSimulation.ANGLE_SPEED
+ * from Ballistics.MIN_ANGLE to Ballistics.MAX_ANGLE, and the power, from 0 to the settings'
+ * maximum, so there are only a couple of thousand flights. compute() plays each out exactly as
+ * a RoundSimulation would, on every processor at once, and keeps the position after each tick
+ * and where and when the shot hits the wall or the ground or leaves the screen. The target
+ * moves, so flights go through it; ticksToHitTarget() says whether one would hit it.
+ */
+public class TrajectoryTable {
+
+    // longer than any flight can be; gravity brings every shot down well within this
+    private static final int MAX_FLIGHT_TICKS = 100000;
+
+    private final RoundSettings settings;
+    private final ImpactFinder impacts;
+    private final int angles;
+    private final int powers;
+    // each flight's positions, one after another; flight i's are from start[i] to start[i + 1]
+    private final int[] start;
+    private final int[] pathX;
+    private final int[] pathY;
+    private final int[] landingX;
+    private final int[] landingY;
+    private final int[] landingEvent;
+    private final int[] flightTicks;
+
+    private TrajectoryTable(RoundSettings settings, Flight[] flights) {
+        this.settings = settings;
+        this.impacts = new ImpactFinder(settings);
+        this.angles = angleCount();
+        this.powers = settings.getMaxPower() + 1;
+        this.start = new int[flights.length + 1];
+        for (int i = 0; i < flights.length; i++) {
+            start[i + 1] = start[i] + flights[i].length;
+        }
+        this.pathX = new int[start[flights.length]];
+        this.pathY = new int[start[flights.length]];
+        this.landingX = new int[flights.length];
+        this.landingY = new int[flights.length];
+        this.landingEvent = new int[flights.length];
+        this.flightTicks = new int[flights.length];
+        for (int i = 0; i < flights.length; i++) {
+            Flight flight = flights[i];
+            System.arraycopy(flight.xs, 0, pathX, start[i], flight.length);
+            System.arraycopy(flight.ys, 0, pathY, start[i], flight.length);
+            landingX[i] = flight.landingX;
+            landingY[i] = flight.landingY;
+            landingEvent[i] = flight.landingEvent;
+            flightTicks[i] = flight.ticks;
+        }
+    }
+
+    /**
+     * Works out the flight for every angle and power the given settings allow, in parallel.
+     *
+     * @param settings the round's measurements and limits.
+     * @return the table of flights.
+     * @throws IllegalArgumentException if settings is null.
+     */
+    public static TrajectoryTable compute(RoundSettings settings) {
+        if (settings == null) {
+            throw new IllegalArgumentException("settings cannot be null.");
+        }
+        int powers = settings.getMaxPower() + 1;
+        Flight[] flights = new Flight[angleCount() * powers];
+        IntStream.range(0, flights.length).parallel().forEach(i ->
+                flights[i] = fly(settings, Ballistics.MIN_ANGLE
+                        + (i / powers) * RoundSimulation.ANGLE_SPEED, i % powers));
+        return new TrajectoryTable(settings, flights);
+    }
+
+    public RoundSettings getSettings() {
+        return this.settings;
+    }
+
+    /**
+     * Returns the number of positions the shot is drawn at, from launch to landing.
+     *
+     * @param angle the cannon's angle, as RoundSimulation.getAngle() returns it.
+     * @param power the power setting.
+     * @return the number of positions; at least 1.
+     * @throws IllegalArgumentException if angle or power is not a setting the cannon can have.
+     */
+    public int getPathLength(double angle, int power) {
+        int i = index(angle, power);
+        return start[i + 1] - start[i];
+    }
+
+    /**
+     * Returns the x-coordinate of the projectile's image at the given point of the shot's
+     * flight. The last point is where it lands.
+     *
+     * @param angle the cannon's angle.
+     * @param power the power setting.
+     * @param point the point, from 0 to getPathLength() - 1.
+     * @return the x-coordinate.
+     * @throws IllegalArgumentException if angle, power or point is out of range.
+     */
+    public int getPathX(double angle, int power, int point) {
+        return pathX[pathIndex(angle, power, point)];
+    }
+
+    /**
+     * Returns the y-coordinate of the projectile's image at the given point of the shot's
+     * flight. The last point is where it lands.
+     *
+     * @param angle the cannon's angle.
+     * @param power the power setting.
+     * @param point the point, from 0 to getPathLength() - 1.
+     * @return the y-coordinate.
+     * @throws IllegalArgumentException if angle, power or point is out of range.
+     */
+    public int getPathY(double angle, int power, int point) {
+        return pathY[pathIndex(angle, power, point)];
+    }
+
+    /**
+     * Returns the x-coordinate of the projectile's image where the shot lands, as
+     * RoundSimulation.getImpactX() would report it.
+     *
+     * @param angle the cannon's angle.
+     * @param power the power setting.
+     * @return the landing x-coordinate.
+     * @throws IllegalArgumentException if angle or power is not a setting the cannon can have.
+     */
+    public int getLandingX(double angle, int power) {
+        return landingX[index(angle, power)];
+    }
+
+    /**
+     * Returns the y-coordinate of the projectile's image where the shot lands, as
+     * RoundSimulation.getImpactY() would report it.
+     *
+     * @param angle the cannon's angle.
+     * @param power the power setting.
+     * @return the landing y-coordinate.
+     * @throws IllegalArgumentException if angle or power is not a setting the cannon can have.
+     */
+    public int getLandingY(double angle, int power) {
+        return landingY[index(angle, power)];
+    }
+
+    /**
+     * Returns how the shot ends if it misses the target.
+     *
+     * @param angle the cannon's angle.
+     * @param power the power setting.
+     * @return RoundSimulation.EVENT_HIT_WALL, EVENT_HIT_GROUND or EVENT_LEFT_SCREEN.
+     * @throws IllegalArgumentException if angle or power is not a setting the cannon can have.
+     */
+    public int getLandingEvent(double angle, int power) {
+        return landingEvent[index(angle, power)];
+    }
+
+    /**
+     * Returns how many ticks after the tick it's shot the shot lands, if it misses the target.
+     *
+     * @param angle the cannon's angle.
+     * @param power the power setting.
+     * @return the number of ticks in flight.
+     * @throws IllegalArgumentException if angle or power is not a setting the cannon can have.
+     */
+    public int getFlightTicks(double angle, int power) {
+        return flightTicks[index(angle, power)];
+    }
+
+    /**
+     * Returns whether and when the shot would hit a target at the given position, sweeping
+     * the projectile's hitbox along the flight as RoundSimulation does.
+     *
+     * @param angle the cannon's angle.
+     * @param power the power setting.
+     * @param targetX the target's x-coordinate.
+     * @param targetY the target's y-coordinate.
+     * @return how many ticks after the tick it's shot the shot hits the target; -1 if it lands
+     *         first.
+     * @throws IllegalArgumentException if angle or power is not a setting the cannon can have.
+     */
+    public int ticksToHitTarget(double angle, int power, int targetX, int targetY) {
+        int i = index(angle, power);
+        // the first tick checks the launch position alone, then each the next move
+        int fromX = pathX[start[i]];
+        int fromY = pathY[start[i]];
+        for (int point = start[i]; point < start[i + 1]; point++) {
+            if (impacts.timeToHitTarget(fromX, fromY, pathX[point] - fromX, pathY[point] - fromY,
+                    targetX, targetY) != RoundSimulation.NO_IMPACT) {
+                return point - start[i] + 1;
+            }
+            fromX = pathX[point];
+            fromY = pathY[point];
+        }
+        return -1;
+    }
+
+    /**
+     * Plays out one shot the way RoundSimulation does, ignoring the target.
+     */
+    private static Flight fly(RoundSettings settings, double angle, int power) {
+        int x0 = Ballistics.launchX(settings.getCannonX(), settings.getBarrelPivotX(),
+                settings.getBarrelPivotY(), angle);
+        int y0 = Ballistics.launchY(settings.getCannonY(), settings.getBarrelPivotY(), angle);
+        ProjectileState projectile = new ProjectileState(x0, y0, angle, power, 0);
+        projectile.advance(); // on the tick it's shot
+
+        ImpactFinder impacts = new ImpactFinder(settings); // compute() flies shots in parallel
+        Flight flight = new Flight();
+        for (int ticks = 1; ticks <= MAX_FLIGHT_TICKS; ticks++) {
+            int startX = projectile.getPreviousX();
+            int startY = projectile.getPreviousY();
+            int dx = projectile.getX() - startX;
+            int dy = projectile.getY() - startY;
+            int event = impacts.findIgnoringTarget(startX, startY, dx, dy);
+            if (event != 0) {
+                double time = impacts.getTime();
+                flight.land(event, ticks, startX + (int) Math.round(time * dx),
+                        startY + (int) Math.round(time * dy));
+                return flight;
+            }
+            flight.add(projectile.getX(), projectile.getY());
+            projectile.advance();
+        }
+        throw new IllegalStateException("shot at " + angle + " degrees and power " + power
+                + " never landed.");
+    }
+
+    private static int angleCount() {
+        return (int) ((Ballistics.MAX_ANGLE - Ballistics.MIN_ANGLE)
+                / RoundSimulation.ANGLE_SPEED) + 1;
+    }
+
+    /**
+     * Returns the flight number for the given angle and power.
+     *
+     * @throws IllegalArgumentException if angle or power is not a setting the cannon can have.
+     */
+    private int index(double angle, int power) {
+        double step = (angle - Ballistics.MIN_ANGLE) / RoundSimulation.ANGLE_SPEED;
+        int angleIndex = (int) Math.round(step);
+        if (angleIndex < 0 || angleIndex >= angles || Math.abs(step - angleIndex) > 1e-9) {
+            throw new IllegalArgumentException("angle must be a whole number of steps from "
+                    + Ballistics.MIN_ANGLE + " to " + Ballistics.MAX_ANGLE + ".");
+        }
+        if (power < 0 || power >= powers) {
+            throw new IllegalArgumentException("power must be from 0 to " + (powers - 1) + ".");
+        }
+        return angleIndex * powers + power;
+    }
+
+    /**
+     * Returns the index in pathX and pathY of the given point of a flight.
+     *
+     * @throws IllegalArgumentException if angle, power or point is out of range.
+     */
+    private int pathIndex(double angle, int power, int point) {
+        int i = index(angle, power);
+        if (point < 0 || point >= start[i + 1] - start[i]) {
+            throw new IllegalArgumentException("point must be from 0 to the path's length - 1.");
+        }
+        return start[i] + point;
+    }
+
+    /**
+     * One shot's flight as it's worked out: the positions it's drawn at, then where it lands.
+     */
+    private static class Flight {
+        private int[] xs = new int[64];
+        private int[] ys = new int[64];
+        private int length;
+        private int landingX;
+        private int landingY;
+        private int landingEvent;
+        private int ticks;
+
+        void add(int x, int y) {
+            if (length == xs.length) {
+                xs = Arrays.copyOf(xs, 2 * length);
+                ys = Arrays.copyOf(ys, 2 * length);
+            }
+            xs[length] = x;
+            ys[length] = y;
+            length++;
+        }
+
+        void land(int event, int ticks, int x, int y) {
+            add(x, y);
+            this.landingEvent = event;
+            this.ticks = ticks;
+            this.landingX = x;
+            this.landingY = y;
+        }
+    }
+}
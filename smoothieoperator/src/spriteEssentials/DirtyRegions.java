@@ -0,0 +1,250 @@
+package smoothieoperator.src.spriteEssentials;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+/**
+ * Works out which parts of the screen changed since the last frame, so a renderer can redraw
+ * only those instead of the whole screen.
+ *
+ * <p>Each frame, call startFrame(), then track() every Sprite that can move or change its
+ * image, then endFrame(). A tracked Sprite whose draw bounds or current image changed since
+ * it was last tracked marks both its old and new bounds dirty; one that wasn't tracked this
+ * frame is assumed to have left the screen and marks its old bounds dirty. Sprites that never
+ * change, such as a background, don't need tracking.
+ *
+ * <p>Overlapping dirty rectangles are merged, so the regions never overlap. Once there are
+ * more than MAX_REGIONS of them they're merged into one rectangle around them all, since
+ * drawing a frame once per region costs more than redrawing a little extra area.
+ */
+public class DirtyRegions {
+
+    public static final int MAX_REGIONS = 8;
+
+    private final Rectangle screen;
+    private final IdentityHashMap<Sprite, Tracked> tracked;
+    private final ArrayList<Rectangle> regions;
+    private final ArrayList<Rectangle> spares; // released regions, reused to avoid garbage
+    private final Rectangle bounds; // reused for each Sprite's current bounds
+    private int frame;
+
+    /**
+     * What a tracked Sprite looked like when it was last tracked.
+     */
+    private static class Tracked {
+        final Rectangle bounds = new Rectangle();
+        boolean visible;
+        BufferedImage image;
+        int frame;
+    }
+
+    /**
+     * Creates a DirtyRegions for a screen of the given size. Dirty rectangles are clipped to
+     * the screen.
+     *
+     * @param width the screen's width.
+     * @param height the screen's height.
+     * @throws IllegalArgumentException if width or height is less than 1.
+     */
+    public DirtyRegions(int width, int height) {
+        if (width < 1 || height < 1) {
+            throw new IllegalArgumentException("width and height must be at least 1.");
+        }
+        this.screen = new Rectangle(0, 0, width, height);
+        this.tracked = new IdentityHashMap<Sprite, Tracked>();
+        this.regions = new ArrayList<Rectangle>();
+        this.spares = new ArrayList<Rectangle>();
+        this.bounds = new Rectangle();
+    }
+
+    /**
+     * Clears the last frame's dirty regions, ready to track this frame's Sprites.
+     */
+    public void startFrame() {
+        clearRegions();
+        frame++;
+    }
+
+    /**
+     * Compares the given Sprite with how it looked when it was last tracked, marking its old
+     * and new bounds dirty if it moved or changed image. A Sprite tracked for the first time
+     * marks its bounds dirty.
+     *
+     * @param sprite the Sprite to track.
+     * @throws IllegalArgumentException if sprite is null.
+     */
+    public void track(Sprite sprite) {
+        if (sprite == null) {
+            throw new IllegalArgumentException("sprite cannot be null.");
+        }
+        boolean visible = sprite.fillDrawBounds(bounds);
+        BufferedImage image = sprite.getCurrentImage();
+        Tracked last = tracked.get(sprite);
+        if (last == null) {
+            last = new Tracked();
+            tracked.put(sprite, last);
+            if (visible) {
+                add(bounds);
+            }
+        } else if (visible != last.visible || image != last.image
+                || (visible && !bounds.equals(last.bounds))) {
+            if (last.visible) {
+                add(last.bounds);
+            }
+            if (visible) {
+                add(bounds);
+            }
+        }
+        last.bounds.setBounds(bounds);
+        last.visible = visible;
+        last.image = image;
+        last.frame = frame;
+    }
+
+    /**
+     * Tracks every Sprite in the given SpriteList.
+     *
+     * @param sprites the Sprites to track.
+     * @throws IllegalArgumentException if sprites is null.
+     */
+    public void track(SpriteList sprites) {
+        if (sprites == null) {
+            throw new IllegalArgumentException("sprites cannot be null.");
+        }
+        for (int i = 0; i < sprites.size(); i++) {
+            track(sprites.get(i));
+        }
+    }
+
+    /**
+     * Marks the old bounds of every Sprite that was tracked before but not this frame dirty,
+     * and stops tracking them.
+     */
+    public void endFrame() {
+        tracked.values().removeIf(last -> {
+            if (last.frame == frame) {
+                return false;
+            }
+            if (last.visible) {
+                add(last.bounds);
+            }
+            return true;
+        });
+    }
+
+    /**
+     * Marks the whole screen dirty, for when the screen's previous contents can't be relied
+     * on, such as the first frame.
+     */
+    public void markAllDirty() {
+        add(screen);
+    }
+
+    /**
+     * Marks the given rectangle of the screen dirty, merging it with any dirty regions it
+     * overlaps or touches.
+     *
+     * @param area the rectangle to mark; the part outside the screen is ignored.
+     * @throws IllegalArgumentException if area is null.
+     */
+    public void add(Rectangle area) {
+        if (area == null) {
+            throw new IllegalArgumentException("area cannot be null.");
+        }
+        Rectangle region = spares.isEmpty() ? new Rectangle() : spares.remove(spares.size() - 1);
+        Rectangle.intersect(area, screen, region);
+        if (region.isEmpty()) {
+            spares.add(region);
+            return;
+        }
+        // merging can make the region overlap others it missed, so repeat until it doesn't
+        boolean merged = true;
+        while (merged) {
+            merged = false;
+            for (int i = regions.size() - 1; i >= 0; i--) {
+                Rectangle other = regions.get(i);
+                if (touches(region, other)) {
+                    Rectangle.union(region, other, region);
+                    spares.add(regions.remove(i));
+                    merged = true;
+                }
+            }
+        }
+        regions.add(region);
+        if (regions.size() > MAX_REGIONS) {
+            for (int i = regions.size() - 1; i > 0; i--) {
+                Rectangle.union(regions.get(0), regions.get(i), regions.get(0));
+                spares.add(regions.remove(i));
+            }
+        }
+    }
+
+    /**
+     * Returns the number of dirty regions this frame.
+     *
+     * @return the number of dirty regions.
+     */
+    public int getRegionCount() {
+        return this.regions.size();
+    }
+
+    /**
+     * Returns one of this frame's dirty regions. The Rectangle is reused, so it's only valid
+     * until the next startFrame(), and mustn't be changed.
+     *
+     * @param index which region, from 0 to getRegionCount() - 1.
+     * @return the dirty region.
+     * @throws IndexOutOfBoundsException if index is out of range.
+     */
+    public Rectangle getRegion(int index) {
+        return this.regions.get(index);
+    }
+
+    /**
+     * Returns the total area of this frame's dirty regions, in pixels.
+     *
+     * @return the number of pixels that need redrawing.
+     */
+    public long getDirtyArea() {
+        long area = 0;
+        for (int i = 0; i < regions.size(); i++) {
+            area += (long) regions.get(i).width * regions.get(i).height;
+        }
+        return area;
+    }
+
+    /**
+     * Returns the area of the whole screen, in pixels.
+     *
+     * @return the screen's width times its height.
+     */
+    public long getScreenArea() {
+        return (long) screen.width * screen.height;
+    }
+
+    /**
+     * Forgets every tracked Sprite and this frame's dirty regions.
+     */
+    public void clear() {
+        clearRegions();
+        tracked.clear();
+    }
+
+    /**
+     * Returns this frame's regions to the spares.
+     */
+    private void clearRegions() {
+        spares.addAll(regions);
+        regions.clear();
+    }
+
+    /**
+     * Returns whether two rectangles overlap or share an edge.
+     */
+    private static boolean touches(Rectangle a, Rectangle b) {
+        return a.x <= b.x + b.width && b.x <= a.x + a.width
+                && a.y <= b.y + b.height && b.y <= a.y + a.height;
+    }
+}
@@ -0,0 +1,102 @@
+package smoothieoperator.src.spriteEssentials;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+/**
+ * Represents an entity of an EntityWorld as a Sprite, so code written for Sprites, such as
+ * SpriteList's collision queries and DirtyRegions, works with entities while game objects
+ * move over to the EntityWorld.
+ *
+ * <p>Everything is read from the entity's components when asked for; nothing is copied. The
+ * world's update() moves and animates the entity, so this Sprite's update() does nothing.
+ */
+public class EntitySprite extends Sprite {
+
+    private final EntityWorld world;
+    private final int entity;
+
+    /**
+     * Creates a Sprite showing the given entity.
+     *
+     * @param world the world the entity belongs to.
+     * @param entity the entity's id.
+     * @throws IllegalArgumentException if world is null or entity isn't a live entity of it.
+     */
+    public EntitySprite(EntityWorld world, int entity) {
+        super();
+        if (world == null) {
+            throw new IllegalArgumentException("world parameter cannot be null.");
+        }
+        if (!world.isAlive(entity)) {
+            throw new IllegalArgumentException("no entity " + entity);
+        }
+        this.world = world;
+        this.entity = entity;
+    }
+
+    public EntityWorld getWorld() {
+        return this.world;
+    }
+
+    public int getEntity() {
+        return this.entity;
+    }
+
+    @Override
+    public int getX() {
+        return world.getX(entity);
+    }
+
+    @Override
+    public int getY() {
+        return world.getY(entity);
+    }
+
+    /**
+     * Returns the width of the entity's current image, or 0 if it has none.
+     */
+    @Override
+    public int getWidth() {
+        BufferedImage image = world.getCurrentImage(entity);
+        return image == null ? 0 : image.getWidth();
+    }
+
+    /**
+     * Returns the height of the entity's current image, or 0 if it has none.
+     */
+    @Override
+    public int getHeight() {
+        BufferedImage image = world.getCurrentImage(entity);
+        return image == null ? 0 : image.getHeight();
+    }
+
+    /**
+     * Returns whether the entity has a HIT_BOX.
+     */
+    @Override
+    public boolean isSolid() {
+        return world.has(entity, EntityWorld.HIT_BOX);
+    }
+
+    @Override
+    public void draw(Graphics2D g2) {
+        world.draw(entity, g2);
+    }
+
+    @Override
+    public boolean fillDrawBounds(Rectangle bounds) {
+        return world.fillDrawBounds(entity, bounds);
+    }
+
+    @Override
+    public BufferedImage getCurrentImage() {
+        return world.getCurrentImage(entity);
+    }
+
+    @Override
+    public boolean fillHitBox(HitBox box) {
+        return world.fillHitBox(entity, box);
+    }
+}
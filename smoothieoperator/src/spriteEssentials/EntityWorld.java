@@ -0,0 +1,957 @@
+package smoothieoperator.src.spriteEssentials;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.List;
+
+import smoothieoperator.src.main.GamePanel;
+
+/**
+ * Holds game objects as entities: plain ids whose data is kept in components, each a set of
+ * parallel arrays of primitives, rather than as Sprite objects. The systems (update(), draw()
+ * and the collision queries) loop over the arrays from start to end, so many entities cost
+ * little more than their arrays' memory, and nothing is allocated after the arrays have grown
+ * to fit.
+ *
+ * <p>By default, collision queries check every entity with a HIT_BOX, so finding every
+ * colliding pair takes time proportional to the square of their number. For large worlds,
+ * enableSpatialIndex() buckets the HIT_BOX slots by the cells of a uniform grid their hit
+ * boxes touch, as SpatialGrid does for Sprites, so queries only check entities in nearby
+ * cells. The buckets are int arrays too, rebuilt from the slots by the first query after
+ * anything has moved.
+ *
+ * <p>The components are:
+ *   - POSITION, an x- and y-coordinate,
+ *   - VELOCITY, a velocity and an acceleration, in pixels per tick, that update() moves it by,
+ *   - HIT_BOX, a solid area relative to its position,
+ *   - ANIMATION, a list of images that update() steps through at a fixed number of ticks per
+ *     image, drawn with their top left at its position,
+ *   - SPRITE, a Sprite the entity stands in for; see addSprite().
+ *
+ * <p>Every entity has a slot in each array, from 0 to size() - 1, and which components it
+ * has are kept as bits. destroy() moves the last entity into the destroyed one's slot, so
+ * entities are drawn in the order they were created only until one is destroyed; keep
+ * objects that must be drawn over others in a later EntityWorld. Ids aren't reused until
+ * their slot has been through many entities, so a destroyed entity's id stays invalid
+ * rather than pointing at a new entity.
+ *
+ * <p>Existing Sprites join a world with addSprite(), so game objects can move over one at a
+ * time, and EntitySprite lets an entity go wherever a Sprite is expected.
+ */
+public class EntityWorld {
+
+    // components, as bits
+    public static final int POSITION = 1;
+    public static final int VELOCITY = 2;
+    public static final int HIT_BOX = 4;
+    public static final int ANIMATION = 8;
+    public static final int SPRITE = 16;
+    public static final int NONE = -1; // never an entity's id
+
+    private static final int INITIAL_CAPACITY = 64;
+    // an id is a handle's number in its low bits and how many times it's been used above
+    private static final int HANDLE_BITS = 20;
+    private static final int HANDLE_MASK = (1 << HANDLE_BITS) - 1;
+    private static final int MAX_ENTITIES = 1 << HANDLE_BITS;
+    private static final int GENERATION_MASK = (1 << (31 - HANDLE_BITS)) - 1;
+
+    // per handle, indexed by an id's low bits
+    private int[] generations;
+    private int[] slots; // the entity's slot, or -1 if the handle is free
+    private int[] freeHandles; // a stack
+    private int freeCount;
+    private int handleCount; // handles ever used
+
+    // per entity, indexed by slot
+    private int size;
+    private int[] ids;
+    private int[] components;
+    private double[] x;
+    private double[] y;
+    private double[] velocityX;
+    private double[] velocityY;
+    private double[] accelerationX;
+    private double[] accelerationY;
+    private int[] hitX; // relative to the position; all 0 without a HIT_BOX
+    private int[] hitY;
+    private int[] hitWidth;
+    private int[] hitHeight;
+    private ImageAtlas.Frames[] frames;
+    private int[] frame;
+    private int[] ticksPerFrame;
+    private int[] frameTicks; // ticks the current image has shown for
+    private Sprite[] sprites;
+
+    private int boundsWidth; // 0 unless moving entities bounce off the edges
+    private int boundsHeight;
+
+    // the spatial index: cell c's HIT_BOX slots are cellSlots[cellStart[c]] up to
+    // cellSlots[cellStart[c + 1]], cells numbered row by row
+    private int cellSize; // 0 unless the spatial index is enabled
+    private int columns;
+    private int rows;
+    private int[] cellStart;
+    private int[] cellNext; // where the next slot goes in each cell, while indexing
+    private int[] cellSlots;
+    // per HIT_BOX slot, its hit box and first cell when the index was built
+    private int[] indexedXMin;
+    private int[] indexedXMax;
+    private int[] indexedYMin;
+    private int[] indexedYMax;
+    private int[] indexedColumn;
+    private int[] indexedRow;
+    private boolean indexStale; // hit boxes may have moved since the index was built
+
+    // reused by the collision queries
+    private final HitBox spriteBox = new HitBox(0, 0, 0, 0);
+    private final HitBox queryBox = new HitBox(0, 0, 0, 0);
+    private final HitBox candidateBox = new HitBox(0, 0, 0, 0);
+
+    /**
+     * Creates an empty EntityWorld.
+     */
+    public EntityWorld() {
+        this.generations = new int[INITIAL_CAPACITY];
+        this.slots = new int[INITIAL_CAPACITY];
+        this.freeHandles = new int[INITIAL_CAPACITY];
+        this.ids = new int[INITIAL_CAPACITY];
+        this.components = new int[INITIAL_CAPACITY];
+        this.x = new double[INITIAL_CAPACITY];
+        this.y = new double[INITIAL_CAPACITY];
+        this.velocityX = new double[INITIAL_CAPACITY];
+        this.velocityY = new double[INITIAL_CAPACITY];
+        this.accelerationX = new double[INITIAL_CAPACITY];
+        this.accelerationY = new double[INITIAL_CAPACITY];
+        this.hitX = new int[INITIAL_CAPACITY];
+        this.hitY = new int[INITIAL_CAPACITY];
+        this.hitWidth = new int[INITIAL_CAPACITY];
+        this.hitHeight = new int[INITIAL_CAPACITY];
+        this.frames = new ImageAtlas.Frames[INITIAL_CAPACITY];
+        this.frame = new int[INITIAL_CAPACITY];
+        this.ticksPerFrame = new int[INITIAL_CAPACITY];
+        this.frameTicks = new int[INITIAL_CAPACITY];
+        this.sprites = new Sprite[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Creates an entity with no components.
+     *
+     * @return the new entity's id.
+     * @throws IllegalStateException if the world already holds its most entities.
+     */
+    public int create() {
+        int handle;
+        if (freeCount > 0) {
+            handle = freeHandles[--freeCount];
+        } else {
+            if (handleCount == MAX_ENTITIES) {
+                throw new IllegalStateException("too many entities.");
+            }
+            if (handleCount == generations.length) {
+                int capacity = Math.min(2 * handleCount, MAX_ENTITIES);
+                generations = Arrays.copyOf(generations, capacity);
+                slots = Arrays.copyOf(slots, capacity);
+                freeHandles = Arrays.copyOf(freeHandles, capacity);
+            }
+            handle = handleCount++;
+        }
+        if (size == ids.length) {
+            grow();
+        }
+        int slot = size++;
+        int id = generations[handle] << HANDLE_BITS | handle;
+        slots[handle] = slot;
+        ids[slot] = id;
+        components[slot] = 0;
+        x[slot] = 0;
+        y[slot] = 0;
+        clearHitBox(slot);
+        sprites[slot] = null;
+        frames[slot] = null;
+        return id;
+    }
+
+    /**
+     * Destroys an entity, moving the last entity into its slot. Its id is no longer valid.
+     *
+     * @param id the entity's id.
+     * @throws IllegalArgumentException if id isn't a live entity of this world.
+     */
+    public void destroy(int id) {
+        int slot = slot(id);
+        int handle = id & HANDLE_MASK;
+        int last = --size;
+        if (slot != last) {
+            ids[slot] = ids[last];
+            components[slot] = components[last];
+            x[slot] = x[last];
+            y[slot] = y[last];
+            velocityX[slot] = velocityX[last];
+            velocityY[slot] = velocityY[last];
+            accelerationX[slot] = accelerationX[last];
+            accelerationY[slot] = accelerationY[last];
+            hitX[slot] = hitX[last];
+            hitY[slot] = hitY[last];
+            hitWidth[slot] = hitWidth[last];
+            hitHeight[slot] = hitHeight[last];
+            frames[slot] = frames[last];
+            frame[slot] = frame[last];
+            ticksPerFrame[slot] = ticksPerFrame[last];
+            frameTicks[slot] = frameTicks[last];
+            sprites[slot] = sprites[last];
+            slots[ids[slot] & HANDLE_MASK] = slot;
+        }
+        frames[last] = null; // don't keep images or Sprites from being collected
+        sprites[last] = null;
+        slots[handle] = -1;
+        indexStale = true;
+        generations[handle] = (generations[handle] + 1) & GENERATION_MASK;
+        freeHandles[freeCount++] = handle;
+    }
+
+    /**
+     * Destroys every entity.
+     */
+    public void clear() {
+        while (size > 0) {
+            destroy(ids[size - 1]);
+        }
+    }
+
+    /**
+     * Returns whether the given id is a live entity of this world.
+     *
+     * @param id the id to check.
+     * @return true if the entity hasn't been destroyed.
+     */
+    public boolean isAlive(int id) {
+        int handle = id & HANDLE_MASK;
+        return id >= 0 && handle < handleCount && slots[handle] >= 0
+                && generations[handle] == id >>> HANDLE_BITS;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the id of the entity in the given slot, for looping over every entity.
+     *
+     * @param slot the slot, from 0 to size() - 1.
+     * @return the entity's id.
+     * @throws IndexOutOfBoundsException if slot is out of range.
+     */
+    public int getEntity(int slot) {
+        if (slot < 0 || slot >= size) {
+            throw new IndexOutOfBoundsException("no slot " + slot + " of " + size);
+        }
+        return ids[slot];
+    }
+
+    /**
+     * Returns whether an entity has every one of the given components.
+     *
+     * @param id the entity's id.
+     * @param components the components' bits, such as POSITION | VELOCITY.
+     * @return true if the entity has all of them.
+     * @throws IllegalArgumentException if id isn't a live entity of this world.
+     */
+    public boolean has(int id, int components) {
+        return (this.components[slot(id)] & components) == components;
+    }
+
+    /**
+     * Takes the given components away from an entity. Taking SPRITE away leaves the entity
+     * where the Sprite last was, and no longer drawn.
+     *
+     * @param id the entity's id.
+     * @param components the components' bits, such as VELOCITY | ANIMATION.
+     * @throws IllegalArgumentException if id isn't a live entity of this world.
+     */
+    public void removeComponents(int id, int components) {
+        int slot = slot(id);
+        this.components[slot] &= ~components;
+        if ((components & HIT_BOX) != 0) {
+            clearHitBox(slot);
+            indexStale = true;
+        }
+        if ((components & ANIMATION) != 0) {
+            frames[slot] = null;
+        }
+        if ((components & SPRITE) != 0) {
+            sprites[slot] = null;
+        }
+    }
+
+    /**
+     * Gives an entity a POSITION, or moves it.
+     *
+     * @param id the entity's id.
+     * @param x the x-coordinate.
+     * @param y the y-coordinate.
+     * @throws IllegalArgumentException if id isn't a live entity of this world.
+     */
+    public void setPosition(int id, double x, double y) {
+        int slot = slot(id);
+        this.x[slot] = x;
+        this.y[slot] = y;
+        components[slot] |= POSITION;
+        indexStale = true;
+    }
+
+    /**
+     * Returns the x-coordinate of an entity's position, rounded down to a pixel.
+     *
+     * @param id the entity's id.
+     * @return the x-coordinate; 0 if it has no POSITION.
+     * @throws IllegalArgumentException if id isn't a live entity of this world.
+     */
+    public int getX(int id) {
+        return (int) Math.floor(x[slot(id)]);
+    }
+
+    /**
+     * Returns the y-coordinate of an entity's position, rounded down to a pixel.
+     *
+     * @param id the entity's id.
+     * @return the y-coordinate; 0 if it has no POSITION.
+     * @throws IllegalArgumentException if id isn't a live entity of this world.
+     */
+    public int getY(int id) {
+        return (int) Math.floor(y[slot(id)]);
+    }
+
+    /**
+     * Gives an entity a VELOCITY, or changes it, with no acceleration.
+     *
+     * @param id the entity's id.
+     * @param velocityX pixels per tick, East.
+     * @param velocityY pixels per tick, South.
+     * @throws IllegalArgumentException if id isn't a live entity of this world.
+     */
+    public void setVelocity(int id, double velocityX, double velocityY) {
+        setVelocity(id, velocityX, velocityY, 0, 0);
+    }
+
+    /**
+     * Gives an entity a VELOCITY, or changes it, along with an acceleration such as gravity.
+     *
+     * @param id the entity's id.
+     * @param velocityX pixels per tick, East.
+     * @param velocityY pixels per tick, South.
+     * @param accelerationX pixels per tick, per tick, East.
+     * @param accelerationY pixels per tick, per tick, South.
+     * @throws IllegalArgumentException if id isn't a live entity of this world.
+     */
+    public void setVelocity(int id, double velocityX, double velocityY, double accelerationX,
+            double accelerationY) {
+        int slot = slot(id);
+        this.velocityX[slot] = velocityX;
+        this.velocityY[slot] = velocityY;
+        this.accelerationX[slot] = accelerationX;
+        this.accelerationY[slot] = accelerationY;
+        components[slot] |= VELOCITY;
+    }
+
+    public double getVelocityX(int id) {
+        return velocityX[slot(id)];
+    }
+
+    public double getVelocityY(int id) {
+        return velocityY[slot(id)];
+    }
+
+    /**
+     * Gives an entity a HIT_BOX, or changes it.
+     *
+     * @param id the entity's id.
+     * @param xOffset the hit box's left edge, relative to the entity's x-coordinate.
+     * @param yOffset the hit box's top edge, relative to the entity's y-coordinate.
+     * @param width the hit box's width.
+     * @param height the hit box's height.
+     * @throws IllegalArgumentException if id isn't a live entity of this world, or width or
+     *         height is negative.
+     */
+    public void setHitBox(int id, int xOffset, int yOffset, int width, int height) {
+        if (width < 0 || height < 0) {
+            throw new IllegalArgumentException("width and height cannot be negative.");
+        }
+        int slot = slot(id);
+        hitX[slot] = xOffset;
+        hitY[slot] = yOffset;
+        hitWidth[slot] = width;
+        hitHeight[slot] = height;
+        components[slot] |= HIT_BOX;
+        indexStale = true;
+    }
+
+    /**
+     * Moves the given HitBox to an entity's hit box for its current position, like
+     * Sprite.fillHitBox().
+     *
+     * @param id the entity's id.
+     * @param box the HitBox to fill in.
+     * @return true if box was filled in; false if the entity has no HIT_BOX.
+     * @throws IllegalArgumentException if id isn't a live entity of this world.
+     */
+    public boolean fillHitBox(int id, HitBox box) {
+        int slot = slot(id);
+        if ((components[slot] & HIT_BOX) == 0) {
+            return false;
+        }
+        fillHitBoxAt(slot, box);
+        return true;
+    }
+
+    /**
+     * Gives an entity an ANIMATION, or changes it, starting from the first image.
+     *
+     * @param id the entity's id.
+     * @param images the images to show in turn; shared, not copied.
+     * @param ticksPerFrame how many update() calls each image shows for.
+     * @throws IllegalArgumentException if id isn't a live entity of this world, images is
+     *         null, empty or contains null elements, or ticksPerFrame isn't positive.
+     */
+    public void setAnimation(int id, List<BufferedImage> images, int ticksPerFrame) {
+        if (images == null || images.isEmpty()) {
+            throw new IllegalArgumentException("images cannot be null or empty.");
+        }
+        if (ticksPerFrame <= 0) {
+            throw new IllegalArgumentException("ticksPerFrame must be positive.");
+        }
+        int slot = slot(id);
+        frames[slot] = ImageAtlas.Frames.of(images);
+        frame[slot] = 0;
+        this.ticksPerFrame[slot] = ticksPerFrame;
+        frameTicks[slot] = 0;
+        components[slot] |= ANIMATION;
+    }
+
+    /**
+     * Returns the image draw() currently shows for an entity, like Sprite.getCurrentImage().
+     *
+     * @param id the entity's id.
+     * @return the image; null if the entity has neither an ANIMATION nor a SPRITE.
+     * @throws IllegalArgumentException if id isn't a live entity of this world.
+     */
+    public BufferedImage getCurrentImage(int id) {
+        int slot = slot(id);
+        if ((components[slot] & SPRITE) != 0) {
+            return sprites[slot].getCurrentImage();
+        }
+        if ((components[slot] & ANIMATION) != 0) {
+            return frames[slot].get(frame[slot]);
+        }
+        return null;
+    }
+
+    /**
+     * Sets the given Rectangle to the area of the screen draw() covers for an entity, like
+     * Sprite.fillDrawBounds().
+     *
+     * @param id the entity's id.
+     * @param bounds the Rectangle to fill in.
+     * @return true if bounds was filled in; false if the entity draws nothing.
+     * @throws IllegalArgumentException if id isn't a live entity of this world.
+     */
+    public boolean fillDrawBounds(int id, Rectangle bounds) {
+        int slot = slot(id);
+        if ((components[slot] & SPRITE) != 0) {
+            return sprites[slot].fillDrawBounds(bounds);
+        }
+        if ((components[slot] & ANIMATION) == 0) {
+            return false;
+        }
+        BufferedImage image = frames[slot].get(frame[slot]);
+        bounds.setBounds((int) Math.floor(x[slot]), (int) Math.floor(y[slot]),
+                image.getWidth(), image.getHeight());
+        return true;
+    }
+
+    /**
+     * Creates an entity that stands in for the given Sprite, so a game object can join the
+     * world before it's rewritten as components. update() updates the Sprite and copies its
+     * position and hit box into the entity's POSITION and HIT_BOX, which collision queries
+     * use, and draw() draws it. Don't give the entity a VELOCITY or ANIMATION; the Sprite
+     * moves and animates itself.
+     *
+     * @param sprite the Sprite.
+     * @return the new entity's id.
+     * @throws IllegalArgumentException if sprite is null.
+     * @throws IllegalStateException if the world already holds its most entities.
+     */
+    public int addSprite(Sprite sprite) {
+        if (sprite == null) {
+            throw new IllegalArgumentException("sprite parameter cannot be null.");
+        }
+        int id = create();
+        int slot = size - 1;
+        sprites[slot] = sprite;
+        components[slot] = SPRITE | POSITION;
+        copySprite(slot);
+        return id;
+    }
+
+    /**
+     * Returns the Sprite an entity stands in for.
+     *
+     * @param id the entity's id.
+     * @return the Sprite; null if the entity has no SPRITE.
+     * @throws IllegalArgumentException if id isn't a live entity of this world.
+     */
+    public Sprite getSprite(int id) {
+        return sprites[slot(id)];
+    }
+
+    /**
+     * Keeps moving entities within the area from (0, 0) to (width, height) by reversing their
+     * velocity, like a ball bouncing off walls, when they would move past an edge. Entities
+     * with a HIT_BOX keep all of it inside; others keep their position inside.
+     *
+     * @param width the area's width; 0 to let entities move anywhere.
+     * @param height the area's height; 0 to let entities move anywhere.
+     * @throws IllegalArgumentException if width or height is negative.
+     */
+    public void setBounds(int width, int height) {
+        if (width < 0 || height < 0) {
+            throw new IllegalArgumentException("width and height cannot be negative.");
+        }
+        this.boundsWidth = width;
+        this.boundsHeight = height;
+    }
+
+    /**
+     * Indexes the entities with a HIT_BOX in a grid of GamePanel.TILE_SIZE cells covering the
+     * screen, so collision queries only check entities near the area being checked.
+     */
+    public void enableSpatialIndex() {
+        enableSpatialIndex(GamePanel.TILE_SIZE, GamePanel.SCREEN_WIDTH, GamePanel.SCREEN_HEIGHT);
+    }
+
+    /**
+     * Indexes the entities with a HIT_BOX in a grid of cellSize cells covering the area from
+     * (0, 0) to (width, height), so collision queries only check entities near the area being
+     * checked. Entities outside the area are kept in the grid's edge cells.
+     *
+     * @param cellSize width and height of each cell, in pixels.
+     * @param width width of the area to index.
+     * @param height height of the area to index.
+     * @throws IllegalArgumentException if any parameter is not positive.
+     */
+    public void enableSpatialIndex(int cellSize, int width, int height) {
+        if (cellSize <= 0 || width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("cellSize, width and height must be positive.");
+        }
+        this.cellSize = cellSize;
+        this.columns = (width + cellSize - 1) / cellSize;
+        this.rows = (height + cellSize - 1) / cellSize;
+        this.cellStart = new int[columns * rows + 1];
+        this.cellNext = new int[columns * rows];
+        this.cellSlots = new int[INITIAL_CAPACITY];
+        this.indexedXMin = new int[0]; // sized to the slots when indexing
+        this.indexStale = true;
+    }
+
+    /**
+     * Stops indexing the entities; collision queries go back to checking every entity.
+     */
+    public void disableSpatialIndex() {
+        this.cellSize = 0;
+        this.cellStart = null;
+        this.cellNext = null;
+        this.cellSlots = null;
+        this.indexedXMin = null;
+        this.indexedXMax = null;
+        this.indexedYMin = null;
+        this.indexedYMax = null;
+        this.indexedColumn = null;
+        this.indexedRow = null;
+    }
+
+    public boolean isSpatiallyIndexed() {
+        return this.cellSize > 0;
+    }
+
+    /**
+     * Runs a tick of every system: updates Sprites' entities, then moves entities by their
+     * velocities and steps their animations.
+     */
+    public void update() {
+        updateSprites();
+        move();
+        animate();
+        indexStale = true;
+    }
+
+    /**
+     * Updates each SPRITE entity's Sprite and copies its position and hit box.
+     */
+    private void updateSprites() {
+        for (int i = 0; i < size; i++) {
+            if ((components[i] & SPRITE) != 0) {
+                sprites[i].update();
+                copySprite(i);
+            }
+        }
+    }
+
+    /**
+     * Accelerates each entity with a VELOCITY and a POSITION and moves it, bouncing it off
+     * the bounds' edges if there are bounds.
+     */
+    private void move() {
+        boolean bounded = boundsWidth > 0 && boundsHeight > 0;
+        for (int i = 0; i < size; i++) {
+            if ((components[i] & (POSITION | VELOCITY)) != (POSITION | VELOCITY)) {
+                continue;
+            }
+            double vx = velocityX[i] + accelerationX[i];
+            double vy = velocityY[i] + accelerationY[i];
+            if (bounded) { // without a HIT_BOX, the hit box arrays are 0
+                double left = x[i] + hitX[i];
+                double top = y[i] + hitY[i];
+                double right = left + hitWidth[i];
+                double bottom = top + hitHeight[i];
+                if (left + vx < 0 || right + vx > boundsWidth) {
+                    vx = -vx;
+                }
+                if (top + vy < 0 || bottom + vy > boundsHeight) {
+                    vy = -vy;
+                }
+            }
+            velocityX[i] = vx;
+            velocityY[i] = vy;
+            x[i] += vx;
+            y[i] += vy;
+        }
+    }
+
+    /**
+     * Steps each ANIMATION to its next image once its current one has shown for long enough.
+     */
+    private void animate() {
+        for (int i = 0; i < size; i++) {
+            if ((components[i] & ANIMATION) != 0 && ++frameTicks[i] >= ticksPerFrame[i]) {
+                frameTicks[i] = 0;
+                frame[i] = frame[i] + 1 < frames[i].size() ? frame[i] + 1 : 0;
+            }
+        }
+    }
+
+    /**
+     * Draws every entity with a SPRITE, or with an ANIMATION and a POSITION, in slot order.
+     *
+     * @param g2 the graphics to draw with.
+     */
+    public void draw(Graphics2D g2) {
+        for (int i = 0; i < size; i++) {
+            drawSlot(i, g2);
+        }
+    }
+
+    /**
+     * Draws one entity, if it has a SPRITE, or an ANIMATION and a POSITION.
+     *
+     * @param id the entity's id.
+     * @param g2 the graphics to draw with.
+     * @throws IllegalArgumentException if id isn't a live entity of this world.
+     */
+    public void draw(int id, Graphics2D g2) {
+        drawSlot(slot(id), g2);
+    }
+
+    /**
+     * Finds the entities whose hit boxes overlap the given entity's, without allocating. With
+     * the spatial index enabled, only entities that share a cell with it are checked;
+     * otherwise every entity with a HIT_BOX is.
+     *
+     * @param id the entity to check.
+     * @param results where to put the ids of the entities it collides with, in no particular
+     *        order; filled from the start, up to its length.
+     * @return how many entities it collides with, which may be more than results holds; 0 if
+     *         it has no HIT_BOX.
+     * @throws IllegalArgumentException if id isn't a live entity of this world or results is
+     *         null.
+     */
+    public int findCollisions(int id, int[] results) {
+        if (results == null) {
+            throw new IllegalArgumentException("results cannot be null.");
+        }
+        int slot = slot(id);
+        if ((components[slot] & HIT_BOX) == 0) {
+            return 0;
+        }
+        fillHitBoxAt(slot, queryBox);
+        if (cellSize > 0) {
+            return findCollisionsInCells(slot, results);
+        }
+        int found = 0;
+        for (int i = 0; i < size; i++) {
+            if (i == slot || (components[i] & HIT_BOX) == 0) {
+                continue;
+            }
+            fillHitBoxAt(i, candidateBox);
+            if (queryBox.intersects(candidateBox)) {
+                if (found < results.length) {
+                    results[found] = ids[i];
+                }
+                found++;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Finds every pair of entities whose hit boxes overlap, without allocating. With the
+     * spatial index enabled, only entities that share a cell are compared; otherwise every
+     * pair of entities with a HIT_BOX is.
+     *
+     * @param results where to put the pairs' ids, as consecutive elements: results[2k]
+     *        collides with results[2k + 1]. Filled from the start with as many whole pairs as
+     *        fit, in no particular order.
+     * @return how many pairs collide, which may be more than results holds.
+     * @throws IllegalArgumentException if results is null.
+     */
+    public int findCollidingPairs(int[] results) {
+        if (results == null) {
+            throw new IllegalArgumentException("results cannot be null.");
+        }
+        if (cellSize > 0) {
+            return findCollidingPairsInCells(results);
+        }
+        int found = 0;
+        for (int i = 0; i < size; i++) {
+            if ((components[i] & HIT_BOX) == 0) {
+                continue;
+            }
+            fillHitBoxAt(i, queryBox);
+            for (int j = i + 1; j < size; j++) {
+                if ((components[j] & HIT_BOX) == 0) {
+                    continue;
+                }
+                fillHitBoxAt(j, candidateBox);
+                if (queryBox.intersects(candidateBox)) {
+                    found = addPair(results, found, i, j);
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Finds the entities that collide with the one in the given slot, whose hit box is in
+     * queryBox, among those sharing a cell with it. The index is rebuilt first if anything
+     * has moved, so the hit boxes it recorded are current.
+     */
+    private int findCollisionsInCells(int slot, int[] results) {
+        if (indexStale) {
+            indexHitBoxes();
+        }
+        int minColumn = SpatialGrid.cell(queryBox.getXMin(), cellSize, columns);
+        int maxColumn = SpatialGrid.cell(queryBox.getXMax(), cellSize, columns);
+        int minRow = SpatialGrid.cell(queryBox.getYMin(), cellSize, rows);
+        int maxRow = SpatialGrid.cell(queryBox.getYMax(), cellSize, rows);
+        int found = 0;
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int column = minColumn; column <= maxColumn; column++) {
+                int cell = row * columns + column;
+                for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+                    int i = cellSlots[k];
+                    // report each entity once, from the first cell the two share
+                    if (i != slot && Math.max(minColumn, indexedColumn[i]) == column
+                            && Math.max(minRow, indexedRow[i]) == row
+                            && queryBox.getXMin() <= indexedXMax[i]
+                            && queryBox.getXMax() >= indexedXMin[i]
+                            && queryBox.getYMin() <= indexedYMax[i]
+                            && queryBox.getYMax() >= indexedYMin[i]) {
+                        if (found < results.length) {
+                            results[found] = ids[i];
+                        }
+                        found++;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Finds every colliding pair of entities among those sharing a cell, as SpatialGrid's
+     * collidingPairs() does.
+     */
+    private int findCollidingPairsInCells(int[] results) {
+        if (indexStale) {
+            indexHitBoxes();
+        }
+        int found = 0;
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                int cell = row * columns + column;
+                for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+                    int a = cellSlots[k];
+                    for (int l = k + 1; l < cellStart[cell + 1]; l++) {
+                        int b = cellSlots[l];
+                        if (Math.max(indexedColumn[a], indexedColumn[b]) == column
+                                && Math.max(indexedRow[a], indexedRow[b]) == row
+                                && indexedXMin[a] <= indexedXMax[b]
+                                && indexedXMax[a] >= indexedXMin[b]
+                                && indexedYMin[a] <= indexedYMax[b]
+                                && indexedYMax[a] >= indexedYMin[b]) {
+                            found = addPair(results, found, a, b);
+                        }
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Puts the ids of the entities in slots a and b into results as the next pair, if there's
+     * room, and returns the number of pairs found with it.
+     */
+    private int addPair(int[] results, int found, int a, int b) {
+        if (2 * found + 1 < results.length) {
+            results[2 * found] = ids[a];
+            results[2 * found + 1] = ids[b];
+        }
+        return found + 1;
+    }
+
+    /**
+     * Rebuilds the spatial index: records each HIT_BOX slot's hit box and cells, counts the
+     * slots in each cell, gives each cell its run of cellSlots, then fills the runs in.
+     */
+    private void indexHitBoxes() {
+        if (indexedXMin.length < size) {
+            indexedXMin = new int[ids.length];
+            indexedXMax = new int[ids.length];
+            indexedYMin = new int[ids.length];
+            indexedYMax = new int[ids.length];
+            indexedColumn = new int[ids.length];
+            indexedRow = new int[ids.length];
+        }
+        int cells = columns * rows;
+        Arrays.fill(cellStart, 0);
+        for (int i = 0; i < size; i++) {
+            if ((components[i] & HIT_BOX) == 0) {
+                continue;
+            }
+            int left = (int) Math.floor(x[i]) + hitX[i];
+            int top = (int) Math.floor(y[i]) + hitY[i];
+            indexedXMin[i] = left;
+            indexedXMax[i] = left + hitWidth[i];
+            indexedYMin[i] = top;
+            indexedYMax[i] = top + hitHeight[i];
+            indexedColumn[i] = SpatialGrid.cell(left, cellSize, columns);
+            indexedRow[i] = SpatialGrid.cell(top, cellSize, rows);
+            int maxColumn = SpatialGrid.cell(indexedXMax[i], cellSize, columns);
+            int maxRow = SpatialGrid.cell(indexedYMax[i], cellSize, rows);
+            for (int row = indexedRow[i]; row <= maxRow; row++) {
+                for (int column = indexedColumn[i]; column <= maxColumn; column++) {
+                    cellStart[row * columns + column + 1]++;
+                }
+            }
+        }
+        for (int cell = 0; cell < cells; cell++) {
+            cellStart[cell + 1] += cellStart[cell];
+        }
+        if (cellStart[cells] > cellSlots.length) {
+            cellSlots = new int[Math.max(cellStart[cells], 2 * cellSlots.length)];
+        }
+        System.arraycopy(cellStart, 0, cellNext, 0, cells);
+        for (int i = 0; i < size; i++) {
+            if ((components[i] & HIT_BOX) == 0) {
+                continue;
+            }
+            int maxColumn = SpatialGrid.cell(indexedXMax[i], cellSize, columns);
+            int maxRow = SpatialGrid.cell(indexedYMax[i], cellSize, rows);
+            for (int row = indexedRow[i]; row <= maxRow; row++) {
+                for (int column = indexedColumn[i]; column <= maxColumn; column++) {
+                    cellSlots[cellNext[row * columns + column]++] = i;
+                }
+            }
+        }
+        indexStale = false;
+    }
+
+    /**
+     * Returns the slot of a live entity.
+     *
+     * @throws IllegalArgumentException if id isn't a live entity of this world.
+     */
+    private int slot(int id) {
+        if (!isAlive(id)) {
+            throw new IllegalArgumentException("no entity " + id);
+        }
+        return slots[id & HANDLE_MASK];
+    }
+
+    private void fillHitBoxAt(int slot, HitBox box) {
+        int left = (int) Math.floor(x[slot]) + hitX[slot];
+        int top = (int) Math.floor(y[slot]) + hitY[slot];
+        box.set(left, left + hitWidth[slot], top, top + hitHeight[slot]);
+    }
+
+    private void drawSlot(int slot, Graphics2D g2) {
+        if ((components[slot] & SPRITE) != 0) {
+            sprites[slot].draw(g2);
+        } else if ((components[slot] & (ANIMATION | POSITION)) == (ANIMATION | POSITION)) {
+            g2.drawImage(frames[slot].get(frame[slot]), (int) Math.floor(x[slot]),
+                    (int) Math.floor(y[slot]), null);
+        }
+    }
+
+    /**
+     * Copies a SPRITE entity's Sprite's position and hit box into its POSITION and HIT_BOX.
+     */
+    private void copySprite(int slot) {
+        indexStale = true;
+        Sprite sprite = sprites[slot];
+        x[slot] = sprite.getX();
+        y[slot] = sprite.getY();
+        if (sprite.fillHitBox(spriteBox)) {
+            hitX[slot] = spriteBox.getXMin() - sprite.getX();
+            hitY[slot] = spriteBox.getYMin() - sprite.getY();
+            hitWidth[slot] = spriteBox.getXMax() - spriteBox.getXMin();
+            hitHeight[slot] = spriteBox.getYMax() - spriteBox.getYMin();
+            components[slot] |= HIT_BOX;
+        } else {
+            components[slot] &= ~HIT_BOX;
+            clearHitBox(slot);
+        }
+    }
+
+    private void clearHitBox(int slot) {
+        hitX[slot] = 0;
+        hitY[slot] = 0;
+        hitWidth[slot] = 0;
+        hitHeight[slot] = 0;
+    }
+
+    /**
+     * Doubles the room for entities in every component's arrays.
+     */
+    private void grow() {
+        int capacity = 2 * ids.length;
+        ids = Arrays.copyOf(ids, capacity);
+        components = Arrays.copyOf(components, capacity);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        velocityX = Arrays.copyOf(velocityX, capacity);
+        velocityY = Arrays.copyOf(velocityY, capacity);
+        accelerationX = Arrays.copyOf(accelerationX, capacity);
+        accelerationY = Arrays.copyOf(accelerationY, capacity);
+        hitX = Arrays.copyOf(hitX, capacity);
+        hitY = Arrays.copyOf(hitY, capacity);
+        hitWidth = Arrays.copyOf(hitWidth, capacity);
+        hitHeight = Arrays.copyOf(hitHeight, capacity);
+        frames = Arrays.copyOf(frames, capacity);
+        frame = Arrays.copyOf(frame, capacity);
+        ticksPerFrame = Arrays.copyOf(ticksPerFrame, capacity);
+        frameTicks = Arrays.copyOf(frameTicks, capacity);
+        sprites = Arrays.copyOf(sprites, capacity);
+    }
+}
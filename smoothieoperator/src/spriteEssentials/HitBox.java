@@ -2,6 +2,8 @@ package smoothieoperator.src.spriteEssentials;
 
 /**
  * Represents a Sprite's hitbox with the min and max x and y boundaries of the Sprite's solid area.
+ * A HitBox can be moved with set(), so one instance can be reused instead of allocating a new
+ * HitBox for every collision check.
  */
 public class HitBox {
 
@@ -19,6 +21,18 @@ public class HitBox {
      * @param yMax upper y boundary (top of the rectangle).
      */
     public HitBox(int xMin, int xMax, int yMin, int yMax) {
+        set(xMin, xMax, yMin, yMax);
+    }
+
+    /**
+     * Moves this HitBox to the given boundaries.
+     * 
+     * @param xMin lower x boundary (left of the rectangle).
+     * @param xMax upper x boundary (right of the rectangle).
+     * @param yMin lower y boundary (bottom of the rectangle).
+     * @param yMax upper y boundary (top of the rectangle).
+     */
+    public void set(int xMin, int xMax, int yMin, int yMax) {
         // Control for mix-ups between min and max parameter values
         this.xMin = Math.min(xMin, xMax);
         this.xMax = Math.max(xMax, xMin);
@@ -26,6 +40,21 @@ public class HitBox {
         this.yMax = Math.max(yMax, yMin);
     }
 
+    /**
+     * Returns whether this HitBox overlaps the other. Boundaries are inclusive, so HitBoxes
+     * that only share an edge overlap.
+     * 
+     * @param other the HitBox to compare with.
+     * @return true if the HitBoxes overlap; false if they don't or other is null.
+     */
+    public boolean intersects(HitBox other) {
+        if (other == null) {
+            return false;
+        }
+        return this.xMin <= other.xMax && this.xMax >= other.xMin
+                && this.yMin <= other.yMax && this.yMax >= other.yMin;
+    }
+
     public int getXMin() {
         return this.xMin;
     }
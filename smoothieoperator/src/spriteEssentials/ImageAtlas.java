@@ -0,0 +1,315 @@
+package smoothieoperator.src.spriteEssentials;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Transparency;
+import java.awt.geom.AffineTransform;
+import java.awt.image.AffineTransformOp;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DirectColorModel;
+import java.util.AbstractList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A registry of the game's images, loaded once and shared by every Sprite that shows them.
+ *
+ * <p>Images are registered under a name as a Frames handle: a fixed, read-only list of one or
+ * more images. Sprites keep the handle rather than copying its images, so creating a Sprite
+ * costs a reference instead of a copy of every frame. The images themselves are shared, so
+ * nothing may draw into them once they're registered.
+ *
+ * <p>Registered images are converted to the screen's native pixel format, with the least
+ * transparency their pixels need, so drawing them is a straight copy (or a hardware blit)
+ * rather than a per-pixel format conversion. ImageIO decodes the game's PNGs as
+ * TYPE_4BYTE_ABGR, which no screen uses.
+ */
+public class ImageAtlas {
+
+    /**
+     * A read-only list of shared images, such as the frames of an animation. Handles can't be
+     * changed after they're created; set() and add() throw UnsupportedOperationException.
+     */
+    public static final class Frames extends AbstractList<BufferedImage> implements RandomAccess {
+
+        private final String name;
+        private final BufferedImage[] images;
+        private final HashMap<Integer, Frames> rotations; // rotated copies, by degrees
+
+        private Frames(String name, BufferedImage[] images) {
+            this.name = name;
+            this.images = images;
+            this.rotations = new HashMap<Integer, Frames>();
+        }
+
+        /**
+         * Returns a handle on the given images without copying them. If images is already a
+         * Frames handle, returns it.
+         *
+         * @param images the images to share.
+         * @return a handle on the images.
+         * @throws IllegalArgumentException if images is null or contains null elements.
+         */
+        public static Frames of(List<BufferedImage> images) {
+            if (images instanceof Frames) {
+                return (Frames) images;
+            }
+            return new Frames(null, toArray(images));
+        }
+
+        /**
+         * Returns a handle on the given image without copying it.
+         *
+         * @param image the image to share.
+         * @return a handle on the image.
+         * @throws IllegalArgumentException if image is null.
+         */
+        public static Frames of(BufferedImage image) {
+            if (image == null) {
+                throw new IllegalArgumentException("image cannot be null.");
+            }
+            return new Frames(null, new BufferedImage[] {image});
+        }
+
+        /**
+         * Returns the name these frames are registered under, or null if they aren't.
+         *
+         * @return the registered name; null if unregistered.
+         */
+        public String getName() {
+            return this.name;
+        }
+
+        @Override
+        public BufferedImage get(int index) {
+            return this.images[index];
+        }
+
+        @Override
+        public int size() {
+            return this.images.length;
+        }
+
+        /**
+         * Returns these frames rotated counter-clockwise by the given number of degrees about
+         * their centers, each on a square image as wide as its longer side. Rotations are made
+         * the first time they're asked for and shared after that.
+         *
+         * @param degrees degrees to rotate counter-clockwise.
+         * @return the rotated frames; these frames if degrees is 0.
+         */
+        public synchronized Frames rotated(int degrees) {
+            if (degrees == 0) {
+                return this;
+            }
+            Frames rotated = rotations.get(degrees);
+            if (rotated == null) {
+                BufferedImage[] rotatedImages = new BufferedImage[images.length];
+                for (int i = 0; i < images.length; i++) {
+                    BufferedImage src = images[i];
+                    int maxDim = Math.max(src.getWidth(), src.getHeight());
+                    // the corners the rotation uncovers are transparent
+                    rotatedImages[i] = createCompatible(maxDim, maxDim, Transparency.TRANSLUCENT);
+                    AffineTransform transform = AffineTransform.getRotateInstance(
+                            Math.toRadians(-degrees), src.getWidth() / 2, src.getHeight() / 2);
+                    AffineTransformOp rotateOp =
+                            new AffineTransformOp(transform, AffineTransformOp.TYPE_BILINEAR);
+                    rotateOp.filter(src, rotatedImages[i]);
+                }
+                rotated = new Frames(name, rotatedImages);
+                rotations.put(degrees, rotated);
+            }
+            return rotated;
+        }
+
+        /**
+         * Copies a list of images into an array, checking for nulls.
+         */
+        private static BufferedImage[] toArray(List<BufferedImage> images) {
+            if (images == null) {
+                throw new IllegalArgumentException("images cannot be null.");
+            }
+            BufferedImage[] array = images.toArray(new BufferedImage[images.size()]);
+            for (BufferedImage image : array) {
+                if (image == null) {
+                    throw new IllegalArgumentException("images cannot contain null elements.");
+                }
+            }
+            return array;
+        }
+    }
+
+    private static final ColorModel OPAQUE_RGB = // TYPE_INT_RGB's ColorModel
+            new DirectColorModel(24, 0x00ff0000, 0x0000ff00, 0x000000ff, 0);
+    private static GraphicsConfiguration screenConfiguration; // null when headless
+
+    private final HashMap<String, Frames> entries;
+
+    /**
+     * Creates an empty ImageAtlas.
+     */
+    public ImageAtlas() {
+        this.entries = new HashMap<String, Frames>();
+    }
+
+    /**
+     * Registers the given images under the given name, replacing any images already there.
+     * The images are converted with toCompatible().
+     *
+     * @param name name to register the images under, such as "projectiles/banana/flying".
+     * @param images the images, in order.
+     * @return the handle Sprites should use to show the images.
+     * @throws IllegalArgumentException if either parameter is null, or images is empty or
+     *         contains null elements.
+     */
+    public synchronized Frames put(String name, List<BufferedImage> images) {
+        if (name == null) {
+            throw new IllegalArgumentException("name cannot be null.");
+        }
+        BufferedImage[] array = Frames.toArray(images);
+        if (array.length == 0) {
+            throw new IllegalArgumentException("images cannot be empty.");
+        }
+        for (int i = 0; i < array.length; i++) {
+            array[i] = toCompatible(array[i]);
+        }
+        Frames frames = new Frames(name, array);
+        entries.put(name, frames);
+        return frames;
+    }
+
+    /**
+     * Registers the given image under the given name, replacing any images already there.
+     * The image is converted with toCompatible().
+     *
+     * @param name name to register the image under, such as "wall".
+     * @param image the image.
+     * @return the handle Sprites should use to show the image.
+     * @throws IllegalArgumentException if either parameter is null.
+     */
+    public synchronized Frames put(String name, BufferedImage image) {
+        if (name == null) {
+            throw new IllegalArgumentException("name cannot be null.");
+        }
+        if (image == null) {
+            throw new IllegalArgumentException("image cannot be null.");
+        }
+        Frames frames = new Frames(name, new BufferedImage[] {toCompatible(image)});
+        entries.put(name, frames);
+        return frames;
+    }
+
+    /**
+     * Returns the images registered under the given name, or null if there are none.
+     *
+     * @param name the registered name.
+     * @return the handle on the images; null if nothing is registered under name.
+     */
+    public synchronized Frames get(String name) {
+        return entries.get(name);
+    }
+
+    public synchronized boolean contains(String name) {
+        return entries.containsKey(name);
+    }
+
+    /**
+     * Returns the number of names registered.
+     *
+     * @return the number of registered entries.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the given image in the screen's native format, with the least transparency its
+     * pixels need: OPAQUE if every pixel is opaque, BITMASK if every pixel is either opaque or
+     * fully transparent, and TRANSLUCENT otherwise. Returns the image itself if it's already
+     * in that format. Without a screen (headless), converts to TYPE_INT_RGB or TYPE_INT_ARGB.
+     *
+     * @param image the image to convert.
+     * @return a compatible copy of the image, or the image if it's already compatible.
+     * @throws IllegalArgumentException if image is null.
+     */
+    public static BufferedImage toCompatible(BufferedImage image) {
+        if (image == null) {
+            throw new IllegalArgumentException("image cannot be null.");
+        }
+        int transparency = transparencyOf(image);
+        if (image.getColorModel().equals(compatibleColorModel(transparency))) {
+            return image;
+        }
+        BufferedImage compatible =
+                createCompatible(image.getWidth(), image.getHeight(), transparency);
+        Graphics2D g2 = compatible.createGraphics();
+        g2.setComposite(AlphaComposite.Src); // copy the pixels, alpha and all
+        g2.drawImage(image, 0, 0, null);
+        g2.dispose();
+        return compatible;
+    }
+
+    /**
+     * Returns a new, fully transparent (or black, if OPAQUE) image in the screen's native
+     * format. Without a screen (headless), returns a TYPE_INT_RGB or TYPE_INT_ARGB image.
+     *
+     * @param width the image's width.
+     * @param height the image's height.
+     * @param transparency Transparency.OPAQUE, BITMASK or TRANSLUCENT.
+     * @return a new compatible image.
+     */
+    public static BufferedImage createCompatible(int width, int height, int transparency) {
+        GraphicsConfiguration gc = screenConfiguration();
+        if (gc != null) {
+            return gc.createCompatibleImage(width, height, transparency);
+        }
+        return new BufferedImage(width, height, transparency == Transparency.OPAQUE
+                ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+    }
+
+    /**
+     * Returns the ColorModel of images made by createCompatible() with the given transparency.
+     */
+    private static ColorModel compatibleColorModel(int transparency) {
+        GraphicsConfiguration gc = screenConfiguration();
+        if (gc != null) {
+            return gc.getColorModel(transparency);
+        }
+        return transparency == Transparency.OPAQUE ? OPAQUE_RGB : ColorModel.getRGBdefault();
+    }
+
+    /**
+     * Returns the least transparency the image's pixels need.
+     */
+    private static int transparencyOf(BufferedImage image) {
+        if (!image.getColorModel().hasAlpha()) {
+            return Transparency.OPAQUE;
+        }
+        int transparency = Transparency.OPAQUE;
+        int[] row = new int[image.getWidth()];
+        for (int y = 0; y < image.getHeight(); y++) {
+            image.getRGB(0, y, row.length, 1, row, 0, row.length);
+            for (int pixel : row) {
+                int alpha = pixel >>> 24;
+                if (alpha == 0) {
+                    transparency = Transparency.BITMASK;
+                } else if (alpha != 0xff) {
+                    return Transparency.TRANSLUCENT;
+                }
+            }
+        }
+        return transparency;
+    }
+
+    private static synchronized GraphicsConfiguration screenConfiguration() {
+        if (screenConfiguration == null && !GraphicsEnvironment.isHeadless()) {
+            screenConfiguration = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                    .getDefaultScreenDevice().getDefaultConfiguration();
+        }
+        return screenConfiguration;
+    }
+}
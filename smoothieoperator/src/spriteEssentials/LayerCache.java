@@ -0,0 +1,109 @@
+package smoothieoperator.src.spriteEssentials;
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+
+/**
+ * Sprites that rarely change, such as a background and a HUD, composited into one image so a
+ * frame can draw them all with a single copy.
+ *
+ * <p>The caller describes the sprites' state with a number that changes whenever any of them
+ * would look different, for example by combining a power level and a number of lives. The
+ * sprites are drawn into the cached image again only when that number changes or after
+ * invalidate() is called; otherwise draw() only copies the cached image. The image is opaque:
+ * the sprites are drawn over a solid backdrop color.
+ */
+public class LayerCache {
+
+    private final SpriteList sprites;
+    private final int width;
+    private final int height;
+    private final Color backdrop;
+    private BufferedImage image;
+    private long state;
+    private boolean valid;
+    private int renderCount;
+
+    /**
+     * Creates a LayerCache for the given sprites, which are drawn in order over the backdrop.
+     *
+     * @param sprites the sprites to composite; later changes to the list are picked up the next
+     *        time the cache is rendered.
+     * @param width width of the cached image, usually the screen's.
+     * @param height height of the cached image, usually the screen's.
+     * @param backdrop the color behind the sprites.
+     * @throws IllegalArgumentException if sprites or backdrop is null, or width or height is
+     *         less than 1.
+     */
+    public LayerCache(SpriteList sprites, int width, int height, Color backdrop) {
+        if (sprites == null) {
+            throw new IllegalArgumentException("sprites cannot be null.");
+        }
+        if (backdrop == null) {
+            throw new IllegalArgumentException("backdrop cannot be null.");
+        }
+        if (width < 1 || height < 1) {
+            throw new IllegalArgumentException("width and height must be at least 1.");
+        }
+        this.sprites = sprites;
+        this.width = width;
+        this.height = height;
+        this.backdrop = backdrop;
+    }
+
+    /**
+     * Draws the composited sprites with the cached image's top left corner at (0, 0),
+     * rendering them into the cache first if state differs from the last call's or the cache
+     * has been invalidated.
+     *
+     * @param g2 the graphics to draw with.
+     * @param state a number that changes whenever any of the sprites would look different.
+     */
+    public void draw(Graphics2D g2, long state) {
+        if (!valid || state != this.state) {
+            render();
+            this.state = state;
+            this.valid = true;
+        }
+        g2.drawImage(image, 0, 0, null);
+    }
+
+    /**
+     * Makes the next draw() render the sprites again, whatever its state.
+     */
+    public void invalidate() {
+        this.valid = false;
+    }
+
+    /**
+     * Returns how many times the sprites have been rendered into the cache.
+     *
+     * @return the number of renders.
+     */
+    public int getRenderCount() {
+        return this.renderCount;
+    }
+
+    /**
+     * Draws the backdrop and sprites into the cached image, creating it the first time.
+     */
+    private void render() {
+        if (image == null) {
+            image = ImageAtlas.createCompatible(width, height, Transparency.OPAQUE);
+        }
+        Graphics2D cacheGraphics = image.createGraphics();
+        try {
+            cacheGraphics.setComposite(AlphaComposite.Src);
+            cacheGraphics.setColor(backdrop);
+            cacheGraphics.fillRect(0, 0, width, height);
+            cacheGraphics.setComposite(AlphaComposite.SrcOver);
+            sprites.draw(cacheGraphics);
+        } finally {
+            cacheGraphics.dispose();
+        }
+        renderCount++;
+    }
+}
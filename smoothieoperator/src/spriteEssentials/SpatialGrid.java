@@ -0,0 +1,268 @@
+package smoothieoperator.src.spriteEssentials;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * A uniform grid of square cells that indexes solid Sprites by where their hit boxes are, so
+ * collision queries only look at Sprites in nearby cells instead of every Sprite.
+ *
+ * <p>Each indexed Sprite's hit box is recorded when sync() is called, and the Sprite is listed
+ * in every cell its hit box touches. sync() only moves Sprites whose cells changed, so keeping
+ * the grid up to date costs little when most Sprites stay within their cells. Queries use the
+ * recorded hit boxes, so sync() must be called after Sprites move for results to be current.
+ * Hit boxes beyond the grid's area are clamped into its edge cells.
+ */
+public class SpatialGrid {
+
+    /**
+     * An indexed Sprite with its hit box and the range of cells it's listed in.
+     */
+    private static class Entry {
+        private final Sprite sprite;
+        private int xMin;
+        private int xMax;
+        private int yMin;
+        private int yMax;
+        private int minColumn;
+        private int maxColumn;
+        private int minRow;
+        private int maxRow;
+        private long syncStamp; // last sync() that saw this Sprite
+        private long queryStamp; // last query that reported this Sprite
+
+        private Entry(Sprite sprite) {
+            this.sprite = sprite;
+        }
+    }
+
+    private final int cellSize;
+    private final int columns;
+    private final int rows;
+    private final ArrayList<ArrayList<Entry>> cells; // row-major
+    private final IdentityHashMap<Sprite, Entry> entries;
+    private final ArrayList<Entry> removed; // reused by sync()
+    private final HitBox box; // reused to read hit boxes
+    private long syncStamp;
+    private long queryStamp;
+
+    /**
+     * Creates an empty SpatialGrid covering the area from (0, 0) to (width, height).
+     *
+     * @param cellSize width and height of each cell, in pixels.
+     * @param width width of the area to index.
+     * @param height height of the area to index.
+     * @throws IllegalArgumentException if any parameter is not positive.
+     */
+    public SpatialGrid(int cellSize, int width, int height) {
+        if (cellSize <= 0 || width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("cellSize, width and height must be positive.");
+        }
+        this.cellSize = cellSize;
+        this.columns = (width + cellSize - 1) / cellSize;
+        this.rows = (height + cellSize - 1) / cellSize;
+        this.cells = new ArrayList<ArrayList<Entry>>(columns * rows);
+        for (int i = 0; i < columns * rows; i++) {
+            this.cells.add(new ArrayList<Entry>());
+        }
+        this.entries = new IdentityHashMap<Sprite, Entry>();
+        this.removed = new ArrayList<Entry>();
+        this.box = new HitBox(0, 0, 0, 0);
+    }
+
+    public int getCellSize() {
+        return this.cellSize;
+    }
+
+    /**
+     * Returns the number of Sprites currently indexed.
+     *
+     * @return the number of indexed Sprites.
+     */
+    public int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * Brings the grid up to date with the given Sprites: indexes new solid Sprites, moves
+     * Sprites whose hit boxes changed cells, and drops Sprites that are no longer in the list
+     * or no longer solid.
+     *
+     * @param sprites every Sprite that should be indexed.
+     */
+    public void sync(List<Sprite> sprites) {
+        syncStamp++;
+        int seen = 0;
+        for (int i = 0; i < sprites.size(); i++) {
+            Sprite sprite = sprites.get(i);
+            Entry entry = entries.get(sprite);
+            if (!sprite.fillHitBox(box)) {
+                continue; // not solid; swept out below if it was indexed
+            }
+            if (entry == null) {
+                entry = new Entry(sprite);
+                entries.put(sprite, entry);
+                record(entry);
+                addToCells(entry);
+            } else {
+                int minColumn = entry.minColumn;
+                int maxColumn = entry.maxColumn;
+                int minRow = entry.minRow;
+                int maxRow = entry.maxRow;
+                record(entry);
+                if (minColumn != entry.minColumn || maxColumn != entry.maxColumn
+                        || minRow != entry.minRow || maxRow != entry.maxRow) {
+                    removeFromCells(entry, minColumn, maxColumn, minRow, maxRow);
+                    addToCells(entry);
+                }
+            }
+            if (entry.syncStamp != syncStamp) {
+                entry.syncStamp = syncStamp;
+                seen++;
+            }
+        }
+        if (seen == entries.size()) {
+            return; // nothing to drop
+        }
+
+        // drop Sprites that weren't seen this time
+        for (Entry entry : entries.values()) {
+            if (entry.syncStamp != syncStamp) {
+                removed.add(entry);
+            }
+        }
+        for (int i = 0; i < removed.size(); i++) {
+            Entry entry = removed.get(i);
+            removeFromCells(entry, entry.minColumn, entry.maxColumn, entry.minRow, entry.maxRow);
+            entries.remove(entry.sprite);
+        }
+        removed.clear();
+    }
+
+    /**
+     * Removes every Sprite from the grid.
+     */
+    public void clear() {
+        for (int i = 0; i < cells.size(); i++) {
+            cells.get(i).clear();
+        }
+        entries.clear();
+    }
+
+    /**
+     * Adds every indexed Sprite other than skip whose hit box overlaps the given area to
+     * results. Each Sprite is added at most once.
+     *
+     * @param area the area to check.
+     * @param skip a Sprite to leave out of the results; may be null.
+     * @param results the list to add overlapping Sprites to.
+     */
+    public void query(HitBox area, Sprite skip, List<Sprite> results) {
+        queryStamp++;
+        int minColumn = column(area.getXMin());
+        int maxColumn = column(area.getXMax());
+        int minRow = row(area.getYMin());
+        int maxRow = row(area.getYMax());
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int column = minColumn; column <= maxColumn; column++) {
+                ArrayList<Entry> cell = cells.get(row * columns + column);
+                for (int i = 0; i < cell.size(); i++) {
+                    Entry entry = cell.get(i);
+                    if (entry.queryStamp != queryStamp && entry.sprite != skip
+                            && entry.xMin <= area.getXMax() && entry.xMax >= area.getXMin()
+                            && entry.yMin <= area.getYMax() && entry.yMax >= area.getYMin()) {
+                        entry.queryStamp = queryStamp;
+                        results.add(entry.sprite);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds every pair of indexed Sprites whose hit boxes overlap to results, as consecutive
+     * elements: results[2k] collides with results[2k + 1]. Only Sprites that share a cell are
+     * compared, and each pair is reported once, from the first cell the two share.
+     *
+     * @param results the list to add colliding pairs to.
+     */
+    public void collidingPairs(List<Sprite> results) {
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                ArrayList<Entry> cell = cells.get(row * columns + column);
+                for (int i = 0; i < cell.size(); i++) {
+                    Entry a = cell.get(i);
+                    for (int j = i + 1; j < cell.size(); j++) {
+                        Entry b = cell.get(j);
+                        if (Math.max(a.minColumn, b.minColumn) == column
+                                && Math.max(a.minRow, b.minRow) == row
+                                && a.xMin <= b.xMax && a.xMax >= b.xMin
+                                && a.yMin <= b.yMax && a.yMax >= b.yMin) {
+                            results.add(a.sprite);
+                            results.add(b.sprite);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies the hit box just read into box into the entry, with its range of cells.
+     */
+    private void record(Entry entry) {
+        entry.xMin = box.getXMin();
+        entry.xMax = box.getXMax();
+        entry.yMin = box.getYMin();
+        entry.yMax = box.getYMax();
+        entry.minColumn = column(entry.xMin);
+        entry.maxColumn = column(entry.xMax);
+        entry.minRow = row(entry.yMin);
+        entry.maxRow = row(entry.yMax);
+    }
+
+    private void addToCells(Entry entry) {
+        for (int row = entry.minRow; row <= entry.maxRow; row++) {
+            for (int column = entry.minColumn; column <= entry.maxColumn; column++) {
+                cells.get(row * columns + column).add(entry);
+            }
+        }
+    }
+
+    private void removeFromCells(Entry entry, int minColumn, int maxColumn, int minRow,
+            int maxRow) {
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int column = minColumn; column <= maxColumn; column++) {
+                cells.get(row * columns + column).remove(entry);
+            }
+        }
+    }
+
+    /**
+     * Returns the column containing the given x-coordinate, clamped to the grid.
+     */
+    private int column(int x) {
+        return cell(x, cellSize, columns);
+    }
+
+    /**
+     * Returns the row containing the given y-coordinate, clamped to the grid.
+     */
+    private int row(int y) {
+        return cell(y, cellSize, rows);
+    }
+
+    /**
+     * Returns the cell along one axis of a grid that contains the given coordinate, clamped
+     * to the grid, so coordinates beyond it fall in its edge cells.
+     *
+     * @param coordinate the x- or y-coordinate.
+     * @param cellSize width and height of each cell, in pixels.
+     * @param cells the number of cells along the axis, starting at 0.
+     * @return the cell's column or row.
+     */
+    static int cell(int coordinate, int cellSize, int cells) {
+        return Math.max(0, Math.min(Math.floorDiv(coordinate, cellSize), cells - 1));
+    }
+}
@@ -3,10 +3,12 @@ package smoothieoperator.src.spriteEssentials;
 import java.awt.image.BufferedImage;
 
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.geom.AffineTransform;
 import java.awt.image.AffineTransformOp;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 
 import smoothieoperator.src.main.KeyHandler;
 import smoothieoperator.src.main.Sound;
@@ -21,7 +23,8 @@ import smoothieoperator.src.main.Sound;
  *   - x- and y-coordinate integers that represent their onscreen location (default to 0),
  *   - speed integer (defaults to 0),
  *   - solid boolean, representing whether the sprite has a solid area (defaults to false),
- *   - an ArrayList of BufferedImages (defaults to an ArrayList of one 1x1 blank image),
+ *   - a List of BufferedImages (defaults to a List of one 1x1 blank image), shared with any
+ *     other Sprites built from the same images rather than copied,
  *   - an imagesIndex, indicating which of the sprite's images is currently displayed and used
  *     for determining the sprite's size,
  *   - a KeyHandler (defaults to null).
@@ -36,13 +39,15 @@ public class Sprite {
 
     protected boolean solid; // Whether the Sprite can collide
 
-    protected ArrayList<BufferedImage> images; // Store one or more frames for animation.
+    protected List<BufferedImage> images; // Store one or more frames for animation.
     protected int imagesIndex; // Index in images of the current image to display for this Sprite.
 
     protected KeyHandler keyHandler; // So Sprite can update in response to keyboard input
 
     protected HashMap<String, Sound> sounds;
 
+    private final HitBox hitBox = new HitBox(0, 0, 0, 0); // reused by getHitBox()
+
     /**
     * Default constructor creates Sprite at (0, 0) with speed 0, not solid, one 1x1
     * image and a null keyHandler. Sets solid to false, imagesIndex to 0 and instantiates an
@@ -61,9 +66,10 @@ public class Sprite {
     }
 
     /**
-    * Creates a new Sprite at the given x and y coordinates, with the given speed, ArrayList of
-    * images, and KeyHandler. Sets imagesIndex to 0. If the given images ArrayList is null or empty,
-    * creates a new ArrayList with an invisible image.
+    * Creates a new Sprite at the given x and y coordinates, with the given speed, List of
+    * images, and KeyHandler. Sets imagesIndex to 0. If the given images List is null or empty,
+    * creates a new List with an invisible image. The images are shared, not copied, so they
+    * must not be drawn into afterwards.
     * 
     * @param x Sprite's x coordinate
     * @param y Sprite's y coordinate
@@ -71,7 +77,7 @@ public class Sprite {
     * @param images Images for this sprite
     * @param keyH KeyHandler to control this Sprite
     */
-    public Sprite(int x, int y, int speed, ArrayList<BufferedImage> images, KeyHandler keyH) {
+    public Sprite(int x, int y, int speed, List<BufferedImage> images, KeyHandler keyH) {
         this.x = x;
         this.y = y;
         this.speed = speed;
@@ -79,7 +85,7 @@ public class Sprite {
             this.images = new ArrayList<BufferedImage>();
             this.images.add(new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB));
         } else {
-            this.images = copyBufferedImages(images);
+            this.images = ImageAtlas.Frames.of(images);
         }
         this.keyHandler = keyH;
         imagesIndex = 0;
@@ -87,7 +93,7 @@ public class Sprite {
     }
 
     /**
-    * Creates a new Sprite at the given x and y coordinates, with the given speed, ArrayList of
+    * Creates a new Sprite at the given x and y coordinates, with the given speed, List of
     * images.
     * 
     * @param x Sprite's x coordinate
@@ -95,19 +101,19 @@ public class Sprite {
     * @param speed Sprite's speed
     * @param images Images for this sprite
     */
-    public Sprite(int x, int y, int speed, ArrayList<BufferedImage> images) {
+    public Sprite(int x, int y, int speed, List<BufferedImage> images) {
         this(x, y, speed, images, null);
     }
 
     /**
-    * Creates a new Sprite at the given x and y coordinates, ArrayList of images, and KeyHandler.
+    * Creates a new Sprite at the given x and y coordinates, List of images, and KeyHandler.
     * 
     * @param x Sprite's x coordinate
     * @param y Sprite's y coordinate
     * @param images Images for this Sprite
     * @param keyH KeyHandler to control this Sprite
     */
-    public Sprite(int x, int y, ArrayList<BufferedImage> images, KeyHandler keyH) {
+    public Sprite(int x, int y, List<BufferedImage> images, KeyHandler keyH) {
         this(x, y, 0, images, keyH);
     }
 
@@ -118,14 +124,14 @@ public class Sprite {
     * @param y Sprite's y coordinate
     * @param image BufferedImage for this Sprite
     */
-    public Sprite(int x, int y, ArrayList<BufferedImage> images) {
+    public Sprite(int x, int y, List<BufferedImage> images) {
         this(x, y, 0, images, null);
     }
 
     /**
     * Creates a new Sprite at the given x and y coordinates, with the given speed, image, and
-    * KeyHandler. Adds the given image to the images ArrayList. If the given image is null,
-    * creates a 0-dimensional BufferedImage to add to the images ArrayList.
+    * KeyHandler. Adds the given image to the images List. If the given image is null,
+    * creates a 0-dimensional BufferedImage to add to the images List.
     * 
     * @param x Sprite's x coordinate
     * @param y Sprite's y coordinate
@@ -140,15 +146,14 @@ public class Sprite {
         if (image == null) {
             image = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
         }
-        this.images = new ArrayList<BufferedImage>();
-        this.images.add(image);
+        this.images = ImageAtlas.Frames.of(image);
         this.keyHandler = keyH;
         imagesIndex = 0;
     }
 
     /**
     * Creates a new Sprite at the given x and y coordinates, with the given speed, and image. Adds
-    * the given image to the images ArrayList. Sets keyHandler to null.
+    * the given image to the images List. Sets keyHandler to null.
     * 
     * @param x Sprite's x coordinate
     * @param y Sprite's y coordinate
@@ -161,7 +166,7 @@ public class Sprite {
 
     /**
     * Creates a new Sprite at the given x and y coordinates, and image. Adds the given image to the
-    * images ArrayList. Sets speed to 0.
+    * images List. Sets speed to 0.
     * 
     * @param x Sprite's x coordinate
     * @param y Sprite's y coordinate
@@ -174,7 +179,7 @@ public class Sprite {
 
     /**
     * Creates a new Sprite at the given x and y coordinates, and BufferedImage. Adds the given image
-    * to the images ArrayList. Sets speed to 0 and keyHandler to null.
+    * to the images List. Sets speed to 0 and keyHandler to null.
     * 
     * @param x Sprite's x coordinate
     * @param y Sprite's y coordinate
@@ -261,25 +266,74 @@ public class Sprite {
         g2.drawImage(images.get(imagesIndex), x, y, null);
     }
 
+    /**
+     * Sets the given Rectangle to the area of the screen this Sprite's draw() covers. Returns
+     * false, leaving the Rectangle unchanged, if this Sprite currently draws nothing.
+     *
+     * <p>Defaults to the current image's area with its top left at (x, y). Descendants that
+     * draw more than one image, or none, override this.
+     *
+     * @param bounds the Rectangle to fill in.
+     * @return true if bounds was filled in; false if this Sprite draws nothing.
+     */
+    public boolean fillDrawBounds(Rectangle bounds) {
+        BufferedImage image = getCurrentImage();
+        if (image == null) {
+            return false;
+        }
+        bounds.setBounds(this.x, this.y, image.getWidth(), image.getHeight());
+        return true;
+    }
+
+    /**
+     * Returns the image draw() currently shows, so callers can tell when this Sprite's
+     * appearance changes without it moving. Descendants that choose their image some other
+     * way than by imagesIndex override this.
+     *
+     * @return the image currently drawn; null if this Sprite draws nothing.
+     */
+    public BufferedImage getCurrentImage() {
+        return this.images.get(imagesIndex);
+    }
+
+    /**
+     * Moves the given HitBox to this sprite's hit box for its current location, if this Sprite
+     * is solid. Leaves the HitBox unchanged and returns false if this Sprite is not solid.
+     * 
+     * <p>Defaults to the dimension coordinates of this Sprite's current image. Descendants
+     * override this to change the shape of their hit box.
+     * 
+     * @param box the HitBox to fill in.
+     * @return true if box was filled in; false if this Sprite is not solid.
+     */
+    public boolean fillHitBox(HitBox box) {
+        if (!this.solid) {
+            return false;
+        }
+        box.set(this.x, this.x + this.images.get(imagesIndex).getWidth(), this.y,
+            this.y + this.images.get(imagesIndex).getHeight());
+        return true;
+    }
+
     /**
      * Returns the hit box for this sprite's current location if this Sprite is solid.
      * Returns null if this Sprite is not solid.
      * 
-     * <p>Defaults to the dimension coordinates of this Sprite's first image.
+     * <p>The returned HitBox belongs to this Sprite and is reused by every call, so it's only
+     * valid until the next call. Copy its values to keep them.
      * 
      * @return this Sprite's hit box; null if this Sprite is not solid.
      */
     public HitBox getHitBox() {
-        if (!this.solid) {
+        if (!fillHitBox(this.hitBox)) {
             return null;
         }
-        return new HitBox(this.x, this.x + this.images.get(imagesIndex).getWidth(), this.y,
-            this.y + this.images.get(imagesIndex).getHeight());
+        return this.hitBox;
     }
 
     /**
      * Returns whether or not this Sprite collides with the other Sprite. Both Sprites must be solid
-     * in order to collide.
+     * in order to collide. Doesn't allocate.
      * 
      * @param other the Sprite you're comparing
      * @return boolean
@@ -293,24 +347,16 @@ public class Sprite {
         if (thisHitBox == null || otherHitBox == null) {
             return false;
         }
-        if (thisHitBox.getXMin() > otherHitBox.getXMax()
-            || thisHitBox.getXMax() < otherHitBox.getXMin()) {
-            return false;
-        }
-        if (thisHitBox.getYMin() > otherHitBox.getYMax()
-            || thisHitBox.getYMax() < otherHitBox.getYMin()) {
-            return false;
-        }
-        return true;
+        return thisHitBox.intersects(otherHitBox);
     }
 
     /**
      * Returns a copy of an array list of buffered images.
      * 
-     * @param original the ArrayList to copy.
-     * @return a deep copy of the parameter ArrayList.
+     * @param original the List to copy.
+     * @return a deep copy of the parameter List.
      */
-    protected static ArrayList<BufferedImage> copyBufferedImages(ArrayList<BufferedImage> original) {
+    protected static ArrayList<BufferedImage> copyBufferedImages(List<BufferedImage> original) {
         if (original == null) {
             throw new NullPointerException("Cannot copy a null BufferedImage");
         }
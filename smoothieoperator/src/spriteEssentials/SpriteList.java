@@ -3,19 +3,80 @@ package smoothieoperator.src.spriteEssentials;
 import java.util.ArrayList;
 import java.awt.Graphics2D;
 
+import smoothieoperator.src.main.GamePanel;
+
 /**
  * Extension of ArrayList<Sprite>.
- * Includes methods to update or draw all elements in the SpriteList.
+ * Includes methods to update or draw all elements in the SpriteList, and to find the
+ * elements that collide with a Sprite or area without allocating.
+ *
+ * <p>By default, collision queries check every element. For large lists, enableSpatialIndex()
+ * keeps the solid elements in a SpatialGrid that update() brings up to date after moving
+ * them, and queries only check elements in nearby cells. Sprites added, removed or moved
+ * outside of update() are picked up at the next update() or reindex().
  */
 public class SpriteList extends ArrayList<Sprite> {
 
+    // reused by the collision queries
+    private final HitBox queryBox = new HitBox(0, 0, 0, 0);
+    private final HitBox candidateBox = new HitBox(0, 0, 0, 0);
+    private final ArrayList<Sprite> gridResults = new ArrayList<Sprite>();
+    private SpatialGrid grid; // null unless the spatial index is enabled
+
     /**
-     * Calls the update method for each Sprite in the SpriteList.
+     * Calls the update method for each Sprite in the SpriteList, then brings the spatial
+     * index up to date if it's enabled.
      */
     public void update() {
         for (Sprite x : this) {
             x.update();
         }
+        reindex();
+    }
+
+    /**
+     * Indexes this list's solid Sprites in a grid of GamePanel.TILE_SIZE cells covering the
+     * screen, so collision queries only check Sprites near the area being checked.
+     */
+    public void enableSpatialIndex() {
+        enableSpatialIndex(GamePanel.TILE_SIZE, GamePanel.SCREEN_WIDTH, GamePanel.SCREEN_HEIGHT);
+    }
+
+    /**
+     * Indexes this list's solid Sprites in a grid of cellSize cells covering the area from
+     * (0, 0) to (width, height), so collision queries only check Sprites near the area being
+     * checked. Sprites outside the area are kept in the grid's edge cells.
+     *
+     * @param cellSize width and height of each cell, in pixels.
+     * @param width width of the area to index.
+     * @param height height of the area to index.
+     * @throws IllegalArgumentException if any parameter is not positive.
+     */
+    public void enableSpatialIndex(int cellSize, int width, int height) {
+        grid = new SpatialGrid(cellSize, width, height);
+        grid.sync(this);
+    }
+
+    /**
+     * Stops indexing this list; collision queries go back to checking every Sprite.
+     */
+    public void disableSpatialIndex() {
+        grid = null;
+    }
+
+    public boolean isSpatiallyIndexed() {
+        return this.grid != null;
+    }
+
+    /**
+     * Brings the spatial index up to date with the Sprites' current hit boxes, if it's
+     * enabled. update() calls this; call it directly after adding, removing or moving
+     * Sprites some other way.
+     */
+    public void reindex() {
+        if (grid != null) {
+            grid.sync(this);
+        }
     }
 
     /**
@@ -26,4 +87,114 @@ public class SpriteList extends ArrayList<Sprite> {
             x.draw(g2);
         }
     }
+
+    /**
+     * Returns the first solid Sprite in this list that collides with the given Sprite, other
+     * than the given Sprite itself. With the spatial index enabled, the Sprite returned is
+     * any colliding one rather than the earliest in the list.
+     * 
+     * @param other the Sprite to check against.
+     * @return the first colliding Sprite; null if there is none or other isn't solid.
+     */
+    public Sprite findFirstCollision(Sprite other) {
+        if (other == null || !other.fillHitBox(queryBox)) {
+            return null;
+        }
+        if (grid != null) {
+            grid.query(queryBox, other, gridResults);
+            Sprite found = gridResults.isEmpty() ? null : gridResults.get(0);
+            gridResults.clear();
+            return found;
+        }
+        for (int i = 0; i < this.size(); i++) {
+            Sprite candidate = this.get(i);
+            if (candidate != other && candidate.fillHitBox(candidateBox)
+                    && candidateBox.intersects(queryBox)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Clears results, then adds every solid Sprite in this list that collides with the given
+     * Sprite, other than the given Sprite itself.
+     * 
+     * @param other the Sprite to check against.
+     * @param results the list to fill with colliding Sprites.
+     * @return the number of colliding Sprites.
+     */
+    public int findCollisions(Sprite other, SpriteList results) {
+        results.clear();
+        if (other == null || !other.fillHitBox(queryBox)) {
+            return 0;
+        }
+        collectIntersecting(queryBox, other, results);
+        return results.size();
+    }
+
+    /**
+     * Clears results, then adds every solid Sprite in this list whose hit box overlaps the
+     * given HitBox.
+     * 
+     * @param box the area to check.
+     * @param results the list to fill with overlapping Sprites.
+     * @return the number of overlapping Sprites.
+     */
+    public int findIntersecting(HitBox box, SpriteList results) {
+        results.clear();
+        if (box == null) {
+            return 0;
+        }
+        collectIntersecting(box, null, results);
+        return results.size();
+    }
+
+    /**
+     * Adds every solid Sprite other than skip whose hit box overlaps box to results.
+     */
+    private void collectIntersecting(HitBox box, Sprite skip, SpriteList results) {
+        if (grid != null) {
+            grid.query(box, skip, results);
+            return;
+        }
+        for (int i = 0; i < this.size(); i++) {
+            Sprite candidate = this.get(i);
+            if (candidate != skip && candidate.fillHitBox(candidateBox)
+                    && candidateBox.intersects(box)) {
+                results.add(candidate);
+            }
+        }
+    }
+
+    /**
+     * Clears results, then adds every pair of solid Sprites in this list that collide with
+     * each other, as consecutive elements: results[2k] collides with results[2k + 1]. With
+     * the spatial index enabled, only Sprites that share a cell are compared; otherwise every
+     * pair is.
+     *
+     * @param results the list to fill with colliding pairs.
+     * @return the number of colliding pairs.
+     */
+    public int findCollidingPairs(SpriteList results) {
+        results.clear();
+        if (grid != null) {
+            grid.collidingPairs(results);
+            return results.size() / 2;
+        }
+        for (int i = 0; i < this.size(); i++) {
+            Sprite a = this.get(i);
+            if (!a.fillHitBox(queryBox)) {
+                continue;
+            }
+            for (int j = i + 1; j < this.size(); j++) {
+                Sprite b = this.get(j);
+                if (b.fillHitBox(candidateBox) && candidateBox.intersects(queryBox)) {
+                    results.add(a);
+                    results.add(b);
+                }
+            }
+        }
+        return results.size() / 2;
+    }
 }
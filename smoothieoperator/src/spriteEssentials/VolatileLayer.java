@@ -0,0 +1,116 @@
+package smoothieoperator.src.spriteEssentials;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+
+/**
+ * An image that never changes, such as a background, kept in a VolatileImage so it can be
+ * drawn from video memory where the graphics pipeline supports it.
+ *
+ * <p>A VolatileImage's contents can be lost at any time (for example, when the display mode
+ * changes), so the layer checks the cached copy before every draw and redraws it from the
+ * original image when it's been lost or no longer suits the screen. If the copy can't be
+ * kept, the original is drawn instead; if one can't be made at all, caching turns itself
+ * off. Caching can also be turned off with setEnabled().
+ */
+public class VolatileLayer {
+
+    private static final int MAX_ATTEMPTS = 3; // tries to draw before falling back
+
+    private final BufferedImage source;
+    private VolatileImage cache;
+    private boolean enabled;
+
+    /**
+     * Creates a VolatileLayer that draws the given image.
+     *
+     * @param source the image to cache, which mustn't be drawn into afterwards.
+     * @throws IllegalArgumentException if source is null.
+     */
+    public VolatileLayer(BufferedImage source) {
+        if (source == null) {
+            throw new IllegalArgumentException("source cannot be null.");
+        }
+        this.source = source;
+        this.enabled = true;
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * Sets whether to draw from the cached VolatileImage or straight from the original image.
+     * Turning caching off releases the cached copy.
+     *
+     * @param enabled true to cache the image.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled && cache != null) {
+            cache.flush();
+            cache = null;
+        }
+    }
+
+    /**
+     * Draws the image with its top left corner at (x, y), from the cached copy if caching is
+     * enabled.
+     *
+     * @param g2 the graphics to draw with.
+     * @param x x-coordinate of the image's left edge.
+     * @param y y-coordinate of the image's top edge.
+     */
+    public void draw(Graphics2D g2, int x, int y) {
+        if (enabled) {
+            GraphicsConfiguration gc = g2.getDeviceConfiguration();
+            for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+                if (!validate(gc)) {
+                    break;
+                }
+                g2.drawImage(cache, x, y, null);
+                if (!cache.contentsLost()) {
+                    return;
+                }
+            }
+        }
+        g2.drawImage(source, x, y, null);
+    }
+
+    /**
+     * Makes sure the cached copy exists, suits the given configuration and holds the image,
+     * creating or redrawing it as needed.
+     *
+     * @return false if the copy couldn't be made.
+     */
+    private boolean validate(GraphicsConfiguration gc) {
+        int status = cache == null ? VolatileImage.IMAGE_INCOMPATIBLE : cache.validate(gc);
+        if (status == VolatileImage.IMAGE_INCOMPATIBLE) {
+            if (cache != null) {
+                cache.flush();
+            }
+            try {
+                cache = gc.createCompatibleVolatileImage(source.getWidth(), source.getHeight(),
+                        source.getTransparency());
+            } catch (RuntimeException e) { // some configurations can't make them
+                cache = null;
+            }
+            if (cache == null) {
+                enabled = false; // don't try again every frame
+                return false;
+            }
+            cache.validate(gc);
+        } else if (status == VolatileImage.IMAGE_OK) {
+            return true;
+        }
+        // new or restored, so its contents need (re)drawing
+        Graphics2D cacheGraphics = cache.createGraphics();
+        cacheGraphics.setComposite(AlphaComposite.Src);
+        cacheGraphics.drawImage(source, 0, 0, null);
+        cacheGraphics.dispose();
+        return true;
+    }
+}